@@ -20,8 +20,10 @@
 
 import java.io.Serializable;
 import javax.annotation.concurrent.Immutable;
+import org.openide.util.lookup.ServiceProvider;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
+import org.sleuthkit.autopsy.events.RemoteEventCodec;
 import org.sleuthkit.datamodel.BlackboardArtifactTag;
 import org.sleuthkit.datamodel.TskCoreException;
 
@@ -37,6 +39,10 @@ public BlackBoardArtifactTagAddedEvent(BlackboardArtifactTag newTag) {
         super(Case.Events.BLACKBOARD_ARTIFACT_TAG_ADDED.toString(), newTag);
     }
 
+    private BlackBoardArtifactTagAddedEvent(long tagID) {
+        super(Case.Events.BLACKBOARD_ARTIFACT_TAG_ADDED.toString(), tagID);
+    }
+
     /**
      * get the BlackboardArtifactTag that was added by its id
      *
@@ -49,4 +55,26 @@ public BlackBoardArtifactTagAddedEvent(BlackboardArtifactTag newTag) {
     BlackboardArtifactTag getTagByID() throws NoCurrentCaseException, TskCoreException {
         return Case.getCurrentCaseThrows().getServices().getTagsManager().getBlackboardArtifactTagByTagID(getTagID());
     }
+
+    /**
+     * Sends blackboard artifact tag added events to other nodes as just the
+     * id of the tag.
+     */
+    @ServiceProvider(service = RemoteEventCodec.class)
+    public static final class RemoteCodec extends TagAddedEventCodec<BlackBoardArtifactTagAddedEvent> {
+
+        public RemoteCodec() {
+            super(BlackBoardArtifactTagAddedEvent.class);
+        }
+
+        @Override
+        public String getEventName() {
+            return Case.Events.BLACKBOARD_ARTIFACT_TAG_ADDED.toString();
+        }
+
+        @Override
+        BlackBoardArtifactTagAddedEvent createEvent(long tagID) {
+            return new BlackBoardArtifactTagAddedEvent(tagID);
+        }
+    }
 }
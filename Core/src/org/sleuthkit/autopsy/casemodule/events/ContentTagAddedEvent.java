@@ -20,8 +20,10 @@
 
 import java.io.Serializable;
 import javax.annotation.concurrent.Immutable;
+import org.openide.util.lookup.ServiceProvider;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
+import org.sleuthkit.autopsy.events.RemoteEventCodec;
 import org.sleuthkit.datamodel.ContentTag;
 import org.sleuthkit.datamodel.TskCoreException;
 
@@ -37,6 +39,10 @@ public ContentTagAddedEvent(ContentTag newTag) {
         super(Case.Events.CONTENT_TAG_ADDED.toString(), newTag);
     }
 
+    private ContentTagAddedEvent(long tagID) {
+        super(Case.Events.CONTENT_TAG_ADDED.toString(), tagID);
+    }
+
     /**
      * get the ContentTag that was added by its id
      *
@@ -48,4 +54,25 @@ public ContentTagAddedEvent(ContentTag newTag) {
     ContentTag getTagByID() throws NoCurrentCaseException, TskCoreException {
         return Case.getCurrentCaseThrows().getServices().getTagsManager().getContentTagByTagID(getTagID());
     }
+
+    /**
+     * Sends content tag added events to other nodes as just the id of the tag.
+     */
+    @ServiceProvider(service = RemoteEventCodec.class)
+    public static final class RemoteCodec extends TagAddedEventCodec<ContentTagAddedEvent> {
+
+        public RemoteCodec() {
+            super(ContentTagAddedEvent.class);
+        }
+
+        @Override
+        public String getEventName() {
+            return Case.Events.CONTENT_TAG_ADDED.toString();
+        }
+
+        @Override
+        ContentTagAddedEvent createEvent(long tagID) {
+            return new ContentTagAddedEvent(tagID);
+        }
+    }
 }
@@ -18,11 +18,15 @@
  */
 package org.sleuthkit.autopsy.casemodule.events;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.events.AutopsyEvent;
+import org.sleuthkit.autopsy.events.RemoteEventCodec;
 import org.sleuthkit.datamodel.Tag;
 import org.sleuthkit.datamodel.TskCoreException;
 
@@ -51,6 +55,18 @@
         tagID = addedTag.getId();
     }
 
+    /**
+     * Constructs an event received from another node, whose tag is loaded
+     * from the database when it is first asked for.
+     *
+     * @param propertyName The event name.
+     * @param tagID        The id of the tag that was added.
+     */
+    TagAddedEvent(String propertyName, long tagID) {
+        super(propertyName, null, null);
+        this.tagID = tagID;
+    }
+
     /**
      * get the id of the Tag that was added
      *
@@ -103,4 +119,43 @@ public T getNewValue() {
      * @throws TskCoreException
      */
     abstract T getTagByID() throws NoCurrentCaseException, TskCoreException;
+
+    /**
+     * Base class for the codecs that send tag added events to other nodes as
+     * just the id of the tag.
+     *
+     * @param <E> The type of the event.
+     */
+    abstract static class TagAddedEventCodec<E extends TagAddedEvent<?>> implements RemoteEventCodec {
+
+        private final Class<E> eventClass;
+
+        TagAddedEventCodec(Class<E> eventClass) {
+            this.eventClass = eventClass;
+        }
+
+        @Override
+        public boolean canEncode(AutopsyEvent event) {
+            return event.getClass() == eventClass;
+        }
+
+        @Override
+        public void encode(AutopsyEvent event, DataOutput out) throws IOException {
+            out.writeLong(eventClass.cast(event).getTagID());
+        }
+
+        @Override
+        public AutopsyEvent decode(DataInput in) throws IOException {
+            return createEvent(in.readLong());
+        }
+
+        /**
+         * Constructs a decoded event.
+         *
+         * @param tagID The id of the tag that was added.
+         *
+         * @return The event.
+         */
+        abstract E createEvent(long tagID);
+    }
 }
@@ -18,10 +18,15 @@
  */
 package org.sleuthkit.autopsy.centralrepository.datamodel;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.stream.Collectors;
 import java.sql.Connection;
@@ -34,7 +39,17 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.logging.Level;
+import javax.annotation.concurrent.GuardedBy;
 import org.openide.util.NbBundle.Messages;
 import org.sleuthkit.autopsy.casemodule.Case;
 import static org.sleuthkit.autopsy.centralrepository.datamodel.EamDbUtil.updateSchemaVersion;
@@ -50,12 +65,45 @@
 public abstract class AbstractSqlEamDb implements EamDb {
 
     private final static Logger LOGGER = Logger.getLogger(AbstractSqlEamDb.class.getName());
+    private final static int REFERENCE_SET_VALUES_FETCH_SIZE = 10000;
+    private final static int VALUES_IN_REFERENCE_SET_BATCH_SIZE = 500;
+    private final static int CACHE_EXPIRATION_MINUTES = 5;
+    private final static int MAX_PENDING_BULK_WRITES = 2;
+    private final static String BULK_WRITER_THREAD_NAME = "Central-Repository-Bulk-Writer-%d"; //NON-NLS
 
     protected final List<CorrelationAttribute.Type> DEFAULT_CORRELATION_TYPES;
 
+    /*
+     * Artifacts passed to prepareBulkArtifact() are collected in a buffer that
+     * is handed off to a dedicated writer thread when it is full, so that
+     * ingest threads do not do central repository I/O. The number of full
+     * buffers waiting to be written is bounded, which applies backpressure to
+     * the ingest threads if the writer falls behind. The writer thread is
+     * started when the first buffer is handed off, and is stopped after the
+     * buffers have been written when an ingest job ends or the connections
+     * are shut down.
+     */
+    private final Object bulkArtifactsLock = new Object();
+    @GuardedBy("bulkArtifactsLock")
     private int bulkArtifactsCount;
     protected int bulkArtifactsThreshold;
-    private final Map<String, Collection<CorrelationAttribute>> bulkArtifacts;
+    @GuardedBy("bulkArtifactsLock")
+    private Map<String, Collection<CorrelationAttribute>> bulkArtifacts;
+    @GuardedBy("bulkArtifactsLock")
+    private ExecutorService bulkWriteExecutor;
+    private final Semaphore bulkWritePermits = new Semaphore(MAX_PENDING_BULK_WRITES);
+    private final AtomicReference<EamDbException> bulkWriteError = new AtomicReference<>();
+
+    /*
+     * Read-through caches of the correlation types, cases and data sources,
+     * which are read far more often than they are changed. The entries expire
+     * so that changes made by other users of a shared central repository are
+     * eventually seen.
+     */
+    private final Cache<Integer, CorrelationAttribute.Type> typeCache = CacheBuilder.newBuilder().expireAfterWrite(CACHE_EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
+    private final Cache<String, CorrelationCase> caseCacheByUUID = CacheBuilder.newBuilder().expireAfterWrite(CACHE_EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
+    private final Cache<String, CorrelationDataSource> dataSourceCacheByDeviceId = CacheBuilder.newBuilder().expireAfterWrite(CACHE_EXPIRATION_MINUTES, TimeUnit.MINUTES).build();
+    private volatile boolean typeCacheIsComplete;
 
     /**
      * Connect to the DB and initialize it.
@@ -63,13 +111,23 @@ public abstract class AbstractSqlEamDb implements EamDb {
      * @throws UnknownHostException, EamDbException
      */
     protected AbstractSqlEamDb() throws EamDbException {
+        DEFAULT_CORRELATION_TYPES = CorrelationAttribute.getDefaultCorrelationTypes();
         bulkArtifactsCount = 0;
-        bulkArtifacts = new HashMap<>();
+        bulkArtifacts = newBulkArtifactsBuffer();
+    }
 
-        DEFAULT_CORRELATION_TYPES = CorrelationAttribute.getDefaultCorrelationTypes();
+    /**
+     * Makes an empty buffer for artifacts to be bulk inserted, with a list of
+     * artifacts for each of the default correlation types.
+     *
+     * @return The buffer, keyed by correlation type table name
+     */
+    private Map<String, Collection<CorrelationAttribute>> newBulkArtifactsBuffer() {
+        Map<String, Collection<CorrelationAttribute>> buffer = new HashMap<>();
         DEFAULT_CORRELATION_TYPES.forEach((type) -> {
-            bulkArtifacts.put(type.getDbTableName(), new ArrayList<>());
+            buffer.put(type.getDbTableName(), new ArrayList<>());
         });
+        return buffer;
     }
 
     /**
@@ -168,6 +226,18 @@ public void updateDbInfo(String name, String value) throws EamDbException {
         }
     }
 
+    /**
+     * Clears the caches of correlation types, cases and data sources, e.g.,
+     * because the database has been reset or the connection settings have
+     * changed.
+     */
+    protected void clearCaches() {
+        typeCacheIsComplete = false;
+        typeCache.invalidateAll();
+        caseCacheByUUID.invalidateAll();
+        dataSourceCacheByDeviceId.invalidateAll();
+    }
+
     /**
      * Creates new Case in the database
      *
@@ -333,6 +403,7 @@ public void updateCase(CorrelationCase eamCase) throws EamDbException {
         } catch (SQLException ex) {
             throw new EamDbException("Error updating case.", ex); // NON-NLS
         } finally {
+            caseCacheByUUID.invalidate(eamCase.getCaseUUID());
             EamDbUtil.closePreparedStatement(preparedStatement);
             EamDbUtil.closeConnection(conn);
         }
@@ -347,7 +418,10 @@ public void updateCase(CorrelationCase eamCase) throws EamDbException {
      */
     @Override
     public CorrelationCase getCaseByUUID(String caseUUID) throws EamDbException {
-        // @@@ We should have a cache here...
+        CorrelationCase cachedCase = caseCacheByUUID.getIfPresent(caseUUID);
+        if (null != cachedCase) {
+            return copyCase(cachedCase);
+        }
 
         Connection conn = connect();
 
@@ -376,9 +450,26 @@ public CorrelationCase getCaseByUUID(String caseUUID) throws EamDbException {
             EamDbUtil.closeConnection(conn);
         }
 
+        if (null != eamCaseResult) {
+            caseCacheByUUID.put(caseUUID, copyCase(eamCaseResult));
+        }
         return eamCaseResult;
     }
 
+    /**
+     * Makes a copy of a case, so that the cached cases cannot be changed by
+     * the callers that get them.
+     *
+     * @param eamCase The case to copy
+     *
+     * @return The copy
+     */
+    private static CorrelationCase copyCase(CorrelationCase eamCase) {
+        return new CorrelationCase(eamCase.getID(), eamCase.getCaseUUID(), eamCase.getOrg(), eamCase.getDisplayName(),
+                eamCase.getCreationDate(), eamCase.getCaseNumber(), eamCase.getExaminerName(), eamCase.getExaminerEmail(),
+                eamCase.getExaminerPhone(), eamCase.getNotes());
+    }
+
     /**
      * Retrieves cases that are in DB.
      *
@@ -460,7 +551,25 @@ public CorrelationDataSource getDataSource(CorrelationCase correlationCase, Stri
         if(correlationCase == null) {
             throw new EamDbException("CorrelationCase argument is null");
         }
-        
+        return getDataSource(correlationCase.getID(), dataSourceDeviceId);
+    }
+
+    /**
+     * Retrieves Data Source details based on the case ID and data source
+     * device ID, using the cache of data sources
+     *
+     * @param caseID             the database ID of the case
+     * @param dataSourceDeviceId the data source device ID number
+     *
+     * @return The data source, or null if it is not in the database
+     */
+    private CorrelationDataSource getDataSource(int caseID, String dataSourceDeviceId) throws EamDbException {
+        String cacheKey = caseID + "/" + dataSourceDeviceId;
+        CorrelationDataSource cachedDataSource = dataSourceCacheByDeviceId.getIfPresent(cacheKey);
+        if (null != cachedDataSource) {
+            return cachedDataSource;
+        }
+
         Connection conn = connect();
 
         CorrelationDataSource eamDataSourceResult = null;
@@ -472,7 +581,7 @@ public CorrelationDataSource getDataSource(CorrelationCase correlationCase, Stri
         try {
             preparedStatement = conn.prepareStatement(sql);
             preparedStatement.setString(1, dataSourceDeviceId);
-            preparedStatement.setInt(2, correlationCase.getID());
+            preparedStatement.setInt(2, caseID);
             resultSet = preparedStatement.executeQuery();
             if (resultSet.next()) {
                 eamDataSourceResult = getEamDataSourceFromResultSet(resultSet);
@@ -485,6 +594,9 @@ public CorrelationDataSource getDataSource(CorrelationCase correlationCase, Stri
             EamDbUtil.closeConnection(conn);
         }
 
+        if (null != eamDataSourceResult) {
+            dataSourceCacheByDeviceId.put(cacheKey, eamDataSourceResult);
+        }
         return eamDataSourceResult;
     }
 
@@ -545,14 +657,12 @@ public void addArtifact(CorrelationAttribute eamArtifact) throws EamDbException
         List<CorrelationAttributeInstance> eamInstances = eamArtifact.getInstances();
         PreparedStatement preparedStatement = null;
 
-        // @@@ We should cache the case and data source IDs in memory
         String tableName = EamDbUtil.correlationTypeToInstanceTableName(eamArtifact.getCorrelationType());
         StringBuilder sql = new StringBuilder();
         sql.append("INSERT INTO ");
         sql.append(tableName);
         sql.append("(case_id, data_source_id, value, file_path, known_status, comment) ");
-        sql.append("VALUES ((SELECT id FROM cases WHERE case_uid=? LIMIT 1), ");
-        sql.append("(SELECT id FROM data_sources WHERE device_id=? AND case_id=? LIMIT 1), ?, ?, ?, ?) ");
+        sql.append("VALUES (?, ?, ?, ?, ?, ?) ");
         sql.append(getConflictClause());
        
         try {
@@ -569,16 +679,15 @@ public void addArtifact(CorrelationAttribute eamArtifact) throws EamDbException
                         throw new EamDbException("CorrelationAttributeInstance has null known status");
                     }
                     
-                    preparedStatement.setString(1, eamInstance.getCorrelationCase().getCaseUUID());
-                    preparedStatement.setString(2, eamInstance.getCorrelationDataSource().getDeviceID());
-                    preparedStatement.setInt(3, eamInstance.getCorrelationDataSource().getCaseID());
-                    preparedStatement.setString(4, eamArtifact.getCorrelationValue());
-                    preparedStatement.setString(5, eamInstance.getFilePath());
-                    preparedStatement.setByte(6, eamInstance.getKnownStatus().getFileKnownValue());
+                    preparedStatement.setInt(1, resolveCaseID(eamInstance.getCorrelationCase()));
+                    preparedStatement.setInt(2, resolveDataSourceID(eamInstance.getCorrelationDataSource()));
+                    preparedStatement.setString(3, eamArtifact.getCorrelationValue());
+                    preparedStatement.setString(4, eamInstance.getFilePath());
+                    preparedStatement.setByte(5, eamInstance.getKnownStatus().getFileKnownValue());
                     if ("".equals(eamInstance.getComment())) {
-                        preparedStatement.setNull(7, Types.INTEGER);
+                        preparedStatement.setNull(6, Types.INTEGER);
                     } else {
-                        preparedStatement.setString(7, eamInstance.getComment());
+                        preparedStatement.setString(6, eamInstance.getComment());
                     }
 
                     preparedStatement.executeUpdate();
@@ -592,6 +701,48 @@ public void addArtifact(CorrelationAttribute eamArtifact) throws EamDbException
         }
     }
 
+    /**
+     * Gets the database ID of a case, looking it up by UUID if the case object
+     * does not have it.
+     *
+     * @param correlationCase The case
+     *
+     * @return The database ID of the case
+     *
+     * @throws EamDbException if the case is not in the database
+     */
+    protected int resolveCaseID(CorrelationCase correlationCase) throws EamDbException {
+        if (-1 != correlationCase.getID()) {
+            return correlationCase.getID();
+        }
+        CorrelationCase dbCase = getCaseByUUID(correlationCase.getCaseUUID());
+        if (null == dbCase) {
+            throw new EamDbException("Case " + correlationCase.getCaseUUID() + " is not in the central repository"); // NON-NLS
+        }
+        return dbCase.getID();
+    }
+
+    /**
+     * Gets the database ID of a data source, looking it up by case ID and
+     * device ID if the data source object does not have it.
+     *
+     * @param correlationDataSource The data source
+     *
+     * @return The database ID of the data source
+     *
+     * @throws EamDbException if the data source is not in the database
+     */
+    protected int resolveDataSourceID(CorrelationDataSource correlationDataSource) throws EamDbException {
+        if (-1 != correlationDataSource.getID()) {
+            return correlationDataSource.getID();
+        }
+        CorrelationDataSource dbDataSource = getDataSource(correlationDataSource.getCaseID(), correlationDataSource.getDeviceID());
+        if (null == dbDataSource) {
+            throw new EamDbException("Data source " + correlationDataSource.getDeviceID() + " is not in the central repository"); // NON-NLS
+        }
+        return dbDataSource.getID();
+    }
+
     /**
      * Retrieves eamArtifact instances from the database that are associated
      * with the eamArtifactType and eamArtifactValue of the given eamArtifact.
@@ -896,7 +1047,16 @@ public Long getCountArtifactInstancesByCaseDataSource(String caseUUID, String da
      * can have 1 or more Artifact Instances. Insert will be triggered by a
      * threshold or a call to bulkInsertArtifacts().
      *
+     * When the threshold is reached, the artifacts are written by a background
+     * thread. This method only blocks if that thread has fallen more than
+     * MAX_PENDING_BULK_WRITES batches behind.
+     *
      * @param eamArtifact The artifact to add
+     *
+     * @throws EamDbException if the correlation type of the artifact is null,
+     *                        or if a bulk insert done by the writer thread
+     *                        has failed since the last error was reported.
+     *                        The artifact is added in the latter case.
      */
     @Override
     public void prepareBulkArtifact(CorrelationAttribute eamArtifact) throws EamDbException {
@@ -905,14 +1065,20 @@ public void prepareBulkArtifact(CorrelationAttribute eamArtifact) throws EamDbEx
             throw new EamDbException("Correlation type is null");
         }
         
-        synchronized (bulkArtifacts) {
+        synchronized (bulkArtifactsLock) {
             bulkArtifacts.get(eamArtifact.getCorrelationType().getDbTableName()).add(eamArtifact);
             bulkArtifactsCount++;
 
             if (bulkArtifactsCount >= bulkArtifactsThreshold) {
-                bulkInsertArtifacts();
+                submitBulkArtifacts();
             }
         }
+
+        // report write errors as soon as possible rather than at the next flush
+        EamDbException writeError = bulkWriteError.getAndSet(null);
+        if (null != writeError) {
+            throw new EamDbException("Error inserting earlier bulk artifacts.", writeError); // NON-NLS
+        }
     }
 
     /**
@@ -924,82 +1090,229 @@ public void prepareBulkArtifact(CorrelationAttribute eamArtifact) throws EamDbEx
 
     /**
      * Executes a bulk insert of the eamArtifacts added from the
-     * prepareBulkArtifact() method
+     * prepareBulkArtifact() method, and waits until all of the bulk inserts
+     * queued so far have been written.
+     *
+     * @throws EamDbException if any of the bulk inserts done by the writer
+     *                        thread since the last call failed
      */
     @Override
     public void bulkInsertArtifacts() throws EamDbException {
+        Future<?> writesDone;
+        synchronized (bulkArtifactsLock) {
+            if (bulkArtifactsCount > 0) {
+                submitBulkArtifacts();
+            }
+            /*
+             * The writer thread works through the buffers in order, so this
+             * no-op task completes after all of the writes submitted so far.
+             */
+            writesDone = getBulkWriteExecutor().submit(() -> {
+            });
+        }
+
+        try {
+            writesDone.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EamDbException("Interrupted waiting for bulk artifacts to be inserted.", ex); // NON-NLS
+        } catch (ExecutionException ex) {
+            throw new EamDbException("Error waiting for bulk artifacts to be inserted.", ex); // NON-NLS
+        }
+
+        EamDbException writeError = bulkWriteError.getAndSet(null);
+        if (null != writeError) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * Writes the artifacts added by prepareBulkArtifact() and stops the bulk
+     * writer thread once it has written everything queued so far. The thread
+     * is started again if more artifacts are added. Called when an ingest job
+     * ends and when the connections are shut down, so that no writes are left
+     * behind.
+     *
+     * @throws EamDbException if interrupted while waiting for the writer
+     *                        thread, or if any of the bulk inserts done by
+     *                        the writer thread since the last error was
+     *                        reported failed
+     */
+    @Override
+    public void shutDownBulkArtifactsWriter() throws EamDbException {
+        synchronized (bulkArtifactsLock) {
+            if (bulkArtifactsCount > 0) {
+                submitBulkArtifacts();
+            }
+            /*
+             * The lock is held while the writer thread finishes, so that a
+             * new writer thread is not started before this one is done. The
+             * writer thread does not take the lock.
+             */
+            if (null != bulkWriteExecutor) {
+                bulkWriteExecutor.shutdown();
+                try {
+                    while (!bulkWriteExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                        LOGGER.log(Level.INFO, "Waiting for bulk artifacts to be inserted."); // NON-NLS
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new EamDbException("Interrupted waiting for bulk artifacts to be inserted.", ex); // NON-NLS
+                }
+                bulkWriteExecutor = null;
+            }
+        }
+
+        EamDbException writeError = bulkWriteError.getAndSet(null);
+        if (null != writeError) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * Gets the executor of the bulk writer thread, starting the thread if it
+     * is not running.
+     *
+     * @return The executor.
+     */
+    @GuardedBy("bulkArtifactsLock")
+    private ExecutorService getBulkWriteExecutor() {
+        if (null == bulkWriteExecutor) {
+            bulkWriteExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(BULK_WRITER_THREAD_NAME).setDaemon(true).build());
+        }
+        return bulkWriteExecutor;
+    }
+
+    /**
+     * Hands off the current buffer of artifacts to the writer thread and
+     * starts a new buffer. Blocks if there are already MAX_PENDING_BULK_WRITES
+     * buffers waiting to be written.
+     *
+     * @throws EamDbException if interrupted while waiting for the writer
+     *                        thread
+     */
+    @GuardedBy("bulkArtifactsLock")
+    private void submitBulkArtifacts() throws EamDbException {
+        try {
+            bulkWritePermits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EamDbException("Interrupted waiting to queue bulk artifacts.", ex); // NON-NLS
+        }
+
+        Map<String, Collection<CorrelationAttribute>> artifactsToWrite = bulkArtifacts;
+        bulkArtifacts = newBulkArtifactsBuffer();
+        bulkArtifactsCount = 0;
+        getBulkWriteExecutor().submit(() -> {
+            try {
+                insertBulkArtifacts(artifactsToWrite);
+            } catch (EamDbException ex) {
+                LOGGER.log(Level.SEVERE, "Error inserting bulk artifacts.", ex); // NON-NLS
+                bulkWriteError.compareAndSet(null, ex);
+            } finally {
+                bulkWritePermits.release();
+            }
+        });
+    }
+
+    /**
+     * Inserts a buffer of artifacts collected by prepareBulkArtifact() in a
+     * single transaction. Called on the writer thread.
+     *
+     * @param artifactsByTableName The artifacts, keyed by correlation type
+     *                             table name
+     *
+     * @throws EamDbException
+     */
+    protected void insertBulkArtifacts(Map<String, Collection<CorrelationAttribute>> artifactsByTableName) throws EamDbException {
         List<CorrelationAttribute.Type> artifactTypes = getDefinedCorrelationTypes();
 
         Connection conn = connect();
         PreparedStatement bulkPs = null;
 
         try {
-            synchronized (bulkArtifacts) {
-                if (bulkArtifactsCount == 0) {
-                    return;
+            conn.setAutoCommit(false);
+            for (CorrelationAttribute.Type type : artifactTypes) {
+                Collection<CorrelationAttribute> eamArtifacts = artifactsByTableName.get(type.getDbTableName());
+                if (null == eamArtifacts || eamArtifacts.isEmpty()) {
+                    continue;
                 }
 
-                for (CorrelationAttribute.Type type : artifactTypes) {
-
-                    String tableName = EamDbUtil.correlationTypeToInstanceTableName(type);
-                    StringBuilder sql = new StringBuilder();
-                    sql.append("INSERT INTO ");
-                    sql.append(tableName);
-                    sql.append(" (case_id, data_source_id, value, file_path, known_status, comment) ");
-                    sql.append("VALUES ((SELECT id FROM cases WHERE case_uid=? LIMIT 1), ");
-                    sql.append("(SELECT id FROM data_sources WHERE device_id=? AND case_id=? LIMIT 1), ?, ?, ?, ?) ");
-                    sql.append(getConflictClause());
-
-                    bulkPs = conn.prepareStatement(sql.toString());
-
-                    Collection<CorrelationAttribute> eamArtifacts = bulkArtifacts.get(type.getDbTableName());
-                    for (CorrelationAttribute eamArtifact : eamArtifacts) {
-                        List<CorrelationAttributeInstance> eamInstances = eamArtifact.getInstances();
-
-                        for (CorrelationAttributeInstance eamInstance : eamInstances) {
-                            if (!eamArtifact.getCorrelationValue().isEmpty()) {
-                                
-                                if(eamInstance.getCorrelationCase() == null) {
-                                    throw new EamDbException("Correlation attribute instance has null case");
-                                }
-                                if(eamInstance.getCorrelationDataSource() == null) {
-                                    throw new EamDbException("Correlation attribute instance has null data source");
-                                }
-                                if(eamInstance.getKnownStatus()== null) {
-                                    throw new EamDbException("Correlation attribute instance has null known known status");
-                                }
-                                
-                                bulkPs.setString(1, eamInstance.getCorrelationCase().getCaseUUID());
-                                bulkPs.setString(2, eamInstance.getCorrelationDataSource().getDeviceID());
-                                bulkPs.setInt(3, eamInstance.getCorrelationDataSource().getCaseID());
-                                bulkPs.setString(4, eamArtifact.getCorrelationValue());
-                                bulkPs.setString(5, eamInstance.getFilePath());
-                                bulkPs.setByte(6, eamInstance.getKnownStatus().getFileKnownValue());
-                                if ("".equals(eamInstance.getComment())) {
-                                    bulkPs.setNull(7, Types.INTEGER);
-                                } else {
-                                    bulkPs.setString(7, eamInstance.getComment());
-                                }
-                                bulkPs.addBatch();
+                String tableName = EamDbUtil.correlationTypeToInstanceTableName(type);
+                StringBuilder sql = new StringBuilder();
+                sql.append("INSERT INTO ");
+                sql.append(tableName);
+                sql.append(" (case_id, data_source_id, value, file_path, known_status, comment) ");
+                sql.append("VALUES (?, ?, ?, ?, ?, ?) ");
+                sql.append(getConflictClause());
+
+                bulkPs = conn.prepareStatement(sql.toString());
+
+                for (CorrelationAttribute eamArtifact : eamArtifacts) {
+                    List<CorrelationAttributeInstance> eamInstances = eamArtifact.getInstances();
+
+                    for (CorrelationAttributeInstance eamInstance : eamInstances) {
+                        if (!eamArtifact.getCorrelationValue().isEmpty()) {
+                            checkBulkArtifactInstance(eamInstance);
+
+                            bulkPs.setInt(1, resolveCaseID(eamInstance.getCorrelationCase()));
+                            bulkPs.setInt(2, resolveDataSourceID(eamInstance.getCorrelationDataSource()));
+                            bulkPs.setString(3, eamArtifact.getCorrelationValue());
+                            bulkPs.setString(4, eamInstance.getFilePath());
+                            bulkPs.setByte(5, eamInstance.getKnownStatus().getFileKnownValue());
+                            if ("".equals(eamInstance.getComment())) {
+                                bulkPs.setNull(6, Types.INTEGER);
+                            } else {
+                                bulkPs.setString(6, eamInstance.getComment());
                             }
+                            bulkPs.addBatch();
                         }
                     }
-
-                    bulkPs.executeBatch();
-                    bulkArtifacts.get(type.getDbTableName()).clear();
                 }
 
-                // Reset state
-                bulkArtifactsCount = 0;
+                bulkPs.executeBatch();
+                EamDbUtil.closePreparedStatement(bulkPs);
+                bulkPs = null;
+            }
+            conn.commit();
+        } catch (SQLException | EamDbException ex) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex2) {
+                // We're alredy in an error state
             }
-        } catch (SQLException ex) {
             throw new EamDbException("Error inserting bulk artifacts.", ex); // NON-NLS
         } finally {
             EamDbUtil.closePreparedStatement(bulkPs);
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Error restoring auto commit on central repository connection", ex); // NON-NLS
+            }
             EamDbUtil.closeConnection(conn);
         }
     }
 
+    /**
+     * Checks that an artifact instance to be bulk inserted has a case, a data
+     * source and a known status.
+     *
+     * @param eamInstance The artifact instance
+     *
+     * @throws EamDbException if any of them are missing
+     */
+    protected static void checkBulkArtifactInstance(CorrelationAttributeInstance eamInstance) throws EamDbException {
+        if(eamInstance.getCorrelationCase() == null) {
+            throw new EamDbException("Correlation attribute instance has null case");
+        }
+        if(eamInstance.getCorrelationDataSource() == null) {
+            throw new EamDbException("Correlation attribute instance has null data source");
+        }
+        if(eamInstance.getKnownStatus()== null) {
+            throw new EamDbException("Correlation attribute instance has null known known status");
+        }
+    }
+
     /**
      * Executes a bulk insert of the cases
      */
@@ -1477,6 +1790,146 @@ public boolean isValueInReferenceSet(String value, int referenceSetID, int corre
         return 0 < matchingInstances;
     }
 
+    /**
+     * Gets the subset of a batch of values that are in a specific reference
+     * set. Large batches are split into several queries to stay within the
+     * limits the databases place on the number of query parameters.
+     *
+     * @param values
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @return the values in the batch that are found in the reference set
+     */
+    @Override
+    public Set<String> getValuesInReferenceSet(Collection<String> values, int referenceSetID, int correlationTypeID) throws EamDbException {
+
+        Set<String> matchingValues = new HashSet<>();
+        if (values.isEmpty()) {
+            return matchingValues;
+        }
+
+        Connection conn = connect();
+
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        String sql = "SELECT DISTINCT value FROM %s WHERE reference_set_id=? AND value IN (%s)";
+
+        String tableName = EamDbUtil.correlationTypeToReferenceTableName(getCorrelationTypeById(correlationTypeID));
+
+        try {
+            List<String> valueList = new ArrayList<>(values);
+            for (int start = 0; start < valueList.size(); start += VALUES_IN_REFERENCE_SET_BATCH_SIZE) {
+                List<String> batch = valueList.subList(start, Math.min(start + VALUES_IN_REFERENCE_SET_BATCH_SIZE, valueList.size()));
+                String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+                preparedStatement = conn.prepareStatement(String.format(sql, tableName, placeholders));
+                preparedStatement.setInt(1, referenceSetID);
+                for (int i = 0; i < batch.size(); ++i) {
+                    preparedStatement.setString(i + 2, batch.get(i));
+                }
+                resultSet = preparedStatement.executeQuery();
+                while (resultSet.next()) {
+                    matchingValues.add(resultSet.getString(1));
+                }
+                EamDbUtil.closeResultSet(resultSet);
+                EamDbUtil.closePreparedStatement(preparedStatement);
+                resultSet = null;
+                preparedStatement = null;
+            }
+        } catch (SQLException ex) {
+            throw new EamDbException("Error determining which of " + values.size() + " values are in reference set " + referenceSetID, ex); // NON-NLS
+        } finally {
+            EamDbUtil.closePreparedStatement(preparedStatement);
+            EamDbUtil.closeResultSet(resultSet);
+            EamDbUtil.closeConnection(conn);
+        }
+
+        return matchingValues;
+    }
+
+    /**
+     * Gets the number of values in a specific reference set
+     *
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @return the number of values in the reference set
+     */
+    @Override
+    public Long getCountReferenceSetValues(int referenceSetID, int correlationTypeID) throws EamDbException {
+
+        Connection conn = connect();
+
+        Long valueCount = 0L;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        String sql = "SELECT count(*) FROM %s WHERE reference_set_id=?";
+
+        String tableName = EamDbUtil.correlationTypeToReferenceTableName(getCorrelationTypeById(correlationTypeID));
+
+        try {
+            preparedStatement = conn.prepareStatement(String.format(sql, tableName));
+            preparedStatement.setInt(1, referenceSetID);
+            resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            valueCount = resultSet.getLong(1);
+        } catch (SQLException ex) {
+            throw new EamDbException("Error counting values in reference set " + referenceSetID, ex); // NON-NLS
+        } finally {
+            EamDbUtil.closePreparedStatement(preparedStatement);
+            EamDbUtil.closeResultSet(resultSet);
+            EamDbUtil.closeConnection(conn);
+        }
+
+        return valueCount;
+    }
+
+    /**
+     * Passes each of the values in a specific reference set to a consumer. The
+     * values are fetched from the database in batches, so that large reference
+     * sets are not read into memory all at once.
+     *
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @param valueConsumer
+     */
+    @Override
+    public void processReferenceSetValues(int referenceSetID, int correlationTypeID, Consumer<String> valueConsumer) throws EamDbException {
+
+        Connection conn = connect();
+
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        String sql = "SELECT value FROM %s WHERE reference_set_id=?";
+
+        String tableName = EamDbUtil.correlationTypeToReferenceTableName(getCorrelationTypeById(correlationTypeID));
+
+        try {
+            /*
+             * Some JDBC drivers, e.g., PostgreSQL, only fetch in batches
+             * within a transaction.
+             */
+            conn.setAutoCommit(false);
+            preparedStatement = conn.prepareStatement(String.format(sql, tableName));
+            preparedStatement.setFetchSize(REFERENCE_SET_VALUES_FETCH_SIZE);
+            preparedStatement.setInt(1, referenceSetID);
+            resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                valueConsumer.accept(resultSet.getString(1));
+            }
+            conn.commit();
+        } catch (SQLException ex) {
+            throw new EamDbException("Error reading values of reference set " + referenceSetID, ex); // NON-NLS
+        } finally {
+            EamDbUtil.closePreparedStatement(preparedStatement);
+            EamDbUtil.closeResultSet(resultSet);
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Error restoring auto commit on central repository connection", ex); // NON-NLS
+            }
+            EamDbUtil.closeConnection(conn);
+        }
+    }
+
     /**
      * Is the artifact known as bad according to the reference entries?
      *
@@ -2087,6 +2540,7 @@ public int newCorrelationType(CorrelationAttribute.Type newType) throws EamDbExc
         } catch (SQLException ex) {
             throw new EamDbException("Error inserting new correlation type.", ex); // NON-NLS
         } finally {
+            typeCacheIsComplete = false;
             EamDbUtil.closePreparedStatement(preparedStatement);
             EamDbUtil.closePreparedStatement(preparedStatementQuery);
             EamDbUtil.closeResultSet(resultSet);
@@ -2097,28 +2551,11 @@ public int newCorrelationType(CorrelationAttribute.Type newType) throws EamDbExc
 
     @Override
     public List<CorrelationAttribute.Type> getDefinedCorrelationTypes() throws EamDbException {
-        Connection conn = connect();
-
         List<CorrelationAttribute.Type> aTypes = new ArrayList<>();
-        PreparedStatement preparedStatement = null;
-        ResultSet resultSet = null;
-        String sql = "SELECT * FROM correlation_types";
-
-        try {
-            preparedStatement = conn.prepareStatement(sql);
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                aTypes.add(getCorrelationTypeFromResultSet(resultSet));
-            }
-            return aTypes;
-
-        } catch (SQLException ex) {
-            throw new EamDbException("Error getting all correlation types.", ex); // NON-NLS
-        } finally {
-            EamDbUtil.closePreparedStatement(preparedStatement);
-            EamDbUtil.closeResultSet(resultSet);
-            EamDbUtil.closeConnection(conn);
+        for (CorrelationAttribute.Type aType : getCachedCorrelationTypes()) {
+            aTypes.add(copyCorrelationType(aType));
         }
+        return aTypes;
     }
 
     /**
@@ -2132,28 +2569,13 @@ public List<CorrelationAttribute.Type> getDefinedCorrelationTypes() throws EamDb
      */
     @Override
     public List<CorrelationAttribute.Type> getEnabledCorrelationTypes() throws EamDbException {
-        Connection conn = connect();
-
         List<CorrelationAttribute.Type> aTypes = new ArrayList<>();
-        PreparedStatement preparedStatement = null;
-        ResultSet resultSet = null;
-        String sql = "SELECT * FROM correlation_types WHERE enabled=1";
-
-        try {
-            preparedStatement = conn.prepareStatement(sql);
-            resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                aTypes.add(getCorrelationTypeFromResultSet(resultSet));
+        for (CorrelationAttribute.Type aType : getCachedCorrelationTypes()) {
+            if (aType.isEnabled()) {
+                aTypes.add(copyCorrelationType(aType));
             }
-            return aTypes;
-
-        } catch (SQLException ex) {
-            throw new EamDbException("Error getting enabled correlation types.", ex); // NON-NLS
-        } finally {
-            EamDbUtil.closePreparedStatement(preparedStatement);
-            EamDbUtil.closeResultSet(resultSet);
-            EamDbUtil.closeConnection(conn);
         }
+        return aTypes;
     }
 
     /**
@@ -2167,12 +2589,36 @@ public List<CorrelationAttribute.Type> getEnabledCorrelationTypes() throws EamDb
      */
     @Override
     public List<CorrelationAttribute.Type> getSupportedCorrelationTypes() throws EamDbException {
+        List<CorrelationAttribute.Type> aTypes = new ArrayList<>();
+        for (CorrelationAttribute.Type aType : getCachedCorrelationTypes()) {
+            if (aType.isSupported()) {
+                aTypes.add(copyCorrelationType(aType));
+            }
+        }
+        return aTypes;
+    }
+
+    /**
+     * Gets all of the correlation types from the cache, loading them from the
+     * database if the cache is not complete.
+     *
+     * @return The cached correlation types, in ID order. These must not be
+     * changed or handed out to callers.
+     *
+     * @throws EamDbException
+     */
+    private List<CorrelationAttribute.Type> getCachedCorrelationTypes() throws EamDbException {
+        Map<Integer, CorrelationAttribute.Type> cachedTypes = new TreeMap<>(typeCache.asMap());
+        if (typeCacheIsComplete && !cachedTypes.isEmpty()) {
+            return new ArrayList<>(cachedTypes.values());
+        }
+
         Connection conn = connect();
 
         List<CorrelationAttribute.Type> aTypes = new ArrayList<>();
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
-        String sql = "SELECT * FROM correlation_types WHERE supported=1";
+        String sql = "SELECT * FROM correlation_types ORDER BY id";
 
         try {
             preparedStatement = conn.prepareStatement(sql);
@@ -2180,15 +2626,34 @@ public List<CorrelationAttribute.Type> getSupportedCorrelationTypes() throws Eam
             while (resultSet.next()) {
                 aTypes.add(getCorrelationTypeFromResultSet(resultSet));
             }
-            return aTypes;
-
         } catch (SQLException ex) {
-            throw new EamDbException("Error getting supported correlation types.", ex); // NON-NLS
+            throw new EamDbException("Error getting all correlation types.", ex); // NON-NLS
         } finally {
             EamDbUtil.closePreparedStatement(preparedStatement);
             EamDbUtil.closeResultSet(resultSet);
             EamDbUtil.closeConnection(conn);
         }
+
+        typeCache.invalidateAll();
+        for (CorrelationAttribute.Type aType : aTypes) {
+            typeCache.put(aType.getId(), aType);
+        }
+        typeCacheIsComplete = true;
+        return aTypes;
+    }
+
+    /**
+     * Makes a copy of a correlation type, so that the cached types cannot be
+     * changed by the callers that get them.
+     *
+     * @param aType The correlation type to copy
+     *
+     * @return The copy
+     *
+     * @throws EamDbException
+     */
+    private static CorrelationAttribute.Type copyCorrelationType(CorrelationAttribute.Type aType) throws EamDbException {
+        return new CorrelationAttribute.Type(aType.getId(), aType.getDisplayName(), aType.getDbTableName(), aType.isSupported(), aType.isEnabled());
     }
 
     /**
@@ -2217,6 +2682,8 @@ public void updateCorrelationType(CorrelationAttribute.Type aType) throws EamDbE
         } catch (SQLException ex) {
             throw new EamDbException("Error updating correlation type.", ex); // NON-NLS
         } finally {
+            typeCacheIsComplete = false;
+            typeCache.invalidate(aType.getId());
             EamDbUtil.closePreparedStatement(preparedStatement);
             EamDbUtil.closeConnection(conn);
         }
@@ -2234,6 +2701,12 @@ public void updateCorrelationType(CorrelationAttribute.Type aType) throws EamDbE
      */
     @Override
     public CorrelationAttribute.Type getCorrelationTypeById(int typeId) throws EamDbException {
+        CorrelationAttribute.Type cachedType = typeCache.getIfPresent(typeId);
+        if (null != cachedType) {
+            return copyCorrelationType(cachedType);
+        }
+        typeCacheIsComplete = false;
+
         Connection conn = connect();
 
         CorrelationAttribute.Type aType;
@@ -2247,7 +2720,8 @@ public CorrelationAttribute.Type getCorrelationTypeById(int typeId) throws EamDb
             resultSet = preparedStatement.executeQuery();
             if(resultSet.next()) {
                 aType = getCorrelationTypeFromResultSet(resultSet);
-                return aType;
+                typeCache.put(typeId, aType);
+                return copyCorrelationType(aType);
             } else {
                 throw new EamDbException("Failed to find entry for correlation type ID = " + typeId);
             }
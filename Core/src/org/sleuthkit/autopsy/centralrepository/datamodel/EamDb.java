@@ -19,8 +19,10 @@
 package org.sleuthkit.autopsy.centralrepository.datamodel;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.sleuthkit.datamodel.TskData;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coordinationservice.CoordinationService;
@@ -304,6 +306,16 @@ static boolean isEnabled() {
      */
     void bulkInsertArtifacts() throws EamDbException;
 
+    /**
+     * Executes a bulk insert of the eamArtifacts added from the
+     * prepareBulkArtifact() method and stops any background writing of bulk
+     * artifacts once everything added so far has been written. Writing is
+     * started again if more artifacts are added.
+     *
+     * @throws EamDbException
+     */
+    void shutDownBulkArtifactsWriter() throws EamDbException;
+
     /**
      * Executes a bulk insert of the cases
      */
@@ -407,6 +419,40 @@ static boolean isEnabled() {
      */
     public boolean isValueInReferenceSet(String value, int referenceSetID, int correlationTypeID) throws EamDbException;
 
+    /**
+     * Gets the number of values in a specific reference set
+     *
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @return the number of values in the reference set
+     * @throws EamDbException
+     */
+    public Long getCountReferenceSetValues(int referenceSetID, int correlationTypeID) throws EamDbException;
+
+    /**
+     * Gets the subset of a batch of values that are in a specific reference
+     * set
+     *
+     * @param values
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @return the values in the batch that are found in the reference set
+     * @throws EamDbException
+     */
+    public Set<String> getValuesInReferenceSet(Collection<String> values, int referenceSetID, int correlationTypeID) throws EamDbException;
+
+    /**
+     * Passes each of the values in a specific reference set to a consumer,
+     * e.g., to load the reference set into a local lookup cache without
+     * holding all of the values in memory at once
+     *
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @param valueConsumer
+     * @throws EamDbException
+     */
+    public void processReferenceSetValues(int referenceSetID, int correlationTypeID, Consumer<String> valueConsumer) throws EamDbException;
+
     /**
      * Is the artifact known as bad according to the reference entries?
      *
@@ -18,12 +18,19 @@
  */
 package org.sleuthkit.autopsy.centralrepository.datamodel;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.sleuthkit.autopsy.casemodule.CaseActionCancelledException;
 import org.sleuthkit.autopsy.casemodule.CaseActionException;
 import org.sleuthkit.autopsy.coordinationservice.CoordinationService;
@@ -39,6 +46,7 @@ public class PostgresEamDb extends AbstractSqlEamDb {
     private final static Logger LOGGER = Logger.getLogger(PostgresEamDb.class.getName());
 
     private final static String CONFLICT_CLAUSE = "ON CONFLICT DO NOTHING";
+    private final static String BULK_INSERT_COLUMNS = "case_id, data_source_id, value, file_path, known_status, comment"; //NON-NLS
 
     private static PostgresEamDb instance;
 
@@ -74,12 +82,19 @@ private PostgresEamDb() throws EamDbException {
 
     @Override
     public void shutdownConnections() throws EamDbException {
+        // write the bulk artifacts before the connections go away
+        try {
+            shutDownBulkArtifactsWriter();
+        } catch (EamDbException ex) {
+            LOGGER.log(Level.SEVERE, "Error inserting bulk artifacts before shutting down connections.", ex); // NON-NLS
+        }
         try {
             synchronized(this) {
                 if(connectionPool != null){
                     connectionPool.close();
                     connectionPool = null; // force it to be re-created on next connect()
                 }
+                clearCaches();
             }
         } catch (SQLException ex) {
             throw new EamDbException("Failed to close existing database connections.", ex); // NON-NLS
@@ -129,6 +144,7 @@ public void reset() throws EamDbException {
             EamDbUtil.closeConnection(conn);
         }
 
+        clearCaches();
         dbSettings.insertDefaultDatabaseContent();
     }
 
@@ -190,6 +206,135 @@ protected Connection connect() throws EamDbException {
     protected String getConflictClause() {
         return CONFLICT_CLAUSE;
     }
+
+    /**
+     * Inserts a buffer of artifacts collected by prepareBulkArtifact() in a
+     * single transaction. The artifacts are streamed into a temporary staging
+     * table with COPY, which is much faster than a batch of INSERT statements,
+     * and then moved into the instances table with a single INSERT ... SELECT
+     * so that duplicates are still skipped by the conflict clause.
+     *
+     * @param artifactsByTableName The artifacts, keyed by correlation type
+     *                             table name
+     *
+     * @throws EamDbException
+     */
+    @Override
+    protected void insertBulkArtifacts(Map<String, Collection<CorrelationAttribute>> artifactsByTableName) throws EamDbException {
+        List<CorrelationAttribute.Type> artifactTypes = getDefinedCorrelationTypes();
+
+        Connection conn = connect();
+        boolean canCopy;
+        try {
+            canCopy = conn.isWrapperFor(PGConnection.class);
+        } catch (SQLException ex) {
+            canCopy = false;
+        }
+        if (!canCopy) {
+            EamDbUtil.closeConnection(conn);
+            super.insertBulkArtifacts(artifactsByTableName);
+            return;
+        }
+
+        Statement statement = null;
+        try {
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+
+            conn.setAutoCommit(false);
+            statement = conn.createStatement();
+            for (CorrelationAttribute.Type type : artifactTypes) {
+                Collection<CorrelationAttribute> eamArtifacts = artifactsByTableName.get(type.getDbTableName());
+                if (null == eamArtifacts || eamArtifacts.isEmpty()) {
+                    continue;
+                }
+
+                StringBuilder rows = new StringBuilder();
+                for (CorrelationAttribute eamArtifact : eamArtifacts) {
+                    for (CorrelationAttributeInstance eamInstance : eamArtifact.getInstances()) {
+                        if (!eamArtifact.getCorrelationValue().isEmpty()) {
+                            checkBulkArtifactInstance(eamInstance);
+
+                            rows.append(resolveCaseID(eamInstance.getCorrelationCase())).append('\t');
+                            rows.append(resolveDataSourceID(eamInstance.getCorrelationDataSource())).append('\t');
+                            appendCopyValue(rows, eamArtifact.getCorrelationValue());
+                            rows.append('\t');
+                            appendCopyValue(rows, eamInstance.getFilePath());
+                            rows.append('\t');
+                            rows.append(eamInstance.getKnownStatus().getFileKnownValue()).append('\t');
+                            appendCopyValue(rows, "".equals(eamInstance.getComment()) ? null : eamInstance.getComment());
+                            rows.append('\n');
+                        }
+                    }
+                }
+                if (rows.length() == 0) {
+                    continue;
+                }
+
+                String tableName = EamDbUtil.correlationTypeToInstanceTableName(type);
+                String stagingTableName = "bulk_" + tableName; //NON-NLS
+                statement.execute("CREATE TEMPORARY TABLE " + stagingTableName
+                        + " (case_id integer, data_source_id integer, value text, file_path text, known_status integer, comment text) ON COMMIT DROP"); //NON-NLS
+                copyManager.copyIn("COPY " + stagingTableName + " (" + BULK_INSERT_COLUMNS + ") FROM STDIN", new StringReader(rows.toString())); //NON-NLS
+                statement.executeUpdate("INSERT INTO " + tableName + " (" + BULK_INSERT_COLUMNS + ") SELECT " + BULK_INSERT_COLUMNS
+                        + " FROM " + stagingTableName + " " + getConflictClause()); //NON-NLS
+            }
+            conn.commit();
+        } catch (SQLException | IOException | EamDbException ex) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex2) {
+                // We're alredy in an error state
+            }
+            throw new EamDbException("Error copying bulk artifacts.", ex); // NON-NLS
+        } finally {
+            if (null != statement) {
+                try {
+                    statement.close();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error closing Statement.", ex); // NON-NLS
+                }
+            }
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Error restoring auto commit on central repository connection", ex); // NON-NLS
+            }
+            EamDbUtil.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Appends a value to a row of PostgreSQL COPY text format input, escaping
+     * the characters that have special meaning in that format.
+     *
+     * @param row   The row
+     * @param value The value, may be null
+     */
+    private static void appendCopyValue(StringBuilder row, String value) {
+        if (null == value) {
+            row.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+    }
     
     /**
      * Gets an exclusive lock (if applicable).
@@ -23,9 +23,12 @@
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.sleuthkit.autopsy.coreutils.Logger;
@@ -79,12 +82,19 @@ private SqliteEamDb() throws EamDbException {
 
     @Override
     public void shutdownConnections() throws EamDbException {
+        // write the bulk artifacts before the connections go away
+        try {
+            shutDownBulkArtifactsWriter();
+        } catch (EamDbException ex) {
+            LOGGER.log(Level.SEVERE, "Error inserting bulk artifacts before shutting down connections.", ex); // NON-NLS
+        }
         try {
             synchronized(this) {
                 if (null != connectionPool) {
                     connectionPool.close();
                     connectionPool = null; // force it to be re-created on next connect()
                 }
+                clearCaches();
             }
         } catch (SQLException ex) {
             throw new EamDbException("Failed to close existing database connections.", ex); // NON-NLS
@@ -140,6 +150,7 @@ public void reset() throws EamDbException {
                 EamDbUtil.closeConnection(conn);
             }
 
+            clearCaches();
             dbSettings.insertDefaultDatabaseContent();
         } finally {
             releaseExclusiveLock();
@@ -525,14 +536,19 @@ public Long getCountArtifactInstancesByCaseDataSource(String caseUUID, String da
     }    
     
     /**
-     * Executes a bulk insert of the eamArtifacts added from the
-     * prepareBulkArtifact() method
+     * Inserts a buffer of artifacts collected by prepareBulkArtifact() in a
+     * single transaction. Called on the bulk writer thread; the exclusive lock
+     * is taken here rather than in bulkInsertArtifacts() because that method
+     * waits for the writer thread.
+     *
+     * @param artifactsByTableName The artifacts, keyed by correlation type
+     *                             table name
      */
     @Override
-    public void bulkInsertArtifacts() throws EamDbException {
+    protected void insertBulkArtifacts(Map<String, Collection<CorrelationAttribute>> artifactsByTableName) throws EamDbException {
         try{
             acquireExclusiveLock();
-            super.bulkInsertArtifacts();
+            super.insertBulkArtifacts(artifactsByTableName);
         } finally {
             releaseExclusiveLock();
         }            
@@ -661,6 +677,59 @@ public boolean isValueInReferenceSet(String value, int referenceSetID, int corre
             releaseSharedLock();
         }          
     }
+
+    /**
+     * Gets the subset of a batch of values that are in a specific reference
+     * set
+     *
+     * @param values
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @return the values in the batch that are found in the reference set
+     */
+    @Override
+    public Set<String> getValuesInReferenceSet(Collection<String> values, int referenceSetID, int correlationTypeID) throws EamDbException {
+        try{
+            acquireSharedLock();
+            return super.getValuesInReferenceSet(values, referenceSetID, correlationTypeID);
+        } finally {
+            releaseSharedLock();
+        }
+    }
+
+    /**
+     * Gets the number of values in a specific reference set
+     *
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @return the number of values in the reference set
+     */
+    @Override
+    public Long getCountReferenceSetValues(int referenceSetID, int correlationTypeID) throws EamDbException {
+        try{
+            acquireSharedLock();
+            return super.getCountReferenceSetValues(referenceSetID, correlationTypeID);
+        } finally {
+            releaseSharedLock();
+        }
+    }
+
+    /**
+     * Passes each of the values in a specific reference set to a consumer.
+     *
+     * @param referenceSetID
+     * @param correlationTypeID
+     * @param valueConsumer
+     */
+    @Override
+    public void processReferenceSetValues(int referenceSetID, int correlationTypeID, Consumer<String> valueConsumer) throws EamDbException {
+        try{
+            acquireSharedLock();
+            super.processReferenceSetValues(referenceSetID, correlationTypeID, valueConsumer);
+        } finally {
+            releaseSharedLock();
+        }
+    }
     
     /**
      * Check whether a reference set with the given name/version is in the central repo.
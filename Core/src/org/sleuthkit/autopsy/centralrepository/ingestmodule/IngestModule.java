@@ -174,7 +174,12 @@ public void shutDown() {
             return;
         }
         try {
-            dbManager.bulkInsertArtifacts();
+            if (refCounter.decrementAndGet(jobId) == 0) {
+                // the job is done, so let the background writer go
+                dbManager.shutDownBulkArtifactsWriter();
+            } else {
+                dbManager.bulkInsertArtifacts();
+            }
         } catch (EamDbException ex) {
             logger.log(Level.SEVERE, "Error doing bulk insert of artifacts.", ex); // NON-NLS
         }
@@ -184,9 +189,6 @@ public void shutDown() {
         } catch (EamDbException ex) {
             logger.log(Level.SEVERE, "Error counting artifacts.", ex); // NON-NLS
         }
-
-        // TODO: once we implement shared cache, if refCounter is 1, then submit data in bulk.
-        refCounter.decrementAndGet(jobId);
     }
 
     // see ArtifactManagerTimeTester for details
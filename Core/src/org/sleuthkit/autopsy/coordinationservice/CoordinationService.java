@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.coordinationservice;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
@@ -30,9 +31,13 @@
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
 import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.apache.curator.framework.recipes.locks.InterProcessReadWriteLock;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
@@ -56,6 +61,7 @@ public final class CoordinationService {
     private static final int ZOOKEEPER_CONNECTION_TIMEOUT_MILLIS = 15000;
     private static final int PORT_OFFSET = 1000; // When run in Solr, ZooKeeper defaults to Solr port + 1000
     private static final String DEFAULT_NAMESPACE_ROOT = "autopsy";
+    private static final String WATCH_THREAD_NAME = "coord-svc-watch-%d"; //NON-NLS
     @GuardedBy("CoordinationService.class")
     private static CoordinationService instance;
     private final CuratorFramework curator;
@@ -376,6 +382,61 @@ public List<String> getNodeList(CategoryNode category) throws CoordinationServic
         }
     }
 
+    /**
+     * Starts watching the child nodes of a category in the namespace. The
+     * listener is first told about each existing child node and its data, and
+     * then that all of the existing child nodes have been reported. After
+     * that, it is told about each child node that is added, each child node
+     * whose data is changed, and each child node that is removed. Only the
+     * nodes that change are read from the coordination service once the
+     * existing child nodes have been reported. If the connection to the
+     * coordination service is lost and restored, the child nodes are read
+     * again and the listener is told about the differences.
+     * <p>
+     * The listener is called on a thread owned by the watch, one call at a
+     * time.
+     *
+     * @param category The desired category in the namespace.
+     * @param listener The listener for child node changes.
+     *
+     * @return The watch, which must be closed to stop watching.
+     *
+     * @throws CoordinationServiceException If there is an error starting the
+     *                                      watch.
+     */
+    public CategoryNodeWatch watchCategoryNodes(CategoryNode category, CategoryNodeListener listener) throws CoordinationServiceException {
+        String categoryPath = categoryNodeToPath.get(category.getDisplayName());
+        PathChildrenCache cache = new PathChildrenCache(curator, categoryPath, true, false, new ThreadFactoryBuilder().setNameFormat(WATCH_THREAD_NAME).setDaemon(true).build());
+        cache.getListenable().addListener((CuratorFramework client, PathChildrenCacheEvent event) -> {
+            ChildData childData = event.getData();
+            switch (event.getType()) {
+                case CHILD_ADDED:
+                case CHILD_UPDATED:
+                    listener.nodeAddedOrChanged(ZKPaths.getNodeFromPath(childData.getPath()), childData.getData());
+                    /*
+                     * The listener keeps whatever it needs from the data, so
+                     * the cache only needs to keep the node versions.
+                     */
+                    cache.clearDataBytes(childData.getPath(), childData.getStat().getVersion());
+                    break;
+                case CHILD_REMOVED:
+                    listener.nodeRemoved(ZKPaths.getNodeFromPath(childData.getPath()));
+                    break;
+                case INITIALIZED:
+                    listener.existingNodesReported();
+                    break;
+                default:
+                    break;
+            }
+        });
+        try {
+            cache.start(PathChildrenCache.StartMode.POST_INITIALIZED_EVENT);
+        } catch (Exception ex) {
+            throw new CoordinationServiceException(String.format("Failed to start watching %s", categoryPath), ex);
+        }
+        return new CategoryNodeWatch(categoryPath, cache);
+    }
+
     /**
      * Creates a node path within a given category.
      *
@@ -446,6 +507,63 @@ public void close() throws CoordinationServiceException {
         }
     }
 
+    /**
+     * A listener for changes to the child nodes of a category node.
+     */
+    public interface CategoryNodeListener {
+
+        /**
+         * Called when a child node is reported as existing, is added, or has
+         * its data changed.
+         *
+         * @param nodeName The name of the child node.
+         * @param data     The data of the child node, may be null or empty.
+         */
+        void nodeAddedOrChanged(String nodeName, byte[] data);
+
+        /**
+         * Called when a child node is removed.
+         *
+         * @param nodeName The name of the child node.
+         */
+        void nodeRemoved(String nodeName);
+
+        /**
+         * Called when all of the child nodes that existed when the watch was
+         * started have been reported.
+         */
+        void existingNodesReported();
+    }
+
+    /**
+     * An opaque encapsulation of a watch of the child nodes of a category
+     * node. Instances are obtained by calling watchCategoryNodes and must be
+     * closed to stop watching.
+     */
+    public static class CategoryNodeWatch implements AutoCloseable {
+
+        /**
+         * This implementation uses the Curator path children cache. see
+         * http://curator.apache.org/curator-recipes/path-cache.html
+         */
+        private final String categoryPath;
+        private final PathChildrenCache cache;
+
+        private CategoryNodeWatch(String categoryPath, PathChildrenCache cache) {
+            this.categoryPath = categoryPath;
+            this.cache = cache;
+        }
+
+        @Override
+        public void close() throws CoordinationServiceException {
+            try {
+                cache.close();
+            } catch (IOException ex) {
+                throw new CoordinationServiceException(String.format("Failed to stop watching %s", categoryPath), ex);
+            }
+        }
+    }
+
     /**
      * Category nodes are the immediate children of the root node of a shared
      * hierarchical namespace managed by a coordination service.
@@ -46,6 +46,9 @@ public final class UserPreferences {
     public static final String HIDE_SLACK_FILES_IN_VIEWS_TREE = "HideSlackFilesInViewsTree"; //NON-NLS 
     public static final String DISPLAY_TIMES_IN_LOCAL_TIME = "DisplayTimesInLocalTime"; //NON-NLS
     public static final String NUMBER_OF_FILE_INGEST_THREADS = "NumberOfFileIngestThreads"; //NON-NLS
+    public static final String NUMBER_OF_DATA_SOURCE_INGEST_THREADS = "NumberOfDataSourceIngestThreads"; //NON-NLS
+    public static final String USE_WORK_STEALING_FILE_INGEST_SCHEDULER = "UseWorkStealingFileIngestScheduler"; //NON-NLS
+    public static final String SEND_REMOTE_EVENTS_IN_BATCHES = "SendRemoteEventsInBatches"; //NON-NLS
     public static final String IS_MULTI_USER_MODE_ENABLED = "IsMultiUserModeEnabled"; //NON-NLS
     public static final String EXTERNAL_DATABASE_HOSTNAME_OR_IP = "ExternalDatabaseHostnameOrIp"; //NON-NLS
     public static final String EXTERNAL_DATABASE_PORTNUMBER = "ExternalDatabasePortNumber"; //NON-NLS
@@ -187,6 +190,54 @@ public static void setNumberOfFileIngestThreads(int value) {
         preferences.putInt(NUMBER_OF_FILE_INGEST_THREADS, value);
     }
 
+    /**
+     * Gets the number of threads used to run data source level ingest tasks,
+     * i.e., the number of ingest jobs that can be in data source level ingest
+     * at the same time. Takes effect the next time the application is started.
+     *
+     * @return The number of threads, at least one.
+     */
+    public static int numberOfDataSourceIngestThreads() {
+        return Math.max(1, preferences.getInt(NUMBER_OF_DATA_SOURCE_INGEST_THREADS, 1));
+    }
+
+    public static void setNumberOfDataSourceIngestThreads(int value) {
+        preferences.putInt(NUMBER_OF_DATA_SOURCE_INGEST_THREADS, value);
+    }
+
+    /**
+     * Indicates whether the file ingest threads should get their tasks from
+     * per-thread work stealing task deques instead of a single shared task
+     * queue. Takes effect the next time the application is started.
+     *
+     * @return True or false.
+     */
+    public static boolean useWorkStealingFileIngestScheduler() {
+        return preferences.getBoolean(USE_WORK_STEALING_FILE_INGEST_SCHEDULER, false);
+    }
+
+    public static void setUseWorkStealingFileIngestScheduler(boolean value) {
+        preferences.putBoolean(USE_WORK_STEALING_FILE_INGEST_SCHEDULER, value);
+    }
+
+    /**
+     * Indicates whether events published to other nodes should be sent in
+     * batches, one message per batch, instead of one serialized event per
+     * message. Nodes older than this version do not understand batches and
+     * drop them without any error, so this is off by default and should only
+     * be turned on once every node that shares the message service has been
+     * upgraded. Takes effect the next time a remote event channel is opened.
+     *
+     * @return True or false.
+     */
+    public static boolean sendRemoteEventsInBatches() {
+        return preferences.getBoolean(SEND_REMOTE_EVENTS_IN_BATCHES, false);
+    }
+
+    public static void setSendRemoteEventsInBatches(boolean value) {
+        preferences.putBoolean(SEND_REMOTE_EVENTS_IN_BATCHES, value);
+    }
+
     /**
      * Reads persisted case database connection info.
      *
@@ -45,6 +45,7 @@
 import org.sleuthkit.autopsy.coreutils.ModuleSettings;
 import org.sleuthkit.autopsy.coreutils.PlatformUtil;
 import org.sleuthkit.autopsy.coreutils.Version;
+import org.sleuthkit.autopsy.healthmonitor.EnterpriseHealthMonitor;
 import org.sleuthkit.autopsy.report.ReportBranding;
 
 /**
@@ -302,6 +303,7 @@ void load() {
         agencyLogoPathField.setEnabled(!useDefault);
         browseLogosButton.setEnabled(!useDefault);
         logFileCount.setText(String.valueOf(UserPreferences.getLogFileCount()));
+        exportMetricsCB.setSelected(EnterpriseHealthMonitor.localExportIsEnabled());
         try {
             updateAgencyLogo(path);
         } catch (IOException ex) {
@@ -357,6 +359,7 @@ void store() {
         UserPreferences.setHideSlackFilesInViewsTree(viewsHideSlackCB.isSelected());
         UserPreferences.setDisplayTimesInLocalTime(useLocalTimeRB.isSelected());
         UserPreferences.setLogFileCount(Integer.parseInt(logFileCount.getText()));
+        EnterpriseHealthMonitor.setLocalExportEnabled(exportMetricsCB.isSelected());
         if (!agencyLogoPathField.getText().isEmpty()) {
             File file = new File(agencyLogoPathField.getText());
             if (file.exists()) {
@@ -560,6 +563,7 @@ private void initComponents() {
         maxLogFileCount = new javax.swing.JLabel();
         logFileCount = new javax.swing.JTextField();
         logNumAlert = new javax.swing.JTextField();
+        exportMetricsCB = new javax.swing.JCheckBox();
 
         setPreferredSize(new java.awt.Dimension(1022, 488));
 
@@ -815,6 +819,14 @@ public void keyReleased(java.awt.event.KeyEvent evt) {
         logNumAlert.setText(org.openide.util.NbBundle.getMessage(AutopsyOptionsPanel.class, "AutopsyOptionsPanel.logNumAlert.text")); // NOI18N
         logNumAlert.setBorder(null);
 
+        org.openide.awt.Mnemonics.setLocalizedText(exportMetricsCB, org.openide.util.NbBundle.getMessage(AutopsyOptionsPanel.class, "AutopsyOptionsPanel.exportMetricsCB.text")); // NOI18N
+        exportMetricsCB.setToolTipText(org.openide.util.NbBundle.getMessage(AutopsyOptionsPanel.class, "AutopsyOptionsPanel.exportMetricsCB.toolTipText")); // NOI18N
+        exportMetricsCB.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                exportMetricsCBActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout runtimePanelLayout = new javax.swing.GroupLayout(runtimePanel);
         runtimePanel.setLayout(runtimePanelLayout);
         runtimePanelLayout.setHorizontalGroup(
@@ -847,7 +859,8 @@ public void keyReleased(java.awt.event.KeyEvent evt) {
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                         .addComponent(logFileCount, javax.swing.GroupLayout.PREFERRED_SIZE, 37, javax.swing.GroupLayout.PREFERRED_SIZE)
                         .addGap(18, 18, 18)
-                        .addComponent(logNumAlert)))
+                        .addComponent(logNumAlert))
+                    .addComponent(exportMetricsCB))
                 .addContainerGap())
         );
 
@@ -877,6 +890,8 @@ public void keyReleased(java.awt.event.KeyEvent evt) {
                     .addComponent(maxLogFileCount)
                     .addComponent(logFileCount, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(logNumAlert, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(exportMetricsCB)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
 
@@ -940,6 +955,10 @@ private void memFieldKeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event
         firePropertyChange(OptionsPanelController.PROP_CHANGED, null, null);
     }//GEN-LAST:event_memFieldKeyReleased
 
+    private void exportMetricsCBActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_exportMetricsCBActionPerformed
+        firePropertyChange(OptionsPanelController.PROP_CHANGED, null, null);
+    }//GEN-LAST:event_exportMetricsCBActionPerformed
+
     private void useGMTTimeRBActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_useGMTTimeRBActionPerformed
         firePropertyChange(OptionsPanelController.PROP_CHANGED, null, null);
     }//GEN-LAST:event_useGMTTimeRBActionPerformed
@@ -1031,6 +1050,7 @@ private void browseLogosButtonActionPerformed(java.awt.event.ActionEvent evt) {/
     private javax.swing.JCheckBox dataSourcesHideKnownCB;
     private javax.swing.JCheckBox dataSourcesHideSlackCB;
     private javax.swing.JRadioButton defaultLogoRB;
+    private javax.swing.JCheckBox exportMetricsCB;
     private javax.swing.ButtonGroup displayTimesButtonGroup;
     private javax.swing.ButtonGroup fileSelectionButtonGroup;
     private javax.swing.JLabel jLabelHideKnownFiles;
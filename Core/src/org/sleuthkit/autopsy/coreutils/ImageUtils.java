@@ -41,15 +41,18 @@
 import static java.util.Objects.nonNull;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javafx.concurrent.Task;
 import javafx.embed.swing.SwingFXUtils;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReadParam;
@@ -107,6 +110,17 @@ public class ImageUtils {
      */
     private static final ConcurrentHashMap<Long, File> cacheFileMap = new ConcurrentHashMap<>();
 
+    /**
+     * The thumbnail store of the current case, opened lazily.
+     *
+     * NOTE: Must be closed when the case is changed.
+     */
+    private static final Object thumbnailStoreLock = new Object();
+    @GuardedBy("thumbnailStoreLock")
+    private static ThumbnailStore thumbnailStore;
+    @GuardedBy("thumbnailStoreLock")
+    private static boolean thumbnailStoreOpenFailed;
+
     static {
         ImageIO.scanForPlugins();
         BufferedImage tempImage;
@@ -153,8 +167,11 @@ public class ImageUtils {
                 "application/x-123")); //TODO: is this correct? -jm //NON-NLS
         SUPPORTED_IMAGE_MIME_TYPES.removeIf("application/octet-stream"::equals); //NON-NLS
 
-        //Clear the file map when the case changes, so we don't accidentaly get images from the old case.
-        Case.addEventTypeSubscriber(EnumSet.of(Case.Events.CURRENT_CASE), evt -> cacheFileMap.clear());
+        //Clear the file map and close the thumbnail store when the case changes, so we don't accidentaly get images from the old case.
+        Case.addEventTypeSubscriber(EnumSet.of(Case.Events.CURRENT_CASE), evt -> {
+            cacheFileMap.clear();
+            closeThumbnailStore();
+        });
     }
 
     /**
@@ -163,11 +180,24 @@ public class ImageUtils {
     private static FileTypeDetector fileTypeDetector;
 
     /**
-     * Thread/Executor that saves generated thumbnails to disk in the background
+     * Threads/Executor that encode and save generated thumbnails to disk in the
+     * background. The queue is bounded so that generated thumbnails can not
+     * pile up in memory faster than they are saved; when it is full the
+     * thread that generated the thumbnail saves it.
      */
-    private static final Executor imageSaver =
-            Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
-                    .namingPattern("thumbnail-saver-%d").build()); //NON-NLS
+    private static final int THUMBNAIL_SAVER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int THUMBNAIL_SAVER_QUEUE_SIZE = 256;
+    private static final Executor imageSaver = new ThreadPoolExecutor(THUMBNAIL_SAVER_THREADS, THUMBNAIL_SAVER_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(THUMBNAIL_SAVER_QUEUE_SIZE),
+            new BasicThreadFactory.Builder().namingPattern("thumbnail-saver-%d").build(), //NON-NLS
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * When generating a thumbnail, images larger than this many times the
+     * thumbnail size are decoded at a reduced resolution, but not below it, so
+     * that scaling the decoded image down still produces a smooth thumbnail.
+     */
+    private static final int THUMBNAIL_DECODE_SCALE = 2;
 
     public static List<String> getSupportedImageExtensions() {
         return Collections.unmodifiableList(SUPPORTED_IMAGE_EXTENSIONS);
@@ -311,11 +341,12 @@ public static BufferedImage getThumbnail(Content content, int iconSize) {
                  * Intercepting the image reading code for GIFs here allows us
                  * to rescale easily, but we lose animations.
                  */
-                try (BufferedInputStream bufferedReadContentStream = getBufferedReadContentStream(file);) {
+                try {
                     if (Thread.interrupted()) {
                         return DEFAULT_THUMBNAIL;
                     }
-                    final BufferedImage image = ImageIO.read(bufferedReadContentStream);
+                    final BufferedImage image = getImageProperty(file, "ImageIO could not read {0}: ", //NON-NLS
+                            imageReader -> imageReader.read(0, getSubsampledReadParam(imageReader, THUMBNAIL_DECODE_SCALE * iconSize)));
                     if (image != null) {
                         if (Thread.interrupted()) {
                             return DEFAULT_THUMBNAIL;
@@ -356,28 +387,48 @@ private static BufferedInputStream getBufferedReadContentStream(AbstractFile fil
     }
 
     /**
-     * Get a thumbnail of a specified size for the given image. Generates the
-     * thumbnail if it is not already cached.
+     * Get a thumbnail of a specified size for the given image, as a PNG file.
+     * Generates the thumbnail if it is not already cached.
+     *
+     * Thumbnails are cached in the thumbnail store of the case, not as
+     * individual files, so this writes a copy of the thumbnail to a file the
+     * first time it is asked for. Clients that only need the image should use
+     * getThumbnail instead.
      *
      * @param content  the content to generate a thumbnail for
      * @param iconSize the size (one side of a square) in pixels to generate
      *
-     * @return File object for cached image. Is guaranteed to exist, as long as
-     *         there was not an error generating or saving the thumbnail.
+     * @return File object for the thumbnail. Is guaranteed to exist, as long
+     *         as there was not an error generating or saving the thumbnail.
      */
     @Nullable
     public static File getCachedThumbnailFile(Content content, int iconSize) {
-        getThumbnail(content, iconSize);
-        return getCachedThumbnailLocation(content.getId());
+        File thumbnailFile = getCachedThumbnailLocation(content.getId());
+        if (thumbnailFile != null && thumbnailFile.exists()) {
+            return thumbnailFile;
+        }
+        BufferedImage thumbnail = getThumbnail(content, iconSize);
+        if (thumbnailFile != null && DEFAULT_THUMBNAIL != thumbnail) {
+            synchronized (thumbnailFile) {
+                try {
+                    Files.createParentDirs(thumbnailFile);
+                    ImageIO.write(thumbnail, FORMAT, thumbnailFile);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Could not write thumbnail file for {0}: " + ex.toString(), getContentPathSafe(content)); //NON-NLS
+                }
+            }
+        }
+        return thumbnailFile;
     }
 
     /**
-     * Get the location,as a java File, of the cached thumbnail for an file with
-     * the given fileID . The returned File may not exist on disk yet.
+     * Get the location,as a java File, of the thumbnail file for an file with
+     * the given fileID, as written by getCachedThumbnailFile. The returned File
+     * may not exist on disk yet.
      *
-     * @param fileID the fileID to get the cached thumbnail location for
+     * @param fileID the fileID to get the thumbnail file location for
      *
-     * @return A File object representing the location of the cached thumbnail.
+     * @return A File object representing the location of the thumbnail file.
      *         This file may not actually exist(yet). Returns null if there was
      *         any problem getting the file, such as no case was open.
      */
@@ -385,7 +436,7 @@ private static File getCachedThumbnailLocation(long fileID) {
         return cacheFileMap.computeIfAbsent(fileID, id -> {
             try {
                 String cacheDirectory = Case.getCurrentCaseThrows().getCacheDirectory();
-                return Paths.get(cacheDirectory, "thumbnails", fileID + ".png").toFile(); //NON-NLS
+                return Paths.get(cacheDirectory, "thumbnails", "files", fileID + ".png").toFile(); //NON-NLS
             } catch (NoCurrentCaseException e) {
                 LOGGER.log(Level.WARNING, "Could not get cached thumbnail location.  No case is open."); //NON-NLS
                 return null;
@@ -393,6 +444,44 @@ private static File getCachedThumbnailLocation(long fileID) {
         });
     }
 
+    /**
+     * Gets the thumbnail store of the current case, opening it if it is not
+     * open.
+     *
+     * @return The thumbnail store, or null if no case is open or the store
+     *         could not be opened.
+     */
+    @Nullable
+    private static ThumbnailStore getThumbnailStore() {
+        synchronized (thumbnailStoreLock) {
+            if (null == thumbnailStore && !thumbnailStoreOpenFailed) {
+                try {
+                    String cacheDirectory = Case.getCurrentCaseThrows().getCacheDirectory();
+                    thumbnailStore = ThumbnailStore.open(Paths.get(cacheDirectory, "thumbnails")); //NON-NLS
+                } catch (NoCurrentCaseException ex) {
+                    LOGGER.log(Level.WARNING, "Could not open thumbnail store.  No case is open."); //NON-NLS
+                } catch (IOException ex) {
+                    LOGGER.log(Level.SEVERE, "Could not open thumbnail store, thumbnails will not be cached", ex); //NON-NLS
+                    thumbnailStoreOpenFailed = true;
+                }
+            }
+            return thumbnailStore;
+        }
+    }
+
+    /**
+     * Closes the thumbnail store of the current case, if it is open.
+     */
+    private static void closeThumbnailStore() {
+        synchronized (thumbnailStoreLock) {
+            if (null != thumbnailStore) {
+                thumbnailStore.close();
+                thumbnailStore = null;
+            }
+            thumbnailStoreOpenFailed = false;
+        }
+    }
+
     /**
      * Do a direct check to see if the given file has an image file header.
      * NOTE: Currently only jpeg and png are supported.
@@ -608,6 +697,43 @@ private static <T> T getImageProperty(AbstractFile file, final String errorTempl
         }
     }
 
+    /**
+     * Get the parameters for reading the first image of an ImageReader,
+     * decoding only every Nth pixel of every Nth row if the image is larger
+     * than needed. The longer side of the decoded image is then at least
+     * maxDimension pixels but less than twice that, instead of the full
+     * resolution of the image, which for a photo from a modern camera can take
+     * hundreds of megabytes.
+     *
+     * @param reader       the ImageReader, with its input set
+     * @param maxDimension the size in pixels of the longer side of the
+     *                     decoded image, or zero to decode the full image
+     *
+     * @return the read parameters, with a destination image of the decoded
+     *         size
+     *
+     * @throws IOException if the size of the image could not be read
+     */
+    private static ImageReadParam getSubsampledReadParam(ImageReader reader, int maxDimension) throws IOException {
+        ImageReadParam param = reader.getDefaultReadParam();
+        final int width = reader.getWidth(0);
+        final int height = reader.getHeight(0);
+        int subsampling = 1;
+        if (maxDimension > 0) {
+            subsampling = Math.max(1, Math.max(width, height) / maxDimension);
+        }
+        if (subsampling > 1) {
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+        /*
+         * Create a destination image to hold the decoded result, the size of
+         * the subsampled image.
+         */
+        param.setDestination(reader.getImageTypes(0).next().createBufferedImage(
+                (width + subsampling - 1) / subsampling, (height + subsampling - 1) / subsampling));
+        return param;
+    }
+
     /**
      * Create a new Task that will get a thumbnail for the given image of the
      * specified size. If a cached thumbnail is available it will be returned as
@@ -637,7 +763,7 @@ static private class GetThumbnailTask extends ReadImageTaskBase {
         private static final String FAILED_TO_READ_IMAGE_FOR_THUMBNAIL_GENERATION = "Failed to read {0} for thumbnail generation."; //NON-NLS
 
         private final int iconSize;
-        private final File cacheFile;
+        private final ThumbnailStore thumbnailStore;
         private final boolean defaultOnFailure;
 
         @NbBundle.Messages({"# {0} - file name",
@@ -649,7 +775,7 @@ private GetThumbnailTask(AbstractFile file, int iconSize, boolean defaultOnFailu
             updateMessage(Bundle.GetOrGenerateThumbnailTask_loadingThumbnailFor(file.getName()));
             this.iconSize = iconSize;
             this.defaultOnFailure = defaultOnFailure;
-            this.cacheFile = getCachedThumbnailLocation(file.getId());
+            this.thumbnailStore = getThumbnailStore();
         }
 
         @Override
@@ -661,26 +787,14 @@ protected javafx.scene.image.Image call() throws Exception {
                 return readImage();
             }
 
-            // If a thumbnail file is already saved locally, just read that.
-            if (cacheFile != null) {
-                synchronized (cacheFile) {
-                    if (cacheFile.exists()) {
-                        try {
-                            if (isCancelled()) {
-                                return null;
-                            }
-                            BufferedImage cachedThumbnail = ImageIO.read(cacheFile);
-                            if (isCancelled()) {
-                                return null;
-                            }
-                            if (nonNull(cachedThumbnail) && cachedThumbnail.getWidth() == iconSize) {
-                                return SwingFXUtils.toFXImage(cachedThumbnail, null);
-                            }
-                        } catch (Exception ex) {
-                            LOGGER.log(Level.WARNING, "ImageIO had a problem reading the cached thumbnail for {0}: " + ex.toString(), ImageUtils.getContentPathSafe(file)); //NON-NLS
-                            cacheFile.delete();  //since we can't read the file we might as well delete it.
-                        }
-                    }
+            // If a thumbnail of this size is already in the store, just read that.
+            if (thumbnailStore != null) {
+                BufferedImage cachedThumbnail = thumbnailStore.get(file.getId(), iconSize);
+                if (isCancelled()) {
+                    return null;
+                }
+                if (nonNull(cachedThumbnail)) {
+                    return SwingFXUtils.toFXImage(cachedThumbnail, null);
                 }
             }
 
@@ -708,7 +822,11 @@ protected javafx.scene.image.Image call() throws Exception {
                 }
                 //read the image into a buffered image.
                 //TODO: I don't like this, we just converted it from BufferedIamge to fx Image -jm
-                BufferedImage bufferedImage = SwingFXUtils.fromFXImage(readImage(), null);
+                javafx.scene.image.Image fxImage = readImage(THUMBNAIL_DECODE_SCALE * iconSize);
+                if (isCancelled()) {
+                    return null;
+                }
+                BufferedImage bufferedImage = SwingFXUtils.fromFXImage(fxImage, null);
                 if (null == bufferedImage) {
                     String msg = MessageFormat.format(FAILED_TO_READ_IMAGE_FOR_THUMBNAIL_GENERATION, getContentPathSafe(file));
                     LOGGER.log(Level.WARNING, msg);
@@ -754,7 +872,7 @@ protected javafx.scene.image.Image call() throws Exception {
             updateProgress(-1, 1);
 
             //if we got a valid thumbnail save it
-            if ((cacheFile != null) && thumbnail != null && DEFAULT_THUMBNAIL != thumbnail) {
+            if ((thumbnailStore != null) && thumbnail != null && DEFAULT_THUMBNAIL != thumbnail) {
                 saveThumbnail(thumbnail);
             }
             if (isCancelled()) {
@@ -771,13 +889,7 @@ protected javafx.scene.image.Image call() throws Exception {
         private void saveThumbnail(BufferedImage thumbnail) {
             imageSaver.execute(() -> {
                 try {
-                    synchronized (cacheFile) {
-                        Files.createParentDirs(cacheFile);
-                        if (cacheFile.exists()) {
-                            cacheFile.delete();
-                        }
-                        ImageIO.write(thumbnail, FORMAT, cacheFile);
-                    }
+                    thumbnailStore.put(file.getId(), iconSize, thumbnail);
                 } catch (Exception ex) {
                     LOGGER.log(Level.WARNING, "Could not write thumbnail for {0}: " + ex.toString(), ImageUtils.getContentPathSafe(file)); //NON-NLS
                 }
@@ -835,6 +947,22 @@ static private abstract class ReadImageTaskBase extends Task<javafx.scene.image.
         }
 
         protected javafx.scene.image.Image readImage() throws IOException {
+            return readImage(0);
+        }
+
+        /**
+         * Read the file as an Image, decoding it at a reduced resolution if it
+         * is larger than needed. GIFs are always read at full resolution, to
+         * preserve potential animation.
+         *
+         * @param maxDimension the size in pixels of the longer side of the
+         *                     image needed, or zero to read the full image
+         *
+         * @return the Image, or null if the task was cancelled
+         *
+         * @throws IOException if the file could not be read
+         */
+        protected javafx.scene.image.Image readImage(int maxDimension) throws IOException {
             if (isCancelled()) {
                 return null;
             }
@@ -849,7 +977,7 @@ protected javafx.scene.image.Image readImage() throws IOException {
                 // Find first Start Of Image marker
                 readContentInputStream.seek(getJfifStartOfImageOffset(file));
                 //use JavaFX to directly read .tec files
-                javafx.scene.image.Image image = new javafx.scene.image.Image(new BufferedInputStream(readContentInputStream));
+                javafx.scene.image.Image image = new javafx.scene.image.Image(new BufferedInputStream(readContentInputStream), maxDimension, maxDimension, true, false);
                 if (image.isError() == false) {
                     return image;
                 }
@@ -859,14 +987,13 @@ protected javafx.scene.image.Image readImage() throws IOException {
                     imageReader -> {
                         imageReader.addIIOReadProgressListener(ReadImageTaskBase.this);
                         /*
-                         * This is the important part, get or create a
-                         * ImageReadParam, create a destination image to hold
-                         * the decoded result, then pass that image with the
-                         * param.
+                         * This is the important part, get a ImageReadParam
+                         * with a destination image to hold the decoded
+                         * result, subsampled if the full image is not needed,
+                         * then pass that image with the param.
                          */
-                        ImageReadParam param = imageReader.getDefaultReadParam();
-                        BufferedImage bufferedImage = imageReader.getImageTypes(0).next().createBufferedImage(imageReader.getWidth(0), imageReader.getHeight(0));
-                        param.setDestination(bufferedImage);
+                        ImageReadParam param = getSubsampledReadParam(imageReader, maxDimension);
+                        BufferedImage bufferedImage = param.getDestination();
                         try {
                             if (isCancelled()) {
                                 return null;
@@ -0,0 +1,265 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.coreutils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A lock-free histogram of non-negative values, typically latencies, with
+ * logarithmically sized buckets. Each power of two range is split into four
+ * buckets, so values at percentiles are reported within about 12% of the
+ * actual values. Values are recorded into one of several stripes selected by
+ * the id of the recording thread, so that threads recording values
+ * concurrently rarely contend for the same memory. Snapshots of the histogram
+ * can be taken at any time and can be merged with each other.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int SUM_INDEX = BUCKETS;
+    private static final int MAX_INDEX = BUCKETS + 1;
+    private static final int STRIPE_LENGTH = BUCKETS + 2;
+    private final AtomicLongArray[] stripes;
+
+    /**
+     * Constructs a lock-free histogram of non-negative values with a stripe
+     * for each available processor.
+     */
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; ++i) {
+            stripes[i] = new AtomicLongArray(STRIPE_LENGTH);
+        }
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value The value.
+     */
+    public void record(long value) {
+        long nonNegativeValue = Math.max(0, value);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+        stripe.incrementAndGet(bucketIndex(nonNegativeValue));
+        stripe.addAndGet(SUM_INDEX, nonNegativeValue);
+        long max = stripe.get(MAX_INDEX);
+        while (nonNegativeValue > max && !stripe.compareAndSet(MAX_INDEX, max, nonNegativeValue)) {
+            max = stripe.get(MAX_INDEX);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the values recorded so far.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot getSnapshot() {
+        return takeSnapshot(false);
+    }
+
+    /**
+     * Takes a snapshot of the values recorded so far and resets the histogram,
+     * e.g., to report the values recorded over successive intervals. Values
+     * recorded concurrently are included in either this snapshot or the next
+     * one.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot getSnapshotAndReset() {
+        return takeSnapshot(true);
+    }
+
+    private Snapshot takeSnapshot(boolean reset) {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; ++i) {
+                counts[i] += reset ? stripe.getAndSet(i, 0) : stripe.get(i);
+            }
+            sum += reset ? stripe.getAndSet(SUM_INDEX, 0) : stripe.get(SUM_INDEX);
+            max = Math.max(max, reset ? stripe.getAndSet(MAX_INDEX, 0) : stripe.get(MAX_INDEX));
+        }
+        return new Snapshot(counts, sum, max);
+    }
+
+    /**
+     * Gets the index of the bucket for a non-negative value.
+     *
+     * @param value The value.
+     *
+     * @return The bucket index.
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the smallest value that goes into a bucket.
+     *
+     * @param index The bucket index.
+     *
+     * @return The value.
+     */
+    private static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+
+    /**
+     * Gets the value used to represent the values in a bucket, i.e., the
+     * midpoint of the bucket.
+     *
+     * @param index The bucket index.
+     *
+     * @return The value.
+     */
+    private static long bucketMidpoint(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        long lowerBound = bucketLowerBound(index);
+        long width = 1L << ((index - SUB_BUCKETS) / SUB_BUCKETS);
+        return lowerBound + width / 2;
+    }
+
+    /**
+     * An immutable snapshot of the values recorded by a histogram.
+     */
+    @Immutable
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets an empty snapshot, e.g., as the starting point for merging
+         * snapshots.
+         *
+         * @return The empty snapshot.
+         */
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS], 0, 0);
+        }
+
+        /**
+         * Merges this snapshot with another snapshot.
+         *
+         * @param other The other snapshot.
+         *
+         * @return A new snapshot that includes the values of both snapshots.
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] mergedCounts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; ++i) {
+                mergedCounts[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(mergedCounts, sum + other.sum, Math.max(max, other.max));
+        }
+
+        /**
+         * Gets the number of values recorded.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of the values recorded.
+         *
+         * @return The sum.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the mean of the values recorded.
+         *
+         * @return The mean, zero if no values were recorded.
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Gets the exact maximum of the values recorded.
+         *
+         * @return The maximum, zero if no values were recorded.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets an approximation of the smallest value that is greater than or
+         * equal to a given percentage of the values recorded.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         *
+         * @return The value, zero if no values were recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+            rank = Math.max(1, rank);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketMidpoint(i), max);
+                }
+            }
+            return max;
+        }
+    }
+
+}
@@ -0,0 +1,758 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.coreutils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.imageio.ImageIO;
+
+/**
+ * A store of thumbnails for the objects of a case, kept in a few large,
+ * append-only pack files instead of one image file per object, so that getting
+ * a thumbnail does not require creating, checking for, or opening a file.
+ * <p>
+ * Each object can have a thumbnail of several sizes. Thumbnails without
+ * transparency are encoded as JPEGs, the others as PNGs. Replacing a thumbnail
+ * appends the new thumbnail, and the space of the old one is not reclaimed.
+ * <p>
+ * The store is made of segments, so that every process that has a multi-user
+ * case open can add thumbnails to the store. Only the process that holds the
+ * lock file of a segment writes to it. When the store is opened, the first
+ * segment that is not locked by another process becomes the writable segment
+ * of this process, and a new segment is created if all of them are locked.
+ * The other segments are read only. When the store does not have a
+ * thumbnail, it reads the index records that other processes have appended to
+ * their segments since it last looked, and looks for segments created since
+ * then, at most once every MIN_REFRESH_INTERVAL_MILLIS. Segment 0 is the store
+ * directory itself, segment N is the segment-N subdirectory.
+ * <p>
+ * A segment is made of pack files named thumbnails-N.pack, which are never
+ * larger than MAX_PACK_SIZE, and an index file with a fixed length record for
+ * each thumbnail, in the order the thumbnails were appended. A pack record is:
+ *
+ * <pre>
+ * int    PACK_RECORD_MAGIC
+ * long   the object id
+ * int    the thumbnail size
+ * byte   the encoding, FORMAT_JPEG or FORMAT_PNG
+ * int    the length of the encoded thumbnail
+ * byte[] the encoded thumbnail
+ * </pre>
+ *
+ * An index record is the object id (long), the thumbnail size (int), the pack
+ * number (int), the offset of the encoded thumbnail in the pack (int), and its
+ * length (int). The pack record is written before its index record. If the
+ * index file is missing, it is rebuilt from the pack files. Records that were
+ * not completely written, e.g., because the application exited while writing,
+ * are discarded when the segment is next opened for writing.
+ * <p>
+ * Thumbnails are only appended to the last pack file of a segment, which is
+ * read with positional reads. The other pack files never change, so each of
+ * them is memory mapped once, at its final size, the first time a thumbnail
+ * is read from it.
+ * <p>
+ * The store also picks up thumbnails cached by earlier versions as one
+ * OBJID.png file per object in the store directory: when the store does not
+ * have a thumbnail, the PNG file for the object is moved into the writable
+ * segment.
+ * <p>
+ * A memory mapped file can not be deleted on Windows until the mapping is
+ * released, which Java only does when the mapping is garbage collected. So
+ * that the case directory can be deleted right after the case is closed,
+ * close() releases the mappings explicitly where the runtime allows it.
+ * Mappings never leave the store's lock, so none are in use when this is done.
+ */
+@ThreadSafe
+final class ThumbnailStore {
+
+    private static final Logger logger = Logger.getLogger(ThumbnailStore.class.getName());
+    private static final String INDEX_FILE_NAME = "thumbnails.idx"; //NON-NLS
+    private static final String LOCK_FILE_NAME = "thumbnails.lock"; //NON-NLS
+    private static final String PACK_FILE_PREFIX = "thumbnails-"; //NON-NLS
+    private static final String PACK_FILE_EXTENSION = ".pack"; //NON-NLS
+    private static final String SEGMENT_DIRECTORY_PREFIX = "segment-"; //NON-NLS
+    private static final String LEGACY_FILE_EXTENSION = ".png"; //NON-NLS
+    private static final int MAX_PACK_SIZE = 256 * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 256;
+    private static final long MIN_REFRESH_INTERVAL_MILLIS = 2000;
+    private static final int PACK_RECORD_MAGIC = 0x54484D42; // "THMB"
+    private static final int PACK_RECORD_HEADER_LENGTH = Integer.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES;
+    private static final int INDEX_RECORD_LENGTH = Long.BYTES + Integer.BYTES * 4;
+    private static final byte FORMAT_JPEG = 1;
+    private static final byte FORMAT_PNG = 2;
+    private final Path directory;
+    private final Map<Key, Location> locations;
+    @GuardedBy("this")
+    private final List<Segment> segments;
+    @GuardedBy("this")
+    private Segment writableSegment;
+    @GuardedBy("this")
+    private long lastRefreshTime;
+    @GuardedBy("this")
+    private boolean closed;
+    private final Set<Long> legacyFileObjIds;
+
+    /**
+     * Opens the thumbnail store in a directory, creating it if it does not
+     * exist.
+     *
+     * @param directory The directory.
+     *
+     * @return The store.
+     *
+     * @throws IOException If the store can not be opened.
+     */
+    static ThumbnailStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        ThumbnailStore store = new ThumbnailStore(directory);
+        try {
+            store.load();
+        } catch (IOException ex) {
+            store.close();
+            throw ex;
+        }
+        return store;
+    }
+
+    private ThumbnailStore(Path directory) {
+        this.directory = directory;
+        this.locations = new ConcurrentHashMap<>();
+        this.segments = new ArrayList<>();
+        this.legacyFileObjIds = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Opens the existing segments, making the first one that is not in use
+     * by another process the writable segment, and creates a new writable
+     * segment if they are all in use.
+     */
+    private synchronized void load() throws IOException {
+        openNewSegments();
+        while (null == writableSegment && segments.size() < MAX_SEGMENTS) {
+            Path segmentDirectory = getSegmentDirectory(segments.size());
+            Files.createDirectories(segmentDirectory);
+            // another process may have created the same segment meanwhile
+            openNewSegments();
+        }
+        if (null == writableSegment) {
+            logger.log(Level.WARNING, "All thumbnail store segments in {0} are in use, opening the store read only", directory); //NON-NLS
+        }
+
+        try (DirectoryStream<Path> legacyFiles = Files.newDirectoryStream(directory, "*" + LEGACY_FILE_EXTENSION)) { //NON-NLS
+            for (Path legacyFile : legacyFiles) {
+                String fileName = legacyFile.getFileName().toString();
+                try {
+                    legacyFileObjIds.add(Long.valueOf(fileName.substring(0, fileName.length() - LEGACY_FILE_EXTENSION.length())));
+                } catch (NumberFormatException ex) {
+                    // not a thumbnail cached by an earlier version
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the segments that have been created since the segments were last
+     * looked for, trying to lock each of them for writing if there is no
+     * writable segment yet.
+     */
+    @GuardedBy("this")
+    private void openNewSegments() throws IOException {
+        for (int number = segments.size(); number < MAX_SEGMENTS; ++number) {
+            Path segmentDirectory = getSegmentDirectory(number);
+            if (!Files.isDirectory(segmentDirectory)) {
+                break;
+            }
+            Segment segment = new Segment(segmentDirectory, null == writableSegment);
+            segments.add(segment);
+            if (segment.isWritable()) {
+                writableSegment = segment;
+            }
+            segment.load(locations);
+        }
+    }
+
+    /**
+     * Picks up the thumbnails that other processes have added to their
+     * segments since this was last done, unless that was less than
+     * MIN_REFRESH_INTERVAL_MILLIS ago.
+     */
+    private synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        if (closed || now - lastRefreshTime < MIN_REFRESH_INTERVAL_MILLIS) {
+            return;
+        }
+        lastRefreshTime = now;
+        try {
+            for (Segment segment : segments) {
+                if (segment != writableSegment) {
+                    segment.refresh(locations);
+                }
+            }
+            openNewSegments();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to refresh the thumbnail store in " + directory, ex); //NON-NLS
+        }
+    }
+
+    /**
+     * Gets a thumbnail from the store.
+     *
+     * @param objId The object id of the object the thumbnail is for.
+     * @param size  The size of the thumbnail.
+     *
+     * @return The thumbnail, or null if the store does not have the thumbnail
+     *         or it can not be read.
+     */
+    BufferedImage get(long objId, int size) {
+        Key key = new Key(objId, size);
+        Location location = locations.get(key);
+        if (null == location) {
+            refresh();
+            location = locations.get(key);
+        }
+        if (null == location) {
+            return migrateLegacyFile(objId, size);
+        }
+        try {
+            byte[] encoded = read(location);
+            if (null == encoded) {
+                return null;
+            }
+            return ImageIO.read(new ByteArrayInputStream(encoded));
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, String.format("Failed to read thumbnail of size %d for object %d from the thumbnail store", size, objId), ex); //NON-NLS
+            return null;
+        }
+    }
+
+    /**
+     * Puts a thumbnail in the store, replacing any thumbnail of the same size
+     * for the object. Does nothing if the store has no writable segment.
+     *
+     * @param objId     The object id of the object the thumbnail is for.
+     * @param size      The size of the thumbnail.
+     * @param thumbnail The thumbnail.
+     *
+     * @throws IOException If the thumbnail can not be encoded or written.
+     */
+    void put(long objId, int size, BufferedImage thumbnail) throws IOException {
+        byte format = FORMAT_JPEG;
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        if (thumbnail.getColorModel().hasAlpha() || !writeJpeg(thumbnail, encoded)) {
+            format = FORMAT_PNG;
+            encoded.reset();
+            if (!ImageIO.write(thumbnail, "png", encoded)) { //NON-NLS
+                throw new IOException("No image writer for thumbnail"); //NON-NLS
+            }
+        }
+        put(objId, size, format, encoded.toByteArray());
+    }
+
+    /**
+     * Encodes a thumbnail as a JPEG, which not every image type supports.
+     */
+    private static boolean writeJpeg(BufferedImage thumbnail, ByteArrayOutputStream encoded) {
+        try {
+            return ImageIO.write(thumbnail, "jpg", encoded); //NON-NLS
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends an encoded thumbnail to the writable segment and indexes it.
+     *
+     * @return True, or false if the store is closed or has no writable
+     *         segment.
+     */
+    private synchronized boolean put(long objId, int size, byte format, byte[] encoded) throws IOException {
+        if (closed || null == writableSegment) {
+            return false;
+        }
+        locations.put(new Key(objId, size), writableSegment.append(objId, size, format, encoded));
+        return true;
+    }
+
+    /**
+     * Reads an encoded thumbnail from its segment.
+     *
+     * @param location The location of the thumbnail.
+     *
+     * @return The encoded thumbnail, or null if the store is closed.
+     */
+    private synchronized byte[] read(Location location) throws IOException {
+        if (closed) {
+            return null;
+        }
+        return location.segment.read(location);
+    }
+
+    /**
+     * Moves the thumbnail cached by an earlier version for an object into the
+     * store, if there is one of the given size. Only the objects that had such
+     * a thumbnail when the store was opened are looked for on disk, so once
+     * they have all been migrated, the disk is no longer probed.
+     *
+     * @param objId The object id.
+     * @param size  The size of the thumbnail.
+     *
+     * @return The thumbnail, or null if there is no thumbnail of the given size
+     *         for the object.
+     */
+    private BufferedImage migrateLegacyFile(long objId, int size) {
+        if (legacyFileObjIds.isEmpty() || !legacyFileObjIds.contains(objId)) {
+            return null;
+        }
+        File legacyFile = directory.resolve(objId + LEGACY_FILE_EXTENSION).toFile();
+        try {
+            byte[] encoded = Files.readAllBytes(legacyFile.toPath());
+            BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(encoded));
+            // the legacy thumbnails were scaled to fit in a size by size square
+            if (null == thumbnail || Math.max(thumbnail.getWidth(), thumbnail.getHeight()) != size) {
+                return null;
+            }
+            if (put(objId, size, FORMAT_PNG, encoded)) {
+                legacyFileObjIds.remove(objId);
+                if (!legacyFile.delete() && legacyFile.exists()) {
+                    logger.log(Level.WARNING, "Failed to delete migrated thumbnail file {0}", legacyFile); //NON-NLS
+                }
+            }
+            return thumbnail;
+        } catch (NoSuchFileException ex) {
+            // Migrated by another thread or process.
+            legacyFileObjIds.remove(objId);
+            return null;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to migrate thumbnail file " + legacyFile + " to the thumbnail store", ex); //NON-NLS
+            return null;
+        }
+    }
+
+    private Path getSegmentDirectory(int number) {
+        return 0 == number ? directory : directory.resolve(SEGMENT_DIRECTORY_PREFIX + number);
+    }
+
+    /**
+     * Closes the store, releasing the memory mappings of the pack files and
+     * the lock of the writable segment.
+     */
+    synchronized void close() {
+        closed = true;
+        locations.clear();
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+        writableSegment = null;
+    }
+
+    /**
+     * A segment of the store: pack files and an index file in a directory,
+     * written by the process that holds its lock file. All of its methods are
+     * called with the store's lock held.
+     */
+    private static final class Segment {
+
+        private final Path directory;
+        private final FileChannel lockChannel;
+        private final FileLock lock;
+        private final List<FileChannel> packChannels = new ArrayList<>();
+        private final List<MappedByteBuffer> packMappings = new ArrayList<>();
+        private FileChannel indexChannel;
+        private long indexReadLength;
+
+        /**
+         * Constructs a segment, without opening its files.
+         *
+         * @param directory  The directory of the segment.
+         * @param tryToWrite Whether or not to try to lock the segment for
+         *                   writing.
+         */
+        Segment(Path directory, boolean tryToWrite) throws IOException {
+            this.directory = directory;
+            FileLock fileLock = null;
+            if (tryToWrite) {
+                lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                try {
+                    fileLock = lockChannel.tryLock();
+                } catch (OverlappingFileLockException ex) {
+                    fileLock = null;
+                } catch (IOException ex) {
+                    closeQuietly(lockChannel);
+                    throw ex;
+                }
+                if (null == fileLock) {
+                    closeQuietly(lockChannel);
+                }
+            } else {
+                lockChannel = null;
+            }
+            this.lock = fileLock;
+        }
+
+        boolean isWritable() {
+            return null != lock;
+        }
+
+        /**
+         * Opens the pack files and reads the index file, rebuilding it from
+         * the pack files if it is missing and, if the segment is writable,
+         * discarding incompletely written records.
+         *
+         * @param locations The locations of the thumbnails in the store, to
+         *                  which the thumbnails of the segment are added.
+         */
+        void load(Map<Key, Location> locations) throws IOException {
+            openNewPacks();
+            Path indexPath = directory.resolve(INDEX_FILE_NAME);
+            boolean rebuildIndex = !Files.exists(indexPath) && !packChannels.isEmpty();
+            if (isWritable()) {
+                indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (rebuildIndex) {
+                    logger.log(Level.INFO, "Rebuilding thumbnail store index in {0}", directory); //NON-NLS
+                    rebuildIndex(locations);
+                } else {
+                    readIndex(locations);
+                }
+            } else {
+                refresh(locations);
+            }
+        }
+
+        /**
+         * Opens the pack files that have been created since the pack files
+         * were last looked for.
+         */
+        private void openNewPacks() throws IOException {
+            for (Path packPath = getPackPath(packChannels.size()); Files.exists(packPath); packPath = getPackPath(packChannels.size())) {
+                packChannels.add(isWritable()
+                        ? FileChannel.open(packPath, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                        : FileChannel.open(packPath, StandardOpenOption.READ));
+                packMappings.add(null);
+            }
+        }
+
+        /**
+         * Reads the index records that the process writing this read only
+         * segment has appended since they were last read.
+         *
+         * @param locations The locations of the thumbnails in the store, to
+         *                  which the thumbnails that were read are added.
+         */
+        void refresh(Map<Key, Location> locations) throws IOException {
+            openNewPacks();
+            if (null == indexChannel) {
+                Path indexPath = directory.resolve(INDEX_FILE_NAME);
+                if (!Files.exists(indexPath)) {
+                    return;
+                }
+                indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+            }
+            readIndex(locations);
+        }
+
+        /**
+         * Reads the index file from where it was last read up to the first
+         * record that does not refer to a completely written thumbnail. If the
+         * segment is writable, truncates the index file after that record and
+         * the last pack file after the last thumbnail that is indexed.
+         */
+        private void readIndex(Map<Key, Location> locations) throws IOException {
+            long indexLength = indexChannel.size();
+            if (indexLength < indexReadLength) {
+                // rebuilt by the process writing the segment
+                indexReadLength = 0;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(indexLength - indexReadLength, Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && indexChannel.read(buffer, indexReadLength + buffer.position()) > 0) {
+            }
+            buffer.flip();
+            long[] packEnds = new long[packChannels.size()];
+            while (buffer.remaining() >= INDEX_RECORD_LENGTH) {
+                long objId = buffer.getLong();
+                int size = buffer.getInt();
+                int packNumber = buffer.getInt();
+                int offset = buffer.getInt();
+                int length = buffer.getInt();
+                if (packNumber < 0 || packNumber >= packChannels.size() || offset < PACK_RECORD_HEADER_LENGTH || length < 0
+                        || (long) offset + length > packChannels.get(packNumber).size()) {
+                    break;
+                }
+                locations.put(new Key(objId, size), new Location(this, packNumber, offset, length));
+                packEnds[packNumber] = Math.max(packEnds[packNumber], (long) offset + length);
+                indexReadLength += INDEX_RECORD_LENGTH;
+            }
+            if (isWritable()) {
+                if (indexReadLength < indexLength) {
+                    logger.log(Level.WARNING, "Discarding {0} bytes of incompletely written thumbnail store index in {1}", new Object[]{indexLength - indexReadLength, directory}); //NON-NLS
+                    indexChannel.truncate(indexReadLength);
+                }
+                int lastPack = packChannels.size() - 1;
+                if (lastPack >= 0 && packChannels.get(lastPack).size() > packEnds[lastPack]) {
+                    packChannels.get(lastPack).truncate(packEnds[lastPack]);
+                }
+            }
+        }
+
+        /**
+         * Rebuilds the index file by reading the record headers of the pack
+         * files, truncating the last pack file after the last completely
+         * written record.
+         */
+        private void rebuildIndex(Map<Key, Location> locations) throws IOException {
+            indexChannel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(PACK_RECORD_HEADER_LENGTH);
+            for (int packNumber = 0; packNumber < packChannels.size(); ++packNumber) {
+                FileChannel packChannel = packChannels.get(packNumber);
+                long packLength = packChannel.size();
+                long position = 0;
+                while (position + PACK_RECORD_HEADER_LENGTH <= packLength) {
+                    header.clear();
+                    while (header.hasRemaining() && packChannel.read(header, position + header.position()) > 0) {
+                    }
+                    header.flip();
+                    if (header.getInt() != PACK_RECORD_MAGIC) {
+                        break;
+                    }
+                    long objId = header.getLong();
+                    int size = header.getInt();
+                    header.get();
+                    int length = header.getInt();
+                    int offset = (int) (position + PACK_RECORD_HEADER_LENGTH);
+                    if (length < 0 || (long) offset + length > packLength) {
+                        break;
+                    }
+                    Location location = new Location(this, packNumber, offset, length);
+                    locations.put(new Key(objId, size), location);
+                    writeIndexRecord(objId, size, location);
+                    position = (long) offset + length;
+                }
+                if (position < packLength) {
+                    packChannel.truncate(position);
+                }
+            }
+        }
+
+        /**
+         * Appends an encoded thumbnail to the last pack file of this writable
+         * segment and indexes it.
+         *
+         * @return The location of the thumbnail.
+         */
+        Location append(long objId, int size, byte format, byte[] encoded) throws IOException {
+            int recordLength = PACK_RECORD_HEADER_LENGTH + encoded.length;
+            if (recordLength > MAX_PACK_SIZE) {
+                throw new IOException("Thumbnail too large for the thumbnail store"); //NON-NLS
+            }
+            int packNumber = packChannels.size() - 1;
+            if (packNumber < 0 || packChannels.get(packNumber).size() + recordLength > MAX_PACK_SIZE) {
+                ++packNumber;
+                packChannels.add(FileChannel.open(getPackPath(packNumber), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                packMappings.add(null);
+            }
+            FileChannel packChannel = packChannels.get(packNumber);
+            long position = packChannel.size();
+            ByteBuffer record = ByteBuffer.allocate(recordLength);
+            record.putInt(PACK_RECORD_MAGIC).putLong(objId).putInt(size).put(format).putInt(encoded.length).put(encoded);
+            record.flip();
+            while (record.hasRemaining()) {
+                packChannel.write(record, position + record.position());
+            }
+            Location location = new Location(this, packNumber, (int) position + PACK_RECORD_HEADER_LENGTH, encoded.length);
+            writeIndexRecord(objId, size, location);
+            return location;
+        }
+
+        private void writeIndexRecord(long objId, int size, Location location) throws IOException {
+            ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_LENGTH);
+            record.putLong(objId).putInt(size).putInt(location.packNumber).putInt(location.offset).putInt(location.length);
+            record.flip();
+            long position = indexChannel.size();
+            while (record.hasRemaining()) {
+                indexChannel.write(record, position + record.position());
+            }
+        }
+
+        /**
+         * Reads an encoded thumbnail from its pack file. The last pack file,
+         * which may still grow, is read with a positional read; the other
+         * pack files are read through a memory mapping of the whole file,
+         * which is made the first time it is needed and is never remade.
+         *
+         * @param location The location of the thumbnail.
+         *
+         * @return The encoded thumbnail.
+         */
+        byte[] read(Location location) throws IOException {
+            byte[] encoded = new byte[location.length];
+            FileChannel packChannel = packChannels.get(location.packNumber);
+            if (location.packNumber < packChannels.size() - 1) {
+                MappedByteBuffer mapping = packMappings.get(location.packNumber);
+                if (null == mapping) {
+                    mapping = packChannel.map(FileChannel.MapMode.READ_ONLY, 0, packChannel.size());
+                    packMappings.set(location.packNumber, mapping);
+                }
+                ByteBuffer view = mapping.duplicate();
+                view.position(location.offset);
+                view.get(encoded);
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(encoded);
+                while (buffer.hasRemaining()) {
+                    if (packChannel.read(buffer, location.offset + buffer.position()) < 0) {
+                        throw new EOFException("Thumbnail extends past the end of its pack file"); //NON-NLS
+                    }
+                }
+            }
+            return encoded;
+        }
+
+        private Path getPackPath(int packNumber) {
+            return directory.resolve(PACK_FILE_PREFIX + packNumber + PACK_FILE_EXTENSION);
+        }
+
+        /**
+         * Closes the segment, releasing the memory mappings of the pack files
+         * and the lock.
+         */
+        void close() {
+            for (MappedByteBuffer mapping : packMappings) {
+                if (null != mapping) {
+                    unmap(mapping);
+                }
+            }
+            packMappings.clear();
+            for (FileChannel packChannel : packChannels) {
+                closeQuietly(packChannel);
+            }
+            packChannels.clear();
+            if (null != indexChannel) {
+                closeQuietly(indexChannel);
+            }
+            if (null != lock) {
+                try {
+                    lock.release();
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Error releasing thumbnail store lock", ex); //NON-NLS
+                }
+                closeQuietly(lockChannel);
+            }
+        }
+    }
+
+    /**
+     * Releases a memory mapping now rather than when it is garbage collected,
+     * using the cleaner of the Java 8 direct buffer implementation. If the
+     * runtime does not allow it, the mapping is left to the garbage collector,
+     * and on Windows the pack file can not be deleted until then.
+     *
+     * @param mapping The mapping, which must not be used afterwards.
+     */
+    private static void unmap(MappedByteBuffer mapping) {
+        try {
+            Method cleanerMethod = mapping.getClass().getMethod("cleaner"); //NON-NLS
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(mapping);
+            if (null != cleaner) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner); //NON-NLS
+            }
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            logger.log(Level.FINE, "Unable to release thumbnail store pack file mapping, leaving it to the garbage collector", ex); //NON-NLS
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Error closing thumbnail store file", ex); //NON-NLS
+        }
+    }
+
+    /**
+     * The key of a thumbnail: the object id and the thumbnail size.
+     */
+    @Immutable
+    private static final class Key {
+
+        private final long objId;
+        private final int size;
+
+        Key(long objId, int size) {
+            this.objId = objId;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return objId == other.objId && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(objId) + size;
+        }
+    }
+
+    /**
+     * The location of an encoded thumbnail in the pack files of a segment.
+     */
+    @Immutable
+    private static final class Location {
+
+        private final Segment segment;
+        private final int packNumber;
+        private final int offset;
+        private final int length;
+
+        Location(Segment segment, int packNumber, int offset, int length) {
+            this.segment = segment;
+            this.packNumber = packNumber;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
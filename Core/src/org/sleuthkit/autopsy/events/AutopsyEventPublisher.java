@@ -20,6 +20,11 @@
 
 import java.beans.PropertyChangeListener;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import javax.annotation.concurrent.GuardedBy;
@@ -40,12 +45,15 @@
 public final class AutopsyEventPublisher {
 
     private static final Logger logger = Logger.getLogger(AutopsyEventPublisher.class.getName());
-    private static final int MAX_REMOTE_EVENT_PUBLISH_TRIES = 1;
+    private static final int MAX_REMOTE_EVENT_PUBLISH_TRIES = 2;
+    private static final int MAX_UNSENT_REMOTE_EVENTS = 10000;
     private final LocalEventPublisher localPublisher; // LocalEventPublisher is thread-safe
     @GuardedBy("this)")
     private RemoteEventPublisher remotePublisher;
     @GuardedBy("this)")
     private String currentChannelName;
+    @GuardedBy("this)")
+    private final Deque<AutopsyEvent> unsentRemoteEvents = new ArrayDeque<>();
 
     /**
      * Constructs an object for publishing events to registered subscribers on
@@ -71,7 +79,7 @@ public synchronized void openRemoteEventChannel(String channelName) throws Autop
             closeRemoteEventChannel();
         }
         try {
-            remotePublisher = new RemoteEventPublisher(channelName, localPublisher, UserPreferences.getMessageServiceConnectionInfo());
+            remotePublisher = new RemoteEventPublisher(channelName, localPublisher, UserPreferences.getMessageServiceConnectionInfo(), UserPreferences.sendRemoteEventsInBatches());
         } catch (URISyntaxException | JMSException ex) {
             String message = "Failed to open remote event channel"; //NON-NLS
             logger.log(Level.SEVERE, message, ex);
@@ -89,6 +97,10 @@ public synchronized void openRemoteEventChannel(String channelName) throws Autop
      */
     public synchronized void closeRemoteEventChannel() {
         stopRemotePublisher();
+        if (!unsentRemoteEvents.isEmpty()) {
+            logger.log(Level.WARNING, String.format("Discarding %d events that could not be sent using channel %s", unsentRemoteEvents.size(), currentChannelName)); //NON-NLS
+            unsentRemoteEvents.clear();
+        }
         currentChannelName = null;
     }
 
@@ -152,7 +164,9 @@ public void publishLocally(AutopsyEvent event) {
     }
 
     /**
-     * Publishes an event to other Autopsy nodes only.
+     * Publishes an event to other Autopsy nodes only. Events that an earlier
+     * remote publisher failed to send are published first, so that the order
+     * of the events is kept.
      *
      * @param event The event to publish.
      */
@@ -160,13 +174,17 @@ public synchronized void publishRemotely(AutopsyEvent event) {
         if (null != currentChannelName) {
             boolean published = false;
             int tryCount = 1;
+            addUnsentRemoteEvents(Collections.singletonList(event));
 
             while (false == published && tryCount <= MAX_REMOTE_EVENT_PUBLISH_TRIES) {
                 try {
                     if (null == remotePublisher) {
                         openRemoteEventChannel(currentChannelName);
                     }
-                    remotePublisher.publish(event);
+                    while (!unsentRemoteEvents.isEmpty()) {
+                        remotePublisher.publish(unsentRemoteEvents.peekFirst());
+                        unsentRemoteEvents.removeFirst();
+                    }
                     published = true;
                 } catch (AutopsyEventException | JMSException ex) {
                     logger.log(Level.SEVERE, String.format("Failed to publish %s using channel %s (tryCount = %s)", event.getPropertyName(), currentChannelName, tryCount), ex); //NON-NLS
@@ -188,8 +206,35 @@ private synchronized void stopRemotePublisher() {
             } catch (JMSException ex) {
                 logger.log(Level.SEVERE, String.format("Error closing remote event publisher for channel %s", currentChannelName), ex); //NON-NLS
             }
+            /*
+             * Keep the events the publisher could not send, ahead of the
+             * events that were waiting to be handed to it, to be resent by
+             * the next publisher.
+             */
+            List<AutopsyEvent> pendingEvents = new ArrayList<>(unsentRemoteEvents);
+            unsentRemoteEvents.clear();
+            addUnsentRemoteEvents(remotePublisher.getUnsentEvents());
+            addUnsentRemoteEvents(pendingEvents);
             remotePublisher = null;
         }
     }
 
+    /**
+     * Adds events to the events waiting to be sent to other nodes, discarding
+     * the oldest events if there are too many.
+     *
+     * @param events The events.
+     */
+    private synchronized void addUnsentRemoteEvents(List<AutopsyEvent> events) {
+        unsentRemoteEvents.addAll(events);
+        int discardCount = 0;
+        while (unsentRemoteEvents.size() > MAX_UNSENT_REMOTE_EVENTS) {
+            unsentRemoteEvents.removeFirst();
+            ++discardCount;
+        }
+        if (discardCount > 0) {
+            logger.log(Level.SEVERE, String.format("Discarded %d events that could not be sent using channel %s", discardCount, currentChannelName)); //NON-NLS
+        }
+    }
+
 }
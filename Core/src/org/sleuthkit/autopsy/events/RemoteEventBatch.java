@@ -0,0 +1,383 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.concurrent.Immutable;
+import org.openide.util.Lookup;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * A batch of events sent to other Autopsy nodes in a single message, and its
+ * binary encoding. The encoding is:
+ *
+ * <pre>
+ * int    FORMAT_ID, identifying the format and its version
+ * long   the time the batch was sent, in milliseconds since the epoch
+ * (the rest is deflated)
+ * int    the number of distinct event names in the batch
+ * UTF    each event name
+ * int    the number of events in the batch
+ * for each event, in the order in which the events were published:
+ *   int    the index of the event name
+ *   byte   the form of the event body, BODY_COMPACT or BODY_SERIALIZED
+ *   int    the length of the event body
+ *   byte[] the event body
+ * </pre>
+ *
+ * Events for which there is a RemoteEventCodec are encoded by the codec,
+ * events without one in Java serialized form. Before encoding, the events of
+ * each run of events with the same name are coalesced by their codec, e.g.,
+ * the blackboard posts of a module for an artifact type are sent as one event.
+ * Each event body is encoded separately, so that an event that can not be
+ * encoded or decoded does not affect the other events in the batch. What is
+ * repeated from event to event, e.g., module names and class descriptors, is
+ * compressed away by the deflater.
+ */
+@Immutable
+final class RemoteEventBatch {
+
+    private static final Logger logger = Logger.getLogger(RemoteEventBatch.class.getName());
+    private static final int FORMAT_ID = 0x41455602; // "AEV" and version 2
+    private static final byte BODY_SERIALIZED = 0;
+    private static final byte BODY_COMPACT = 1;
+    private static final int MAX_EVENTS = 10000;
+    private static final int MAX_EVENT_BODY_SIZE = 16 * 1024 * 1024;
+    private static final long MAX_DECODED_SIZE = 64L * 1024 * 1024;
+    private final long sendTime;
+    private final List<AutopsyEvent> events;
+
+    /**
+     * Constructs a batch of events.
+     *
+     * @param sendTime The time the batch was sent, in milliseconds since the
+     *                 epoch.
+     * @param events   The events, in the order in which they were published.
+     */
+    RemoteEventBatch(long sendTime, List<AutopsyEvent> events) {
+        this.sendTime = sendTime;
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    /**
+     * Gets the time the batch was sent.
+     *
+     * @return The time in milliseconds since the epoch, as measured by the
+     *         clock of the sending node.
+     */
+    long getSendTime() {
+        return sendTime;
+    }
+
+    /**
+     * Gets the events in the batch.
+     *
+     * @return The events, in the order in which they were published.
+     */
+    List<AutopsyEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Encodes the batch, coalescing its events where their codecs allow it.
+     * Events that can not be encoded are logged and left out of the encoding.
+     *
+     * @return The encoded batch.
+     *
+     * @throws IOException If there is an error writing the encoding.
+     */
+    byte[] encode() throws IOException {
+        Map<String, Integer> nameIndexes = new LinkedHashMap<>();
+        List<Integer> eventNameIndexes = new ArrayList<>();
+        List<Byte> eventBodyForms = new ArrayList<>();
+        List<byte[]> eventBodies = new ArrayList<>();
+        ByteArrayOutputStream bodyStream = new ByteArrayOutputStream();
+        for (AutopsyEvent event : coalesce(events)) {
+            bodyStream.reset();
+            RemoteEventCodec codec = getCodec(event);
+            byte bodyForm = null != codec ? BODY_COMPACT : BODY_SERIALIZED;
+            try {
+                if (null != codec) {
+                    DataOutputStream out = new DataOutputStream(bodyStream);
+                    codec.encode(event, out);
+                    out.flush();
+                } else {
+                    try (ObjectOutputStream out = new ObjectOutputStream(bodyStream)) {
+                        out.writeObject(event);
+                    }
+                }
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, String.format("Failed to encode %s event", event.getPropertyName()), ex); //NON-NLS
+                continue;
+            }
+            Integer nameIndex = nameIndexes.get(event.getPropertyName());
+            if (nameIndex == null) {
+                nameIndex = nameIndexes.size();
+                nameIndexes.put(event.getPropertyName(), nameIndex);
+            }
+            eventNameIndexes.add(nameIndex);
+            eventBodyForms.add(bodyForm);
+            eventBodies.add(bodyStream.toByteArray());
+        }
+
+        ByteArrayOutputStream encoding = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(encoding);
+        header.writeInt(FORMAT_ID);
+        header.writeLong(sendTime);
+        header.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(encoding, deflater))) {
+            out.writeInt(nameIndexes.size());
+            for (String name : nameIndexes.keySet()) {
+                out.writeUTF(name);
+            }
+            out.writeInt(eventBodies.size());
+            for (int i = 0; i < eventBodies.size(); i++) {
+                out.writeInt(eventNameIndexes.get(i));
+                out.writeByte(eventBodyForms.get(i));
+                out.writeInt(eventBodies.get(i).length);
+                out.write(eventBodies.get(i));
+            }
+        } finally {
+            deflater.end();
+        }
+        return encoding.toByteArray();
+    }
+
+    /**
+     * Decodes a batch. Events that can not be decoded are logged and left out
+     * of the batch.
+     *
+     * @param encoding The encoded batch.
+     *
+     * @return The batch.
+     *
+     * @throws IOException If the encoding is not a batch in a known format, is
+     *                     truncated, or has counts or sizes out of bounds.
+     */
+    static RemoteEventBatch decode(byte[] encoding) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(encoding));
+        int formatId = header.readInt();
+        if (formatId != FORMAT_ID) {
+            throw new IOException(String.format("Unknown remote event batch format %08x", formatId)); //NON-NLS
+        }
+        long sendTime = header.readLong();
+        List<AutopsyEvent> events = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(header))) {
+            long decodedSize = 0;
+            String[] names = new String[checkBounds(in.readInt(), MAX_EVENTS, "event name count")]; //NON-NLS
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+                decodedSize = checkDecodedSize(decodedSize + names[i].length());
+            }
+            int eventCount = checkBounds(in.readInt(), MAX_EVENTS, "event count"); //NON-NLS
+            for (int i = 0; i < eventCount; i++) {
+                String name = names[checkBounds(in.readInt(), names.length - 1, "event name index")]; //NON-NLS
+                byte bodyForm = in.readByte();
+                int bodySize = checkBounds(in.readInt(), MAX_EVENT_BODY_SIZE, "event body size"); //NON-NLS
+                decodedSize = checkDecodedSize(decodedSize + bodySize);
+                byte[] body = new byte[bodySize];
+                in.readFully(body);
+                AutopsyEvent event = decodeEvent(name, bodyForm, body);
+                if (null != event) {
+                    events.add(event);
+                }
+            }
+        }
+        return new RemoteEventBatch(sendTime, events);
+    }
+
+    /**
+     * Decodes an event body.
+     *
+     * @param name     The event name.
+     * @param bodyForm The form of the body, BODY_COMPACT or BODY_SERIALIZED.
+     * @param body     The body.
+     *
+     * @return The event, or null if the body can not be decoded.
+     */
+    private static AutopsyEvent decodeEvent(String name, byte bodyForm, byte[] body) {
+        try {
+            if (BODY_COMPACT == bodyForm) {
+                RemoteEventCodec codec = CodecRegistry.CODECS.get(name);
+                if (null == codec) {
+                    logger.log(Level.SEVERE, "No codec to decode {0} event", name); //NON-NLS
+                    return null;
+                }
+                return codec.decode(new DataInputStream(new ByteArrayInputStream(body)));
+            } else if (BODY_SERIALIZED == bodyForm) {
+                try (ObjectInputStream objectIn = new ModuleAwareObjectInputStream(new ByteArrayInputStream(body))) {
+                    Object object = objectIn.readObject();
+                    if (object instanceof AutopsyEvent) {
+                        return (AutopsyEvent) object;
+                    }
+                }
+            } else {
+                logger.log(Level.SEVERE, "Unknown body form {0} of {1} event", new Object[]{bodyForm, name}); //NON-NLS
+            }
+        } catch (IOException | ClassNotFoundException | RuntimeException ex) {
+            logger.log(Level.SEVERE, String.format("Failed to decode %s event", name), ex); //NON-NLS
+        }
+        return null;
+    }
+
+    /**
+     * Gets the codec for an event.
+     *
+     * @param event The event.
+     *
+     * @return The codec, or null if there is no codec that can encode the
+     *         event, in which case it is sent in Java serialized form.
+     */
+    private static RemoteEventCodec getCodec(AutopsyEvent event) {
+        RemoteEventCodec codec = CodecRegistry.CODECS.get(event.getPropertyName());
+        return null != codec && codec.canEncode(event) ? codec : null;
+    }
+
+    /**
+     * Coalesces the events of each run of events with the same name, in which
+     * the order of the events does not matter, using the codec for the name.
+     * Events of different names are never reordered.
+     *
+     * @param events The events, in the order in which they were published.
+     *
+     * @return The coalesced events.
+     */
+    private static List<AutopsyEvent> coalesce(List<AutopsyEvent> events) {
+        List<AutopsyEvent> coalescedEvents = new ArrayList<>(events.size());
+        int runStart = 0;
+        for (AutopsyEvent event : events) {
+            if (runStart < coalescedEvents.size() && !coalescedEvents.get(runStart).getPropertyName().equals(event.getPropertyName())) {
+                runStart = coalescedEvents.size();
+            }
+            RemoteEventCodec codec = getCodec(event);
+            boolean coalesced = false;
+            for (int i = runStart; null != codec && !coalesced && i < coalescedEvents.size(); i++) {
+                AutopsyEvent earlier = coalescedEvents.get(i);
+                if (codec.canEncode(earlier)) {
+                    AutopsyEvent combined = codec.coalesce(earlier, event);
+                    if (null != combined) {
+                        coalescedEvents.set(i, combined);
+                        coalesced = true;
+                    }
+                }
+            }
+            if (!coalesced) {
+                coalescedEvents.add(event);
+            }
+        }
+        return coalescedEvents;
+    }
+
+    /**
+     * Checks a count, size or index read from an encoding.
+     *
+     * @param value   The value.
+     * @param maximum The largest value allowed.
+     * @param what    What the value is, for the error message.
+     *
+     * @return The value.
+     *
+     * @throws IOException If the value is negative or larger than the maximum.
+     */
+    private static int checkBounds(int value, int maximum, String what) throws IOException {
+        if (value < 0 || value > maximum) {
+            throw new IOException(String.format("Remote event batch %s %d is out of bounds", what, value)); //NON-NLS
+        }
+        return value;
+    }
+
+    /**
+     * Checks the total size of the names and event bodies decoded so far.
+     *
+     * @param decodedSize The total size.
+     *
+     * @return The total size.
+     *
+     * @throws IOException If the total size is larger than MAX_DECODED_SIZE.
+     */
+    private static long checkDecodedSize(long decodedSize) throws IOException {
+        if (decodedSize > MAX_DECODED_SIZE) {
+            throw new IOException(String.format("Remote event batch exceeds %d bytes", MAX_DECODED_SIZE)); //NON-NLS
+        }
+        return decodedSize;
+    }
+
+    /**
+     * The codecs found with Lookup, by event name, loaded the first time a
+     * batch is encoded or decoded.
+     */
+    private static final class CodecRegistry {
+
+        private static final Map<String, RemoteEventCodec> CODECS = loadCodecs();
+
+        private static Map<String, RemoteEventCodec> loadCodecs() {
+            Map<String, RemoteEventCodec> codecs = new HashMap<>();
+            for (RemoteEventCodec codec : Lookup.getDefault().lookupAll(RemoteEventCodec.class)) {
+                if (null != codecs.putIfAbsent(codec.getEventName(), codec)) {
+                    logger.log(Level.WARNING, "Ignoring duplicate codec {0} for {1} events", new Object[]{codec.getClass().getName(), codec.getEventName()}); //NON-NLS
+                }
+            }
+            return Collections.unmodifiableMap(codecs);
+        }
+    }
+
+    /**
+     * An object input stream that resolves classes with the system class
+     * loader of the application, so that events defined in any module can be
+     * deserialized.
+     */
+    private static final class ModuleAwareObjectInputStream extends ObjectInputStream {
+
+        ModuleAwareObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            ClassLoader classLoader = Lookup.getDefault().lookup(ClassLoader.class);
+            if (classLoader != null) {
+                try {
+                    return Class.forName(description.getName(), false, classLoader);
+                } catch (ClassNotFoundException ex) {
+                    // Fall back to the default resolution.
+                }
+            }
+            return super.resolveClass(description);
+        }
+    }
+}
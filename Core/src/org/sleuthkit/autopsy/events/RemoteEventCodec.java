@@ -0,0 +1,89 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.events;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A compact encoding of the events with a given name for batches of events
+ * sent to other Autopsy nodes, used instead of Java serialization for events
+ * that are published in large numbers. Implementations are found with
+ * Lookup, so they should be annotated with
+ * {@literal @}ServiceProvider(service = RemoteEventCodec.class). A node that
+ * receives a compactly encoded event for which it has no codec drops the
+ * event.
+ */
+public interface RemoteEventCodec {
+
+    /**
+     * Gets the name of the events this codec encodes.
+     *
+     * @return The event name.
+     */
+    String getEventName();
+
+    /**
+     * Indicates whether or not this codec can encode an event with the name
+     * returned by getEventName(). Events it can not encode are sent in Java
+     * serialized form.
+     *
+     * @param event The event.
+     *
+     * @return True or false.
+     */
+    boolean canEncode(AutopsyEvent event);
+
+    /**
+     * Encodes an event for which canEncode() returned true.
+     *
+     * @param event The event.
+     * @param out   The output to write the encoding to.
+     *
+     * @throws IOException If there is an error writing the encoding.
+     */
+    void encode(AutopsyEvent event, DataOutput out) throws IOException;
+
+    /**
+     * Decodes an event encoded by encode().
+     *
+     * @param in The input to read the encoding from.
+     *
+     * @return The event.
+     *
+     * @throws IOException If the encoding can not be read.
+     */
+    AutopsyEvent decode(DataInput in) throws IOException;
+
+    /**
+     * Combines two events for which canEncode() returned true into one, so
+     * that a batch carries one event where a module published several. The
+     * combined event takes the place of the earlier event in the batch.
+     *
+     * @param earlier The event published first.
+     * @param later   The event published later.
+     *
+     * @return An event that stands for both events, or null if they can not
+     *         be combined.
+     */
+    default AutopsyEvent coalesce(AutopsyEvent earlier, AutopsyEvent later) {
+        return null;
+    }
+}
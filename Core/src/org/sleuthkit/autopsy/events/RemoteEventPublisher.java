@@ -18,10 +18,21 @@
  */
 package org.sleuthkit.autopsy.events;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.DeliveryMode;
 import javax.jms.JMSException;
@@ -33,6 +44,7 @@
 import javax.jms.Session;
 import javax.jms.Topic;
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.sleuthkit.autopsy.coreutils.LatencyHistogram;
 import org.sleuthkit.autopsy.coreutils.Logger;
 
 /**
@@ -41,22 +53,55 @@
  * Subscribers on this node are constrained to be PropertyChangeListeners to
  * integrate with the legacy use of JavaBeans PropertyChangeEvents and
  * PropertyChangeListeners as an application event system.
+ *
+ * Publishing an event queues it, and a sender thread collects the events
+ * published within a short window into a batch. If sending in batches is
+ * turned on, the batch is sent as a single message, see RemoteEventBatch;
+ * otherwise, each event of the batch is sent as an ObjectMessage, which is the
+ * only form that nodes running older versions understand. Events that could
+ * not be sent are kept, so that they can be handed to a replacement publisher.
+ * Received messages are queued by the JMS thread and decoded and published
+ * locally by a dispatcher thread. Both queues are bounded, so a publisher or
+ * a message service that gets too far ahead is made to wait. Event rates and
+ * lags for the channel are logged periodically.
  */
 @ThreadSafe
 final class RemoteEventPublisher {
 
     private static final Logger logger = Logger.getLogger(RemoteEventPublisher.class.getName());
     private static final String ALL_MESSAGE_SELECTOR = "All"; //NON-NLS
+    private static final String SENDER_THREAD_NAME = "remote-event-sender-%d"; //NON-NLS
+    private static final String DISPATCHER_THREAD_NAME = "remote-event-dispatcher-%d"; //NON-NLS
+    private static final long BATCH_WINDOW_MILLIS = 50;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_QUEUED_EVENTS = 10000;
+    private static final int MAX_QUEUED_MESSAGES = 1000;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+    private static final long METRICS_LOG_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private final String eventChannelName;
     private final LocalEventPublisher localPublisher; // LocalEventPublisher is thread-safe
     @GuardedBy("this")
     private final Connection connection;
     @GuardedBy("this")
-    private final Session session;
+    private final Session producerSession;
     @GuardedBy("this")
     private final MessageProducer producer;
     @GuardedBy("this")
+    private final Session consumerSession;
+    @GuardedBy("this")
     private final MessageConsumer consumer;
     private final MessageReceiver receiver;
+    private final BlockingQueue<PendingEvent> outgoingEvents = new LinkedBlockingQueue<>(MAX_QUEUED_EVENTS);
+    private final BlockingQueue<Message> incomingMessages = new LinkedBlockingQueue<>(MAX_QUEUED_MESSAGES);
+    private final ExecutorService senderExecutor;
+    private final ExecutorService dispatcherExecutor;
+    private final ChannelMetrics metrics = new ChannelMetrics();
+    private final boolean sendInBatches;
+    @GuardedBy("this")
+    private final List<AutopsyEvent> unsentEvents = new ArrayList<>();
+    private volatile boolean stopping;
+    private volatile JMSException sendFailure;
 
     /**
      * Constructs an object for publishing events to registered subscribers on
@@ -67,25 +112,39 @@ final class RemoteEventPublisher {
      * @param localPublisher   An event publisher that will be used to publish
      *                         events from other Autopsy nodes on this node.
      * @param info             Connection info for the message service.
+     * @param sendInBatches    Whether to send batches of events as single
+     *                         messages, which only nodes running this version
+     *                         or later understand.
      *
      * @throws URISyntaxException If the URI in the connection info is
      *                            malformed.
      * @throws JMSException       If the connection to the message service
      *                            cannot be made.
      */
-    RemoteEventPublisher(String eventChannelName, LocalEventPublisher localPublisher, MessageServiceConnectionInfo info) throws URISyntaxException, JMSException {
+    RemoteEventPublisher(String eventChannelName, LocalEventPublisher localPublisher, MessageServiceConnectionInfo info, boolean sendInBatches) throws URISyntaxException, JMSException {
         try {
+            this.eventChannelName = eventChannelName;
             this.localPublisher = localPublisher;
+            this.sendInBatches = sendInBatches;
             ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(info.getUserName(), info.getPassword(), info.getURI());
             connection = connectionFactory.createConnection();
             connection.start();
-            session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            Topic topic = session.createTopic(eventChannelName);
-            producer = session.createProducer(topic);
+            /*
+             * Sessions are not thread-safe, so the sender thread gets a
+             * session of its own for the producer.
+             */
+            producerSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Topic topic = producerSession.createTopic(eventChannelName);
+            producer = producerSession.createProducer(topic);
             producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
-            consumer = session.createConsumer(topic, "events = '" + ALL_MESSAGE_SELECTOR + "'", true); //NON-NLS
+            dispatcherExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(DISPATCHER_THREAD_NAME).build());
+            dispatcherExecutor.submit(this::dispatchMessages);
+            consumerSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            consumer = consumerSession.createConsumer(consumerSession.createTopic(eventChannelName), "events = '" + ALL_MESSAGE_SELECTOR + "'", true); //NON-NLS
             receiver = new MessageReceiver();
             consumer.setMessageListener(receiver);
+            senderExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(SENDER_THREAD_NAME).build());
+            senderExecutor.submit(this::sendEvents);
         } catch (URISyntaxException | JMSException ex) {
             logger.log(Level.SEVERE, "Failed to connect to event channel", ex); //NON-NLS
             try {
@@ -102,67 +161,385 @@ final class RemoteEventPublisher {
 
     /**
      * Stops this publisher, causing it to disconnect from the message service.
+     * Events already published are sent, and messages already received are
+     * published locally, before the threads of the publisher exit. Events that
+     * could not be sent can be retrieved with getUnsentEvents().
      *
      * @throws JMSException if there is a problem closing the session or the
      *                      connection.
      */
-    synchronized void stop() throws JMSException {
-        if (null != producer) {
-            producer.close();
+    void stop() throws JMSException {
+        stopping = true;
+        if (null != senderExecutor) {
+            awaitTermination(senderExecutor, "sender"); //NON-NLS
         }
-        if (null != consumer) {
-            consumer.close();
+        synchronized (this) {
+            if (null != producer) {
+                producer.close();
+            }
+            if (null != consumer) {
+                consumer.close();
+            }
+        }
+        if (null != dispatcherExecutor) {
+            awaitTermination(dispatcherExecutor, "dispatcher"); //NON-NLS
         }
-        if (null != session) {
-            session.close();
+        synchronized (this) {
+            if (null != producerSession) {
+                producerSession.close();
+            }
+            if (null != consumerSession) {
+                consumerSession.close();
+            }
+            if (null != connection) {
+                connection.close();
+            }
         }
-        if (null != connection) {
-            connection.close();
+        metrics.log(incomingMessages.size());
+    }
+
+    /**
+     * Gets the events that were published but could not be sent, because a
+     * batch failed to send or the publisher was stopped before they were
+     * sent. Call after stop().
+     *
+     * @return The events, in the order in which they were published.
+     */
+    synchronized List<AutopsyEvent> getUnsentEvents() {
+        List<AutopsyEvent> events = new ArrayList<>(unsentEvents);
+        unsentEvents.clear();
+        List<PendingEvent> queuedEvents = new ArrayList<>();
+        outgoingEvents.drainTo(queuedEvents);
+        for (PendingEvent pendingEvent : queuedEvents) {
+            events.add(pendingEvent.event);
         }
+        return events;
     }
 
     /**
-     * Sends an event message to the message service.
+     * Queues an event to be sent to the message service.
      *
      * @param event The event to publish.
+     *
+     * @throws JMSException If a previous batch of events could not be sent,
+     *                      in which case the publisher should be stopped and
+     *                      replaced, or if this publisher has been stopped. The
+     *                      event is not queued in either case.
+     */
+    void publish(AutopsyEvent event) throws JMSException {
+        JMSException failure = sendFailure;
+        if (null != failure) {
+            throw failure;
+        }
+        if (stopping) {
+            throw new JMSException("Remote event publisher has been stopped"); //NON-NLS
+        }
+        try {
+            outgoingEvents.put(new PendingEvent(event));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JMSException("Interrupted while queueing event for publication"); //NON-NLS
+        }
+    }
+
+    /**
+     * Collects the queued events into batches and sends them, until this
+     * publisher is stopped and the queue is empty or a batch can not be sent.
+     * Runs in the sender thread.
+     */
+    private void sendEvents() {
+        List<PendingEvent> batch = new ArrayList<>();
+        try {
+            while (!stopping || !outgoingEvents.isEmpty()) {
+                PendingEvent first = outgoingEvents.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null != first) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MILLIS);
+                    while (batch.size() < MAX_BATCH_SIZE) {
+                        long remaining = deadline - System.nanoTime();
+                        PendingEvent next = remaining > 0 && !stopping ? outgoingEvents.poll(remaining, TimeUnit.NANOSECONDS) : outgoingEvents.poll();
+                        if (null == next) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    sendBatch(batch);
+                    batch.clear();
+                }
+                metrics.logIfDue(incomingMessages.size());
+            }
+        } catch (JMSException ex) {
+            logger.log(Level.SEVERE, String.format("Failed to send %d events using channel %s, keeping them and %d queued events to be resent", batch.size(), eventChannelName, outgoingEvents.size()), ex); //NON-NLS
+            keepUnsentEvents(batch);
+            sendFailure = ex;
+        } catch (InterruptedException ex) {
+            logger.log(Level.WARNING, String.format("Remote event sender for channel %s interrupted, keeping %d queued events to be resent", eventChannelName, batch.size() + outgoingEvents.size()), ex); //NON-NLS
+            keepUnsentEvents(batch);
+        }
+    }
+
+    /**
+     * Keeps the events of a batch that could not be sent, ahead of the events
+     * still queued, so that they can be handed to a replacement publisher.
+     *
+     * @param batch The events.
+     */
+    private synchronized void keepUnsentEvents(List<PendingEvent> batch) {
+        for (PendingEvent pendingEvent : batch) {
+            unsentEvents.add(pendingEvent.event);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Sends a batch of events, as a single message if sending in batches is
+     * turned on, or else as one message per event.
+     *
+     * @param batch The events. If sending fails, the events that were sent
+     *              are removed from the list.
+     *
+     * @throws JMSException If a message can not be created or sent.
      */
-    synchronized void publish(AutopsyEvent event) throws JMSException {
-        ObjectMessage message = session.createObjectMessage();
+    private synchronized void sendBatch(List<PendingEvent> batch) throws JMSException {
+        if (!sendInBatches) {
+            sendEventsIndividually(batch);
+            return;
+        }
+        List<AutopsyEvent> events = new ArrayList<>(batch.size());
+        for (PendingEvent pendingEvent : batch) {
+            events.add(pendingEvent.event);
+        }
+        byte[] encoding;
+        try {
+            encoding = new RemoteEventBatch(System.currentTimeMillis(), events).encode();
+        } catch (IOException ex) {
+            JMSException jmsException = new JMSException("Failed to encode event batch"); //NON-NLS
+            jmsException.setLinkedException(ex);
+            throw jmsException;
+        }
+        BytesMessage message = producerSession.createBytesMessage();
         message.setStringProperty("events", ALL_MESSAGE_SELECTOR); //NON-NLS
-        message.setObject(event);
+        message.writeBytes(encoding);
         producer.send(message);
+
+        long now = System.nanoTime();
+        for (PendingEvent pendingEvent : batch) {
+            metrics.sendLags.record(TimeUnit.NANOSECONDS.toMillis(now - pendingEvent.queuedTime));
+        }
+        metrics.eventsSent.addAndGet(batch.size());
+        metrics.batchesSent.incrementAndGet();
+        metrics.bytesSent.addAndGet(encoding.length);
+    }
+
+    /**
+     * Sends the events of a batch as one ObjectMessage per event, the form
+     * understood by nodes that do not know about batches.
+     *
+     * @param batch The events. If sending fails, the events that were sent
+     *              are removed from the list.
+     *
+     * @throws JMSException If a message can not be created or sent.
+     */
+    @GuardedBy("this")
+    private void sendEventsIndividually(List<PendingEvent> batch) throws JMSException {
+        int sentCount = 0;
+        try {
+            for (PendingEvent pendingEvent : batch) {
+                ObjectMessage message = producerSession.createObjectMessage();
+                message.setStringProperty("events", ALL_MESSAGE_SELECTOR); //NON-NLS
+                message.setObject(pendingEvent.event);
+                producer.send(message);
+                metrics.sendLags.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingEvent.queuedTime));
+                ++sentCount;
+            }
+        } finally {
+            metrics.eventsSent.addAndGet(sentCount);
+            metrics.batchesSent.addAndGet(sentCount);
+            batch.subList(0, sentCount).clear();
+        }
+    }
+
+    /**
+     * Decodes the queued messages and publishes their events locally, until
+     * this publisher is stopped and the queue is empty. Runs in the dispatcher
+     * thread.
+     */
+    private void dispatchMessages() {
+        try {
+            while (!stopping || !incomingMessages.isEmpty()) {
+                Message message = incomingMessages.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (null != message) {
+                    dispatchMessage(message);
+                }
+            }
+        } catch (InterruptedException ex) {
+            logger.log(Level.WARNING, String.format("Remote event dispatcher for channel %s interrupted, dropping %d queued messages", eventChannelName, incomingMessages.size()), ex); //NON-NLS
+            incomingMessages.clear();
+        }
+    }
+
+    /**
+     * Decodes a message and publishes its events locally.
+     *
+     * @param message The message, either a batch of events or a single event
+     *                in serialized form.
+     */
+    private void dispatchMessage(Message message) {
+        try {
+            List<AutopsyEvent> events = new ArrayList<>();
+            if (message instanceof BytesMessage) {
+                BytesMessage bytesMessage = (BytesMessage) message;
+                byte[] encoding = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(encoding);
+                RemoteEventBatch batch = RemoteEventBatch.decode(encoding);
+                metrics.receiveLags.record(System.currentTimeMillis() - batch.getSendTime());
+                metrics.bytesReceived.addAndGet(encoding.length);
+                events.addAll(batch.getEvents());
+            } else if (message instanceof ObjectMessage) {
+                Object object = ((ObjectMessage) message).getObject();
+                if (object instanceof AutopsyEvent) {
+                    events.add((AutopsyEvent) object);
+                }
+            }
+            metrics.batchesReceived.incrementAndGet();
+            metrics.eventsReceived.addAndGet(events.size());
+            for (AutopsyEvent event : events) {
+                event.setSourceType(AutopsyEvent.SourceType.REMOTE);
+                localPublisher.publish(event);
+            }
+        } catch (JMSException | IOException ex) {
+            logger.log(Level.SEVERE, "Error receiving message", ex); //NON-NLS
+        } catch (Throwable ex) {
+            // Exception firewall.
+            logger.log(Level.SEVERE, "Unexpected error receiving message", ex); //NON-NLS                
+        }
+    }
+
+    /**
+     * Waits for the thread of an executor to finish its work, within a time
+     * limit, and then shuts the executor down.
+     *
+     * @param executor The executor.
+     * @param role     The role of the thread, for logging.
+     */
+    private void awaitTermination(ExecutorService executor, String role) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.log(Level.WARNING, String.format("Remote event %s for channel %s did not finish within %d seconds", role, eventChannelName, STOP_TIMEOUT_SECONDS)); //NON-NLS
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     * Receives event messages from the message service and publishes them
-     * locally.
+     * Receives event messages from the message service and queues them to be
+     * published locally.
      */
     private final class MessageReceiver implements MessageListener {
 
         /**
-         * Receives an event message from the message service and publishes it
-         * locally. Called by a JMS thread.
+         * Receives an event message from the message service and queues it to
+         * be decoded and published locally by the dispatcher thread. Called by
+         * a JMS thread, which waits if the queue is full.
          *
          * @param message The message.
          */
         @Override
         public void onMessage(Message message) {
             try {
-                if (message instanceof ObjectMessage) {
-                    ObjectMessage objectMessage = (ObjectMessage) message;
-                    Object object = objectMessage.getObject();
-                    if (object instanceof AutopsyEvent) {
-                        AutopsyEvent event = (AutopsyEvent) object;
-                        event.setSourceType(AutopsyEvent.SourceType.REMOTE);
-                        localPublisher.publish(event);
-                    }
-                }
-            } catch (JMSException ex) {
-                logger.log(Level.SEVERE, "Error receiving message", ex); //NON-NLS
+                incomingMessages.put(message);
+            } catch (InterruptedException ex) {
+                logger.log(Level.WARNING, "Interrupted while queueing received message", ex); //NON-NLS
+                Thread.currentThread().interrupt();
             } catch (Throwable ex) {
                 // Exception firewall.
                 logger.log(Level.SEVERE, "Unexpected error receiving message", ex); //NON-NLS                
             }
         }
     }
+
+    /**
+     * An event waiting to be sent, with the time it was queued.
+     */
+    private static final class PendingEvent {
+
+        private final AutopsyEvent event;
+        private final long queuedTime;
+
+        PendingEvent(AutopsyEvent event) {
+            this.event = event;
+            this.queuedTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Event rates and lags for the channel, logged and reset periodically.
+     * The send lag is the time from the publication of an event to the
+     * sending of its batch. The receive lag is the time from the sending of a
+     * batch by another node to its dispatch on this node, so it includes any
+     * difference between the clocks of the two nodes.
+     */
+    @ThreadSafe
+    private final class ChannelMetrics {
+
+        private final AtomicLong eventsSent = new AtomicLong();
+        private final AtomicLong batchesSent = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+        private final AtomicLong eventsReceived = new AtomicLong();
+        private final AtomicLong batchesReceived = new AtomicLong();
+        private final AtomicLong bytesReceived = new AtomicLong();
+        private final LatencyHistogram sendLags = new LatencyHistogram();
+        private final LatencyHistogram receiveLags = new LatencyHistogram();
+        private volatile long intervalStartTime = System.currentTimeMillis();
+
+        /**
+         * Logs and resets the metrics if the logging interval has elapsed.
+         *
+         * @param incomingQueueSize The number of messages waiting to be
+         *                          published locally.
+         */
+        void logIfDue(int incomingQueueSize) {
+            if (System.currentTimeMillis() - intervalStartTime >= METRICS_LOG_INTERVAL_MILLIS) {
+                log(incomingQueueSize);
+            }
+        }
+
+        /**
+         * Logs and resets the metrics, if there was any traffic on the channel
+         * since they were last logged.
+         *
+         * @param incomingQueueSize The number of messages waiting to be
+         *                          published locally.
+         */
+        synchronized void log(int incomingQueueSize) {
+            long now = System.currentTimeMillis();
+            double seconds = Math.max(1, now - intervalStartTime) / 1000.0;
+            intervalStartTime = now;
+            long sent = eventsSent.getAndSet(0);
+            long received = eventsReceived.getAndSet(0);
+            long sentBatches = batchesSent.getAndSet(0);
+            long receivedBatches = batchesReceived.getAndSet(0);
+            long sentBytes = bytesSent.getAndSet(0);
+            long receivedBytes = bytesReceived.getAndSet(0);
+            LatencyHistogram.Snapshot sendLag = sendLags.getSnapshotAndReset();
+            LatencyHistogram.Snapshot receiveLag = receiveLags.getSnapshotAndReset();
+            if (sent == 0 && received == 0) {
+                return;
+            }
+            logger.log(Level.INFO, String.format("Remote event channel %s: " //NON-NLS
+                    + "sent %d events (%.1f/s) in %d batches, %d bytes, send lag p50/p99/max %d/%d/%d ms; " //NON-NLS
+                    + "received %d events (%.1f/s) in %d messages, %d bytes, receive lag p50/p99/max %d/%d/%d ms; " //NON-NLS
+                    + "%d messages waiting for dispatch", //NON-NLS
+                    eventChannelName,
+                    sent, sent / seconds, sentBatches, sentBytes,
+                    sendLag.getValueAtPercentile(50), sendLag.getValueAtPercentile(99), sendLag.getMax(),
+                    received, received / seconds, receivedBatches, receivedBytes,
+                    receiveLag.getValueAtPercentile(50), receiveLag.getValueAtPercentile(99), receiveLag.getMax(),
+                    incomingQueueSize));
+        }
+    }
 }
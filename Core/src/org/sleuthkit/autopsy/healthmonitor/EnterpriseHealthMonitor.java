@@ -27,22 +27,28 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
 import java.util.List;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.logging.Level;
+import javax.annotation.concurrent.GuardedBy;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
 import org.sleuthkit.autopsy.coordinationservice.CoordinationService;
 import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.core.UserPreferencesException;
+import org.sleuthkit.autopsy.coreutils.LatencyHistogram;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.coreutils.ModuleSettings;
 import org.sleuthkit.autopsy.coreutils.ThreadUtils;
@@ -59,6 +65,12 @@
  * For timing data:
  * Modules will call getTimingMetric() before the code to be timed to get a TimingMetric object
  * Modules will call submitTimingMetric() with the obtained TimingMetric object to log it
+ * 
+ * Timing metrics are recorded without locking into a histogram per metric name.
+ * At the end of each metrics interval the histograms are summarized and reset.
+ * The summaries are merged and written to the database every database write
+ * interval if the monitor is enabled, and published through JMX and a metrics
+ * file in the log directory if local export is enabled.
  */
 public final class EnterpriseHealthMonitor implements PropertyChangeListener {
     
@@ -66,18 +78,26 @@ public final class EnterpriseHealthMonitor implements PropertyChangeListener {
     private final static String DATABASE_NAME = "EnterpriseHealthMonitor";
     private final static String MODULE_NAME = "EnterpriseHealthMonitor";
     private final static String IS_ENABLED_KEY = "is_enabled";
-    private final static long DATABASE_WRITE_INTERVAL = 60; // Minutes
+    private final static String IS_LOCAL_EXPORT_ENABLED_KEY = "is_local_export_enabled";
+    private final static long METRICS_INTERVAL = 1; // Minutes
+    private final static long DATABASE_WRITE_INTERVAL = 5; // Minutes
     public static final CaseDbSchemaVersionNumber CURRENT_DB_SCHEMA_VERSION
-            = new CaseDbSchemaVersionNumber(1, 0);
+            = new CaseDbSchemaVersionNumber(1, 1);
     
     private static final AtomicBoolean isEnabled = new AtomicBoolean(false);
-    private static EnterpriseHealthMonitor instance;
+    private static final AtomicBoolean isLocalExportEnabled = new AtomicBoolean(false);
+    private static volatile EnterpriseHealthMonitor instance;
     
     private final ExecutorService healthMonitorExecutor;
     private static final String HEALTH_MONITOR_EVENT_THREAD_NAME = "Health-Monitor-Event-Listener-%d";
     
     private ScheduledThreadPoolExecutor healthMonitorOutputTimer;
     private final Map<String, TimingInfo> timingInfoMap;
+    @GuardedBy("this")
+    private final Map<String, TimingSummary> unwrittenTimingSummaries = new HashMap<>();
+    @GuardedBy("this")
+    private long lastDatabaseWriteTime;
+    private final LocalMetricsExporter localMetricsExporter;
     private static final int CONN_POOL_SIZE = 10;
     private BasicDataSource connectionPool = null;
     private String hostName;
@@ -86,7 +106,7 @@ private EnterpriseHealthMonitor() throws HealthMonitorException {
         
         // Create the map to collect timing metrics. The map will exist regardless
         // of whether the monitor is enabled.
-        timingInfoMap = new HashMap<>();
+        timingInfoMap = new ConcurrentHashMap<>();
         
         // Set up the executor to handle case events
         healthMonitorExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(HEALTH_MONITOR_EVENT_THREAD_NAME).build());
@@ -99,6 +119,15 @@ private EnterpriseHealthMonitor() throws HealthMonitorException {
             hostName = UUID.randomUUID().toString();
             logger.log(Level.SEVERE, "Unable to look up host name - falling back to UUID " + hostName, ex);
         }
+        localMetricsExporter = new LocalMetricsExporter(hostName);
+        
+        // Read from module settings to determine if local export is enabled.
+        // This does not need the database, so it is done first.
+        if (ModuleSettings.settingExists(MODULE_NAME, IS_LOCAL_EXPORT_ENABLED_KEY)
+                && ModuleSettings.getConfigSetting(MODULE_NAME, IS_LOCAL_EXPORT_ENABLED_KEY).equals("true")) {
+            isLocalExportEnabled.set(true);
+            activateLocalExport();
+        }
         
         // Read from module settings to determine if the module is enabled
         if (ModuleSettings.settingExists(MODULE_NAME, IS_ENABLED_KEY)) {
@@ -160,6 +189,12 @@ private synchronized void activateMonitor() throws HealthMonitorException {
             
             if( ! databaseIsInitialized()) {
                 initializeDatabaseSchema();
+            } else {
+                CaseDbSchemaVersionNumber version = getVersion();
+                if (version.getMajor() == CURRENT_DB_SCHEMA_VERSION.getMajor()
+                        && version.getMinor() < CURRENT_DB_SCHEMA_VERSION.getMinor()) {
+                    upgradeDatabaseSchema();
+                }
             }
             
         } catch (CoordinationService.CoordinationServiceException ex) {
@@ -168,8 +203,12 @@ private synchronized void activateMonitor() throws HealthMonitorException {
         
         // Clear out any old data
         timingInfoMap.clear();
+        synchronized (this) {
+            unwrittenTimingSummaries.clear();
+            lastDatabaseWriteTime = System.currentTimeMillis();
+        }
         
-        // Start the timer for database writes
+        // Start the timer for metrics intervals and database writes
         startTimer();
     }
     
@@ -185,28 +224,64 @@ private synchronized void deactivateMonitor() throws HealthMonitorException {
         logger.log(Level.INFO, "Deactivating Servies Health Monitor");
         
         // Clear out the collected data
-        timingInfoMap.clear();
+        unwrittenTimingSummaries.clear();
         
-        // Stop the timer
-        stopTimer();
+        // Stop the timer, unless it is still needed for local export
+        if (!isLocalExportEnabled.get()) {
+            timingInfoMap.clear();
+            stopTimer();
+        }
         
         // Shut down the connection pool
         shutdownConnections();
     }
     
     /**
-     * Start the ScheduledThreadPoolExecutor that will handle the database writes.
+     * Activate local export of the metrics.
+     * Registers the MXBean and sets up the timer for completing metrics
+     * intervals, if it is not already running.
+     */
+    private synchronized void activateLocalExport() {
+        
+        logger.log(Level.INFO, "Activating health monitor local metrics export");
+        
+        localMetricsExporter.register();
+        if (healthMonitorOutputTimer == null || healthMonitorOutputTimer.isShutdown()) {
+            startTimer();
+        }
+    }
+    
+    /**
+     * Deactivate local export of the metrics.
+     * Unregisters the MXBean and stops the timer, unless the timer is still
+     * needed for database writes.
+     */
+    private synchronized void deactivateLocalExport() {
+        
+        logger.log(Level.INFO, "Deactivating health monitor local metrics export");
+        
+        localMetricsExporter.unregister();
+        if (!isEnabled.get()) {
+            timingInfoMap.clear();
+            stopTimer();
+        }
+    }
+    
+    /**
+     * Start the ScheduledThreadPoolExecutor that will complete the metrics
+     * intervals and handle the database writes.
      */
     private synchronized void startTimer() {
         // Make sure the previous executor (if it exists) has been stopped
         stopTimer();
         
         healthMonitorOutputTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("health_monitor_timer").build());
-        healthMonitorOutputTimer.scheduleWithFixedDelay(new DatabaseWriteTask(), DATABASE_WRITE_INTERVAL, DATABASE_WRITE_INTERVAL, TimeUnit.MINUTES);
+        healthMonitorOutputTimer.scheduleWithFixedDelay(new MetricsIntervalTask(false), METRICS_INTERVAL, METRICS_INTERVAL, TimeUnit.MINUTES);
     }
     
     /**
-     * Stop the ScheduledThreadPoolExecutor to prevent further database writes.
+     * Stop the ScheduledThreadPoolExecutor to prevent further metrics
+     * intervals and database writes.
      */
     private synchronized void stopTimer() {
         if(healthMonitorOutputTimer != null) {
@@ -246,6 +321,63 @@ static synchronized void setEnabled(boolean enabled) throws HealthMonitorExcepti
         }
     }
     
+    /**
+     * Enable/disable local export of the metrics, through JMX and a metrics
+     * file in the log directory. Local export does not require the health
+     * monitor database, so it can be used in single user mode.
+     * Set from the general options panel.
+     * @param enabled true to enable local export, false to disable it
+     */
+    public static synchronized void setLocalExportEnabled(boolean enabled) {
+        if(enabled == isLocalExportEnabled.get()) {
+            // The setting has not changed, so do nothing
+            return;
+        }
+        
+        EnterpriseHealthMonitor monitor;
+        try {
+            monitor = getInstance();
+        } catch (HealthMonitorException ex) {
+            logger.log(Level.SEVERE, "Unable to change local export of the health monitor metrics", ex);
+            return;
+        }
+        ModuleSettings.setConfigSetting(MODULE_NAME, IS_LOCAL_EXPORT_ENABLED_KEY, Boolean.toString(enabled));
+        isLocalExportEnabled.set(enabled);
+        if(enabled) {
+            monitor.activateLocalExport();
+        } else {
+            monitor.deactivateLocalExport();
+        }
+    }
+    
+    /**
+     * Check whether local export of the metrics is enabled.
+     * @return true if local export is enabled, false otherwise
+     */
+    public static boolean localExportIsEnabled() {
+        return isLocalExportEnabled.get();
+    }
+    
+    /**
+     * Check whether timing metrics are being collected, i.e., whether the
+     * monitor or local export is enabled.
+     * @return true if metrics are being collected, false otherwise
+     */
+    private static boolean isCollectingMetrics() {
+        return isEnabled.get() || isLocalExportEnabled.get();
+    }
+    
+    /**
+     * Get the instance of the EnterpriseHealthMonitor without synchronizing
+     * once it has been created, for use on the paths that submit metrics.
+     * @return the instance
+     * @throws HealthMonitorException 
+     */
+    private static EnterpriseHealthMonitor getInstanceForMetrics() throws HealthMonitorException {
+        EnterpriseHealthMonitor monitor = instance;
+        return monitor != null ? monitor : getInstance();
+    }
+    
     /**
      * Get a metric that will measure the time to execute a section of code.
      * Call this before the section of code to be timed and then
@@ -257,7 +389,7 @@ static synchronized void setEnabled(boolean enabled) throws HealthMonitorExcepti
      * @return The TimingMetric object
      */
     public static TimingMetric getTimingMetric(String name) {
-        if(isEnabled.get()) {
+        if(isCollectingMetrics()) {
             return new TimingMetric(name);
         }
         return null;
@@ -271,10 +403,10 @@ public static TimingMetric getTimingMetric(String name) {
      * @param metric The TimingMetric object obtained from getTimingMetric()
      */
     public static void submitTimingMetric(TimingMetric metric) {
-        if(isEnabled.get() && (metric != null)) {
+        if(isCollectingMetrics() && (metric != null)) {
             metric.stopTiming();
             try {
-                getInstance().addTimingMetric(metric);
+                getInstanceForMetrics().addTimingMetric(metric);
             } catch (HealthMonitorException ex) {
                 // We don't want calling methods to have to check for exceptions, so just log it
                 logger.log(Level.SEVERE, "Error adding timing metric", ex);
@@ -292,11 +424,11 @@ public static void submitTimingMetric(TimingMetric metric) {
      * @param normalization The number to divide the time by (a zero here will be treated as a one)
      */
     public static void submitNormalizedTimingMetric(TimingMetric metric, long normalization) {
-        if(isEnabled.get() && (metric != null)) {
+        if(isCollectingMetrics() && (metric != null)) {
             metric.stopTiming();
             try {
                 metric.normalize(normalization);
-                getInstance().addTimingMetric(metric);
+                getInstanceForMetrics().addTimingMetric(metric);
             } catch (HealthMonitorException ex) {
                 // We don't want calling methods to have to check for exceptions, so just log it
                 logger.log(Level.SEVERE, "Error adding timing metric", ex);
@@ -306,25 +438,22 @@ public static void submitNormalizedTimingMetric(TimingMetric metric, long normal
     
     /**
      * Add the timing metric data to the map.
+     * This is called by ingest threads for every hashed file and indexed
+     * chunk, so it does not lock: the map is only written when a metric name
+     * is seen for the first time, and the timing info records the metric
+     * without locking.
      * @param metric The metric to add. stopTiming() should already have been called.
      */
     private void addTimingMetric(TimingMetric metric) throws HealthMonitorException {
-        
-        // Do as little as possible within the synchronized block to minimize
-        // blocking with multiple threads.
-        synchronized(this) {
-            // There's a small check-then-act situation here where isEnabled
-            // may have changed before reaching this code. This is fine - 
-            // the map still exists and any extra data added after the monitor
-            // is disabled will be deleted if the monitor is re-enabled. This
-            // seems preferable to doing another check on isEnabled within
-            // the synchronized block.
-            if(timingInfoMap.containsKey(metric.getName())) {
-                timingInfoMap.get(metric.getName()).addMetric(metric);
-            } else {
-                timingInfoMap.put(metric.getName(), new TimingInfo(metric));
-            }
+        // There's a small check-then-act situation here where the monitor
+        // may have been disabled before reaching this code. This is fine - 
+        // the map still exists and any extra data added after the monitor
+        // is disabled will be deleted if the monitor is re-enabled.
+        TimingInfo info = timingInfoMap.get(metric.getName());
+        if (info == null) {
+            info = timingInfoMap.computeIfAbsent(metric.getName(), TimingInfo::new);
         }
+        info.addMetric(metric);
     }
     
     /**
@@ -373,28 +502,64 @@ private void gatherTimerBasedMetrics() throws HealthMonitorException {
     }
     
     /**
-     * Write the collected metrics to the database.
+     * Complete the current metrics interval. The timing metrics collected
+     * during the interval are summarized and the collection is reset. The
+     * summaries are published locally if local export is enabled, and merged
+     * into the summaries waiting to be written to the database if the monitor
+     * is enabled. The waiting summaries are written when the database write
+     * interval has elapsed.
+     * @param writeToDatabaseNow true to write the waiting summaries to the
+     *                           database regardless of the database write
+     *                           interval, e.g., when a case is closed
      * @throws HealthMonitorException 
      */
-    private void writeCurrentStateToDatabase() throws HealthMonitorException {
+    private void completeMetricsInterval(boolean writeToDatabaseNow) throws HealthMonitorException {
+        long intervalEndTime = System.currentTimeMillis();
+        List<TimingSummary> timingSummaries = new ArrayList<>();
+        for (TimingInfo info : timingInfoMap.values()) {
+            TimingSummary summary = info.getSummaryAndReset();
+            if (summary.getCount() > 0) {
+                timingSummaries.add(summary);
+            }
+        }
         
-        Map<String, TimingInfo> timingMapCopy;
+        if (isLocalExportEnabled.get()) {
+            localMetricsExporter.export(intervalEndTime, timingSummaries);
+        }
         
-        // Do as little as possible within the synchronized block since it will
-        // block threads attempting to record metrics.
+        Map<String, TimingSummary> summariesToWrite;
         synchronized(this) {
             if(! isEnabled.get()) {
                 return;
             }
             
-            // Make a shallow copy of the timing map. The map should be small - one entry
-            // per metric name.
-            timingMapCopy = new HashMap<>(timingInfoMap);
-            timingInfoMap.clear();
+            for (TimingSummary summary : timingSummaries) {
+                TimingSummary unwrittenSummary = unwrittenTimingSummaries.get(summary.getName());
+                unwrittenTimingSummaries.put(summary.getName(), unwrittenSummary == null ? summary : unwrittenSummary.merge(summary));
+            }
+            if (!writeToDatabaseNow && intervalEndTime - lastDatabaseWriteTime < TimeUnit.MINUTES.toMillis(DATABASE_WRITE_INTERVAL)) {
+                return;
+            }
+            summariesToWrite = new HashMap<>(unwrittenTimingSummaries);
+            unwrittenTimingSummaries.clear();
+            lastDatabaseWriteTime = intervalEndTime;
         }
         
-        // Check if there's anything to report (right now we only have the timing map)
-        if(timingMapCopy.keySet().isEmpty()) {
+        // Time a database query, to be reported with the next write
+        gatherTimerBasedMetrics();
+        
+        writeToDatabase(summariesToWrite.values());
+    }
+    
+    /**
+     * Write timing summaries to the database.
+     * @param timingSummaries The summaries to write
+     * @throws HealthMonitorException 
+     */
+    private void writeToDatabase(Collection<TimingSummary> timingSummaries) throws HealthMonitorException {
+        
+        // Check if there's anything to report (right now we only have the timing summaries)
+        if(timingSummaries.isEmpty()) {
             return;
         }
         
@@ -412,22 +577,24 @@ private void writeCurrentStateToDatabase() throws HealthMonitorException {
             }
 
             // Add timing metrics to the database
-            String addTimingInfoSql = "INSERT INTO timing_data (name, host, timestamp, count, average, max, min) VALUES (?, ?, ?, ?, ?, ?, ?)";
+            String addTimingInfoSql = "INSERT INTO timing_data (name, host, timestamp, count, average, max, min, p50, p95, p99) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
             try (PreparedStatement statement = conn.prepareStatement(addTimingInfoSql)) {
 
-                for(String name:timingMapCopy.keySet()) {
-                    TimingInfo info = timingMapCopy.get(name);
-
-                    statement.setString(1, name);
+                for(TimingSummary summary:timingSummaries) {
+                    statement.setString(1, summary.getName());
                     statement.setString(2, hostName);
                     statement.setLong(3, System.currentTimeMillis());
-                    statement.setLong(4, info.getCount());
-                    statement.setDouble(5, info.getAverage());
-                    statement.setDouble(6, info.getMax());
-                    statement.setDouble(7, info.getMin());
+                    statement.setLong(4, summary.getCount());
+                    statement.setDouble(5, summary.getAverage());
+                    statement.setDouble(6, summary.getMax());
+                    statement.setDouble(7, summary.getMin());
+                    statement.setDouble(8, summary.getP50());
+                    statement.setDouble(9, summary.getP95());
+                    statement.setDouble(10, summary.getP99());
 
-                    statement.execute();
+                    statement.addBatch();
                 }
+                statement.executeBatch();
 
             } catch (SQLException ex) {
                 throw new HealthMonitorException("Error saving metric data to database", ex);
@@ -674,7 +841,10 @@ private void initializeDatabaseSchema() throws HealthMonitorException {
                 "count bigint NOT NULL," + 
                 "average double precision NOT NULL," + 
                 "max double precision NOT NULL," + 
-                "min double precision NOT NULL" + 
+                "min double precision NOT NULL," + 
+                "p50 double precision," + 
+                "p95 double precision," + 
+                "p99 double precision" + 
                 ")";
             statement.execute(createTimingTable);
             
@@ -707,19 +877,66 @@ private void initializeDatabaseSchema() throws HealthMonitorException {
     }
     
     /**
-     * The task called by the ScheduledThreadPoolExecutor to handle
-     * the database writes.
+     * Upgrade the database schema from version 1.0, which only had the
+     * count, average, max and min for each timing metric.
+     * @throws HealthMonitorException 
      */
-    static final class DatabaseWriteTask implements Runnable {
+    private void upgradeDatabaseSchema() throws HealthMonitorException {
+        Connection conn = connect();
+        if(conn == null) {
+            throw new HealthMonitorException("Error getting database connection");
+        }
 
+        try (Statement statement = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            
+            statement.execute("ALTER TABLE timing_data ADD COLUMN p50 double precision");
+            statement.execute("ALTER TABLE timing_data ADD COLUMN p95 double precision");
+            statement.execute("ALTER TABLE timing_data ADD COLUMN p99 double precision");
+            statement.execute("UPDATE db_info SET value='" + CURRENT_DB_SCHEMA_VERSION.getMinor() + "' WHERE name='SCHEMA_MINOR_VERSION'");
+            
+            conn.commit();
+            logger.log(Level.INFO, "Upgraded health monitor database schema to " + CURRENT_DB_SCHEMA_VERSION.getMajor() + "." + CURRENT_DB_SCHEMA_VERSION.getMinor());
+        } catch (SQLException ex) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex2) {
+                logger.log(Level.SEVERE, "Rollback error");
+            }
+            throw new HealthMonitorException("Error upgrading database", ex);
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException ex) {
+                logger.log(Level.SEVERE, "Error closing connection.", ex);
+            }
+        }
+    }
+    
+    /**
+     * The task called by the ScheduledThreadPoolExecutor to complete the
+     * metrics intervals and handle the database writes.
+     */
+    static final class MetricsIntervalTask implements Runnable {
+        
+        private final boolean writeToDatabaseNow;
+        
         /**
-         * Write current metric data to the database
+         * Create a task to complete the current metrics interval.
+         * @param writeToDatabaseNow true to write to the database regardless
+         *                           of the database write interval
+         */
+        MetricsIntervalTask(boolean writeToDatabaseNow) {
+            this.writeToDatabaseNow = writeToDatabaseNow;
+        }
+
+        /**
+         * Publish and/or write current metric data to the database
          */
         @Override
         public void run() {
             try {
-                getInstance().gatherTimerBasedMetrics();
-                getInstance().writeCurrentStateToDatabase();
+                getInstance().completeMetricsInterval(writeToDatabaseNow);
             } catch (HealthMonitorException ex) {
                 logger.log(Level.SEVERE, "Error writing current metrics to database", ex); //NON-NLS
             }
@@ -734,7 +951,7 @@ public void propertyChange(PropertyChangeEvent evt) {
             case CURRENT_CASE:
                 if ((null == evt.getNewValue()) && (evt.getOldValue() instanceof Case)) {
                     // When a case is closed, write the current metrics to the database
-                    healthMonitorExecutor.submit(new EnterpriseHealthMonitor.DatabaseWriteTask());
+                    healthMonitorExecutor.submit(new EnterpriseHealthMonitor.MetricsIntervalTask(true));
                 }
                 break;
         }
@@ -781,79 +998,43 @@ private CoordinationService.Lock getSharedDbLock() throws HealthMonitorException
     
     /**
      * Internal class for collecting timing metrics.
-     * Instead of storing each TimingMetric, we only store the min and max
-     * seen and the number of metrics and total duration to compute the average
-     * later.
+     * Instead of storing each TimingMetric, we record the durations in a
+     * lock-free histogram, so that percentiles can be reported, and keep the
+     * minimum seen. Durations are recorded in microseconds.
      * One TimingInfo instance should be created per metric name, and
      * additional timing metrics will be added to it. 
      */
-    private class TimingInfo {
-        private long count; // Number of metrics collected
-        private double sum;   // Sum of the durations collected (nanoseconds)
-        private double max;   // Maximum value found (nanoseconds)
-        private double min;   // Minimum value found (nanoseconds)
+    private static final class TimingInfo {
+        private final String name;
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private final LongAccumulator minDuration = new LongAccumulator(Math::min, Long.MAX_VALUE);
         
-        TimingInfo(TimingMetric metric) throws HealthMonitorException {
-            count = 1;
-            sum = metric.getDuration();
-            max = metric.getDuration();
-            min = metric.getDuration();
+        TimingInfo(String name) {
+            this.name = name;
         }
         
         /**
          * Add a new TimingMetric to an existing TimingInfo object.
-         * This is called in a synchronized block for almost all new 
+         * This is called concurrently by many threads for almost all new 
          * TimingMetric objects, so do as little processing here as possible.
          * @param metric The new metric
          * @throws HealthMonitorException Will be thrown if the metric hasn't been stopped
          */
         void addMetric(TimingMetric metric) throws HealthMonitorException {
-            
-            // Keep track of needed info to calculate the average
-            count++;
-            sum += metric.getDuration();
-            
-            // Check if this is the longest duration seen
-            if(max < metric.getDuration()) {
-                max = metric.getDuration();
-            }
-            
-            // Check if this is the lowest duration seen
-            if(min > metric.getDuration()) {
-                min = metric.getDuration();
-            }
-        }
-        
-        /**
-         * Get the average duration
-         * @return average duration (milliseconds)
-         */
-        double getAverage() {
-            return sum / count;
-        }
-        
-        /**
-         * Get the maximum duration
-         * @return maximum duration (milliseconds)
-         */
-        double getMax() {
-            return max;
-        }
-        
-        /**
-         * Get the minimum duration
-         * @return minimum duration (milliseconds)
-         */
-        double getMin() {
-            return min;
+            long duration = Math.round(metric.getDuration() * 1000);
+            durations.record(duration);
+            minDuration.accumulate(duration);
         }
         
         /**
-         * Get the total number of metrics collected
-         * @return number of metrics collected
+         * Get a summary of the metrics added since the last call and reset
+         * the collection. Metrics added concurrently are included in either
+         * this summary or the next one.
+         * @return the summary
          */
-        long getCount() {
-            return count;
+        TimingSummary getSummaryAndReset() {
+            LatencyHistogram.Snapshot snapshot = durations.getSnapshotAndReset();
+            return new TimingSummary(name, snapshot, minDuration.getThenReset());
         }
     }
 }
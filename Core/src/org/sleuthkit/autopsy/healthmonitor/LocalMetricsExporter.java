@@ -0,0 +1,189 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.healthmonitor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.PlatformUtil;
+
+/**
+ * Publishes the timing metrics of each completed metrics interval locally,
+ * without the health monitor database: as the attributes of a JMX MXBean, and
+ * as a text file in the log directory that is rewritten at the end of each
+ * interval.
+ */
+@ThreadSafe
+final class LocalMetricsExporter implements TimingMetricsMXBean {
+
+    private static final Logger logger = Logger.getLogger(LocalMetricsExporter.class.getName());
+    private static final String MXBEAN_NAME = "org.sleuthkit.autopsy:type=HealthMonitor,name=TimingMetrics"; //NON-NLS
+    private static final String METRICS_FILE_NAME = "health_monitor_metrics.txt"; //NON-NLS
+    private final String hostName;
+    @GuardedBy("this")
+    private long intervalEndTime;
+    @GuardedBy("this")
+    private List<TimingSummary> timingSummaries = Collections.emptyList();
+    @GuardedBy("this")
+    private boolean registered;
+    /*
+     * Intervals can be completed concurrently, e.g., by the timer and by a
+     * case being closed, and the metrics file is written through a single
+     * temporary file, so the writes are serialized with their own lock, which
+     * keeps the MXBean getters from waiting on file I/O.
+     */
+    private final Object metricsFileLock = new Object();
+    @GuardedBy("metricsFileLock")
+    private long metricsFileEndTime;
+
+    /**
+     * Constructs an exporter of timing metrics.
+     *
+     * @param hostName The name of the host, for the metrics file header.
+     */
+    LocalMetricsExporter(String hostName) {
+        this.hostName = hostName;
+    }
+
+    /**
+     * Registers the exporter with the platform MBean server, if it is not
+     * already registered.
+     */
+    synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MXBEAN_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registered = true;
+        } catch (JMException ex) {
+            logger.log(Level.WARNING, "Error registering health monitor timing metrics MXBean", ex); //NON-NLS
+        }
+    }
+
+    /**
+     * Unregisters the exporter from the platform MBean server, if it is
+     * registered.
+     */
+    synchronized void unregister() {
+        if (!registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(MXBEAN_NAME));
+        } catch (JMException ex) {
+            logger.log(Level.WARNING, "Error unregistering health monitor timing metrics MXBean", ex); //NON-NLS
+        }
+        registered = false;
+    }
+
+    /**
+     * Publishes the timing metrics of a completed metrics interval.
+     *
+     * @param endTime   The end time of the interval in milliseconds since the
+     *                  epoch.
+     * @param summaries The summaries of the metrics submitted during the
+     *                  interval.
+     */
+    void export(long endTime, List<TimingSummary> summaries) {
+        List<TimingSummary> sortedSummaries = new ArrayList<>(summaries);
+        sortedSummaries.sort(Comparator.comparing(TimingSummary::getName));
+        synchronized (this) {
+            intervalEndTime = endTime;
+            timingSummaries = Collections.unmodifiableList(sortedSummaries);
+        }
+        writeMetricsFile(endTime, sortedSummaries);
+    }
+
+    @Override
+    public synchronized long getIntervalEndTime() {
+        return intervalEndTime;
+    }
+
+    @Override
+    public synchronized List<TimingSummary> getTimingSummaries() {
+        return timingSummaries;
+    }
+
+    /**
+     * Rewrites the metrics file. The file is written under a temporary name
+     * and then moved into place, so that readers never see a partial file.
+     * The metrics of an interval that ended before the interval already in
+     * the file are not written.
+     */
+    private void writeMetricsFile(long endTime, List<TimingSummary> summaries) {
+        synchronized (metricsFileLock) {
+            if (endTime < metricsFileEndTime) {
+                return;
+            }
+            metricsFileEndTime = endTime;
+            writeMetricsFileLocked(endTime, summaries);
+        }
+    }
+
+    @GuardedBy("metricsFileLock")
+    private void writeMetricsFileLocked(long endTime, List<TimingSummary> summaries) {
+        Path metricsFile = Paths.get(PlatformUtil.getLogDirectory(), METRICS_FILE_NAME);
+        Path tempFile = Paths.get(PlatformUtil.getLogDirectory(), METRICS_FILE_NAME + ".tmp"); //NON-NLS
+        try {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))) {
+                String endTimeString = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US).format(new Date(endTime)); //NON-NLS
+                writer.println("# Health monitor timing metrics for host " + hostName + ", interval ending " + endTimeString + ", durations in milliseconds"); //NON-NLS
+                writer.println("name\tcount\taverage\tmin\tp50\tp95\tp99\tmax"); //NON-NLS
+                for (TimingSummary summary : summaries) {
+                    writer.println(String.format(Locale.US, "%s\t%d\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f", //NON-NLS
+                            summary.getName(), summary.getCount(), summary.getAverage(), summary.getMin(),
+                            summary.getP50(), summary.getP95(), summary.getP99(), summary.getMax()));
+                }
+            }
+            try {
+                Files.move(tempFile, metricsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, metricsFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Error writing health monitor metrics file " + metricsFile, ex); //NON-NLS
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.healthmonitor;
+
+import java.util.List;
+
+/**
+ * The JMX management interface for the timing metrics collected by the health
+ * monitor, e.g., for viewing ingest latencies with JConsole or VisualVM while
+ * ingest is running.
+ */
+public interface TimingMetricsMXBean {
+
+    /**
+     * Gets the end time of the most recently completed metrics interval.
+     *
+     * @return The end time in milliseconds since the epoch, zero if no
+     *         interval has been completed.
+     */
+    long getIntervalEndTime();
+
+    /**
+     * Gets the timing metrics submitted during the most recently completed
+     * metrics interval.
+     *
+     * @return A summary per metric name, sorted by name.
+     */
+    List<TimingSummary> getTimingSummaries();
+}
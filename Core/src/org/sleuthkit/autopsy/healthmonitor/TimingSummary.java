@@ -0,0 +1,148 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.healthmonitor;
+
+import javax.annotation.concurrent.Immutable;
+import org.sleuthkit.autopsy.coreutils.LatencyHistogram;
+
+/**
+ * A summary of the durations of the timing metrics with a given name that were
+ * submitted over an interval. All durations are in milliseconds. Percentiles
+ * are approximations, see LatencyHistogram; the count, average and maximum
+ * are exact.
+ */
+@Immutable
+public final class TimingSummary {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private final String name;
+    private final LatencyHistogram.Snapshot durations;
+    private final long minDuration;
+
+    /**
+     * Constructs a summary of the durations of the timing metrics with a given
+     * name.
+     *
+     * @param name        The name of the metrics.
+     * @param durations   The durations, in microseconds.
+     * @param minDuration The minimum duration, in microseconds. Ignored if no
+     *                    durations were recorded.
+     */
+    TimingSummary(String name, LatencyHistogram.Snapshot durations, long minDuration) {
+        this.name = name;
+        this.durations = durations;
+        /*
+         * The minimum and the histogram are reset separately, so a duration
+         * recorded while an interval is being completed may have gone into the
+         * histogram but not the minimum.
+         */
+        this.minDuration = durations.getCount() == 0 ? 0 : Math.min(minDuration, durations.getMax());
+    }
+
+    /**
+     * Merges this summary with a summary for another interval.
+     *
+     * @param other The other summary.
+     *
+     * @return A new summary that includes the durations of both summaries.
+     */
+    TimingSummary merge(TimingSummary other) {
+        long mergedMin;
+        if (durations.getCount() == 0) {
+            mergedMin = other.minDuration;
+        } else if (other.durations.getCount() == 0) {
+            mergedMin = minDuration;
+        } else {
+            mergedMin = Math.min(minDuration, other.minDuration);
+        }
+        return new TimingSummary(name, durations.merge(other.durations), mergedMin);
+    }
+
+    /**
+     * Gets the name of the timing metrics.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of timing metrics submitted.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return durations.getCount();
+    }
+
+    /**
+     * Gets the average duration.
+     *
+     * @return The average duration (milliseconds).
+     */
+    public double getAverage() {
+        return durations.getMean() / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Gets the minimum duration.
+     *
+     * @return The minimum duration (milliseconds).
+     */
+    public double getMin() {
+        return minDuration / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Gets the maximum duration.
+     *
+     * @return The maximum duration (milliseconds).
+     */
+    public double getMax() {
+        return durations.getMax() / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Gets the median duration.
+     *
+     * @return The 50th percentile duration (milliseconds).
+     */
+    public double getP50() {
+        return durations.getValueAtPercentile(50) / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Gets the 95th percentile duration.
+     *
+     * @return The 95th percentile duration (milliseconds).
+     */
+    public double getP95() {
+        return durations.getValueAtPercentile(95) / MICROS_PER_MILLI;
+    }
+
+    /**
+     * Gets the 99th percentile duration.
+     *
+     * @return The 99th percentile duration (milliseconds).
+     */
+    public double getP99() {
+        return durations.getValueAtPercentile(99) / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+/**
+ * Interface that may be implemented by data source ingest modules that are
+ * safe to run at the same time as other data source ingest modules that
+ * implement it, for the same data source. Consecutive modules of this kind in
+ * a data source ingest pipeline are run concurrently, each on its own thread,
+ * instead of one after another. Modules that share state with other modules,
+ * or that depend on the results of the modules that precede them in the
+ * pipeline, should not implement this interface.
+ *
+ * Note that the modules that are run concurrently share the data source ingest
+ * progress bar of the ingest job.
+ */
+public interface ConcurrentDataSourceIngestModule extends DataSourceIngestModule {
+
+}
@@ -18,14 +18,20 @@
  */
 package org.sleuthkit.autopsy.ingest;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import javax.swing.JOptionPane;
@@ -67,6 +73,7 @@ final class DataSourceIngestJob {
     private final IngestJobSettings settings;
     private final Content dataSource;
     private final List<AbstractFile> files = new ArrayList<>();
+    private final FileContentPass fileContentPass = new FileContentPass();
 
     /**
      * A data source ingest job runs in stages.
@@ -112,10 +119,12 @@ private static enum Stages {
      * A data source ingest job has a collection of identical file level ingest
      * module pipelines, one for each file level ingest thread in the ingest
      * manager. A blocking queue is used to dole out the pipelines to the
-     * threads and an ordinary list is used when the ingest job needs to access
-     * the pipelines to query their status.
+     * threads, each of which keeps the pipeline it is given for the rest of
+     * the job, and an ordinary list is used when the ingest job needs to
+     * access the pipelines to query their status.
      */
     private final LinkedBlockingQueue<FileIngestPipeline> fileIngestPipelinesQueue = new LinkedBlockingQueue<>();
+    private final Map<Long, FileIngestPipeline> fileIngestPipelinesByThreadId = new ConcurrentHashMap<>();
     private final List<FileIngestPipeline> fileIngestPipelines = new ArrayList<>();
 
     /**
@@ -155,13 +164,18 @@ private static enum Stages {
 
     /**
      * A data source ingest job uses these fields to report file level ingest
-     * progress.
+     * progress. The file ingest threads only update the processed files
+     * counter and the name of the most recently started file; the progress
+     * bar is updated by periodically sampling them.
      */
+    private static final long FILE_INGEST_PROGRESS_SAMPLING_INTERVAL_MS = 500;
+    private static final ScheduledExecutorService fileIngestProgressSampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("DSIJ-file-ingest-progress-%d").setDaemon(true).build()); //NON-NLS
     private final Object fileIngestProgressLock = new Object();
-    private final List<String> filesInProgress = new ArrayList<>();
     private long estimatedFilesToProcess;
-    private long processedFiles;
+    private final AtomicLong processedFiles = new AtomicLong(0L);
+    private volatile String mostRecentlyStartedFileName = "";
     private ProgressHandle fileIngestProgress;
+    private ScheduledFuture<?> fileIngestProgressSampling;
     private String currentFileIngestModule = "";
     private String currentFileIngestTask = "";
     private final List<IngestModuleInfo> ingestModules = new ArrayList<>();
@@ -326,6 +340,16 @@ long getId() {
         return this.id;
     }
 
+    /**
+     * Gets the content pass service shared by the file ingest modules of this
+     * job.
+     *
+     * @return The content pass service.
+     */
+    FileContentPass getFileContentPass() {
+        return this.fileContentPass;
+    }
+
     /**
      * Get the ingest execution context identifier.
      *
@@ -611,6 +635,21 @@ public boolean cancel() {
                 });
                 this.fileIngestProgress.start();
                 this.fileIngestProgress.switchToDeterminate((int) this.estimatedFilesToProcess);
+                this.fileIngestProgressSampling = fileIngestProgressSampler.scheduleAtFixedRate(this::sampleFileIngestProgress,
+                        FILE_INGEST_PROGRESS_SAMPLING_INTERVAL_MS, FILE_INGEST_PROGRESS_SAMPLING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Updates the file level ingest progress bar for this job from the
+     * processed files counter and the name of the most recently started file.
+     */
+    private void sampleFileIngestProgress() {
+        synchronized (this.fileIngestProgressLock) {
+            if (null != this.fileIngestProgress && !this.cancelled) {
+                long processed = this.processedFiles.get();
+                this.fileIngestProgress.progress(this.mostRecentlyStartedFileName, (int) Math.min(processed, this.estimatedFilesToProcess));
             }
         }
     }
@@ -645,8 +684,9 @@ private void finishFirstStage() {
         // required for the data source ingest pipeline because data source 
         // ingest modules do not have a shutdown() method.
         List<IngestModuleError> errors = new ArrayList<>();
-        while (!this.fileIngestPipelinesQueue.isEmpty()) {
-            FileIngestPipeline pipeline = fileIngestPipelinesQueue.poll();
+        this.fileIngestPipelinesQueue.clear();
+        this.fileIngestPipelinesByThreadId.clear();
+        for (FileIngestPipeline pipeline : this.fileIngestPipelines) {
             if (pipeline.isRunning()) {
                 errors.addAll(pipeline.shutDown());
             }
@@ -668,6 +708,10 @@ private void finishFirstStage() {
             // Finish the file ingest progress bar, if it hasn't already 
             // been finished.
             synchronized (this.fileIngestProgressLock) {
+                if (this.fileIngestProgressSampling != null) {
+                    this.fileIngestProgressSampling.cancel(false);
+                    this.fileIngestProgressSampling = null;
+                }
                 if (this.fileIngestProgress != null) {
                     this.fileIngestProgress.finish();
                     this.fileIngestProgress = null;
@@ -776,24 +820,15 @@ void process(DataSourceIngestTask task) {
     void process(FileIngestTask task) throws InterruptedException {
         try {
             if (!this.isCancelled()) {
-                FileIngestPipeline pipeline = this.fileIngestPipelinesQueue.take();
+                FileIngestPipeline pipeline = this.getFileIngestPipeline(task.getThreadId());
                 if (!pipeline.isEmpty()) {
+                    /**
+                     * Count the file for the file ingest progress bar, which
+                     * samples the count periodically.
+                     */
                     AbstractFile file = task.getFile();
-
-                    synchronized (this.fileIngestProgressLock) {
-                        ++this.processedFiles;
-                        if (this.doUI) {
-                            /**
-                             * Update the file ingest progress bar.
-                             */
-                            if (this.processedFiles <= this.estimatedFilesToProcess) {
-                                this.fileIngestProgress.progress(file.getName(), (int) this.processedFiles);
-                            } else {
-                                this.fileIngestProgress.progress(file.getName(), (int) this.estimatedFilesToProcess);
-                            }
-                            this.filesInProgress.add(file.getName());
-                        }
-                    }
+                    this.processedFiles.incrementAndGet();
+                    this.mostRecentlyStartedFileName = file.getName();
 
                     /**
                      * Run the file through the pipeline.
@@ -803,23 +838,7 @@ void process(FileIngestTask task) throws InterruptedException {
                     if (!errors.isEmpty()) {
                         logIngestModuleErrors(errors);
                     }
-
-                    if (this.doUI && !this.cancelled) {
-                        synchronized (this.fileIngestProgressLock) {
-                            /**
-                             * Update the file ingest progress bar again, in
-                             * case the file was being displayed.
-                             */
-                            this.filesInProgress.remove(file.getName());
-                            if (this.filesInProgress.size() > 0) {
-                                this.fileIngestProgress.progress(this.filesInProgress.get(0));
-                            } else {
-                                this.fileIngestProgress.progress("");
-                            }
-                        }
-                    }
                 }
-                this.fileIngestPipelinesQueue.put(pipeline);
             }
         } finally {
             DataSourceIngestJob.taskScheduler.notifyTaskCompleted(task);
@@ -827,6 +846,29 @@ void process(FileIngestTask task) throws InterruptedException {
         }
     }
 
+    /**
+     * Gets the file level ingest pipeline of a file ingest thread, taking a
+     * pipeline from the pipelines queue the first time the thread processes a
+     * file for this job. There is one pipeline per file ingest thread, so the
+     * thread keeps the pipeline until file level ingest is finished.
+     *
+     * @param threadId The id of the file ingest thread.
+     *
+     * @return The pipeline.
+     *
+     * @throws InterruptedException if the thread executing this code is
+     *                              interrupted while blocked on taking from
+     *                              the file ingest pipelines queue.
+     */
+    private FileIngestPipeline getFileIngestPipeline(long threadId) throws InterruptedException {
+        FileIngestPipeline pipeline = this.fileIngestPipelinesByThreadId.get(threadId);
+        if (null == pipeline) {
+            pipeline = this.fileIngestPipelinesQueue.take();
+            this.fileIngestPipelinesByThreadId.put(threadId, pipeline);
+        }
+        return pipeline;
+    }
+
     /**
      * Adds more files from the data source for this job to the job, e.g., adds
      * extracted or carved files. Not currently supported for the second stage
@@ -1132,7 +1174,7 @@ final class Snapshot {
 
             if (getIngestTasksSnapshot) {
                 synchronized (DataSourceIngestJob.this.fileIngestProgressLock) {
-                    this.processedFiles = DataSourceIngestJob.this.processedFiles;
+                    this.processedFiles = DataSourceIngestJob.this.processedFiles.get();
                     this.estimatedFilesToProcess = DataSourceIngestJob.this.estimatedFilesToProcess;
                     this.snapShotTime = new Date().getTime();
                 }
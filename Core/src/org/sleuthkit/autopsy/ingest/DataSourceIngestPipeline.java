@@ -18,10 +18,16 @@
  */
 package org.sleuthkit.autopsy.ingest;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
@@ -30,7 +36,9 @@
 /**
  * This class manages a sequence of data source level ingest modules for a data
  * source ingest job. It starts the modules, runs data sources through them, and
- * shuts them down when data source level ingest is complete.
+ * shuts them down when data source level ingest is complete. Consecutive
+ * modules that implement ConcurrentDataSourceIngestModule are run concurrently,
+ * and are reported, cancelled and shown in the progress bar as a group.
  * <p>
  * This class is thread-safe.
  */
@@ -38,6 +46,7 @@ final class DataSourceIngestPipeline {
 
     private static final IngestManager ingestManager = IngestManager.getInstance();
     private static final Logger logger = Logger.getLogger(DataSourceIngestPipeline.class.getName());
+    private static final ExecutorService concurrentModulesExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("IM-data-source-module-%d").build()); //NON-NLS
     private final DataSourceIngestJob job;
     private final List<PipelineModule> modules = new ArrayList<>();
     private volatile PipelineModule currentModule;
@@ -89,7 +98,9 @@ synchronized List<IngestModuleError> startUp() {
     }
 
     /**
-     * Runs a data source through the ingest modules in sequential order.
+     * Runs a data source through the ingest modules in sequential order,
+     * except that consecutive modules that implement
+     * ConcurrentDataSourceIngestModule are run concurrently.
      *
      * @param task A data source level ingest task containing a data source to
      *             be processed.
@@ -100,26 +111,35 @@ synchronized List<IngestModuleError> process(DataSourceIngestTask task) {
         List<IngestModuleError> errors = new ArrayList<>();
         if (!this.job.isCancelled()) {
             Content dataSource = task.getDataSource();
-            for (PipelineModule module : modules) {
-                try {
-                    this.currentModule = module;
-                    String displayName = NbBundle.getMessage(this.getClass(),
-                            "IngestJob.progress.dataSourceIngest.displayName",
-                            module.getDisplayName(), dataSource.getName());
-                    this.job.updateDataSourceIngestProgressBarDisplayName(displayName);
-                    this.job.switchDataSourceIngestProgressBarToIndeterminate();
-                    DataSourceIngestPipeline.ingestManager.setIngestTaskProgress(task, module.getDisplayName());
-                    logger.log(Level.INFO, "{0} analysis of {1} (jobId={2}) starting", new Object[]{module.getDisplayName(), this.job.getDataSource().getName(), this.job.getDataSource().getId()}); //NON-NLS
-                    module.process(dataSource, new DataSourceIngestModuleProgress(this.job));
-                    logger.log(Level.INFO, "{0} analysis of {1} (jobId={2}) finished", new Object[]{module.getDisplayName(), this.job.getDataSource().getName(), this.job.getDataSource().getId()}); //NON-NLS
-                } catch (Throwable ex) { // Catch-all exception firewall
-                    errors.add(new IngestModuleError(module.getDisplayName(), ex));
-                    String msg = ex.getMessage();
-                    // Jython run-time errors don't seem to have a message, but have details in toString.
-                    if (msg == null) {
-                        msg = ex.toString();
-                    }
-                    MessageNotifyUtil.Notify.error(NbBundle.getMessage(this.getClass(), "DataSourceIngestPipeline.moduleError.title.text", module.getDisplayName()), msg);
+            int moduleIndex = 0;
+            while (moduleIndex < modules.size()) {
+                List<PipelineModule> moduleGroup = getNextModuleGroup(moduleIndex);
+                moduleIndex += moduleGroup.size();
+                ConcurrentModuleGroup concurrentModules = null;
+                if (moduleGroup.size() == 1) {
+                    this.currentModule = moduleGroup.get(0);
+                } else {
+                    /*
+                     * The modules of a concurrent group share the progress bar
+                     * and the job's cancellation flag, so the group is the
+                     * current module.
+                     */
+                    concurrentModules = new ConcurrentModuleGroup(moduleGroup);
+                    String moduleNames = moduleGroup.stream().map(PipelineModule::getDisplayName).collect(Collectors.joining(", ")); //NON-NLS
+                    this.currentModule = new PipelineModule(concurrentModules, moduleNames);
+                }
+                String displayName = NbBundle.getMessage(this.getClass(),
+                        "IngestJob.progress.dataSourceIngest.displayName",
+                        currentModule.getDisplayName(), dataSource.getName());
+                this.job.updateDataSourceIngestProgressBarDisplayName(displayName);
+                this.job.switchDataSourceIngestProgressBarToIndeterminate();
+                DataSourceIngestPipeline.ingestManager.setIngestTaskProgress(task, currentModule.getDisplayName());
+                IngestModuleError error = processWithModule(dataSource, currentModule, new DataSourceIngestModuleProgress(this.job));
+                if (error != null) {
+                    errors.add(error);
+                }
+                if (concurrentModules != null) {
+                    errors.addAll(concurrentModules.getErrors());
                 }
                 if (this.job.isCancelled()) {
                     break;
@@ -133,6 +153,91 @@ synchronized List<IngestModuleError> process(DataSourceIngestTask task) {
         return errors;
     }
 
+    /**
+     * Gets the next group of modules to run, starting from a given module.
+     * The group is either the given module alone or, if the given module is a
+     * concurrent data source ingest module, the given module and all of the
+     * consecutive concurrent data source ingest modules that follow it.
+     *
+     * @param startIndex The index of the first module of the group.
+     *
+     * @return The modules in the group, in pipeline order.
+     */
+    private List<PipelineModule> getNextModuleGroup(int startIndex) {
+        List<PipelineModule> moduleGroup = new ArrayList<>();
+        moduleGroup.add(modules.get(startIndex));
+        if (modules.get(startIndex).isConcurrent()) {
+            for (int i = startIndex + 1; i < modules.size() && modules.get(i).isConcurrent(); ++i) {
+                moduleGroup.add(modules.get(i));
+            }
+        }
+        return moduleGroup;
+    }
+
+    /**
+     * Runs a group of modules concurrently, using the current thread for the
+     * first module of the group and an executor thread for each of the others.
+     * Each module reports its progress through a ConcurrentModuleProgress.
+     *
+     * @param dataSource  The data source to process.
+     * @param moduleGroup The modules.
+     *
+     * @return A list of processing errors, possible empty.
+     */
+    private List<IngestModuleError> processWithModulesConcurrently(Content dataSource, List<PipelineModule> moduleGroup) {
+        List<IngestModuleError> errors = new ArrayList<>();
+        List<Future<IngestModuleError>> moduleFutures = new ArrayList<>();
+        for (PipelineModule module : moduleGroup.subList(1, moduleGroup.size())) {
+            moduleFutures.add(concurrentModulesExecutor.submit(() -> processWithModule(dataSource, module, new ConcurrentModuleProgress(this.job, module.getDisplayName()))));
+        }
+        PipelineModule firstModule = moduleGroup.get(0);
+        IngestModuleError error = processWithModule(dataSource, firstModule, new ConcurrentModuleProgress(this.job, firstModule.getDisplayName()));
+        if (error != null) {
+            errors.add(error);
+        }
+        for (Future<IngestModuleError> moduleFuture : moduleFutures) {
+            try {
+                error = moduleFuture.get();
+                if (error != null) {
+                    errors.add(error);
+                }
+            } catch (InterruptedException ex) {
+                logger.log(Level.WARNING, String.format("Interrupted while waiting for data source ingest modules to finish analysis of %s (jobId=%d)", dataSource.getName(), this.job.getId()), ex); //NON-NLS
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ex) {
+                logger.log(Level.SEVERE, String.format("Unexpected error running a data source ingest module for %s (jobId=%d)", dataSource.getName(), this.job.getId()), ex); //NON-NLS
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Runs a data source through a single module.
+     *
+     * @param dataSource The data source to process.
+     * @param module     The module.
+     * @param progress   The progress reporter for the module.
+     *
+     * @return The processing error, null if there was no error.
+     */
+    private IngestModuleError processWithModule(Content dataSource, PipelineModule module, DataSourceIngestModuleProgress progress) {
+        try {
+            logger.log(Level.INFO, "{0} analysis of {1} (jobId={2}) starting", new Object[]{module.getDisplayName(), this.job.getDataSource().getName(), this.job.getDataSource().getId()}); //NON-NLS
+            module.process(dataSource, progress);
+            logger.log(Level.INFO, "{0} analysis of {1} (jobId={2}) finished", new Object[]{module.getDisplayName(), this.job.getDataSource().getName(), this.job.getDataSource().getId()}); //NON-NLS
+            return null;
+        } catch (Throwable ex) { // Catch-all exception firewall
+            String msg = ex.getMessage();
+            // Jython run-time errors don't seem to have a message, but have details in toString.
+            if (msg == null) {
+                msg = ex.toString();
+            }
+            MessageNotifyUtil.Notify.error(NbBundle.getMessage(this.getClass(), "DataSourceIngestPipeline.moduleError.title.text", module.getDisplayName()), msg);
+            return new IngestModuleError(module.getDisplayName(), ex);
+        }
+    }
+
     /**
      * Gets the currently running module.
      *
@@ -142,6 +247,92 @@ PipelineModule getCurrentlyRunningModule() {
         return this.currentModule;
     }
 
+    /**
+     * A group of consecutive concurrent data source ingest modules, run as a
+     * single module of the pipeline so that the group as a whole is the
+     * currently running module.
+     */
+    private final class ConcurrentModuleGroup implements DataSourceIngestModule {
+
+        private final List<PipelineModule> modules;
+        private final List<IngestModuleError> errors = new ArrayList<>();
+
+        /**
+         * Constructs a group of concurrent data source ingest modules.
+         *
+         * @param modules The modules, in pipeline order.
+         */
+        ConcurrentModuleGroup(List<PipelineModule> modules) {
+            this.modules = modules;
+        }
+
+        @Override
+        public void startUp(IngestJobContext context) throws IngestModuleException {
+            // The modules of the group are started up with the pipeline.
+        }
+
+        @Override
+        public IngestModule.ProcessResult process(Content dataSource, DataSourceIngestModuleProgress progressBar) {
+            errors.addAll(processWithModulesConcurrently(dataSource, modules));
+            return errors.isEmpty() ? IngestModule.ProcessResult.OK : IngestModule.ProcessResult.ERROR;
+        }
+
+        /**
+         * Gets the errors of the modules of the group from the last run.
+         *
+         * @return A list of processing errors, possibly empty.
+         */
+        List<IngestModuleError> getErrors() {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * Progress reporting for a module that runs concurrently with other
+     * modules. The modules of a group share one progress bar, which stays
+     * indeterminate; work unit updates are ignored and messages are prefixed
+     * with the name of the module that sent them, so that the modules do not
+     * overwrite each other's progress.
+     */
+    private static final class ConcurrentModuleProgress extends DataSourceIngestModuleProgress {
+
+        private final String moduleDisplayName;
+
+        /**
+         * Constructs progress reporting for a module that runs concurrently
+         * with other modules.
+         *
+         * @param job               The data source ingest job.
+         * @param moduleDisplayName The display name of the module.
+         */
+        ConcurrentModuleProgress(DataSourceIngestJob job, String moduleDisplayName) {
+            super(job);
+            this.moduleDisplayName = moduleDisplayName;
+        }
+
+        @Override
+        public void switchToDeterminate(int workUnits) {
+        }
+
+        @Override
+        public void switchToIndeterminate() {
+        }
+
+        @Override
+        public void progress(int workUnits) {
+        }
+
+        @Override
+        public void progress(String message) {
+            super.progress(moduleDisplayName + ": " + message); //NON-NLS
+        }
+
+        @Override
+        public void progress(String currentTask, int workUnits) {
+            progress(currentTask);
+        }
+    }
+
     /**
      * This class decorates a data source level ingest module with a display
      * name and a processing start time.
@@ -175,6 +366,16 @@ String getClassName() {
             return this.module.getClass().getCanonicalName();
         }
 
+        /**
+         * Indicates whether or not the decorated ingest module can be run
+         * concurrently with other concurrent data source ingest modules.
+         *
+         * @return True or false.
+         */
+        boolean isConcurrent() {
+            return this.module instanceof ConcurrentDataSourceIngestModule;
+        }
+
         /**
          * Gets the display of the decorated ingest module.
          *
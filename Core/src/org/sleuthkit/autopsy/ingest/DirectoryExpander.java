@@ -0,0 +1,247 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.TskCoreException;
+import org.sleuthkit.datamodel.TskData;
+
+/**
+ * Expands the files with children that are waiting in the pending file tasks
+ * queue of the ingest tasks scheduler. Instead of calling getChildren() for
+ * each file and then hasChildren() for each child, the children of a batch of
+ * files, including whether or not each child has children of its own, are
+ * fetched from the case database with two bulk queries. The batch for the next
+ * pending files is fetched by a background thread while the current batch is
+ * being consumed, so that the ingest tasks scheduler rarely has to wait on the
+ * case database while holding its lock.
+ */
+@ThreadSafe
+final class DirectoryExpander {
+
+    private static final Logger logger = Logger.getLogger(DirectoryExpander.class.getName());
+    static final int BATCH_SIZE = 100;
+    private static final int PREFETCH_LOW_WATER_MARK = BATCH_SIZE / 2;
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-directory-expander-%d").build()); //NON-NLS
+    private final Map<Long, Future<Map<Long, List<ChildFile>>>> prefetchedChildren = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the children of a file, using the prefetched children of the file
+     * if they are available, and schedules the prefetching of the children of
+     * the files that are expected to be expanded next.
+     *
+     * @param file          The file.
+     * @param upcomingFiles The files that are expected to be expanded after
+     *                      the given file, in order.
+     *
+     * @return The children of the file.
+     *
+     * @throws TskCoreException If there is an error querying the case
+     *                          database.
+     */
+    List<ChildFile> getChildren(AbstractFile file, Collection<AbstractFile> upcomingFiles) throws TskCoreException {
+        List<ChildFile> children = null;
+        Future<Map<Long, List<ChildFile>>> prefetch = prefetchedChildren.remove(file.getId());
+        if (prefetch != null) {
+            try {
+                children = prefetch.get().get(file.getId());
+            } catch (ExecutionException ex) {
+                logger.log(Level.WARNING, String.format("Error prefetching the children of %s (objId=%d), retrying", file.getName(), file.getId()), ex.getCause()); //NON-NLS
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /*
+         * If the children of the file were not prefetched, fetch them now,
+         * along with the children of as many of the upcoming files as will fit
+         * in the batch.
+         */
+        if (children == null) {
+            List<AbstractFile> batch = new ArrayList<>();
+            batch.add(file);
+            for (AbstractFile upcomingFile : upcomingFiles) {
+                if (batch.size() >= BATCH_SIZE) {
+                    break;
+                }
+                if (upcomingFile.getId() != file.getId() && !prefetchedChildren.containsKey(upcomingFile.getId())) {
+                    batch.add(upcomingFile);
+                }
+            }
+            Map<Long, List<ChildFile>> childrenByParentId = fetchChildren(file.getSleuthkitCase(), batch);
+            children = childrenByParentId.get(file.getId());
+            if (batch.size() > 1) {
+                Future<Map<Long, List<ChildFile>>> fetched = CompletableFuture.completedFuture(childrenByParentId);
+                for (AbstractFile batchFile : batch.subList(1, batch.size())) {
+                    prefetchedChildren.putIfAbsent(batchFile.getId(), fetched);
+                }
+            }
+        }
+
+        prefetchUpcomingChildren(file.getSleuthkitCase(), upcomingFiles);
+        return children;
+    }
+
+    /**
+     * Discards any prefetched children for a file that will not be expanded,
+     * e.g., because the ingest job for the file has been cancelled.
+     *
+     * @param file The file.
+     */
+    void discard(AbstractFile file) {
+        prefetchedChildren.remove(file.getId());
+    }
+
+    /**
+     * Submits a background task to fetch the children of the upcoming files
+     * if the number of files with prefetched children is running low.
+     *
+     * @param caseDb        The case database.
+     * @param upcomingFiles The files that are expected to be expanded next,
+     *                      in order.
+     */
+    private void prefetchUpcomingChildren(SleuthkitCase caseDb, Collection<AbstractFile> upcomingFiles) {
+        if (prefetchedChildren.size() >= PREFETCH_LOW_WATER_MARK) {
+            return;
+        }
+        List<AbstractFile> batch = new ArrayList<>();
+        for (AbstractFile upcomingFile : upcomingFiles) {
+            if (batch.size() >= BATCH_SIZE) {
+                break;
+            }
+            if (!prefetchedChildren.containsKey(upcomingFile.getId())) {
+                batch.add(upcomingFile);
+            }
+        }
+        if (!batch.isEmpty()) {
+            Future<Map<Long, List<ChildFile>>> prefetch = prefetchExecutor.submit(() -> fetchChildren(caseDb, batch));
+            for (AbstractFile batchFile : batch) {
+                prefetchedChildren.putIfAbsent(batchFile.getId(), prefetch);
+            }
+        }
+    }
+
+    /**
+     * Fetches the file children of a batch of files from the case database,
+     * along with whether or not each child has children of its own.
+     *
+     * @param caseDb The case database.
+     * @param files  The files.
+     *
+     * @return The children of each file, in object id order, keyed by the
+     *         object id of the file. Every file in the batch has an entry.
+     *
+     * @throws TskCoreException If there is an error querying the case
+     *                          database.
+     */
+    private static Map<Long, List<ChildFile>> fetchChildren(SleuthkitCase caseDb, Collection<AbstractFile> files) throws TskCoreException {
+        String parentIds = files.stream().map(file -> Long.toString(file.getId())).collect(Collectors.joining(",")); //NON-NLS
+        String childObjectsQuery = "SELECT objects.obj_id AS obj_id, objects.par_obj_id AS par_obj_id, " //NON-NLS
+                + "CASE WHEN EXISTS (SELECT 1 FROM tsk_objects grandchildren WHERE grandchildren.par_obj_id = objects.obj_id) THEN 1 ELSE 0 END AS has_children " //NON-NLS
+                + "FROM tsk_objects objects WHERE objects.par_obj_id IN (" + parentIds + ") " //NON-NLS
+                + "AND objects.type = " + TskData.ObjectType.ABSTRACTFILE.getObjectType(); //NON-NLS
+        Map<Long, Long> parentIdsByChildId = new HashMap<>();
+        Map<Long, Boolean> hasChildrenByChildId = new HashMap<>();
+        try (SleuthkitCase.CaseDbQuery dbQuery = caseDb.executeQuery(childObjectsQuery)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                long childId = resultSet.getLong("obj_id"); //NON-NLS
+                parentIdsByChildId.put(childId, resultSet.getLong("par_obj_id")); //NON-NLS
+                hasChildrenByChildId.put(childId, resultSet.getInt("has_children") != 0); //NON-NLS
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException(String.format("Error querying the children of %d files", files.size()), ex); //NON-NLS
+        }
+
+        Map<Long, List<ChildFile>> childrenByParentId = new HashMap<>();
+        for (AbstractFile file : files) {
+            childrenByParentId.put(file.getId(), new ArrayList<>());
+        }
+        if (!parentIdsByChildId.isEmpty()) {
+            List<AbstractFile> childFiles = caseDb.findAllFilesWhere("obj_id IN (SELECT obj_id FROM tsk_objects WHERE par_obj_id IN (" + parentIds + "))"); //NON-NLS
+            for (AbstractFile childFile : childFiles) {
+                Long parentId = parentIdsByChildId.get(childFile.getId());
+                if (parentId != null) {
+                    childrenByParentId.get(parentId).add(new ChildFile(childFile, hasChildrenByChildId.get(childFile.getId())));
+                }
+            }
+            for (List<ChildFile> children : childrenByParentId.values()) {
+                Collections.sort(children, Comparator.comparingLong(child -> child.getFile().getId()));
+            }
+        }
+        return childrenByParentId;
+    }
+
+    /**
+     * A child file of an expanded file, along with whether or not the child
+     * has children of its own.
+     */
+    @Immutable
+    static final class ChildFile {
+
+        private final AbstractFile file;
+        private final boolean hasChildren;
+
+        private ChildFile(AbstractFile file, boolean hasChildren) {
+            this.file = file;
+            this.hasChildren = hasChildren;
+        }
+
+        /**
+         * Gets the child file.
+         *
+         * @return The file.
+         */
+        AbstractFile getFile() {
+            return file;
+        }
+
+        /**
+         * Indicates whether or not the child file has children of its own.
+         *
+         * @return True or false.
+         */
+        boolean hasChildren() {
+            return hasChildren;
+        }
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.bind.DatatypeConverter;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * A content pass service for the file ingest modules of an ingest job. Instead
+ * of each module reading the content of a file to hash it, calculate its
+ * entropy, etc., the modules request the analyses they need when they start
+ * up, and the first module that asks for a result that requires all of the
+ * content of a file causes the content to be read once, in large sequential
+ * reads, to do all such analyses requested for the job. The results are kept until the file has
+ * gone through the whole file ingest pipeline, so the modules that follow get
+ * them without reading the file again.
+ *
+ * Because a file is processed by a single file ingest thread from start to
+ * finish, the results for the file being processed are kept per thread.
+ */
+@ThreadSafe
+public final class FileContentPass {
+
+    /**
+     * The analyses that can be done by a content pass.
+     */
+    public enum Analysis {
+        /**
+         * MD5 hash of the content.
+         */
+        MD5("MD5", true), //NON-NLS
+        /**
+         * SHA-1 hash of the content.
+         */
+        SHA1("SHA-1", true), //NON-NLS
+        /**
+         * SHA-256 hash of the content.
+         */
+        SHA256("SHA-256", true), //NON-NLS
+        /**
+         * Number of occurrences of each byte value in the content, e.g., for
+         * calculating its entropy.
+         */
+        BYTE_COUNTS(null, true),
+        /**
+         * The first HEADER_SIZE bytes of the content, e.g., for matching file
+         * signatures.
+         */
+        HEADER(null, false);
+
+        private final String digestAlgorithm;
+        private final boolean requiresAllContent;
+
+        private Analysis(String digestAlgorithm, boolean requiresAllContent) {
+            this.digestAlgorithm = digestAlgorithm;
+            this.requiresAllContent = requiresAllContent;
+        }
+    }
+
+    /**
+     * The maximum number of bytes captured by the HEADER analysis.
+     */
+    public static final int HEADER_SIZE = 8192;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<byte[]> readBuffer = ThreadLocal.withInitial(() -> new byte[READ_BUFFER_SIZE]);
+    private static final ThreadLocal<Results> currentFileResults = new ThreadLocal<>();
+    @GuardedBy("this")
+    private final Set<Analysis> requestedAnalyses = EnumSet.noneOf(Analysis.class);
+
+    /**
+     * Constructs a content pass service for the file ingest modules of an
+     * ingest job.
+     */
+    FileContentPass() {
+    }
+
+    /**
+     * Requests that analyses be done by the content passes for the files of
+     * the ingest job. Typically called by a file ingest module when it starts
+     * up. Requesting an analysis does not by itself cause a file to be read;
+     * an analysis that requires all of the content is only added to a pass
+     * that a module has asked for via getResults.
+     *
+     * @param analyses The analyses.
+     */
+    public synchronized void requestAnalyses(Analysis... analyses) {
+        requestedAnalyses.addAll(Arrays.asList(analyses));
+    }
+
+    /**
+     * Gets the results of the content pass for a file, doing the pass if the
+     * analyses needed by the caller have not already been done for the file by
+     * another module. Only the header of the file is read unless one of the
+     * needed analyses requires all of the content; in that case, the other
+     * analyses requested for the ingest job that require all of the content
+     * are done in the same pass, so that the modules that follow do not have
+     * to read the file again.
+     *
+     * @param file     The file.
+     * @param analyses The analyses needed by the caller.
+     *
+     * @return The results.
+     *
+     * @throws TskCoreException If there is an error reading the content of the
+     *                          file.
+     */
+    public Results getResults(AbstractFile file, Analysis... analyses) throws TskCoreException {
+        Set<Analysis> needed = EnumSet.of(Analysis.HEADER, analyses);
+        Results results = currentFileResults.get();
+        if (results != null && results.fileId == file.getId() && results.analyses.containsAll(needed)) {
+            return results;
+        }
+        boolean requiresAllContent = false;
+        for (Analysis analysis : needed) {
+            requiresAllContent |= analysis.requiresAllContent;
+        }
+        if (requiresAllContent) {
+            synchronized (this) {
+                for (Analysis analysis : requestedAnalyses) {
+                    if (analysis.requiresAllContent) {
+                        needed.add(analysis);
+                    }
+                }
+            }
+        }
+        if (results != null && results.fileId == file.getId()) {
+            needed.addAll(results.analyses);
+        }
+        results = doContentPass(file, needed);
+        currentFileResults.set(results);
+        return results;
+    }
+
+    /**
+     * Gets the results of the content pass for a file if the file is being
+     * processed by the current thread and the pass has already been done. This
+     * allows code that is not part of an ingest module, e.g., file type
+     * detection, to take advantage of a content pass without causing one.
+     *
+     * @param file The file.
+     *
+     * @return The results, null if there are none.
+     */
+    public static Results getCurrentResults(AbstractFile file) {
+        Results results = currentFileResults.get();
+        return (results != null && results.fileId == file.getId()) ? results : null;
+    }
+
+    /**
+     * Discards the content pass results for the file the current thread has
+     * finished processing.
+     */
+    static void fileCompleted() {
+        currentFileResults.remove();
+    }
+
+    /**
+     * Reads the content of a file, doing a given set of analyses.
+     *
+     * @param file     The file.
+     * @param analyses The analyses.
+     *
+     * @return The results.
+     *
+     * @throws TskCoreException If there is an error reading the content of the
+     *                          file.
+     */
+    private static Results doContentPass(AbstractFile file, Set<Analysis> analyses) throws TskCoreException {
+        Map<Analysis, MessageDigest> digests = new EnumMap<>(Analysis.class);
+        boolean requiresAllContent = false;
+        for (Analysis analysis : analyses) {
+            if (analysis.digestAlgorithm != null) {
+                try {
+                    digests.put(analysis, MessageDigest.getInstance(analysis.digestAlgorithm));
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new TskCoreException(String.format("%s digest algorithm not available", analysis.digestAlgorithm), ex); //NON-NLS
+                }
+            }
+            requiresAllContent |= analysis.requiresAllContent;
+        }
+        long[] byteCounts = analyses.contains(Analysis.BYTE_COUNTS) ? new long[256] : null;
+        long bytesToRead = requiresAllContent ? file.getSize() : Math.min(file.getSize(), HEADER_SIZE);
+        byte[] header = new byte[(int) Math.min(bytesToRead, HEADER_SIZE)];
+
+        byte[] buffer = readBuffer.get();
+        long offset = 0;
+        while (offset < bytesToRead) {
+            int bytesRead = file.read(buffer, offset, (int) Math.min(buffer.length, bytesToRead - offset));
+            if (bytesRead <= 0) {
+                throw new TskCoreException(String.format("Read %d of %d bytes of file %d (object id)", offset, bytesToRead, file.getId())); //NON-NLS
+            }
+            if (offset < header.length) {
+                System.arraycopy(buffer, 0, header, (int) offset, (int) Math.min(bytesRead, header.length - offset));
+            }
+            for (MessageDigest digest : digests.values()) {
+                digest.update(buffer, 0, bytesRead);
+            }
+            if (byteCounts != null) {
+                for (int i = 0; i < bytesRead; ++i) {
+                    byteCounts[buffer[i] & 0xFF]++;
+                }
+            }
+            offset += bytesRead;
+        }
+
+        Map<Analysis, String> hashes = new EnumMap<>(Analysis.class);
+        for (Map.Entry<Analysis, MessageDigest> entry : digests.entrySet()) {
+            hashes.put(entry.getKey(), DatatypeConverter.printHexBinary(entry.getValue().digest()).toLowerCase());
+        }
+        return new Results(file.getId(), analyses, hashes, byteCounts, header, offset);
+    }
+
+    /**
+     * The results of a content pass for a file.
+     */
+    @Immutable
+    public static final class Results {
+
+        private final long fileId;
+        private final Set<Analysis> analyses;
+        private final Map<Analysis, String> hashes;
+        private final long[] byteCounts;
+        private final byte[] header;
+        private final long bytesRead;
+
+        private Results(long fileId, Set<Analysis> analyses, Map<Analysis, String> hashes, long[] byteCounts, byte[] header, long bytesRead) {
+            this.fileId = fileId;
+            this.analyses = analyses;
+            this.hashes = hashes;
+            this.byteCounts = byteCounts;
+            this.header = header;
+            this.bytesRead = bytesRead;
+        }
+
+        /**
+         * Gets the MD5 hash of the content of the file.
+         *
+         * @return The hash as a lower case hex string, null if the analysis
+         *         was not requested.
+         */
+        public String getMd5Hash() {
+            return hashes.get(Analysis.MD5);
+        }
+
+        /**
+         * Gets the SHA-1 hash of the content of the file.
+         *
+         * @return The hash as a lower case hex string, null if the analysis
+         *         was not requested.
+         */
+        public String getSha1Hash() {
+            return hashes.get(Analysis.SHA1);
+        }
+
+        /**
+         * Gets the SHA-256 hash of the content of the file.
+         *
+         * @return The hash as a lower case hex string, null if the analysis
+         *         was not requested.
+         */
+        public String getSha256Hash() {
+            return hashes.get(Analysis.SHA256);
+        }
+
+        /**
+         * Gets the number of occurrences of each byte value in the content of
+         * the file.
+         *
+         * @return An array of 256 counts indexed by unsigned byte value, null
+         *         if the analysis was not requested.
+         */
+        public long[] getByteCounts() {
+            return byteCounts == null ? null : byteCounts.clone();
+        }
+
+        /**
+         * Gets the first bytes of the content of the file.
+         *
+         * @return Up to HEADER_SIZE bytes, fewer if the file is smaller.
+         */
+        public byte[] getHeader() {
+            return header.clone();
+        }
+
+        /**
+         * Gets a range of the first bytes of the content of the file, if the
+         * range lies within the captured header.
+         *
+         * @param offset The offset of the range.
+         * @param length The length of the range.
+         *
+         * @return The bytes, null if the range is not within the header.
+         */
+        public byte[] getHeaderBytes(long offset, int length) {
+            if (offset < 0 || offset + length > header.length) {
+                return null;
+            }
+            return Arrays.copyOfRange(header, (int) offset, (int) offset + length);
+        }
+
+        /**
+         * Gets the number of bytes of content read by the content pass.
+         *
+         * @return The number of bytes.
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+    }
+
+}
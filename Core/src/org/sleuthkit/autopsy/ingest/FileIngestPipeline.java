@@ -21,10 +21,12 @@
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.coreutils.LatencyHistogram;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.datamodel.AbstractFile;
@@ -58,7 +60,8 @@ final class FileIngestPipeline {
         this.job = job;
         for (IngestModuleTemplate template : moduleTemplates) {
             if (template.isFileIngestModuleTemplate()) {
-                PipelineModule module = new PipelineModule(template.createFileIngestModule(), template.getModuleName());
+                PipelineModule module = new PipelineModule(template.createFileIngestModule(), template.getModuleName(),
+                        ingestManager.getFileIngestModuleLatencyHistogram(template.getModuleName()), ingestManager.getModuleRunTime(template.getModuleName()));
                 modules.add(module);
             }
         }
@@ -112,21 +115,30 @@ synchronized List<IngestModuleError> startUp() {
     }
 
     /**
-     * Runs a file through the ingest modules in sequential order.
+     * Runs a file through the ingest modules in sequential order. A pipeline
+     * is only ever used by the file ingest thread that took it, so this method
+     * is not synchronized. The thread's progress is recorded in its
+     * FileIngestThreadActivity, which is sampled when snapshots are taken.
      *
      * @param task A file level ingest task containing a file to be processed.
      *
      * @return A list of processing errors, possible empty.
      */
-    synchronized List<IngestModuleError> process(FileIngestTask task) {
+    List<IngestModuleError> process(FileIngestTask task) {
         List<IngestModuleError> errors = new ArrayList<>();
+        IngestManager.FileIngestThreadActivity activity = FileIngestPipeline.ingestManager.getFileIngestThreadActivity(task.getThreadId());
         if (!this.job.isCancelled()) {
             AbstractFile file = task.getFile();
             for (PipelineModule module : this.modules) {
                 try {
-                    FileIngestPipeline.ingestManager.setIngestTaskProgress(task, module.getDisplayName());
-                    this.job.setCurrentFileIngestModule(module.getDisplayName(), task.getFile().getName());
-                    module.process(file);
+                    activity.moduleStarted(task, module.getDisplayName());
+                    this.job.setCurrentFileIngestModule(module.getDisplayName(), file.getName());
+                    long moduleStartTime = System.nanoTime();
+                    try {
+                        module.process(file);
+                    } finally {
+                        module.recordLatency(System.nanoTime() - moduleStartTime);
+                    }
                 } catch (Throwable ex) { // Catch-all exception firewall
                     errors.add(new IngestModuleError(module.getDisplayName(), ex));
                     String msg = ex.getMessage();
@@ -152,7 +164,8 @@ synchronized List<IngestModuleError> process(FileIngestTask task) {
             }
             file.close();
         }
-        FileIngestPipeline.ingestManager.setIngestTaskProgressCompleted(task);
+        FileContentPass.fileCompleted();
+        activity.taskCompleted();
         return errors;
     }
 
@@ -183,23 +196,34 @@ synchronized List<IngestModuleError> shutDown() {
     }
 
     /**
-     * This class decorates a file level ingest module with a display name.
+     * This class decorates a file level ingest module with a display name, a
+     * histogram of the time the module takes to process a file, and the
+     * cumulative run time of the module.
      */
     private static final class PipelineModule implements FileIngestModule {
 
         private final FileIngestModule module;
         private final String displayName;
+        private final LatencyHistogram latencyHistogram;
+        private final LongAdder runTime;
 
         /**
          * Constructs an object that decorates a file level ingest module with a
-         * display name.
+         * display name, a latency histogram and a run time counter.
          *
-         * @param module      The file level ingest module to be decorated.
-         * @param displayName The display name.
+         * @param module           The file level ingest module to be
+         *                         decorated.
+         * @param displayName      The display name.
+         * @param latencyHistogram The histogram of the time, in nanoseconds,
+         *                         the module takes to process a file.
+         * @param runTime          The cumulative run time, in nanoseconds, of
+         *                         the module.
          */
-        PipelineModule(FileIngestModule module, String displayName) {
+        PipelineModule(FileIngestModule module, String displayName, LatencyHistogram latencyHistogram, LongAdder runTime) {
             this.module = module;
             this.displayName = displayName;
+            this.latencyHistogram = latencyHistogram;
+            this.runTime = runTime;
         }
 
         /**
@@ -220,6 +244,16 @@ String getDisplayName() {
             return displayName;
         }
 
+        /**
+         * Records the time the decorated ingest module took to process a file.
+         *
+         * @param nanoseconds The processing time in nanoseconds.
+         */
+        void recordLatency(long nanoseconds) {
+            latencyHistogram.record(nanoseconds);
+            runTime.add(nanoseconds);
+        }
+
         @Override
         public void startUp(IngestJobContext context) throws IngestModuleException {
             module.startUp(context);
@@ -61,6 +61,18 @@ public long getJobId() {
         return this.ingestJob.getId();
     }
 
+    /**
+     * Gets the content pass service shared by the file ingest modules of the
+     * ingest job associated with this context. File ingest modules that need
+     * to hash a file, count its byte values, etc., should use this service
+     * rather than reading the content of the file themselves.
+     *
+     * @return The content pass service.
+     */
+    public FileContentPass getFileContentPass() {
+        return this.ingestJob.getFileContentPass();
+    }
+
     /**
      * Queries whether or not cancellation of the data source ingest part of the
      * ingest job associated with this context has been requested.
@@ -37,7 +37,9 @@
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -54,6 +56,7 @@
 import org.sleuthkit.autopsy.core.RuntimeProperties;
 import org.sleuthkit.autopsy.core.ServicesMonitor;
 import org.sleuthkit.autopsy.core.UserPreferences;
+import org.sleuthkit.autopsy.coreutils.LatencyHistogram;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.autopsy.events.AutopsyEvent;
@@ -75,10 +78,9 @@
  * ingest task scheduler to be broken down into data source level and file level
  * ingest job tasks. The ingest job tasks that are put into queues for execution
  * by the ingest manager's executors. The process of starting an ingest job is
- * handled by a single-threaded executor, the processing of data source level
- * ingest tasks is handled by another single-threaded executor, and the
- * processing of file level ingest jobs is handled by an executor with a
- * configurable number of threads.
+ * handled by a single-threaded executor, and the processing of data source
+ * level ingest tasks and of file level ingest tasks is handled by two more
+ * executors, each with a configurable number of threads.
  *
  * The ingest manager publishes two kinds of application events: ingest job
  * events and ingest module events. Ingest job events are published when an
@@ -117,12 +119,13 @@ public class IngestManager {
     private final static int MAX_ERROR_MESSAGE_POSTS = 200;
     @GuardedBy("IngestManager.class")
     private static IngestManager instance;
+    private final int numberOfDataSourceIngestThreads;
     private final int numberOfFileIngestThreads;
     private final AtomicLong nextIngestManagerTaskId = new AtomicLong(0L);
     private final ExecutorService startIngestJobsExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-start-ingest-jobs-%d").build()); //NON-NLS;
     private final Map<Long, Future<Void>> startIngestJobFutures = new ConcurrentHashMap<>();
     private final Map<Long, IngestJob> ingestJobsById = new HashMap<>();
-    private final ExecutorService dataSourceLevelIngestJobTasksExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-data-source-ingest-%d").build()); //NON-NLS;
+    private final ExecutorService dataSourceLevelIngestJobTasksExecutor;
     private final ExecutorService fileLevelIngestJobTasksExecutor;
     private final ExecutorService eventPublishingExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("IM-ingest-events-%d").build()); //NON-NLS;
     private final IngestMonitor ingestMonitor = new IngestMonitor();
@@ -132,7 +135,9 @@ public class IngestManager {
     private final Object ingestMessageBoxLock = new Object();
     private final AtomicLong ingestErrorMessagePosts = new AtomicLong(0L);
     private final ConcurrentHashMap<Long, IngestThreadActivitySnapshot> ingestThreadActivitySnapshots = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> ingestModuleRunTimes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, FileIngestThreadActivity> fileIngestThreadActivities = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> ingestModuleRunTimes = new ConcurrentHashMap<>(); // nanoseconds
+    private final ConcurrentHashMap<String, LatencyHistogram> fileIngestModuleLatencies = new ConcurrentHashMap<>();
     private volatile IngestMessageTopComponent ingestMessageBox;
     private volatile boolean caseIsOpen;
 
@@ -157,13 +162,19 @@ public synchronized static IngestManager getInstance() {
      */
     private IngestManager() {
         /*
-         * Submit a single Runnable ingest manager task for processing data
-         * source level ingest job tasks to the data source level ingest job
-         * tasks executor.
+         * Submit a configurable number of Runnable ingest manager tasks for
+         * processing data source level ingest job tasks to the data source
+         * level ingest job tasks executor, so that the data source level
+         * ingest of concurrent ingest jobs does not have to be serialized.
          */
-        long threadId = nextIngestManagerTaskId.incrementAndGet();
-        dataSourceLevelIngestJobTasksExecutor.submit(new ExecuteIngestJobTasksTask(threadId, IngestTasksScheduler.getInstance().getDataSourceIngestTaskQueue()));
-        ingestThreadActivitySnapshots.put(threadId, new IngestThreadActivitySnapshot(threadId));
+        long threadId;
+        numberOfDataSourceIngestThreads = UserPreferences.numberOfDataSourceIngestThreads();
+        dataSourceLevelIngestJobTasksExecutor = Executors.newFixedThreadPool(numberOfDataSourceIngestThreads, new ThreadFactoryBuilder().setNameFormat("IM-data-source-ingest-%d").build()); //NON-NLS
+        for (int i = 0; i < numberOfDataSourceIngestThreads; ++i) {
+            threadId = nextIngestManagerTaskId.incrementAndGet();
+            dataSourceLevelIngestJobTasksExecutor.submit(new ExecuteIngestJobTasksTask(threadId, IngestTasksScheduler.getInstance().getDataSourceIngestTaskQueue()));
+            ingestThreadActivitySnapshots.put(threadId, new IngestThreadActivitySnapshot(threadId));
+        }
 
         /*
          * Submit a configurable number of Runnable ingest manager tasks for
@@ -175,7 +186,7 @@ private IngestManager() {
         for (int i = 0; i < numberOfFileIngestThreads; ++i) {
             threadId = nextIngestManagerTaskId.incrementAndGet();
             fileLevelIngestJobTasksExecutor.submit(new ExecuteIngestJobTasksTask(threadId, IngestTasksScheduler.getInstance().getFileIngestTaskQueue()));
-            ingestThreadActivitySnapshots.put(threadId, new IngestThreadActivitySnapshot(threadId));
+            fileIngestThreadActivities.put(threadId, new FileIngestThreadActivity(threadId));
         }
     }
 
@@ -285,6 +296,16 @@ void handleCaseClosed() {
         clearIngestMessageBox();
     }
 
+    /**
+     * Gets the number of data source ingest threads the ingest manager is
+     * using to do ingest jobs.
+     *
+     * @return The number of data source ingest threads.
+     */
+    public int getNumberOfDataSourceIngestThreads() {
+        return numberOfDataSourceIngestThreads;
+    }
+
     /**
      * Gets the number of file ingest threads the ingest manager is using to do
      * ingest jobs.
@@ -687,21 +708,18 @@ void setIngestTaskProgress(DataSourceIngestTask task, String ingestModuleDisplay
     }
 
     /**
-     * Updates the ingest job snapshot when a file source level ingest job task
-     * starts to be processed by a file level ingest module in the file ingest
-     * modules pipeline of an ingest job.
+     * Gets the current activity of a file ingest thread, which the file ingest
+     * pipeline run by the thread updates as it runs a file through its
+     * modules. Snapshots of the activity are taken when they are asked for,
+     * instead of being made for every file and module.
      *
-     * @param task                    The file level ingest job task that was
-     *                                started.
-     * @param ingestModuleDisplayName The dislpay name of the file level ingest
-     *                                module that has started processing the
-     *                                task.
+     * @param threadId The ingest manager task/thread id of the file ingest
+     *                 thread.
+     *
+     * @return The activity.
      */
-    void setIngestTaskProgress(FileIngestTask task, String ingestModuleDisplayName) {
-        IngestThreadActivitySnapshot prevSnap = ingestThreadActivitySnapshots.get(task.getThreadId());
-        IngestThreadActivitySnapshot newSnap = new IngestThreadActivitySnapshot(task.getThreadId(), task.getIngestJob().getId(), ingestModuleDisplayName, task.getDataSource(), task.getFile());
-        ingestThreadActivitySnapshots.put(task.getThreadId(), newSnap);
-        incrementModuleRunTime(prevSnap.getActivity(), newSnap.getStartTime().getTime() - prevSnap.getStartTime().getTime());
+    FileIngestThreadActivity getFileIngestThreadActivity(long threadId) {
+        return fileIngestThreadActivities.computeIfAbsent(threadId, FileIngestThreadActivity::new);
     }
 
     /**
@@ -716,51 +734,52 @@ void setIngestTaskProgressCompleted(DataSourceIngestTask task) {
     }
 
     /**
-     * Updates the ingest job snapshot when a file level ingest job task is
-     * completed by the file ingest modules in the file ingest modules pipeline
-     * of an ingest job.
+     * Gets the cumulative run time of a given ingest module, to which the
+     * ingest pipelines add the time the module takes to process each file.
+     *
+     * @param moduleDisplayName The display name of the ingest module.
      *
-     * @param task The file level ingest job task that was completed.
+     * @return The run time, in nanoseconds.
      */
-    void setIngestTaskProgressCompleted(FileIngestTask task) {
-        IngestThreadActivitySnapshot prevSnap = ingestThreadActivitySnapshots.get(task.getThreadId());
-        IngestThreadActivitySnapshot newSnap = new IngestThreadActivitySnapshot(task.getThreadId());
-        ingestThreadActivitySnapshots.put(task.getThreadId(), newSnap);
-        incrementModuleRunTime(prevSnap.getActivity(), newSnap.getStartTime().getTime() - prevSnap.getStartTime().getTime());
+    LongAdder getModuleRunTime(String moduleDisplayName) {
+        return ingestModuleRunTimes.computeIfAbsent(moduleDisplayName, name -> new LongAdder());
     }
 
     /**
-     * Updates the cumulative run time for a given ingest module.
+     * Gets the cumulative run times for the ingest module.
      *
-     * @param moduleDisplayName The diplay name of the ingest module.
-     * @param duration
+     * @return Map of module name to run time (in milliseconds)
      */
-    private void incrementModuleRunTime(String moduleDisplayName, Long duration) {
-        if (moduleDisplayName.equals("IDLE")) { //NON-NLS
-            return;
-        }
+    Map<String, Long> getModuleRunTimes() {
+        Map<String, Long> times = new HashMap<>();
+        ingestModuleRunTimes.forEach((moduleDisplayName, runTime) -> times.put(moduleDisplayName, TimeUnit.NANOSECONDS.toMillis(runTime.sum())));
+        return times;
+    }
 
-        synchronized (ingestModuleRunTimes) {
-            Long prevTimeL = ingestModuleRunTimes.get(moduleDisplayName);
-            long prevTime = 0;
-            if (prevTimeL != null) {
-                prevTime = prevTimeL;
-            }
-            prevTime += duration;
-            ingestModuleRunTimes.put(moduleDisplayName, prevTime);
-        }
+    /**
+     * Gets the histogram used to record the time, in nanoseconds, that a file
+     * level ingest module takes to process a file. The histogram is shared by
+     * all of the instances of the module in all of the file ingest pipelines.
+     *
+     * @param moduleDisplayName The display name of the file level ingest
+     *                          module.
+     *
+     * @return The histogram.
+     */
+    LatencyHistogram getFileIngestModuleLatencyHistogram(String moduleDisplayName) {
+        return fileIngestModuleLatencies.computeIfAbsent(moduleDisplayName, name -> new LatencyHistogram());
     }
 
     /**
-     * Gets the cumulative run times for the ingest module.
+     * Gets snapshots of the histograms of the time, in nanoseconds, that the
+     * file level ingest modules take to process a file.
      *
-     * @return Map of module name to run time (in milliseconds)
+     * @return Map of module name to latency histogram snapshot.
      */
-    Map<String, Long> getModuleRunTimes() {
-        synchronized (ingestModuleRunTimes) {
-            Map<String, Long> times = new HashMap<>(ingestModuleRunTimes);
-            return times;
-        }
+    Map<String, LatencyHistogram.Snapshot> getFileIngestModuleLatencies() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new HashMap<>();
+        fileIngestModuleLatencies.forEach((moduleDisplayName, histogram) -> latencies.put(moduleDisplayName, histogram.getSnapshot()));
+        return latencies;
     }
 
     /**
@@ -770,7 +789,9 @@ Map<String, Long> getModuleRunTimes() {
      * @return A collection of ingest manager ingest task snapshots.
      */
     List<IngestThreadActivitySnapshot> getIngestThreadActivitySnapshots() {
-        return new ArrayList<>(ingestThreadActivitySnapshots.values());
+        List<IngestThreadActivitySnapshot> snapshots = new ArrayList<>(ingestThreadActivitySnapshots.values());
+        fileIngestThreadActivities.values().forEach(activity -> snapshots.add(activity.getSnapshot()));
+        return snapshots;
     }
 
     /**
@@ -911,6 +932,64 @@ public void run() {
 
     }
 
+    /**
+     * The current activity of a file ingest thread. The thread updates it with
+     * volatile writes as it moves a file through the modules of its file
+     * ingest pipeline, and snapshots of it are taken on demand.
+     */
+    @ThreadSafe
+    static final class FileIngestThreadActivity {
+
+        private final long threadId;
+        private volatile FileIngestTask task;
+        private volatile String moduleDisplayName;
+        private volatile long startTime;
+
+        /**
+         * Constructs the activity of an idle file ingest thread.
+         *
+         * @param threadId The ingest manager task/thread id of the thread.
+         */
+        FileIngestThreadActivity(long threadId) {
+            this.threadId = threadId;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Records that a file level ingest module has started processing the
+         * file of a file ingest task.
+         *
+         * @param task              The task.
+         * @param moduleDisplayName The display name of the module.
+         */
+        void moduleStarted(FileIngestTask task, String moduleDisplayName) {
+            this.moduleDisplayName = moduleDisplayName;
+            this.task = task;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Records that the thread has finished processing a file ingest task.
+         */
+        void taskCompleted() {
+            this.task = null;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Takes a snapshot of the activity.
+         *
+         * @return The snapshot.
+         */
+        IngestThreadActivitySnapshot getSnapshot() {
+            FileIngestTask currentTask = this.task;
+            if (null == currentTask) {
+                return new IngestThreadActivitySnapshot(threadId);
+            }
+            return new IngestThreadActivitySnapshot(threadId, currentTask.getIngestJob().getId(), moduleDisplayName, currentTask.getDataSource(), currentTask.getFile(), new Date(startTime));
+        }
+    }
+
     /**
      * A snapshot of the current activity of an ingest job task execution task
      * running in an ingest thread.
@@ -971,11 +1050,12 @@ static final class IngestThreadActivitySnapshot {
          * @param dataSource The data source that is the source of the file that
          *                   is the subject of the task.
          * @param file       The file that is the subject of the task.
+         * @param startTime  The start date and time of the current activity.
          */
-        IngestThreadActivitySnapshot(long threadId, long jobId, String activity, Content dataSource, AbstractFile file) {
+        IngestThreadActivitySnapshot(long threadId, long jobId, String activity, Content dataSource, AbstractFile file, Date startTime) {
             this.threadId = threadId;
             this.jobId = jobId;
-            startTime = new Date();
+            this.startTime = startTime;
             this.activity = activity;
             this.dataSourceName = dataSource.getName();
             this.fileName = file.getName();
@@ -24,11 +24,14 @@
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import javax.swing.JDialog;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableColumn;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.openide.util.NbBundle;
+import org.sleuthkit.autopsy.coreutils.LatencyHistogram;
 
 /**
  * A panel that displays ingest task progress snapshots.
@@ -256,10 +259,12 @@ private class ModuleStats implements Comparable<ModuleStats> {
 
             private final String name;
             private final long duration;
+            private final LatencyHistogram.Snapshot latencies;
 
-            ModuleStats(String name, long duration) {
+            ModuleStats(String name, long duration, LatencyHistogram.Snapshot latencies) {
                 this.name = name;
                 this.duration = duration;
+                this.latencies = latencies;
             }
 
             /**
@@ -276,6 +281,14 @@ protected long getDuration() {
                 return duration;
             }
 
+            /**
+             * @return the per file processing time histogram, null for data
+             *         source level ingest modules
+             */
+            protected LatencyHistogram.Snapshot getLatencies() {
+                return latencies;
+            }
+
             @Override
             public int compareTo(ModuleStats o) {
                 if (duration > o.getDuration()) {
@@ -290,7 +303,19 @@ public int compareTo(ModuleStats o) {
         }
         private final String[] columnNames = {NbBundle.getMessage(this.getClass(), "ModuleTableModel.colName.module"),
             NbBundle.getMessage(this.getClass(),
-            "ModuleTableModel.colName.duration")};
+            "ModuleTableModel.colName.duration"),
+            NbBundle.getMessage(this.getClass(),
+            "ModuleTableModel.colName.filesProcessed"),
+            NbBundle.getMessage(this.getClass(),
+            "ModuleTableModel.colName.meanTime"),
+            NbBundle.getMessage(this.getClass(),
+            "ModuleTableModel.colName.p50Time"),
+            NbBundle.getMessage(this.getClass(),
+            "ModuleTableModel.colName.p95Time"),
+            NbBundle.getMessage(this.getClass(),
+            "ModuleTableModel.colName.p99Time"),
+            NbBundle.getMessage(this.getClass(),
+            "ModuleTableModel.colName.maxTime")};
         private final List<ModuleStats> moduleStats = new ArrayList<>();
         private long totalTime;
 
@@ -300,11 +325,15 @@ private ModuleTableModel() {
 
         private void refresh() {
             Map<String, Long> moduleStatMap = IngestManager.getInstance().getModuleRunTimes();
+            Map<String, LatencyHistogram.Snapshot> moduleLatencyMap = IngestManager.getInstance().getFileIngestModuleLatencies();
+            Set<String> moduleNames = new TreeSet<>(moduleStatMap.keySet());
+            moduleNames.addAll(moduleLatencyMap.keySet());
             moduleStats.clear();
             totalTime = 0;
-            for (String k : moduleStatMap.keySet()) {
-                moduleStats.add(new ModuleStats(k, moduleStatMap.get(k)));
-                totalTime += moduleStatMap.get(k);
+            for (String k : moduleNames) {
+                long duration = moduleStatMap.getOrDefault(k, 0L);
+                moduleStats.add(new ModuleStats(k, duration, moduleLatencyMap.get(k)));
+                totalTime += duration;
             }
             Collections.sort(moduleStats);
             fireTableDataChanged();
@@ -334,7 +363,25 @@ public Object getValueAt(int rowIndex, int columnIndex) {
                     cellValue = moduleStat.getName();
                     break;
                 case 1:
-                    cellValue = DurationFormatUtils.formatDurationHMS(moduleStat.getDuration()) + " (" + (moduleStat.getDuration() * 100) / totalTime + "%)";
+                    cellValue = DurationFormatUtils.formatDurationHMS(moduleStat.getDuration()) + " (" + (totalTime > 0 ? (moduleStat.getDuration() * 100) / totalTime : 0) + "%)";
+                    break;
+                case 2:
+                    cellValue = moduleStat.getLatencies() != null ? moduleStat.getLatencies().getCount() : null;
+                    break;
+                case 3:
+                    cellValue = moduleStat.getLatencies() != null ? formatLatency((long) moduleStat.getLatencies().getMean()) : null;
+                    break;
+                case 4:
+                    cellValue = moduleStat.getLatencies() != null ? formatLatency(moduleStat.getLatencies().getValueAtPercentile(50)) : null;
+                    break;
+                case 5:
+                    cellValue = moduleStat.getLatencies() != null ? formatLatency(moduleStat.getLatencies().getValueAtPercentile(95)) : null;
+                    break;
+                case 6:
+                    cellValue = moduleStat.getLatencies() != null ? formatLatency(moduleStat.getLatencies().getValueAtPercentile(99)) : null;
+                    break;
+                case 7:
+                    cellValue = moduleStat.getLatencies() != null ? formatLatency(moduleStat.getLatencies().getMax()) : null;
                     break;
 
                 default:
@@ -343,6 +390,18 @@ public Object getValueAt(int rowIndex, int columnIndex) {
             }
             return cellValue;
         }
+
+        /**
+         * Formats a per file processing time recorded in nanoseconds as
+         * milliseconds.
+         *
+         * @param nanoseconds The processing time in nanoseconds.
+         *
+         * @return The formatted processing time.
+         */
+        private String formatLatency(long nanoseconds) {
+            return String.format("%.3f", nanoseconds / 1000000.0); //NON-NLS
+        }
     }
 
     /**
@@ -28,12 +28,18 @@
 import java.util.List;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
+import org.sleuthkit.autopsy.core.UserPreferences;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.Content;
@@ -55,9 +61,12 @@ final class IngestTasksScheduler {
     private final IngestTaskTrackingQueue dataSourceIngestThreadQueue;
     @GuardedBy("this")
     private final TreeSet<FileIngestTask> rootFileTaskQueue;
+    private final IngestJobTaskCounts rootFileTaskCounts;
     @GuardedBy("this")
     private final Deque<FileIngestTask> pendingFileTaskQueue;
-    private final IngestTaskTrackingQueue fileIngestThreadsQueue;
+    private final IngestJobTaskCounts pendingFileTaskCounts;
+    private final DirectoryExpander directoryExpander;
+    private final TrackingIngestTaskQueue fileIngestThreadsQueue;
 
     /**
      * Gets the ingest tasks scheduler singleton that creates ingest tasks for
@@ -79,8 +88,15 @@ synchronized static IngestTasksScheduler getInstance() {
     private IngestTasksScheduler() {
         this.dataSourceIngestThreadQueue = new IngestTaskTrackingQueue();
         this.rootFileTaskQueue = new TreeSet<>(new RootDirectoryTaskComparator());
+        this.rootFileTaskCounts = new IngestJobTaskCounts();
         this.pendingFileTaskQueue = new LinkedList<>();
-        this.fileIngestThreadsQueue = new IngestTaskTrackingQueue();
+        this.pendingFileTaskCounts = new IngestJobTaskCounts();
+        this.directoryExpander = new DirectoryExpander();
+        if (UserPreferences.useWorkStealingFileIngestScheduler()) {
+            this.fileIngestThreadsQueue = new WorkStealingIngestTaskQueue();
+        } else {
+            this.fileIngestThreadsQueue = new IngestTaskTrackingQueue();
+        }
     }
 
     /**
@@ -159,8 +175,8 @@ synchronized void scheduleFileIngestTasks(DataSourceIngestJob job, Collection<Ab
             }
             for (AbstractFile file : candidateFiles) {
                 FileIngestTask task = new FileIngestTask(job, file);
-                if (IngestTasksScheduler.shouldEnqueueFileTask(task)) {
-                    this.rootFileTaskQueue.add(task);
+                if (IngestTasksScheduler.shouldEnqueueFileTask(task) && this.rootFileTaskQueue.add(task)) {
+                    this.rootFileTaskCounts.increment(job.getId());
                 }
             }
             shuffleFileTaskQueues();
@@ -214,11 +230,20 @@ synchronized void notifyTaskCompleted(DataSourceIngestTask task) {
      * Allows an ingest thread to notify this ingest task scheduler that a file
      * level task has been completed.
      *
+     * The scheduler lock is only taken if the queue for the file ingest threads
+     * has been drained and needs to be refilled. This is safe because the
+     * thread that takes the last task from the queue always gets here after
+     * doing so, and a shuffle is a no-op when the queue is not empty.
+     *
      * @param task The completed task.
      */
-    synchronized void notifyTaskCompleted(FileIngestTask task) {
+    void notifyTaskCompleted(FileIngestTask task) {
         this.fileIngestThreadsQueue.taskCompleted(task);
-        shuffleFileTaskQueues();
+        if (this.fileIngestThreadsQueue.isEmpty()) {
+            synchronized (this) {
+                shuffleFileTaskQueues();
+            }
+        }
     }
 
     /**
@@ -232,8 +257,8 @@ synchronized void notifyTaskCompleted(FileIngestTask task) {
     synchronized boolean tasksForJobAreCompleted(DataSourceIngestJob job) {
         long jobId = job.getId();
         return !(this.dataSourceIngestThreadQueue.hasTasksForJob(jobId)
-                || hasTasksForJob(this.rootFileTaskQueue, jobId)
-                || hasTasksForJob(this.pendingFileTaskQueue, jobId)
+                || this.rootFileTaskCounts.get(jobId) > 0
+                || this.pendingFileTaskCounts.get(jobId) > 0
                 || this.fileIngestThreadsQueue.hasTasksForJob(jobId));
     }
 
@@ -247,7 +272,14 @@ synchronized boolean tasksForJobAreCompleted(DataSourceIngestJob job) {
     synchronized void cancelPendingTasksForIngestJob(DataSourceIngestJob job) {
         long jobId = job.getId();
         IngestTasksScheduler.removeTasksForJob(this.rootFileTaskQueue, jobId);
+        this.rootFileTaskCounts.clear(jobId);
+        for (FileIngestTask task : this.pendingFileTaskQueue) {
+            if (task.getIngestJob().getId() == jobId) {
+                this.directoryExpander.discard(task.getFile());
+            }
+        }
         IngestTasksScheduler.removeTasksForJob(this.pendingFileTaskQueue, jobId);
+        this.pendingFileTaskCounts.clear(jobId);
     }
 
     /**
@@ -330,7 +362,9 @@ synchronized private void shuffleFileTaskQueues() {
             if (this.pendingFileTaskQueue.isEmpty()) {
                 final FileIngestTask rootTask = this.rootFileTaskQueue.pollFirst();
                 if (rootTask != null) {
+                    this.rootFileTaskCounts.decrement(rootTask.getIngestJob().getId());
                     this.pendingFileTaskQueue.addLast(rootTask);
+                    this.pendingFileTaskCounts.increment(rootTask.getIngestJob().getId());
                 }
             }
 
@@ -343,6 +377,7 @@ synchronized private void shuffleFileTaskQueues() {
             if (pendingTask == null) {
                 return;
             }
+            this.pendingFileTaskCounts.decrement(pendingTask.getIngestJob().getId());
             if (shouldEnqueueFileTask(pendingTask)) {
                 try {
                     /*
@@ -362,24 +397,26 @@ synchronized private void shuffleFileTaskQueues() {
              * children, try to queue tasks for the children. Each child task
              * will go into either the directory queue if it has children of its
              * own, or into the queue for the file ingest threads, if it passes
-             * the filter for the job.
+             * the filter for the job. The children of the file, and whether or
+             * not each child has children, are fetched in bulk by the directory
+             * expander, which also prefetches the children of the files at the
+             * front of the pending file tasks queue.
              */
             final AbstractFile file = pendingTask.getFile();
             try {
-                for (Content child : file.getChildren()) {
-                    if (child instanceof AbstractFile) {
-                        AbstractFile childFile = (AbstractFile) child;
-                        FileIngestTask childTask = new FileIngestTask(pendingTask.getIngestJob(), childFile);
-                        if (childFile.hasChildren()) {
-                            this.pendingFileTaskQueue.add(childTask);
-                        } else if (shouldEnqueueFileTask(childTask)) {
-                            try {
-                                this.fileIngestThreadsQueue.putLast(childTask);
-                            } catch (InterruptedException ex) {
-                                IngestTasksScheduler.logger.log(Level.INFO, "Ingest tasks scheduler interrupted while blocked adding a task to the file level ingest task queue", ex);
-                                Thread.currentThread().interrupt();
-                                return;
-                            }
+                for (DirectoryExpander.ChildFile child : this.directoryExpander.getChildren(file, getUpcomingPendingFiles())) {
+                    AbstractFile childFile = child.getFile();
+                    FileIngestTask childTask = new FileIngestTask(pendingTask.getIngestJob(), childFile);
+                    if (child.hasChildren()) {
+                        this.pendingFileTaskQueue.add(childTask);
+                        this.pendingFileTaskCounts.increment(childTask.getIngestJob().getId());
+                    } else if (shouldEnqueueFileTask(childTask)) {
+                        try {
+                            this.fileIngestThreadsQueue.putLast(childTask);
+                        } catch (InterruptedException ex) {
+                            IngestTasksScheduler.logger.log(Level.INFO, "Ingest tasks scheduler interrupted while blocked adding a task to the file level ingest task queue", ex);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -389,6 +426,24 @@ synchronized private void shuffleFileTaskQueues() {
         }
     }
 
+    /**
+     * Gets the files for the tasks at the front of the pending file tasks
+     * queue, i.e., the files that will be expanded next, in order.
+     *
+     * @return The files.
+     */
+    @GuardedBy("this")
+    private List<AbstractFile> getUpcomingPendingFiles() {
+        List<AbstractFile> upcomingFiles = new ArrayList<>();
+        for (FileIngestTask task : this.pendingFileTaskQueue) {
+            if (upcomingFiles.size() >= DirectoryExpander.BATCH_SIZE) {
+                break;
+            }
+            upcomingFiles.add(task.getFile());
+        }
+        return upcomingFiles;
+    }
+
     /**
      * Examines the file associated with a file ingest task to determine whether
      * or not the file should be processed and therefore whether or not the task
@@ -446,22 +501,20 @@ private static boolean shouldEnqueueFileTask(final FileIngestTask task) {
                 return true;
             }
 
-            // Find out whether the file is in a root directory. 
-            boolean isInRootDir = false;
-            try {
-                AbstractFile parent = f.getParentDirectory();
-                isInRootDir = parent.isRoot();
-            } catch (TskCoreException ex) {
-                logger.log(Level.WARNING, "Error querying parent directory for" + f.getName(), ex); //NON-NLS
-            }
-
-            // If the file is in the root directory of an NTFS or FAT file 
-            // system, check its meta-address and check its name for the '$'
-            // character and a ':' character (not a default attribute).
-            if (isInRootDir && f.getMetaAddr() < 32) {
-                String name = f.getName();
-                if (name.length() > 0 && name.charAt(0) == '$' && name.contains(":")) {
-                    return false;
+            // Check the meta-address of the file and check its name for the
+            // '$' character and a ':' character (not a default attribute). If
+            // the file is one of these and is in the root directory of an NTFS
+            // or FAT file system, skip it. The name checks are done first to
+            // avoid querying for the parent directory of every file.
+            String name = f.getName();
+            if (f.getMetaAddr() < 32 && name.length() > 0 && name.charAt(0) == '$' && name.contains(":")) {
+                try {
+                    AbstractFile parent = f.getParentDirectory();
+                    if (parent.isRoot()) {
+                        return false;
+                    }
+                } catch (TskCoreException ex) {
+                    logger.log(Level.WARNING, "Error querying parent directory for" + f.getName(), ex); //NON-NLS
                 }
             }
         }
@@ -493,24 +546,6 @@ private static boolean fileAcceptedByFilter(final FileIngestTask task) {
         return !(task.getIngestJob().getFileIngestFilter().fileIsMemberOf(task.getFile()) == null);
     }
 
-    /**
-     * Checks whether or not a collection of ingest tasks includes a task for a
-     * given data source ingest job.
-     *
-     * @param tasks The tasks.
-     * @param jobId The data source ingest job id.
-     *
-     * @return True if there are no tasks for the job, false otherwise.
-     */
-    synchronized private static boolean hasTasksForJob(Collection<? extends IngestTask> tasks, long jobId) {
-        for (IngestTask task : tasks) {
-            if (task.getIngestJob().getId() == jobId) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Removes all of the ingest tasks associated with a data source ingest job
      * from a tasks collection.
@@ -528,24 +563,6 @@ private static void removeTasksForJob(Collection<? extends IngestTask> tasks, lo
         }
     }
 
-    /**
-     * Counts the number of ingest tasks in a tasks collection for a given job.
-     *
-     * @param queue The queue for which to count tasks.
-     * @param jobId The id of the job for which the tasks are to be counted.
-     *
-     * @return The count.
-     */
-    private static int countTasksForJob(Collection<? extends IngestTask> queue, long jobId) {
-        int count = 0;
-        for (IngestTask task : queue) {
-            if (task.getIngestJob().getId() == jobId) {
-                count++;
-            }
-        }
-        return count;
-    }
-
     /**
      * Returns a snapshot of the states of the tasks in progress for an ingest
      * job.
@@ -676,16 +693,9 @@ static AbstractFilePriority.Priority getPriority(final AbstractFile abstractFile
 
     /**
      * A blocking ingest task queue for the ingest manager's ingest threads that
-     * keeps tracks of the tasks that are queued and in progress.
+     * keeps track of the tasks that are queued and in progress.
      */
-    @ThreadSafe
-    private class IngestTaskTrackingQueue implements BlockingIngestTaskQueue {
-
-        private final BlockingDeque<IngestTask> taskQueue = new LinkedBlockingDeque<>();
-        @GuardedBy("this")
-        private final List<IngestTask> queuedTasks = new LinkedList<>();
-        @GuardedBy("this")
-        private final List<IngestTask> tasksInProgress = new LinkedList<>();
+    private interface TrackingIngestTaskQueue extends BlockingIngestTaskQueue {
 
         /**
          * Adds an ingest task to the front of the queue, blocking if the queue
@@ -697,19 +707,7 @@ private class IngestTaskTrackingQueue implements BlockingIngestTaskQueue {
          *                              interrupted while blocked on a queue
          *                              full condition.
          */
-        void putFirst(IngestTask task) throws InterruptedException {
-            synchronized (this) {
-                this.queuedTasks.add(task);
-            }
-            try {
-                this.taskQueue.putFirst(task);
-            } catch (InterruptedException ex) {
-                synchronized (this) {
-                    this.queuedTasks.remove(task);
-                }
-                throw ex;
-            }
-        }
+        void putFirst(IngestTask task) throws InterruptedException;
 
         /**
          * Adds an ingest task to the back of the queue, blocking if the queue
@@ -721,16 +719,85 @@ void putFirst(IngestTask task) throws InterruptedException {
          *                              interrupted while blocked on a queue
          *                              full condition.
          */
-        void putLast(IngestTask task) throws InterruptedException {
-            synchronized (this) {
-                this.queuedTasks.add(task);
+        void putLast(IngestTask task) throws InterruptedException;
+
+        /**
+         * Checks whether the queue is empty.
+         *
+         * @return True or false.
+         */
+        boolean isEmpty();
+
+        /**
+         * Handles the completion of an ingest task by removing it from the
+         * running tasks.
+         *
+         * @param task The completed task.
+         */
+        void taskCompleted(IngestTask task);
+
+        /**
+         * Checks whether there are any ingest tasks are queued and/or running
+         * for a given data source ingest job.
+         *
+         * @param jobId The id of the data source ingest job.
+         *
+         * @return True or false.
+         */
+        boolean hasTasksForJob(long jobId);
+
+        /**
+         * Gets a count of the queued ingest tasks for a given data source
+         * ingest job.
+         *
+         * @param jobId The id of the data source ingest job.
+         *
+         * @return The count.
+         */
+        int countQueuedTasksForJob(long jobId);
+
+        /**
+         * Gets a count of the running ingest tasks for a given data source
+         * ingest job.
+         *
+         * @param jobId The id of the data source ingest job.
+         *
+         * @return The count.
+         */
+        int countRunningTasksForJob(long jobId);
+
+    }
+
+    /**
+     * A blocking ingest task queue for the ingest manager's ingest threads that
+     * keeps tracks of the tasks that are queued and in progress. All of the
+     * threads consuming the queue share a single blocking deque.
+     */
+    @ThreadSafe
+    private class IngestTaskTrackingQueue implements TrackingIngestTaskQueue {
+
+        private final BlockingDeque<IngestTask> taskQueue = new LinkedBlockingDeque<>();
+        private final IngestJobTaskCounts queuedTasks = new IngestJobTaskCounts();
+        private final IngestJobTaskCounts tasksInProgress = new IngestJobTaskCounts();
+
+        @Override
+        public void putFirst(IngestTask task) throws InterruptedException {
+            this.queuedTasks.increment(task.getIngestJob().getId());
+            try {
+                this.taskQueue.putFirst(task);
+            } catch (InterruptedException ex) {
+                this.queuedTasks.decrement(task.getIngestJob().getId());
+                throw ex;
             }
+        }
+
+        @Override
+        public void putLast(IngestTask task) throws InterruptedException {
+            this.queuedTasks.increment(task.getIngestJob().getId());
             try {
                 this.taskQueue.putLast(task);
             } catch (InterruptedException ex) {
-                synchronized (this) {
-                    this.queuedTasks.remove(task);
-                }
+                this.queuedTasks.decrement(task.getIngestJob().getId());
                 throw ex;
             }
         }
@@ -748,78 +815,252 @@ void putLast(IngestTask task) throws InterruptedException {
         @Override
         public IngestTask getNextTask() throws InterruptedException {
             IngestTask task = taskQueue.takeFirst();
-            synchronized (this) {
-                this.queuedTasks.remove(task);
-                this.tasksInProgress.add(task);
-            }
+            /*
+             * Count the task as running before it stops being counted as
+             * queued so that it is never missing from both counts.
+             */
+            this.tasksInProgress.increment(task.getIngestJob().getId());
+            this.queuedTasks.decrement(task.getIngestJob().getId());
             return task;
         }
 
+        @Override
+        public boolean isEmpty() {
+            return this.queuedTasks.isEmpty();
+        }
+
+        @Override
+        public void taskCompleted(IngestTask task) {
+            this.tasksInProgress.decrement(task.getIngestJob().getId());
+        }
+
+        @Override
+        public boolean hasTasksForJob(long jobId) {
+            return this.queuedTasks.get(jobId) > 0 || this.tasksInProgress.get(jobId) > 0;
+        }
+
+        @Override
+        public int countQueuedTasksForJob(long jobId) {
+            return this.queuedTasks.get(jobId);
+        }
+
+        @Override
+        public int countRunningTasksForJob(long jobId) {
+            return this.tasksInProgress.get(jobId);
+        }
+
+    }
+
+    /**
+     * A work stealing ingest task queue for the ingest manager's file ingest
+     * threads that keeps track of the tasks that are queued and in progress.
+     *
+     * Each consuming thread gets its own deque the first time it asks for a
+     * task. Tasks that are fast tracked by a consuming thread (e.g., derived
+     * files) are pushed onto the front of that thread's deque, so the thread
+     * that derived the files processes them LIFO, while idle threads steal
+     * them from the back. Tasks shuffled out of the upstream queues are added
+     * to the back of a shared deque in priority order. A consuming thread
+     * looks for its next task in its own deque first, then in the deques of
+     * the other threads, and finally in the shared deque, so fast tracked
+     * tasks keep their priority over shuffled tasks. None of these operations
+     * take a lock; a semaphore counting the queued tasks is used to block
+     * consumers when there is nothing to do.
+     */
+    @ThreadSafe
+    private class WorkStealingIngestTaskQueue implements TrackingIngestTaskQueue {
+
+        private final Deque<IngestTask> sharedQueue = new ConcurrentLinkedDeque<>();
+        private final List<Deque<IngestTask>> threadQueues = new CopyOnWriteArrayList<>();
+        private final ThreadLocal<Deque<IngestTask>> threadQueue = new ThreadLocal<>();
+        private final Semaphore queuedTasksAvailable = new Semaphore(0);
+        private final IngestJobTaskCounts queuedTasks = new IngestJobTaskCounts();
+        private final IngestJobTaskCounts tasksInProgress = new IngestJobTaskCounts();
+
         /**
-         * Checks whether the queue is empty.
+         * Adds an ingest task to the front of the deque of the calling
+         * consumer thread, or to the front of the shared deque if the calling
+         * thread is not a consumer of this queue. Never blocks.
          *
-         * @return True or false.
+         * @param task The ingest task.
          */
-        boolean isEmpty() {
-            synchronized (this) {
-                return this.queuedTasks.isEmpty();
+        @Override
+        public void putFirst(IngestTask task) {
+            this.queuedTasks.increment(task.getIngestJob().getId());
+            Deque<IngestTask> queue = this.threadQueue.get();
+            if (queue == null) {
+                queue = this.sharedQueue;
             }
+            queue.addFirst(task);
+            this.queuedTasksAvailable.release();
         }
 
         /**
-         * Handles the completion of an ingest task by removing it from the
-         * running tasks list.
+         * Adds an ingest task to the back of the shared deque. Never blocks.
          *
-         * @param task The completed task.
+         * @param task The ingest task.
          */
-        void taskCompleted(IngestTask task) {
-            synchronized (this) {
-                this.tasksInProgress.remove(task);
-            }
+        @Override
+        public void putLast(IngestTask task) {
+            this.queuedTasks.increment(task.getIngestJob().getId());
+            this.sharedQueue.addLast(task);
+            this.queuedTasksAvailable.release();
         }
 
         /**
-         * Checks whether there are any ingest tasks are queued and/or running
-         * for a given data source ingest job.
+         * Gets the next ingest task for the calling thread, blocking if there
+         * are no queued tasks.
          *
-         * @param jobId The id of the data source ingest job.
+         * @return The next ingest task.
          *
-         * @return
+         * @throws InterruptedException If the thread getting the task is
+         *                              interrupted while blocked on a queue
+         *                              empty condition.
          */
-        boolean hasTasksForJob(long jobId) {
-            synchronized (this) {
-                return IngestTasksScheduler.hasTasksForJob(this.queuedTasks, jobId) || IngestTasksScheduler.hasTasksForJob(this.tasksInProgress, jobId);
+        @Override
+        public IngestTask getNextTask() throws InterruptedException {
+            Deque<IngestTask> ownQueue = this.threadQueue.get();
+            if (ownQueue == null) {
+                ownQueue = new ConcurrentLinkedDeque<>();
+                this.threadQueue.set(ownQueue);
+                this.threadQueues.add(ownQueue);
+            }
+
+            /*
+             * Each permit corresponds to a task that has already been added to
+             * one of the deques and has not been claimed by another consumer,
+             * so the search below always terminates, although it may need to
+             * be repeated if it races with another consumer.
+             */
+            this.queuedTasksAvailable.acquire();
+            IngestTask task = ownQueue.pollFirst();
+            while (task == null) {
+                task = stealTask(ownQueue);
+                if (task == null) {
+                    task = this.sharedQueue.pollFirst();
+                }
+                if (task == null) {
+                    Thread.yield();
+                    task = ownQueue.pollFirst();
+                }
             }
+            this.tasksInProgress.increment(task.getIngestJob().getId());
+            this.queuedTasks.decrement(task.getIngestJob().getId());
+            return task;
         }
 
         /**
-         * Gets a count of the queued ingest tasks for a given data source
-         * ingest job.
+         * Takes a task from the back of the deque of another consumer thread.
          *
-         * @param jobId
+         * @param ownQueue The deque of the calling thread.
          *
-         * @return
+         * @return The task or null if there were no tasks to steal.
          */
-        int countQueuedTasksForJob(long jobId) {
-            synchronized (this) {
-                return IngestTasksScheduler.countTasksForJob(this.queuedTasks, jobId);
+        private IngestTask stealTask(Deque<IngestTask> ownQueue) {
+            for (Deque<IngestTask> queue : this.threadQueues) {
+                if (queue != ownQueue) {
+                    IngestTask task = queue.pollLast();
+                    if (task != null) {
+                        return task;
+                    }
+                }
             }
+            return null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.queuedTasks.isEmpty();
+        }
+
+        @Override
+        public void taskCompleted(IngestTask task) {
+            this.tasksInProgress.decrement(task.getIngestJob().getId());
         }
 
+        @Override
+        public boolean hasTasksForJob(long jobId) {
+            return this.queuedTasks.get(jobId) > 0 || this.tasksInProgress.get(jobId) > 0;
+        }
+
+        @Override
+        public int countQueuedTasksForJob(long jobId) {
+            return this.queuedTasks.get(jobId);
+        }
+
+        @Override
+        public int countRunningTasksForJob(long jobId) {
+            return this.tasksInProgress.get(jobId);
+        }
+
+    }
+
+    /**
+     * Per data source ingest job counts of the ingest tasks in a task
+     * collection, used instead of scanning the collection when checking or
+     * counting the tasks for a job.
+     */
+    @ThreadSafe
+    private static final class IngestJobTaskCounts {
+
+        private final ConcurrentHashMap<Long, Integer> countsByJobId = new ConcurrentHashMap<>();
+        private final AtomicInteger totalCount = new AtomicInteger(0);
+
         /**
-         * Gets a count of the running ingest tasks for a given data source
-         * ingest job.
+         * Counts a task added for a job.
+         *
+         * @param jobId The data source ingest job id.
+         */
+        void increment(long jobId) {
+            this.totalCount.incrementAndGet();
+            this.countsByJobId.merge(jobId, 1, Integer::sum);
+        }
+
+        /**
+         * Counts a task removed for a job.
          *
-         * @param jobId
+         * @param jobId The data source ingest job id.
+         */
+        void decrement(long jobId) {
+            this.countsByJobId.computeIfPresent(jobId, (id, count) -> {
+                this.totalCount.decrementAndGet();
+                return count > 1 ? count - 1 : null;
+            });
+        }
+
+        /**
+         * Removes the counts for a job, e.g., when all of its tasks have been
+         * removed from the task collection.
          *
-         * @return
+         * @param jobId The data source ingest job id.
          */
-        int countRunningTasksForJob(long jobId) {
-            synchronized (this) {
-                return IngestTasksScheduler.countTasksForJob(this.tasksInProgress, jobId);
+        void clear(long jobId) {
+            Integer count = this.countsByJobId.remove(jobId);
+            if (count != null) {
+                this.totalCount.addAndGet(-count);
             }
         }
 
+        /**
+         * Gets the count of tasks for a job.
+         *
+         * @param jobId The data source ingest job id.
+         *
+         * @return The count.
+         */
+        int get(long jobId) {
+            return this.countsByJobId.getOrDefault(jobId, 0);
+        }
+
+        /**
+         * Checks whether or not there are any tasks counted for any job.
+         *
+         * @return True or false.
+         */
+        boolean isEmpty() {
+            return this.totalCount.get() == 0;
+        }
+
     }
 
     /**
@@ -842,9 +1083,9 @@ class IngestJobTasksSnapshot {
         IngestJobTasksSnapshot(long jobId) {
             this.jobId = jobId;
             this.dsQueueSize = IngestTasksScheduler.this.dataSourceIngestThreadQueue.countQueuedTasksForJob(jobId);
-            this.rootQueueSize = countTasksForJob(IngestTasksScheduler.this.rootFileTaskQueue, jobId);
-            this.dirQueueSize = countTasksForJob(IngestTasksScheduler.this.pendingFileTaskQueue, jobId);
-            this.fileQueueSize = IngestTasksScheduler.this.fileIngestThreadsQueue.countQueuedTasksForJob(jobId);;
+            this.rootQueueSize = IngestTasksScheduler.this.rootFileTaskCounts.get(jobId);
+            this.dirQueueSize = IngestTasksScheduler.this.pendingFileTaskCounts.get(jobId);
+            this.fileQueueSize = IngestTasksScheduler.this.fileIngestThreadsQueue.countQueuedTasksForJob(jobId);
             this.runningListSize = IngestTasksScheduler.this.dataSourceIngestThreadQueue.countRunningTasksForJob(jobId) + IngestTasksScheduler.this.fileIngestThreadsQueue.countRunningTasksForJob(jobId);
         }
 
@@ -18,6 +18,9 @@
  */
 package org.sleuthkit.autopsy.ingest.events;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -25,10 +28,12 @@
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import javax.annotation.concurrent.Immutable;
+import org.openide.util.lookup.ServiceProvider;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.events.AutopsyEvent;
+import org.sleuthkit.autopsy.events.RemoteEventCodec;
 import org.sleuthkit.autopsy.ingest.IngestManager;
 import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.datamodel.BlackboardArtifact;
@@ -71,6 +76,19 @@ public BlackboardPostEvent(ModuleDataEvent eventData) {
         this.eventData = eventData;
     }
 
+    /**
+     * Constructs an event received from another node, or standing for several
+     * events to be sent to other nodes, whose ModuleDataEvent is loaded when it
+     * is first asked for.
+     *
+     * @param moduleName   The name of the module that posted the artifacts.
+     * @param artifactType The type of the artifacts.
+     * @param artifactIds  The ids of the artifacts.
+     */
+    private BlackboardPostEvent(String moduleName, BlackboardArtifact.Type artifactType, Collection<Long> artifactIds) {
+        super(IngestManager.IngestModuleEvent.DATA_ADDED.toString(), new SerializableEventData(moduleName, artifactType, artifactIds), null);
+    }
+
     /**
      * Gets the legacy ModuleDataEvent object associated with this event.
      *
@@ -104,6 +122,10 @@ public Object getOldValue() {
         }
     }
 
+    private SerializableEventData getSerializableEventData() {
+        return (SerializableEventData) super.getOldValue();
+    }
+
     /**
      * Data holder class.
      */
@@ -123,4 +145,77 @@ private SerializableEventData(String moduleName, BlackboardArtifact.Type artifac
 
     }
 
+    /**
+     * Sends blackboard post events to other nodes as the module name, the
+     * artifact type and the artifact ids, and sends the events of a module for
+     * an artifact type as one.
+     */
+    @ServiceProvider(service = RemoteEventCodec.class)
+    public static final class RemoteCodec implements RemoteEventCodec {
+
+        @Override
+        public String getEventName() {
+            return IngestManager.IngestModuleEvent.DATA_ADDED.toString();
+        }
+
+        @Override
+        public boolean canEncode(AutopsyEvent event) {
+            if (!(event instanceof BlackboardPostEvent)) {
+                return false;
+            }
+            SerializableEventData data = ((BlackboardPostEvent) event).getSerializableEventData();
+            return null != data.moduleName && null != data.artifactTypeId
+                    && null != data.artifactTypeId.getTypeName() && null != data.artifactTypeId.getDisplayName();
+        }
+
+        @Override
+        public void encode(AutopsyEvent event, DataOutput out) throws IOException {
+            SerializableEventData data = ((BlackboardPostEvent) event).getSerializableEventData();
+            out.writeUTF(data.moduleName);
+            out.writeInt(data.artifactTypeId.getTypeID());
+            out.writeUTF(data.artifactTypeId.getTypeName());
+            out.writeUTF(data.artifactTypeId.getDisplayName());
+            out.writeInt(data.artifactIds.size());
+            for (Long artifactId : data.artifactIds) {
+                out.writeLong(artifactId);
+            }
+        }
+
+        @Override
+        public AutopsyEvent decode(DataInput in) throws IOException {
+            String moduleName = in.readUTF();
+            int typeId = in.readInt();
+            String typeName = in.readUTF();
+            String displayName = in.readUTF();
+            int artifactCount = in.readInt();
+            if (artifactCount < 0) {
+                throw new IOException(String.format("Artifact count %d is out of bounds", artifactCount)); //NON-NLS
+            }
+            Collection<Long> artifactIds = new ArrayList<>();
+            for (int i = 0; i < artifactCount; i++) {
+                artifactIds.add(in.readLong());
+            }
+            return new BlackboardPostEvent(moduleName, new BlackboardArtifact.Type(typeId, typeName, displayName), artifactIds);
+        }
+
+        /**
+         * Combines the posts of a module for an artifact type. Posts without
+         * artifacts, which stand for a change to any artifact of the type, are
+         * left as they are.
+         */
+        @Override
+        public AutopsyEvent coalesce(AutopsyEvent earlier, AutopsyEvent later) {
+            SerializableEventData earlierData = ((BlackboardPostEvent) earlier).getSerializableEventData();
+            SerializableEventData laterData = ((BlackboardPostEvent) later).getSerializableEventData();
+            if (earlierData.artifactIds.isEmpty() || laterData.artifactIds.isEmpty()
+                    || earlierData.artifactTypeId.getTypeID() != laterData.artifactTypeId.getTypeID()
+                    || !earlierData.moduleName.equals(laterData.moduleName)) {
+                return null;
+            }
+            Collection<Long> artifactIds = new ArrayList<>(earlierData.artifactIds);
+            artifactIds.addAll(laterData.artifactIds);
+            return new BlackboardPostEvent(earlierData.moduleName, earlierData.artifactTypeId, artifactIds);
+        }
+    }
+
 }
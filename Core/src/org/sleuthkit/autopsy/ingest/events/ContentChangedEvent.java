@@ -18,12 +18,17 @@
  */
 package org.sleuthkit.autopsy.ingest.events;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.logging.Level;
+import org.openide.util.lookup.ServiceProvider;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.events.AutopsyEvent;
+import org.sleuthkit.autopsy.events.RemoteEventCodec;
 import org.sleuthkit.autopsy.ingest.IngestManager;
 import org.sleuthkit.autopsy.ingest.ModuleContentEvent;
 import org.sleuthkit.datamodel.Content;
@@ -63,6 +68,18 @@ public ContentChangedEvent(ModuleContentEvent eventData) {
         );
     }
 
+    /**
+     * Constructs an event received from another node, whose ModuleContentEvent
+     * is loaded when it is first asked for.
+     *
+     * @param moduleName The name of the module that added or changed the
+     *                   content.
+     * @param contentId  The object id of the content.
+     */
+    private ContentChangedEvent(String moduleName, long contentId) {
+        super(IngestManager.IngestModuleEvent.CONTENT_CHANGED.toString(), new SerializableEventData(moduleName, contentId), null);
+    }
+
     /**
      * Gets the legacy ModuleContentEvent object associated with this event.
      * Note that the content object that was added or changed can be accessed
@@ -95,6 +112,10 @@ public Object getOldValue() {
         }
     }
 
+    private SerializableEventData getSerializableEventData() {
+        return (SerializableEventData) super.getOldValue();
+    }
+
     /**
      * Data holder class.
      */
@@ -111,4 +132,45 @@ private SerializableEventData(String moduleName, long contentId) {
 
     }
 
+    /**
+     * Sends content changed events to other nodes as the module name and the
+     * content id, and sends the repeated events for the same content as one.
+     */
+    @ServiceProvider(service = RemoteEventCodec.class)
+    public static final class RemoteCodec implements RemoteEventCodec {
+
+        @Override
+        public String getEventName() {
+            return IngestManager.IngestModuleEvent.CONTENT_CHANGED.toString();
+        }
+
+        @Override
+        public boolean canEncode(AutopsyEvent event) {
+            return event instanceof ContentChangedEvent && null != ((ContentChangedEvent) event).getSerializableEventData().moduleName;
+        }
+
+        @Override
+        public void encode(AutopsyEvent event, DataOutput out) throws IOException {
+            SerializableEventData data = ((ContentChangedEvent) event).getSerializableEventData();
+            out.writeUTF(data.moduleName);
+            out.writeLong(data.contentId);
+        }
+
+        @Override
+        public AutopsyEvent decode(DataInput in) throws IOException {
+            String moduleName = in.readUTF();
+            return new ContentChangedEvent(moduleName, in.readLong());
+        }
+
+        @Override
+        public AutopsyEvent coalesce(AutopsyEvent earlier, AutopsyEvent later) {
+            SerializableEventData earlierData = ((ContentChangedEvent) earlier).getSerializableEventData();
+            SerializableEventData laterData = ((ContentChangedEvent) later).getSerializableEventData();
+            if (earlierData.contentId == laterData.contentId && earlierData.moduleName.equals(laterData.moduleName)) {
+                return earlier;
+            }
+            return null;
+        }
+    }
+
 }
@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.modules.embeddedfileextractor;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -28,7 +29,11 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import net.sf.sevenzipjbinding.ArchiveFormat;
 import static net.sf.sevenzipjbinding.ArchiveFormat.RAR;
@@ -84,6 +89,8 @@ class SevenZipExtractor {
     private static final int MAX_COMPRESSION_RATIO = 600;
     private static final long MIN_COMPRESSION_RATIO_SIZE = 500 * 1000000L;
     private static final long MIN_FREE_DISK_SPACE = 1 * 1000 * 1000000L; //1GB
+    //items up to this size are unpacked to memory and written out in one go
+    private static final long MAX_IN_MEMORY_ITEM_SIZE = 1024 * 1024L; //1MB
     //counts archive depth
     private ArchiveDepthCountTree archiveDepthCountTree;
 
@@ -422,7 +429,9 @@ private SevenZipExtractor.UnpackedTree.UnpackedNode unpackNode(ISimpleInArchiveI
             try {
                 // NOTE: item.getSize() may return null in case of certain
                 // archiving formats. Eg: BZ2
-                if (item.getSize() != null) {
+                if (item.getSize() != null && item.getSize() <= MAX_IN_MEMORY_ITEM_SIZE) {
+                    unpackStream = new SevenZipExtractor.InMemoryUnpackStream(localAbsPath, item.getSize());
+                } else if (item.getSize() != null) {
                     unpackStream = new SevenZipExtractor.KnownSizeUnpackStream(localAbsPath, item.getSize());
                 } else {
                     unpackStream = new SevenZipExtractor.UnknownSizeUnpackStream(localAbsPath, freeDiskSpace);
@@ -571,6 +580,8 @@ boolean unpack(AbstractFile archiveFile, String password) {
             }
             //unpack and process every item in archive
             int itemNumber = 0;
+            //local folders that are known to exist, items are spread over folders of 1000 items
+            Set<File> localDirectories = new HashSet<>();
 
             for (ISimpleInArchiveItem item : simpleInArchive.getArchiveItems()) {
                 String pathInArchive = getPathInArchive(item, itemNumber, archiveFile);
@@ -621,29 +632,22 @@ boolean unpack(AbstractFile archiveFile, String password) {
                 }
                 final String uniqueExtractedName = FileUtil.escapeFileName(uniqueArchiveFileName + File.separator + (item.getItemIndex() / 1000) + File.separator + item.getItemIndex() + "_" + new File(pathInArchive).getName());
 
-                //create local dirs and empty files before extracted
+                //create local dirs before extracted, the unpack stream creates the file
                 File localFile = new java.io.File(moduleDirAbsolute + File.separator + uniqueExtractedName);
+                File localDirectory = item.isFolder() ? localFile : localFile.getParentFile();
                 //cannot rely on files in top-bottom order
-                if (!localFile.exists()) {
+                if (!localDirectories.contains(localDirectory)) {
                     try {
-                        if (item.isFolder()) {
-                            localFile.mkdirs();
-                        } else {
-                            localFile.getParentFile().mkdirs();
-                            try {
-                                localFile.createNewFile();
-                            } catch (IOException e) {
-                                logger.log(Level.SEVERE, "Error creating extracted file: " + localFile.getAbsolutePath(), e); //NON-NLS
-                            }
-                        }
+                        localDirectory.mkdirs();
                     } catch (SecurityException e) {
                         logger.log(Level.SEVERE, "Error setting up output path for unpacked file: {0}", pathInArchive); //NON-NLS
                         //TODO consider bail out / msg to the user
                     }
-                }
-                // skip the rest of this loop if we couldn't create the file
-                if (localFile.exists() == false) {
-                    continue;
+                    // skip the rest of this loop if we couldn't create the folder
+                    if (localDirectory.isDirectory() == false) {
+                        continue;
+                    }
+                    localDirectories.add(localDirectory);
                 }
                 //find this node in the hierarchy, create if neede;
                 unpackedNode = unpackNode(item, unpackedNode, password,
@@ -753,7 +757,9 @@ boolean unpack(AbstractFile archiveFile, String password) {
     }
 
     /**
-     * Stream used to unpack the archive to local file
+     * Stream used to unpack the archive to local file. The local file is
+     * created when the first bytes are written, or when the stream is closed
+     * for an empty item.
      */
     private abstract static class UnpackStream implements ISequentialOutStream {
 
@@ -762,17 +768,14 @@ private abstract static class UnpackStream implements ISequentialOutStream {
 
         UnpackStream(String localAbsPath) {
             this.localAbsPath = localAbsPath;
-            try {
-                output = new EncodedFileOutputStream(new FileOutputStream(localAbsPath), TskData.EncodingType.XOR1);
-            } catch (IOException ex) {
-                logger.log(Level.SEVERE, "Error writing extracted file: " + localAbsPath, ex); //NON-NLS
-            }
-
         }
 
         public abstract long getSize();
 
-        OutputStream getOutput() {
+        OutputStream getOutput() throws IOException {
+            if (output == null) {
+                output = new EncodedFileOutputStream(new FileOutputStream(localAbsPath), TskData.EncodingType.XOR1);
+            }
             return output;
         }
 
@@ -781,13 +784,11 @@ String getLocalAbsPath() {
         }
 
         public void close() {
-            if (output != null) {
-                try {
-                    output.flush();
-                    output.close();
-                } catch (IOException e) {
-                    logger.log(Level.SEVERE, "Error closing unpack stream for file: {0}", localAbsPath); //NON-NLS
-                }
+            try {
+                getOutput().flush();
+                getOutput().close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error closing unpack stream for file: {0}", localAbsPath); //NON-NLS
             }
         }
     }
@@ -842,16 +843,14 @@ public int write(byte[] bytes) throws SevenZipException {
 
         @Override
         public void close() {
-            if (getOutput() != null) {
-                try {
-                    getOutput().flush();
-                    getOutput().close();
-                    if (this.outOfSpace) {
-                        Files.delete(Paths.get(getLocalAbsPath()));
-                    }
-                } catch (IOException e) {
-                    logger.log(Level.SEVERE, "Error closing unpack stream for file: {0}", getLocalAbsPath()); //NON-NLS
+            try {
+                getOutput().flush();
+                getOutput().close();
+                if (this.outOfSpace) {
+                    Files.delete(Paths.get(getLocalAbsPath()));
                 }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error closing unpack stream for file: {0}", getLocalAbsPath()); //NON-NLS
             }
         }
     }
@@ -886,6 +885,76 @@ public int write(byte[] bytes) throws SevenZipException {
         }
     }
 
+    /**
+     * Stream used to unpack a small archive item of known size. The item is
+     * unpacked to memory and written to the local file in one go when the
+     * stream is closed, instead of as 7zip hands over each block. The size
+     * is the one declared by the archive, which may be wrong, so if more
+     * bytes than that are unpacked the buffered bytes are written to the
+     * local file and the rest of the item is written straight through.
+     */
+    static class InMemoryUnpackStream extends UnpackStream {
+
+        private final long size;
+        private ByteArrayOutputStream buffer;
+        private long bytesWritten;
+
+        InMemoryUnpackStream(String localAbsPath, long size) {
+            super(localAbsPath);
+            this.size = size;
+            this.buffer = new ByteArrayOutputStream((int) size);
+        }
+
+        @Override
+        public long getSize() {
+            return isBuffered() ? this.size : this.bytesWritten;
+        }
+
+        /**
+         * Indicates whether or not the unpacked bytes are still held in
+         * memory, i.e., whether the item has not outgrown its declared size.
+         *
+         * @return True if the bytes are in memory.
+         */
+        boolean isBuffered() {
+            return buffer != null;
+        }
+
+        @Override
+        public int write(byte[] bytes) throws SevenZipException {
+            try {
+                if (buffer != null && bytesWritten + bytes.length > size) {
+                    logger.log(Level.INFO, "Item {0} is larger than the size declared by its archive, writing it to disk", getLocalAbsPath()); //NON-NLS
+                    buffer.writeTo(getOutput());
+                    buffer = null;
+                }
+                if (buffer != null) {
+                    buffer.write(bytes, 0, bytes.length);
+                } else {
+                    getOutput().write(bytes);
+                }
+            } catch (IOException ex) {
+                throw new SevenZipException(
+                        NbBundle.getMessage(SevenZipExtractor.class, "EmbeddedFileExtractorIngestModule.ArchiveExtractor.UnpackStream.write.exception.msg",
+                                getLocalAbsPath()), ex);
+            }
+            bytesWritten += bytes.length;
+            return bytes.length;
+        }
+
+        @Override
+        public void close() {
+            if (buffer != null) {
+                try {
+                    buffer.writeTo(getOutput());
+                } catch (IOException ex) {
+                    logger.log(Level.SEVERE, "Error writing extracted file: " + getLocalAbsPath(), ex); //NON-NLS
+                }
+            }
+            super.close();
+        }
+    }
+
     /**
      * Representation of the files in the archive. Used to track of local tree
      * file hierarchy, archive depth, and files created to easily and reliably
@@ -965,7 +1034,7 @@ private UnpackedNode addNode(UnpackedNode parent, List<String> tokenPath) {
          */
         List<AbstractFile> getRootFileObjects() {
             List<AbstractFile> ret = new ArrayList<>();
-            for (UnpackedNode child : rootNode.children) {
+            for (UnpackedNode child : rootNode.children.values()) {
                 ret.add(child.getFile());
             }
             return ret;
@@ -979,7 +1048,7 @@ List<AbstractFile> getRootFileObjects() {
          */
         List<AbstractFile> getAllFileObjects() {
             List<AbstractFile> ret = new ArrayList<>();
-            for (UnpackedNode child : rootNode.children) {
+            for (UnpackedNode child : rootNode.children.values()) {
                 getAllFileObjectsRec(ret, child);
             }
             return ret;
@@ -987,7 +1056,7 @@ List<AbstractFile> getAllFileObjects() {
 
         private void getAllFileObjectsRec(List<AbstractFile> list, UnpackedNode parent) {
             list.add(parent.getFile());
-            for (UnpackedNode child : parent.children) {
+            for (UnpackedNode child : parent.children.values()) {
                 getAllFileObjectsRec(list, child);
             }
         }
@@ -998,7 +1067,7 @@ private void getAllFileObjectsRec(List<AbstractFile> list, UnpackedNode parent)
          */
         void updateOrAddFileToCaseRec(HashMap<String, ZipFileStatusWrapper> statusMap, String archiveFilePath) throws TskCoreException, NoCurrentCaseException {
             final FileManager fileManager = Case.getCurrentCaseThrows().getServices().getFileManager();
-            for (UnpackedNode child : rootNode.children) {
+            for (UnpackedNode child : rootNode.children.values()) {
                 updateOrAddFileToCaseRec(child, fileManager, statusMap, archiveFilePath);
             }
         }
@@ -1055,7 +1124,7 @@ private void updateOrAddFileToCaseRec(UnpackedNode node, FileManager fileManager
                                 node.getFileName()), ex);
             }
             //recurse adding the children if this file was incomplete the children presumably need to be added
-            for (UnpackedNode child : node.children) {
+            for (UnpackedNode child : node.children.values()) {
                 updateOrAddFileToCaseRec(child, fileManager, statusMap, getKeyFromUnpackedNode(node, archiveFilePath));
             }
         }
@@ -1067,7 +1136,8 @@ private class UnpackedNode {
 
             private String fileName;
             private AbstractFile file;
-            private List<UnpackedNode> children = new ArrayList<>();
+            //children by file name, in the order they were added
+            private Map<String, UnpackedNode> children = new LinkedHashMap<>();
             private String localRelPath = "";
             private long size;
             private long ctime, crtime, atime, mtime;
@@ -1084,7 +1154,7 @@ private class UnpackedNode {
                 this.parent = parent;
                 this.localRelPath = parent.localRelPath + File.separator + fileName;
                 //new child derived file will be set by unpack() method
-                parent.children.add(this);
+                parent.children.put(fileName, this);
             }
 
             public long getCtime() {
@@ -1135,14 +1205,7 @@ void setFile(AbstractFile file) {
              * @return
              */
             UnpackedNode getChild(String childFileName) {
-                UnpackedNode ret = null;
-                for (UnpackedNode child : children) {
-                    if (child.fileName.equals(childFileName)) {
-                        ret = child;
-                        break;
-                    }
-                }
-                return ret;
+                return children.get(childFileName);
             }
 
             public String getFileName() {
@@ -30,7 +30,7 @@
 import org.sleuthkit.datamodel.Content;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.autopsy.coreutils.Logger;
-import org.sleuthkit.autopsy.ingest.DataSourceIngestModule;
+import org.sleuthkit.autopsy.ingest.ConcurrentDataSourceIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
 import org.sleuthkit.autopsy.ingest.IngestServices;
@@ -45,7 +45,7 @@
 /**
  * Data source module to detect encryption.
  */
-final class EncryptionDetectionDataSourceIngestModule implements DataSourceIngestModule {
+final class EncryptionDetectionDataSourceIngestModule implements ConcurrentDataSourceIngestModule {
 
     private final IngestServices services = IngestServices.getInstance();
     private final Logger logger = services.getLogger(EncryptionDetectionModuleFactory.getModuleName());
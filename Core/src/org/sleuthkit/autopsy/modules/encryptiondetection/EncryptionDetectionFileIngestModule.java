@@ -42,6 +42,7 @@
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
 import org.sleuthkit.autopsy.casemodule.services.Blackboard;
 import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.FileContentPass;
 import org.sleuthkit.autopsy.ingest.FileIngestModuleAdapter;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
@@ -75,6 +76,7 @@ final class EncryptionDetectionFileIngestModule extends FileIngestModuleAdapter
     private final IngestServices services = IngestServices.getInstance();
     private final Logger logger = services.getLogger(EncryptionDetectionModuleFactory.getModuleName());
     private FileTypeDetector fileTypeDetector;
+    private FileContentPass contentPass;
     private Blackboard blackboard;
     private double calculatedEntropy;
 
@@ -103,6 +105,8 @@ public void startUp(IngestJobContext context) throws IngestModule.IngestModuleEx
             validateSettings();
             blackboard = Case.getCurrentCaseThrows().getServices().getBlackboard();
             fileTypeDetector = new FileTypeDetector();
+            contentPass = context.getFileContentPass();
+            contentPass.requestAnalyses(FileContentPass.Analysis.BYTE_COUNTS);
         } catch (FileTypeDetector.FileTypeDetectorInitException ex) {
             throw new IngestModule.IngestModuleException("Failed to create file type detector", ex);
         } catch (NoCurrentCaseException ex) {
@@ -147,7 +151,7 @@ public IngestModule.ProcessResult process(AbstractFile file) {
                     }
                 }
             }
-        } catch (ReadContentInputStreamException | SAXException | TikaException | UnsupportedCodecException ex) {
+        } catch (ReadContentInputStreamException | SAXException | TikaException | UnsupportedCodecException | TskCoreException ex) {
             logger.log(Level.WARNING, String.format("Unable to read file '%s'", file.getParentPath() + file.getName()), ex);
             return IngestModule.ProcessResult.ERROR;
         } catch (IOException ex) {
@@ -346,12 +350,10 @@ private boolean isFilePasswordProtected(AbstractFile file) throws ReadContentInp
      *
      * @return True if encryption is suspected.
      *
-     * @throws ReadContentInputStreamException If there is a failure reading
-     *                                         from the InputStream.
-     * @throws IOException                     If there is a failure closing or
-     *                                         reading from the InputStream.
+     * @throws TskCoreException If there is a failure reading the content of
+     *                          the file.
      */
-    private boolean isFileEncryptionSuspected(AbstractFile file) throws ReadContentInputStreamException, IOException {
+    private boolean isFileEncryptionSuspected(AbstractFile file) throws TskCoreException {
         /*
          * Criteria for the checks in this method are partially based on
          * http://www.forensicswiki.org/wiki/TrueCrypt#Detection
@@ -368,7 +370,7 @@ private boolean isFileEncryptionSuspected(AbstractFile file) throws ReadContentI
                 /*
                  * Qualify the entropy.
                  */
-                calculatedEntropy = EncryptionDetectionTools.calculateEntropy(file);
+                calculatedEntropy = EncryptionDetectionTools.calculateEntropy(contentPass.getResults(file, FileContentPass.Analysis.BYTE_COUNTS).getByteCounts(), contentSize);
                 if (calculatedEntropy >= minimumEntropy) {
                     possiblyEncrypted = true;
                 }
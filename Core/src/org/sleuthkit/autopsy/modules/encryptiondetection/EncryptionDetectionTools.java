@@ -93,25 +93,13 @@ static double calculateEntropy(Content content) throws ReadContentInputStream.Re
             /*
              * Determine the number of times each byte value appears.
              */
-            int[] byteOccurences = new int[BYTE_OCCURENCES_BUFFER_SIZE];
+            long[] byteOccurences = new long[BYTE_OCCURENCES_BUFFER_SIZE];
             int readByte;
             while ((readByte = bin.read()) != -1) {
                 byteOccurences[readByte]++;
             }
 
-            /*
-             * Calculate the entropy based on the byte occurence counts.
-             */
-            long dataLength = content.getSize() - 1;
-            double entropyAccumulator = 0;
-            for (int i = 0; i < BYTE_OCCURENCES_BUFFER_SIZE; i++) {
-                if (byteOccurences[i] > 0) {
-                    double byteProbability = (double) byteOccurences[i] / (double) dataLength;
-                    entropyAccumulator += (byteProbability * Math.log(byteProbability) * ONE_OVER_LOG2);
-                }
-            }
-
-            return -entropyAccumulator;
+            return calculateEntropy(byteOccurences, content.getSize());
 
         } finally {
             if (in != null) {
@@ -123,6 +111,32 @@ static double calculateEntropy(Content content) throws ReadContentInputStream.Re
         }
     }
     
+    /**
+     * Calculate the entropy of content from the number of times each byte
+     * value appears in it, e.g., as counted by an ingest content pass.
+     *
+     * @param byteOccurences The number of times each byte value appears,
+     *                       indexed by unsigned byte value.
+     * @param contentSize    The size of the content.
+     *
+     * @return The entropy of the content.
+     */
+    static double calculateEntropy(long[] byteOccurences, long contentSize) {
+        /*
+         * Calculate the entropy based on the byte occurence counts.
+         */
+        long dataLength = contentSize - 1;
+        double entropyAccumulator = 0;
+        for (int i = 0; i < BYTE_OCCURENCES_BUFFER_SIZE; i++) {
+            if (byteOccurences[i] > 0) {
+                double byteProbability = (double) byteOccurences[i] / (double) dataLength;
+                entropyAccumulator += (byteProbability * Math.log(byteProbability) * ONE_OVER_LOG2);
+            }
+        }
+
+        return -entropyAccumulator;
+    }
+
     /**
      * Private constructor for Encryption Detection Tools class.
      */
@@ -0,0 +1,314 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.filetypeid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.FileContentPass;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * A list of file types compiled for matching their signatures against many
+ * files. The signatures are checked against the header and trailer of a file,
+ * each read once per file, instead of each signature reading its own bytes
+ * from the file. The file types are indexed by the offset and first byte of
+ * their first signature, so that only the types whose first signature can
+ * match the header of a file are checked.
+ */
+@Immutable
+final class FileSignatureMatcher {
+
+    private static final Logger logger = Logger.getLogger(FileSignatureMatcher.class.getName());
+    private static final int HEADER_SIZE = FileContentPass.HEADER_SIZE;
+    private static final int TRAILER_SIZE = 4096;
+    private final List<FileType> fileTypes;
+    private final CompiledSignature[][] signatures;
+    private final long[] indexedOffsets;
+    private final int[][][] indexedTypes;
+    private final BitSet unindexedTypes;
+
+    /**
+     * Compiles a list of file types for matching.
+     *
+     * @param fileTypes The file types, in order of precedence.
+     *
+     * @return The matcher.
+     */
+    static FileSignatureMatcher compile(List<FileType> fileTypes) {
+        return new FileSignatureMatcher(fileTypes);
+    }
+
+    private FileSignatureMatcher(List<FileType> fileTypes) {
+        this.fileTypes = new ArrayList<>(fileTypes);
+        signatures = new CompiledSignature[this.fileTypes.size()][];
+        unindexedTypes = new BitSet(this.fileTypes.size());
+        Map<Long, List<List<Integer>>> index = new LinkedHashMap<>();
+        for (int i = 0; i < this.fileTypes.size(); i++) {
+            List<FileType.Signature> typeSignatures = this.fileTypes.get(i).getSignatures();
+            signatures[i] = new CompiledSignature[typeSignatures.size()];
+            for (int j = 0; j < typeSignatures.size(); j++) {
+                signatures[i][j] = new CompiledSignature(typeSignatures.get(j));
+            }
+
+            CompiledSignature first = signatures[i].length == 0 ? null : signatures[i][0];
+            if (first == null || !first.relativeToStart || first.bytes.length == 0
+                    || first.offset < 0 || first.offset + first.bytes.length > HEADER_SIZE) {
+                unindexedTypes.set(i);
+                continue;
+            }
+            List<List<Integer>> typesByFirstByte = index.get(first.offset);
+            if (typesByFirstByte == null) {
+                typesByFirstByte = new ArrayList<>(256);
+                for (int b = 0; b < 256; b++) {
+                    typesByFirstByte.add(null);
+                }
+                index.put(first.offset, typesByFirstByte);
+            }
+            int firstByte = first.bytes[0] & 0xFF;
+            if (typesByFirstByte.get(firstByte) == null) {
+                typesByFirstByte.set(firstByte, new ArrayList<>());
+            }
+            typesByFirstByte.get(firstByte).add(i);
+        }
+
+        indexedOffsets = new long[index.size()];
+        indexedTypes = new int[index.size()][][];
+        int i = 0;
+        for (Map.Entry<Long, List<List<Integer>>> entry : index.entrySet()) {
+            indexedOffsets[i] = entry.getKey();
+            indexedTypes[i] = new int[256][];
+            for (int b = 0; b < 256; b++) {
+                List<Integer> types = entry.getValue().get(b);
+                if (types != null) {
+                    indexedTypes[i][b] = types.stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Finds the first file type, in order of precedence, that a file is an
+     * instance of.
+     *
+     * @param fileBytes The header and trailer of the file.
+     *
+     * @return The file type, null if there is no match.
+     */
+    FileType findMatch(FileBytes fileBytes) {
+        byte[] header = fileBytes.getHeader();
+        BitSet candidates;
+        if (header.length < Math.min(fileBytes.getFile().getSize(), HEADER_SIZE)) {
+            /*
+             * The header could not be read in full, so the index can not be
+             * relied on.
+             */
+            candidates = new BitSet(fileTypes.size());
+            candidates.set(0, fileTypes.size());
+        } else {
+            candidates = (BitSet) unindexedTypes.clone();
+            for (int i = 0; i < indexedOffsets.length; i++) {
+                if (indexedOffsets[i] < header.length) {
+                    int[] types = indexedTypes[i][header[(int) indexedOffsets[i]] & 0xFF];
+                    if (types != null) {
+                        for (int type : types) {
+                            candidates.set(type);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (matchesAll(signatures[i], fileBytes)) {
+                return fileTypes.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether or not all of the signatures of a file type are
+     * contained in a file.
+     *
+     * @param typeSignatures The signatures.
+     * @param fileBytes      The header and trailer of the file.
+     *
+     * @return True or false.
+     */
+    private static boolean matchesAll(CompiledSignature[] typeSignatures, FileBytes fileBytes) {
+        for (CompiledSignature signature : typeSignatures) {
+            if (!signature.containedIn(fileBytes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A file signature with its bytes copied out once, for matching.
+     */
+    @Immutable
+    private static final class CompiledSignature {
+
+        private final FileType.Signature signature;
+        private final byte[] bytes;
+        private final long offset;
+        private final boolean relativeToStart;
+
+        CompiledSignature(FileType.Signature signature) {
+            this.signature = signature;
+            this.bytes = signature.getSignatureBytes();
+            this.offset = signature.getOffset();
+            this.relativeToStart = signature.isRelativeToStart();
+        }
+
+        /**
+         * Determines whether or not the signature is contained within a file,
+         * the same way as FileType.Signature.containedIn, but comparing against
+         * the header or trailer of the file where possible.
+         *
+         * @param fileBytes The header and trailer of the file.
+         *
+         * @return True or false.
+         */
+        boolean containedIn(FileBytes fileBytes) {
+            long fileSize = fileBytes.getFile().getSize();
+            if (offset >= fileSize) {
+                return false; // File is too small, offset lies outside file.
+            }
+            long actualOffset = relativeToStart ? offset : fileSize - 1 - offset;
+            if (fileSize < (actualOffset + bytes.length)) {
+                return false; // too small, can't contain this signature
+            }
+            byte[] header = fileBytes.getHeader();
+            if (actualOffset + bytes.length <= header.length) {
+                return regionEquals(header, (int) actualOffset);
+            }
+            if (!relativeToStart) {
+                byte[] trailer = fileBytes.getTrailer();
+                long trailerOffset = fileSize - trailer.length;
+                if (actualOffset >= trailerOffset) {
+                    return regionEquals(trailer, (int) (actualOffset - trailerOffset));
+                }
+            }
+            return signature.containedIn(fileBytes.getFile());
+        }
+
+        private boolean regionEquals(byte[] buffer, int start) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (buffer[start + i] != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The header and trailer of a file, each read at most once and only when
+     * first needed. The header is taken from the content pass of the current
+     * ingest job if there is one for the file.
+     */
+    @NotThreadSafe
+    static final class FileBytes {
+
+        private final AbstractFile file;
+        private byte[] header;
+        private byte[] trailer;
+
+        /**
+         * Constructs the header and trailer of a file.
+         *
+         * @param file The file.
+         */
+        FileBytes(AbstractFile file) {
+            this.file = file;
+        }
+
+        /**
+         * Gets the file.
+         *
+         * @return The file.
+         */
+        AbstractFile getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the first bytes of the file.
+         *
+         * @return Up to HEADER_SIZE bytes, fewer if the file is smaller or
+         *         could not be read.
+         */
+        byte[] getHeader() {
+            if (header == null) {
+                FileContentPass.Results contentPassResults = FileContentPass.getCurrentResults(file);
+                if (contentPassResults != null) {
+                    header = contentPassResults.getHeader();
+                } else {
+                    header = read(0, (int) Math.min(file.getSize(), HEADER_SIZE));
+                }
+            }
+            return header;
+        }
+
+        /**
+         * Gets the last bytes of the file.
+         *
+         * @return Up to TRAILER_SIZE bytes, fewer if the file is smaller. Empty
+         *         if the file could not be read.
+         */
+        byte[] getTrailer() {
+            if (trailer == null) {
+                int length = (int) Math.min(file.getSize(), TRAILER_SIZE);
+                trailer = read(file.getSize() - length, length);
+                if (trailer.length < length) {
+                    trailer = new byte[0];
+                }
+            }
+            return trailer;
+        }
+
+        private byte[] read(long offset, int length) {
+            byte[] buffer = new byte[length];
+            try {
+                int bytesRead = file.read(buffer, offset, length);
+                return bytesRead == length ? buffer : Arrays.copyOf(buffer, Math.max(bytesRead, 0));
+            } catch (TskCoreException ex) {
+                /*
+                 * This exception is swallowed rather than propagated because
+                 * files in images are not always consistent with their file
+                 * system meta data making for read errors.
+                 */
+                logger.log(Level.WARNING, "Error reading from file with objId = " + file.getId(), ex); //NON-NLS
+                return new byte[0];
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@
 import javax.xml.bind.DatatypeConverter;
 import org.openide.windows.WindowManager;
 import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.FileContentPass;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.TskCoreException;
 
@@ -338,6 +339,17 @@ boolean containedIn(final AbstractFile file) {
             if (file.getSize() < (actualOffset + signatureBytes.length)) {
                 return false; /// too small, can't contain this signature
             }
+            /*
+             * If the file is going through an ingest pipeline and its header
+             * has already been read by a content pass, check the header.
+             */
+            FileContentPass.Results contentPassResults = FileContentPass.getCurrentResults(file);
+            if (contentPassResults != null) {
+                byte[] headerBytes = contentPassResults.getHeaderBytes(actualOffset, signatureBytes.length);
+                if (headerBytes != null) {
+                    return Arrays.equals(headerBytes, signatureBytes);
+                }
+            }
             try {
                 byte[] buffer = new byte[signatureBytes.length];
                 int bytesRead = file.read(buffer, actualOffset, signatureBytes.length);
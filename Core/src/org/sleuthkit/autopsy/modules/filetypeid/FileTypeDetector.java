@@ -18,6 +18,8 @@
  */
 package org.sleuthkit.autopsy.modules.filetypeid;
 
+import java.io.ByteArrayInputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -47,6 +49,8 @@ public class FileTypeDetector {
     private static final int SLACK_FILE_THRESHOLD = 4096;
     private final List<FileType> userDefinedFileTypes;
     private final List<FileType> autopsyDefinedFileTypes;
+    private final FileSignatureMatcher userDefinedTypeMatcher;
+    private final FileSignatureMatcher autopsyDefinedTypeMatcher;
     private static SortedSet<String> tikaDetectedTypes;
 
     /**
@@ -119,6 +123,8 @@ public FileTypeDetector() throws FileTypeDetectorInitException {
         } catch (CustomFileTypesManager.CustomFileTypesException ex) {
             throw new FileTypeDetectorInitException("Error loading custom file types", ex); //NON-NLS
         }
+        userDefinedTypeMatcher = FileSignatureMatcher.compile(userDefinedFileTypes);
+        autopsyDefinedTypeMatcher = FileSignatureMatcher.compile(autopsyDefinedFileTypes);
     }
 
     /**
@@ -200,12 +206,18 @@ public String getMIMEType(AbstractFile file) {
             mimeType = MimeTypes.OCTET_STREAM;
         }
 
+        /*
+         * The header of the file is read once, for checking all of the custom
+         * file type signatures and as the start of the stream given to Tika.
+         */
+        FileSignatureMatcher.FileBytes fileBytes = new FileSignatureMatcher.FileBytes(file);
+
         /*
          * If the file is a regular file, give precedence to user-defined custom
          * file types.
          */
         if (null == mimeType) {
-            mimeType = detectUserDefinedType(file);
+            mimeType = detectUserDefinedType(fileBytes);
         }
 
         /*
@@ -213,7 +225,7 @@ public String getMIMEType(AbstractFile file) {
          * custom file types defined by Autopsy.
          */
         if (null == mimeType) {
-            mimeType = detectAutopsyDefinedType(file);
+            mimeType = detectAutopsyDefinedType(fileBytes);
         }
 
         /*
@@ -221,9 +233,11 @@ public String getMIMEType(AbstractFile file) {
          * bytes to Tika.
          */
         if (null == mimeType) {
+            byte[] header = fileBytes.getHeader();
             ReadContentInputStream stream = new ReadContentInputStream(file);
+            stream.seek(header.length);
 
-            try (TikaInputStream tikaInputStream = TikaInputStream.get(stream)) {
+            try (TikaInputStream tikaInputStream = TikaInputStream.get(new SequenceInputStream(new ByteArrayInputStream(header), stream))) {
                 String tikaType = tika.detect(tikaInputStream, file.getName());
 
                 /*
@@ -274,36 +288,25 @@ private String removeOptionalParameter(String mimeType) {
     /**
      * Determines whether or not a file matches a user-defined custom file type.
      *
-     * @param file The file to test.
+     * @param fileBytes The header and trailer of the file to test.
      *
      * @return The MIME type as a string if a match is found; otherwise null.
      */
-    private String detectUserDefinedType(AbstractFile file) {
-        String retValue = null;
-        
-        for (FileType fileType : userDefinedFileTypes) {
-            if (fileType.matches(file)) {
-                retValue = fileType.getMimeType();
-                break;
-            }
-        }
-        return retValue;
+    private String detectUserDefinedType(FileSignatureMatcher.FileBytes fileBytes) {
+        FileType fileType = userDefinedTypeMatcher.findMatch(fileBytes);
+        return fileType == null ? null : fileType.getMimeType();
     }
 
     /**
      * Determines whether or not a file matches a custom file type defined by Autopsy.
      *
-     * @param file The file to test.
+     * @param fileBytes The header and trailer of the file to test.
      *
      * @return The MIME type as a string if a match is found; otherwise null.
      */
-    private String detectAutopsyDefinedType(AbstractFile file) {
-        for (FileType fileType : autopsyDefinedFileTypes) {
-            if (fileType.matches(file)) {
-                return fileType.getMimeType();
-            }
-        }
-        return null;
+    private String detectAutopsyDefinedType(FileSignatureMatcher.FileBytes fileBytes) {
+        FileType fileType = autopsyDefinedTypeMatcher.findMatch(fileBytes);
+        return fileType == null ? null : fileType.getMimeType();
     }
 
     /*
@@ -21,13 +21,13 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.logging.Level;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
 import org.sleuthkit.autopsy.casemodule.services.Blackboard;
 import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.ingest.FileContentPass;
 import org.sleuthkit.autopsy.ingest.FileIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
@@ -53,6 +53,8 @@ public class FileTypeIdIngestModule implements FileIngestModule {
     private static final HashMap<Long, IngestJobTotals> totalsForIngestJobs = new HashMap<>();
     private static final IngestModuleReferenceCounter refCounter = new IngestModuleReferenceCounter();
     private FileTypeDetector fileTypeDetector;
+    private FileContentPass contentPass;
+    private FileSignatureMatcher userDefinedTypeMatcher;
 
     /**
      * Validate if a given mime type is in the detector's registry.
@@ -84,9 +86,12 @@ public static boolean isMimeTypeDetectable(String mimeType) {
     public void startUp(IngestJobContext context) throws IngestModuleException {
         jobId = context.getJobId();
         refCounter.incrementAndGet(jobId);
+        contentPass = context.getFileContentPass();
+        contentPass.requestAnalyses(FileContentPass.Analysis.HEADER);
         try {
             fileTypeDetector = new FileTypeDetector();
-        } catch (FileTypeDetector.FileTypeDetectorInitException ex) {
+            userDefinedTypeMatcher = FileSignatureMatcher.compile(CustomFileTypesManager.getInstance().getUserDefinedFileTypes());
+        } catch (FileTypeDetector.FileTypeDetectorInitException | CustomFileTypesManager.CustomFileTypesException ex) {
             throw new IngestModuleException(Bundle.CannotRunFileTypeDetection(), ex);
         }
     }
@@ -100,6 +105,19 @@ public ProcessResult process(AbstractFile file) {
          */
         try {
             long startTime = System.currentTimeMillis();
+            if (file.getMIMEType() == null && file.isFile() && file.getSize() > 0) {
+                /*
+                 * Read the file header once, or reuse the content pass of an
+                 * earlier module, rather than reading from the file for each
+                 * file type signature that is checked. Read errors are left
+                 * for the file type detector to deal with.
+                 */
+                try {
+                    contentPass.getResults(file, FileContentPass.Analysis.HEADER);
+                } catch (TskCoreException ex) {
+                    logger.log(Level.FINE, String.format("Error reading header of file %d", file.getId()), ex); //NON-NLS
+                }
+            }
             String mimeType = fileTypeDetector.getMIMEType(file);
             file.setMIMEType(mimeType);
             FileType fileType = detectUserDefinedFileType(file);
@@ -120,23 +138,9 @@ public ProcessResult process(AbstractFile file) {
      * @param file The file to test.
      *
      * @return The file type if a match is found; otherwise null.
-     *
-     * @throws CustomFileTypesException If there is an issue getting an instance
-     *                                  of CustomFileTypesManager.
      */
-    private FileType detectUserDefinedFileType(AbstractFile file) throws CustomFileTypesManager.CustomFileTypesException {
-        FileType retValue = null;
-
-        CustomFileTypesManager customFileTypesManager = CustomFileTypesManager.getInstance();
-        List<FileType> fileTypesList = customFileTypesManager.getUserDefinedFileTypes();
-        for (FileType fileType : fileTypesList) {
-            if (fileType.matches(file)) {
-                retValue = fileType;
-                break;
-            }
-        }
-
-        return retValue;
+    private FileType detectUserDefinedFileType(AbstractFile file) {
+        return userDefinedTypeMatcher.findMatch(new FileSignatureMatcher.FileBytes(file));
     }
 
     /**
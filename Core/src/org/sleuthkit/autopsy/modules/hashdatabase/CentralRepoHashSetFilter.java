@@ -0,0 +1,91 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.hashdatabase;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import javax.annotation.concurrent.ThreadSafe;
+import org.sleuthkit.autopsy.centralrepository.datamodel.CorrelationAttribute;
+import org.sleuthkit.autopsy.centralrepository.datamodel.EamDb;
+import org.sleuthkit.autopsy.centralrepository.datamodel.EamDbException;
+
+/**
+ * A local, in-memory Bloom filter of the MD5 hashes in a central repository
+ * reference set. It is used to answer most hash set lookups during ingest
+ * without a round trip to the central repository. A negative answer is
+ * definitive, while a positive answer means that the hash is very likely in
+ * the reference set and should be confirmed by querying the central
+ * repository.
+ *
+ * Once loaded, the filter is read-only, so it is safe for concurrent lookups.
+ */
+@ThreadSafe
+final class CentralRepoHashSetFilter {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private final BloomFilter<CharSequence> filter;
+    private final long hashCount;
+
+    /**
+     * Loads a filter for the MD5 hashes in a central repository reference
+     * set.
+     *
+     * @param referenceSetID The id of the reference set.
+     *
+     * @return The filter.
+     *
+     * @throws EamDbException If there is an error reading the reference set
+     *                        from the central repository.
+     */
+    static CentralRepoHashSetFilter load(int referenceSetID) throws EamDbException {
+        EamDb centralRepo = EamDb.getInstance();
+        long hashCount = centralRepo.getCountReferenceSetValues(referenceSetID, CorrelationAttribute.FILES_TYPE_ID);
+        BloomFilter<CharSequence> filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.US_ASCII), Math.max(hashCount, 1L), FALSE_POSITIVE_PROBABILITY);
+        centralRepo.processReferenceSetValues(referenceSetID, CorrelationAttribute.FILES_TYPE_ID, hash -> filter.put(hash.toLowerCase(Locale.ROOT)));
+        return new CentralRepoHashSetFilter(filter, hashCount);
+    }
+
+    private CentralRepoHashSetFilter(BloomFilter<CharSequence> filter, long hashCount) {
+        this.filter = filter;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Indicates whether or not an MD5 hash might be in the reference set.
+     *
+     * @param md5Hash The hash.
+     *
+     * @return False if the hash is definitely not in the reference set, true
+     *         if it might be.
+     */
+    boolean mightContain(String md5Hash) {
+        return filter.mightContain(md5Hash.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the number of hashes that were loaded into the filter.
+     *
+     * @return The number of hashes.
+     */
+    long getHashCount() {
+        return hashCount;
+    }
+}
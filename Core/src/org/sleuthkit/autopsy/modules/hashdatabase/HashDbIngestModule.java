@@ -18,12 +18,17 @@
  */
 package org.sleuthkit.autopsy.modules.hashdatabase;
 
-import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import org.openide.util.NbBundle;
@@ -35,6 +40,7 @@
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.autopsy.healthmonitor.EnterpriseHealthMonitor;
 import org.sleuthkit.autopsy.healthmonitor.TimingMetric;
+import org.sleuthkit.autopsy.ingest.FileContentPass;
 import org.sleuthkit.autopsy.ingest.FileIngestModule;
 import org.sleuthkit.autopsy.ingest.IngestMessage;
 import org.sleuthkit.autopsy.ingest.IngestModuleReferenceCounter;
@@ -47,7 +53,6 @@
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
 import org.sleuthkit.datamodel.HashHitInfo;
-import org.sleuthkit.datamodel.HashUtility;
 import org.sleuthkit.datamodel.SleuthkitCase;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
@@ -63,6 +68,7 @@ public class HashDbIngestModule implements FileIngestModule {
 
     private static final Logger logger = Logger.getLogger(HashDbIngestModule.class.getName());
     private static final int MAX_COMMENT_SIZE = 500;
+    private static final int PREFETCH_OBJ_ID_RANGE_SIZE = 1000;
     private final IngestServices services = IngestServices.getInstance();
     private final SleuthkitCase skCase;
     private final HashDbManager hashDbManager = HashDbManager.getInstance();
@@ -70,6 +76,11 @@ public class HashDbIngestModule implements FileIngestModule {
     private List<HashDb> knownBadHashSets = new ArrayList<>();
     private List<HashDb> knownHashSets = new ArrayList<>();
     private long jobId;
+    private long dataSourceObjId;
+    private final Map<String, HashLookupResult> prefetchedLookupResults = new HashMap<>();
+    private long prefetchedObjIdRangeStart = -1;
+    private boolean batchLookupsSupported;
+    private FileContentPass contentPass;
     private static final HashMap<Long, IngestJobTotals> totalsForIngestJobs = new HashMap<>();
     private static final IngestModuleReferenceCounter refCounter = new IngestModuleReferenceCounter();
     private Blackboard blackboard;
@@ -81,6 +92,31 @@ private static class IngestJobTotals {
         private AtomicLong totalLookuptime = new AtomicLong(0);
     }
 
+    /**
+     * The results of looking up a hash in the enabled hash sets.
+     */
+    private static class HashLookupResult {
+
+        private final List<KnownBadHit> knownBadHits = new ArrayList<>();
+        private boolean known;
+        private boolean knownBadLookupFailed;
+        private boolean knownLookupFailed;
+    }
+
+    /**
+     * A hit for a hash in a notable hash set.
+     */
+    private static class KnownBadHit {
+
+        private final HashDb hashSet;
+        private final HashHitInfo hitInfo;
+
+        private KnownBadHit(HashDb hashSet, HashHitInfo hitInfo) {
+            this.hashSet = hashSet;
+            this.hitInfo = hitInfo;
+        }
+    }
+
     private static synchronized IngestJobTotals getTotalsForIngestJobs(long ingestJobId) {
         IngestJobTotals totals = totalsForIngestJobs.get(ingestJobId);
         if (totals == null) {
@@ -98,16 +134,40 @@ private static synchronized IngestJobTotals getTotalsForIngestJobs(long ingestJo
     @Override
     public void startUp(org.sleuthkit.autopsy.ingest.IngestJobContext context) throws IngestModuleException {
         jobId = context.getJobId();
+        dataSourceObjId = context.getDataSource().getId();
+        contentPass = context.getFileContentPass();
         if (!hashDbManager.verifyAllDatabasesLoadedCorrectly()) {
             throw new IngestModuleException("Could not load all hash sets");
         }
         updateEnabledHashSets(hashDbManager.getKnownBadFileHashSets(), knownBadHashSets);
         updateEnabledHashSets(hashDbManager.getKnownFileHashSets(), knownHashSets);
+        batchLookupsSupported = true;
+        for (HashDb db : knownBadHashSets) {
+            batchLookupsSupported &= db.supportsBatchLookups();
+        }
+        for (HashDb db : knownHashSets) {
+            batchLookupsSupported &= db.supportsBatchLookups();
+        }
+        if (!knownHashSets.isEmpty() || !knownBadHashSets.isEmpty() || settings.shouldCalculateHashes()) {
+            contentPass.requestAnalyses(FileContentPass.Analysis.MD5);
+        }
 
         if (refCounter.incrementAndGet(jobId) == 1) {
             // initialize job totals
             getTotalsForIngestJobs(jobId);
 
+            // load the local lookup filters of the central repository hash sets, unless they are up to date
+            for (HashDb db : knownBadHashSets) {
+                if (db instanceof HashDbManager.CentralRepoHashSet) {
+                    ((HashDbManager.CentralRepoHashSet) db).loadLookupFilter();
+                }
+            }
+            for (HashDb db : knownHashSets) {
+                if (db instanceof HashDbManager.CentralRepoHashSet) {
+                    ((HashDbManager.CentralRepoHashSet) db).loadLookupFilter();
+                }
+            }
+
             // if first module for this job then post error msgs if needed
             if (knownBadHashSets.isEmpty()) {
                 services.postMessage(IngestMessage.createWarningMessage(
@@ -182,11 +242,13 @@ public ProcessResult process(AbstractFile file) {
         // calc hash value
         String name = file.getName();
         String md5Hash = file.getMd5Hash();
+        boolean md5WasInCaseDatabase = true;
         if (md5Hash == null || md5Hash.isEmpty()) {
+            md5WasInCaseDatabase = false;
             try {
                 TimingMetric metric = EnterpriseHealthMonitor.getTimingMetric("Disk Reads: Hash calculation");
                 long calcstart = System.currentTimeMillis();
-                md5Hash = HashUtility.calculateMd5Hash(file);
+                md5Hash = contentPass.getResults(file, FileContentPass.Analysis.MD5).getMd5Hash();
                 if (file.getSize() > 0) {
                     // Surprisingly, the hash calculation does not seem to be correlated that
                     // strongly with file size until the files get large.
@@ -202,7 +264,7 @@ public ProcessResult process(AbstractFile file) {
                 long delta = (System.currentTimeMillis() - calcstart);
                 totals.totalCalctime.addAndGet(delta);
 
-            } catch (IOException ex) {
+            } catch (TskCoreException ex) {
                 logger.log(Level.WARNING, "Error calculating hash of file " + name, ex); //NON-NLS
                 services.postMessage(IngestMessage.createErrorMessage(
                         HashLookupModuleFactory.getModuleName(),
@@ -216,88 +278,259 @@ public ProcessResult process(AbstractFile file) {
             }
         }
 
-        // look up in notable first
-        boolean foundBad = false;
+        // look up in the hash sets, reusing the results of a batch lookup
+        // of the files with nearby object ids if there are any
+        HashLookupResult lookupResult = prefetchedLookupResults.get(md5Hash);
+        if (null == lookupResult && md5WasInCaseDatabase && batchLookupsSupported
+                && (file.getId() < prefetchedObjIdRangeStart || file.getId() >= prefetchedObjIdRangeStart + PREFETCH_OBJ_ID_RANGE_SIZE)) {
+            prefetchLookupResults(file.getId(), totals);
+            lookupResult = prefetchedLookupResults.get(md5Hash);
+        }
+        if (null == lookupResult) {
+            lookupResult = lookUpHashes(Collections.singletonList(md5Hash), file, totals).get(md5Hash);
+        }
+
         ProcessResult ret = ProcessResult.OK;
-        for (HashDb db : knownBadHashSets) {
-            try {
-                long lookupstart = System.currentTimeMillis();
-                HashHitInfo hashInfo = db.lookupMD5(file);
-                if (null != hashInfo) {
-                    foundBad = true;
-                    totals.totalKnownBadCount.incrementAndGet();
-
-                    file.setKnown(TskData.FileKnown.BAD);
-
-                    String hashSetName = db.getDisplayName();
-
-                    String comment = "";
-                    ArrayList<String> comments = hashInfo.getComments();
-                    int i = 0;
-                    for (String c : comments) {
-                        if (++i > 1) {
-                            comment += " ";
-                        }
-                        comment += c;
-                        if (comment.length() > MAX_COMMENT_SIZE) {
-                            comment = comment.substring(0, MAX_COMMENT_SIZE) + "...";
-                            break;
-                        }
-                    }
+        if (lookupResult.knownBadLookupFailed) {
+            logger.log(Level.WARNING, "Couldn't lookup notable hash for file " + name + " - see sleuthkit log for details"); //NON-NLS
+            services.postMessage(IngestMessage.createErrorMessage(
+                    HashLookupModuleFactory.getModuleName(),
+                    NbBundle.getMessage(this.getClass(),
+                            "HashDbIngestModule.hashLookupErrorMsg",
+                            name),
+                    NbBundle.getMessage(this.getClass(),
+                            "HashDbIngestModule.lookingUpKnownBadHashValueErr",
+                            name)));
+            ret = ProcessResult.ERROR;
+        }
 
-                    postHashSetHitToBlackboard(file, md5Hash, hashSetName, comment, db.getSendIngestMessages());
+        if (!lookupResult.knownBadHits.isEmpty()) {
+            totals.totalKnownBadCount.addAndGet(lookupResult.knownBadHits.size());
+            file.setKnown(TskData.FileKnown.BAD);
+            List<BlackboardArtifact> artifacts = new ArrayList<>();
+            for (KnownBadHit hit : lookupResult.knownBadHits) {
+                BlackboardArtifact artifact = postHashSetHitToBlackboard(file, md5Hash, hit.hashSet.getDisplayName(), getComment(hit.hitInfo), hit.hashSet.getSendIngestMessages());
+                if (null != artifact) {
+                    artifacts.add(artifact);
                 }
-                long delta = (System.currentTimeMillis() - lookupstart);
-                totals.totalLookuptime.addAndGet(delta);
-
-            } catch (TskException ex) {
-                logger.log(Level.WARNING, "Couldn't lookup notable hash for file " + name + " - see sleuthkit log for details", ex); //NON-NLS
+            }
+            if (!artifacts.isEmpty()) {
+                services.fireModuleDataEvent(new ModuleDataEvent(NbBundle.getMessage(HashDbIngestModule.class, "HashDbIngestModule.moduleName"), ARTIFACT_TYPE.TSK_HASHSET_HIT, artifacts));
+            }
+        } else {
+            // If the file is not in the notable sets, it was searched for in 
+            // the known sets. Any hit is sufficient to classify it as known, 
+            // and there is no need to create a hit artifact or send a message 
+            // to the application inbox.
+            if (lookupResult.knownLookupFailed) {
+                logger.log(Level.WARNING, "Couldn't lookup known hash for file " + name + " - see sleuthkit log for details"); //NON-NLS
                 services.postMessage(IngestMessage.createErrorMessage(
                         HashLookupModuleFactory.getModuleName(),
                         NbBundle.getMessage(this.getClass(),
                                 "HashDbIngestModule.hashLookupErrorMsg",
                                 name),
                         NbBundle.getMessage(this.getClass(),
-                                "HashDbIngestModule.lookingUpKnownBadHashValueErr",
+                                "HashDbIngestModule.lookingUpKnownHashValueErr",
                                 name)));
                 ret = ProcessResult.ERROR;
             }
+            if (lookupResult.known) {
+                file.setKnown(TskData.FileKnown.KNOWN);
+            }
         }
 
-        // If the file is not in the notable sets, search for it in the known sets. 
-        // Any hit is sufficient to classify it as known, and there is no need to create 
-        // a hit artifact or send a message to the application inbox.
-        if (!foundBad) {
-            for (HashDb db : knownHashSets) {
-                try {
-                    long lookupstart = System.currentTimeMillis();
-                    if (db.lookupMD5Quick(file)) {
-                        file.setKnown(TskData.FileKnown.KNOWN);
-                        break;
+        return ret;
+    }
+
+    /**
+     * Looks up a batch of MD5 hashes in the enabled hash sets, with one batch
+     * lookup per hash set. The hashes are looked up in the notable sets
+     * first, and only the hashes that are not in any notable set are looked
+     * up in the known sets.
+     *
+     * @param md5Hashes The hashes.
+     * @param file      The file with the single hash in the batch, used to
+     *                  look up the hash in hash sets that do not support batch
+     *                  lookups. May be null if all of the enabled hash sets
+     *                  support batch lookups.
+     * @param totals    The totals for the ingest job, to which the lookup time
+     *                  is added.
+     *
+     * @return The lookup results, keyed by hash. There is a result for each
+     *         hash in the batch.
+     */
+    private Map<String, HashLookupResult> lookUpHashes(Collection<String> md5Hashes, AbstractFile file, IngestJobTotals totals) {
+        Map<String, HashLookupResult> results = new HashMap<>();
+        for (String md5Hash : md5Hashes) {
+            results.put(md5Hash, new HashLookupResult());
+        }
+        long lookupStart = System.nanoTime();
+
+        // look up in notable first
+        for (HashDb db : knownBadHashSets) {
+            try {
+                for (Map.Entry<String, HashHitInfo> hit : lookupMD5s(db, md5Hashes, file).entrySet()) {
+                    HashLookupResult result = results.get(hit.getKey());
+                    if (null != result) {
+                        result.knownBadHits.add(new KnownBadHit(db, hit.getValue()));
                     }
-                    long delta = (System.currentTimeMillis() - lookupstart);
-                    totals.totalLookuptime.addAndGet(delta);
-
-                } catch (TskException ex) {
-                    logger.log(Level.WARNING, "Couldn't lookup known hash for file " + name + " - see sleuthkit log for details", ex); //NON-NLS
-                    services.postMessage(IngestMessage.createErrorMessage(
-                            HashLookupModuleFactory.getModuleName(),
-                            NbBundle.getMessage(this.getClass(),
-                                    "HashDbIngestModule.hashLookupErrorMsg",
-                                    name),
-                            NbBundle.getMessage(this.getClass(),
-                                    "HashDbIngestModule.lookingUpKnownHashValueErr",
-                                    name)));
-                    ret = ProcessResult.ERROR;
+                }
+            } catch (TskException ex) {
+                logger.log(Level.WARNING, "Couldn't lookup notable hashes in " + db.getHashSetName() + " - see sleuthkit log for details", ex); //NON-NLS
+                for (HashLookupResult result : results.values()) {
+                    result.knownBadLookupFailed = true;
                 }
             }
         }
 
-        return ret;
+        // then look up the rest in known, stopping at the first hit
+        Set<String> remainingHashes = new HashSet<>();
+        for (Map.Entry<String, HashLookupResult> entry : results.entrySet()) {
+            if (entry.getValue().knownBadHits.isEmpty()) {
+                remainingHashes.add(entry.getKey());
+            }
+        }
+        for (HashDb db : knownHashSets) {
+            if (remainingHashes.isEmpty()) {
+                break;
+            }
+            try {
+                Set<String> hits = lookupMD5sQuick(db, remainingHashes, file);
+                for (String hit : hits) {
+                    HashLookupResult result = results.get(hit);
+                    if (null != result) {
+                        result.known = true;
+                    }
+                }
+                remainingHashes.removeAll(hits);
+            } catch (TskException ex) {
+                logger.log(Level.WARNING, "Couldn't lookup known hashes in " + db.getHashSetName() + " - see sleuthkit log for details", ex); //NON-NLS
+                for (String md5Hash : remainingHashes) {
+                    results.get(md5Hash).knownLookupFailed = true;
+                }
+            }
+        }
+
+        totals.totalLookuptime.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lookupStart));
+        return results;
+    }
+
+    /**
+     * Looks up a batch of MD5 hashes in a hash set and provides details on the
+     * hits, falling back to a lookup of the hash of a single file if the hash
+     * set does not support batch lookups.
+     *
+     * @param db        The hash set.
+     * @param md5Hashes The hashes.
+     * @param file      The file with the single hash in the batch, may be null
+     *                  if the hash set supports batch lookups.
+     *
+     * @return The details of the hits, keyed by hash.
+     *
+     * @throws TskCoreException
+     */
+    private static Map<String, HashHitInfo> lookupMD5s(HashDb db, Collection<String> md5Hashes, AbstractFile file) throws TskCoreException {
+        if (db.supportsBatchLookups()) {
+            return db.lookupMD5s(md5Hashes);
+        }
+        Map<String, HashHitInfo> hits = new HashMap<>();
+        HashHitInfo hitInfo = db.lookupMD5(file);
+        if (null != hitInfo) {
+            hits.put(file.getMd5Hash(), hitInfo);
+        }
+        return hits;
+    }
+
+    /**
+     * Performs a basic boolean lookup of a batch of MD5 hashes in a hash set,
+     * falling back to a lookup of the hash of a single file if the hash set
+     * does not support batch lookups.
+     *
+     * @param db        The hash set.
+     * @param md5Hashes The hashes.
+     * @param file      The file with the single hash in the batch, may be null
+     *                  if the hash set supports batch lookups.
+     *
+     * @return The hashes in the batch that are in the hash set.
+     *
+     * @throws TskCoreException
+     */
+    private static Set<String> lookupMD5sQuick(HashDb db, Collection<String> md5Hashes, AbstractFile file) throws TskCoreException {
+        if (db.supportsBatchLookups()) {
+            return db.lookupMD5sQuick(md5Hashes);
+        }
+        Set<String> hits = new HashSet<>();
+        if (db.lookupMD5Quick(file)) {
+            hits.add(file.getMd5Hash());
+        }
+        return hits;
+    }
+
+    /**
+     * Looks up the MD5 hashes that are already in the case database for the
+     * files with object ids in the range starting at a given object id with a
+     * single batch lookup per hash set. This is useful when a data source
+     * that has already been hashed is analyzed again, e.g., with new hash
+     * sets. The files are selected by object id rather than by folder because
+     * the object id is the primary key of the files table, while the parent
+     * path is not indexed. Files added to the case database together have
+     * consecutive object ids, so nearby files are usually processed soon.
+     *
+     * @param startObjId The object id at which the range starts.
+     * @param totals     The totals for the ingest job, to which the lookup
+     *                   time is added.
+     */
+    private void prefetchLookupResults(long startObjId, IngestJobTotals totals) {
+        prefetchedLookupResults.clear();
+        prefetchedObjIdRangeStart = startObjId;
+        List<String> md5Hashes = new ArrayList<>();
+        String query = "SELECT DISTINCT md5 FROM tsk_files WHERE obj_id >= " + startObjId //NON-NLS
+                + " AND obj_id < " + (startObjId + PREFETCH_OBJ_ID_RANGE_SIZE) //NON-NLS
+                + " AND data_source_obj_id = " + dataSourceObjId + " AND md5 IS NOT NULL"; //NON-NLS
+        try (SleuthkitCase.CaseDbQuery dbQuery = skCase.executeQuery(query)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                String md5Hash = resultSet.getString("md5"); //NON-NLS
+                if (null != md5Hash && !md5Hash.isEmpty()) {
+                    md5Hashes.add(md5Hash);
+                }
+            }
+        } catch (TskCoreException | SQLException ex) {
+            logger.log(Level.WARNING, String.format("Error querying the hashes of the files with object ids from %d", startObjId), ex); //NON-NLS
+            return;
+        }
+        if (!md5Hashes.isEmpty()) {
+            prefetchedLookupResults.putAll(lookUpHashes(md5Hashes, null, totals));
+        }
+    }
+
+    /**
+     * Makes the comment for a hash set hit artifact from the comments of a
+     * hash hit.
+     *
+     * @param hashInfo The hash hit.
+     *
+     * @return The comment.
+     */
+    private static String getComment(HashHitInfo hashInfo) {
+        String comment = "";
+        ArrayList<String> comments = hashInfo.getComments();
+        int i = 0;
+        for (String c : comments) {
+            if (++i > 1) {
+                comment += " ";
+            }
+            comment += c;
+            if (comment.length() > MAX_COMMENT_SIZE) {
+                comment = comment.substring(0, MAX_COMMENT_SIZE) + "...";
+                break;
+            }
+        }
+        return comment;
     }
 
     @Messages({"HashDbIngestModule.indexError.message=Failed to index hashset hit artifact for keyword search."})
-    private void postHashSetHitToBlackboard(AbstractFile abstractFile, String md5Hash, String hashSetName, String comment, boolean showInboxMessage) {
+    private BlackboardArtifact postHashSetHitToBlackboard(AbstractFile abstractFile, String md5Hash, String hashSetName, String comment, boolean showInboxMessage) {
         try {
             String MODULE_NAME = NbBundle.getMessage(HashDbIngestModule.class, "HashDbIngestModule.moduleName");
 
@@ -358,9 +591,10 @@ private void postHashSetHitToBlackboard(AbstractFile abstractFile, String md5Has
                         abstractFile.getName() + md5Hash,
                         badFile));
             }
-            services.fireModuleDataEvent(new ModuleDataEvent(MODULE_NAME, ARTIFACT_TYPE.TSK_HASHSET_HIT, Collections.singletonList(badFile)));
+            return badFile;
         } catch (TskException ex) {
             logger.log(Level.WARNING, "Error creating blackboard artifact", ex); //NON-NLS
+            return null;
         }
     }
 
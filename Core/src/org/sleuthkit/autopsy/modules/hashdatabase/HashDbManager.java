@@ -24,8 +24,11 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -762,6 +765,44 @@ public enum Event {
         public abstract boolean lookupMD5Quick(Content content) throws TskCoreException;
 
         public abstract HashHitInfo lookupMD5(Content content) throws TskCoreException;
+
+        /**
+         * Returns whether this database supports batch lookups of MD5 hashes.
+         * Databases that do not are looked up one file at a time.
+         *
+         * @return True if lookupMD5sQuick and lookupMD5s are supported.
+         */
+        public boolean supportsBatchLookups() {
+            return false;
+        }
+
+        /**
+         * Performs a basic boolean lookup of a batch of MD5 hashes.
+         *
+         * @param md5Hashes The hashes.
+         *
+         * @return The hashes in the batch that are in the hash database.
+         *
+         * @throws TskCoreException
+         */
+        public Set<String> lookupMD5sQuick(Collection<String> md5Hashes) throws TskCoreException {
+            return new HashSet<>(lookupMD5s(md5Hashes).keySet());
+        }
+
+        /**
+         * Looks up a batch of MD5 hashes and provides details on the hits.
+         *
+         * @param md5Hashes The hashes.
+         *
+         * @return The details of the hashes in the batch that are in the hash
+         *         database, keyed by hash.
+         *
+         * @throws TskCoreException If batch lookups are not supported, see
+         *                          supportsBatchLookups.
+         */
+        public Map<String, HashHitInfo> lookupMD5s(Collection<String> md5Hashes) throws TskCoreException {
+            throw new TskCoreException("Batch lookups are not supported by hash set " + getHashSetName());
+        }
         
         /**
          * Returns whether this database can be enabled.
@@ -987,6 +1028,53 @@ public HashHitInfo lookupMD5(Content content) throws TskCoreException {
             }
             return result;
         }
+
+        @Override
+        public boolean supportsBatchLookups() {
+            return true;
+        }
+
+        /**
+         * Performs a basic boolean lookup of a batch of MD5 hashes.
+         *
+         * @param md5Hashes The hashes.
+         *
+         * @return The hashes in the batch that are in the hash database.
+         *
+         * @throws TskCoreException
+         */
+        @Override
+        public Set<String> lookupMD5sQuick(Collection<String> md5Hashes) throws TskCoreException {
+            Set<String> hits = new HashSet<>();
+            for (String md5Hash : md5Hashes) {
+                if (SleuthkitJNI.lookupInHashDatabase(md5Hash, handle)) {
+                    hits.add(md5Hash);
+                }
+            }
+            return hits;
+        }
+
+        /**
+         * Looks up a batch of MD5 hashes and provides details on the hits.
+         *
+         * @param md5Hashes The hashes.
+         *
+         * @return The details of the hashes in the batch that are in the hash
+         *         database, keyed by hash.
+         *
+         * @throws TskCoreException
+         */
+        @Override
+        public Map<String, HashHitInfo> lookupMD5s(Collection<String> md5Hashes) throws TskCoreException {
+            Map<String, HashHitInfo> hits = new HashMap<>();
+            for (String md5Hash : md5Hashes) {
+                HashHitInfo hitInfo = SleuthkitJNI.lookupInHashDatabaseVerbose(md5Hash, handle);
+                if (null != hitInfo) {
+                    hits.put(md5Hash, hitInfo);
+                }
+            }
+            return hits;
+        }
         
         /**
          * Returns whether this database can be enabled.
@@ -1076,6 +1164,8 @@ class CentralRepoHashSet extends HashDb{
         private String orgName;
         private final boolean readOnly;
         private final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+        private transient volatile CentralRepoHashSetFilter lookupFilter;
+        private transient int lookupFilterGeneration;
 
         @Messages({"HashDbManager.CentralRepoHashDb.orgError=Error loading organization"})
         private CentralRepoHashSet(String hashSetName, String version, int referenceSetID, 
@@ -1240,6 +1330,9 @@ public void addHashes(Content content, String comment) throws TskCoreException {
                         EamDb.getInstance().addReferenceInstance(fileInstance,EamDb.getInstance().getCorrelationTypeById(CorrelationAttribute.FILES_TYPE_ID));
                     } catch (EamDbException ex){
                         throw new TskCoreException("Error adding hashes to " + getDisplayName(), ex);
+                    } finally {
+                        // after the insert, so that a filter loaded concurrently cannot miss the hash
+                        invalidateLookupFilter();
                     }
                 }
             }
@@ -1274,6 +1367,9 @@ public void addHashes(List<HashEntry> hashes) throws TskCoreException {
                         EamDb.getInstance().getCorrelationTypeById(CorrelationAttribute.FILES_TYPE_ID));
             } catch (EamDbException ex){
                 throw new TskCoreException("Error adding hashes to " + getDisplayName(), ex);
+            } finally {
+                // after the insert, so that a filter loaded concurrently cannot miss the hashes
+                invalidateLookupFilter();
             }
         }
 
@@ -1293,6 +1389,9 @@ public boolean lookupMD5Quick(Content content) throws TskCoreException {
             if (content instanceof AbstractFile) {
                 AbstractFile file = (AbstractFile) content;
                 if (null != file.getMd5Hash()) {
+                    if (!mightContain(file.getMd5Hash())) {
+                        return false;
+                    }
                     try{
                         return EamDb.getInstance().isFileHashInReferenceSet(file.getMd5Hash(), this.referenceSetID);
                     } catch (EamDbException ex){
@@ -1322,6 +1421,9 @@ public HashHitInfo lookupMD5(Content content) throws TskCoreException {
             if (content instanceof AbstractFile) {
                 AbstractFile file = (AbstractFile) content;
                 if (null != file.getMd5Hash()) {
+                    if (!mightContain(file.getMd5Hash())) {
+                        return null;
+                    }
                     try{
                         if(EamDb.getInstance().isFileHashInReferenceSet(file.getMd5Hash(), this.referenceSetID)){
                             // Make a bare-bones HashHitInfo for now
@@ -1336,6 +1438,125 @@ public HashHitInfo lookupMD5(Content content) throws TskCoreException {
             }
             return result;
         }
+
+        @Override
+        public boolean supportsBatchLookups() {
+            return true;
+        }
+
+        /**
+         * Performs a basic boolean lookup of a batch of MD5 hashes. Hashes
+         * that are ruled out by the local filter are not sent to the central
+         * repository, and the rest are looked up with a single query.
+         *
+         * @param md5Hashes The hashes.
+         *
+         * @return The hashes in the batch that are in the hash database.
+         *
+         * @throws TskCoreException
+         */
+        @Override
+        public Set<String> lookupMD5sQuick(Collection<String> md5Hashes) throws TskCoreException {
+            List<String> candidates = new ArrayList<>();
+            for (String md5Hash : md5Hashes) {
+                if (mightContain(md5Hash)) {
+                    candidates.add(md5Hash);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return new HashSet<>();
+            }
+            try {
+                return EamDb.getInstance().getValuesInReferenceSet(candidates, this.referenceSetID, CorrelationAttribute.FILES_TYPE_ID);
+            } catch (EamDbException ex) {
+                Logger.getLogger(CentralRepoHashSet.class.getName()).log(Level.SEVERE, "Error performing central repository hash lookup for " + candidates.size() 
+                        + " hashes in reference set " + referenceSetID, ex); //NON-NLS
+                throw new TskCoreException("Error performing central reposiotry hash lookup", ex);
+            }
+        }
+
+        /**
+         * Looks up a batch of MD5 hashes and provides details on the hits.
+         *
+         * @param md5Hashes The hashes.
+         *
+         * @return The details of the hashes in the batch that are in the hash
+         *         database, keyed by hash.
+         *
+         * @throws TskCoreException
+         */
+        @Override
+        public Map<String, HashHitInfo> lookupMD5s(Collection<String> md5Hashes) throws TskCoreException {
+            Map<String, HashHitInfo> hits = new HashMap<>();
+            for (String md5Hash : lookupMD5sQuick(md5Hashes)) {
+                // Make a bare-bones HashHitInfo for now
+                hits.put(md5Hash, new HashHitInfo(md5Hash, "", ""));
+            }
+            return hits;
+        }
+
+        /**
+         * Loads a local filter of the hashes in the reference set, so that
+         * lookups of hashes that are not in the reference set do not need to
+         * query the central repository. Called at the start of each ingest
+         * job. The filter is kept with the hash set and shared by all jobs
+         * and module instances, and is only reloaded if it was discarded
+         * because hashes were added from this node, or if the number of hashes
+         * in the reference set has changed, e.g., because other users added
+         * hashes. If the filter cannot be loaded, lookups query the central
+         * repository as usual.
+         */
+        void loadLookupFilter() {
+            int generation;
+            CentralRepoHashSetFilter currentFilter;
+            synchronized (this) {
+                generation = lookupFilterGeneration;
+                currentFilter = lookupFilter;
+            }
+            try {
+                if (null != currentFilter && currentFilter.getHashCount() == EamDb.getInstance().getCountReferenceSetValues(referenceSetID, CorrelationAttribute.FILES_TYPE_ID)) {
+                    return;
+                }
+                CentralRepoHashSetFilter filter = CentralRepoHashSetFilter.load(referenceSetID);
+                synchronized (this) {
+                    /*
+                     * Discard the filter if hashes were added to the reference
+                     * set while it was being loaded.
+                     */
+                    if (generation == lookupFilterGeneration) {
+                        lookupFilter = filter;
+                    }
+                }
+                Logger.getLogger(CentralRepoHashSet.class.getName()).log(Level.INFO, "Loaded lookup filter for {0} with {1} hashes", new Object[]{getDisplayName(), filter.getHashCount()}); //NON-NLS
+            } catch (EamDbException ex) {
+                Logger.getLogger(CentralRepoHashSet.class.getName()).log(Level.WARNING, "Error loading lookup filter for reference set " + referenceSetID, ex); //NON-NLS
+            }
+        }
+
+        /**
+         * Discards the local filter of the hashes in the reference set because
+         * hashes have been added to the reference set. Must be called after
+         * the hashes are inserted; a filter that was being loaded while they
+         * were inserted is then discarded instead of installed.
+         */
+        private synchronized void invalidateLookupFilter() {
+            lookupFilterGeneration++;
+            lookupFilter = null;
+        }
+
+        /**
+         * Indicates whether or not an MD5 hash might be in the reference set,
+         * according to the local filter, if there is one.
+         *
+         * @param md5Hash The hash.
+         *
+         * @return False if the hash is definitely not in the reference set,
+         *         true if it might be.
+         */
+        private boolean mightContain(String md5Hash) {
+            CentralRepoHashSetFilter filter = lookupFilter;
+            return (null == filter) || filter.mightContain(md5Hash);
+        }
         
         /**
          * Returns whether this database can be enabled.
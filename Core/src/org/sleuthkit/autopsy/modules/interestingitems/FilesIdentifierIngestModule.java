@@ -56,7 +56,7 @@ final class FilesIdentifierIngestModule implements FileIngestModule {
     private static final Object sharedResourcesLock = new Object();
     private static final Logger logger = Logger.getLogger(FilesIdentifierIngestModule.class.getName());
     private static final IngestModuleReferenceCounter refCounter = new IngestModuleReferenceCounter();
-    private static final Map<Long, List<FilesSet>> interestingFileSetsByJob = new ConcurrentHashMap<>();
+    private static final Map<Long, FilesSetMatcher> interestingFileSetsByJob = new ConcurrentHashMap<>();
     private final FilesIdentifierIngestJobSettings settings;
     private final IngestServices services = IngestServices.getInstance();
     private IngestJobContext context;
@@ -95,7 +95,9 @@ public void startUp(IngestJobContext context) throws IngestModuleException {
                 } catch (FilesSetsManager.FilesSetsManagerException ex) {
                     throw new IngestModuleException(Bundle.FilesIdentifierIngestModule_getFilesError(), ex);
                 }
-                FilesIdentifierIngestModule.interestingFileSetsByJob.put(context.getJobId(), filesSets);
+                // Compile the sets once for the job so that each file is 
+                // tested against all of their rules in one pass.
+                FilesIdentifierIngestModule.interestingFileSetsByJob.put(context.getJobId(), FilesSetMatcher.compile(filesSets));
             }
         }
     }
@@ -118,55 +120,54 @@ public ProcessResult process(AbstractFile file) {
         }
 
         // See if the file belongs to any defined interesting files set.
-        List<FilesSet> filesSets = FilesIdentifierIngestModule.interestingFileSetsByJob.get(this.context.getJobId());
-        for (FilesSet filesSet : filesSets) {
-            String ruleSatisfied = filesSet.fileIsMemberOf(file);
-            if (ruleSatisfied != null) {
-                try {
-                    // Post an interesting files set hit artifact to the 
-                    // blackboard.
-                    String moduleName = InterestingItemsIngestModuleFactory.getModuleName();
-                    BlackboardArtifact artifact = file.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT);
-                    Collection<BlackboardAttribute> attributes = new ArrayList<>();
+        FilesSetMatcher filesSetMatcher = FilesIdentifierIngestModule.interestingFileSetsByJob.get(this.context.getJobId());
+        for (Map.Entry<FilesSet, List<FilesSet.Rule>> match : filesSetMatcher.findMatches(file).entrySet()) {
+            FilesSet filesSet = match.getKey();
+            String ruleSatisfied = match.getValue().get(0).getName();
+            try {
+                // Post an interesting files set hit artifact to the 
+                // blackboard.
+                String moduleName = InterestingItemsIngestModuleFactory.getModuleName();
+                BlackboardArtifact artifact = file.newArtifact(BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT);
+                Collection<BlackboardAttribute> attributes = new ArrayList<>();
 
-                    // Add a set name attribute to the artifact. This adds a 
-                    // fair amount of redundant data to the attributes table 
-                    // (i.e., rows that differ only in artifact id), but doing
-                    // otherwise would requires reworking the interesting files
-                    // set hit artifact.
-                    BlackboardAttribute setNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME, moduleName, filesSet.getName());
-                    attributes.add(setNameAttribute);
+                // Add a set name attribute to the artifact. This adds a 
+                // fair amount of redundant data to the attributes table 
+                // (i.e., rows that differ only in artifact id), but doing
+                // otherwise would requires reworking the interesting files
+                // set hit artifact.
+                BlackboardAttribute setNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME, moduleName, filesSet.getName());
+                attributes.add(setNameAttribute);
 
-                    // Add a category attribute to the artifact to record the 
-                    // interesting files set membership rule that was satisfied.
-                    BlackboardAttribute ruleNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_CATEGORY, moduleName, ruleSatisfied);
-                    attributes.add(ruleNameAttribute);
+                // Add a category attribute to the artifact to record the 
+                // interesting files set membership rule that was satisfied.
+                BlackboardAttribute ruleNameAttribute = new BlackboardAttribute(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_CATEGORY, moduleName, ruleSatisfied);
+                attributes.add(ruleNameAttribute);
 
-                    artifact.addAttributes(attributes);
-                    try {
-                        // index the artifact for keyword search
-                        blackboard.indexArtifact(artifact);
-                    } catch (Blackboard.BlackboardException ex) {
-                        logger.log(Level.SEVERE, "Unable to index blackboard artifact " + artifact.getArtifactID(), ex); //NON-NLS
-                        MessageNotifyUtil.Notify.error(Bundle.FilesIdentifierIngestModule_indexError_message(), artifact.getDisplayName());
-                    }
+                artifact.addAttributes(attributes);
+                try {
+                    // index the artifact for keyword search
+                    blackboard.indexArtifact(artifact);
+                } catch (Blackboard.BlackboardException ex) {
+                    logger.log(Level.SEVERE, "Unable to index blackboard artifact " + artifact.getArtifactID(), ex); //NON-NLS
+                    MessageNotifyUtil.Notify.error(Bundle.FilesIdentifierIngestModule_indexError_message(), artifact.getDisplayName());
+                }
 
-                    services.fireModuleDataEvent(new ModuleDataEvent(moduleName, BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT, Collections.singletonList(artifact)));
+                services.fireModuleDataEvent(new ModuleDataEvent(moduleName, BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT, Collections.singletonList(artifact)));
 
-                    // make an ingest inbox message
-                    StringBuilder detailsSb = new StringBuilder();
-                    detailsSb.append("File: " + file.getParentPath() + file.getName() + "<br/>\n");
-                    detailsSb.append("Rule Set: " + filesSet.getName());
+                // make an ingest inbox message
+                StringBuilder detailsSb = new StringBuilder();
+                detailsSb.append("File: " + file.getParentPath() + file.getName() + "<br/>\n");
+                detailsSb.append("Rule Set: " + filesSet.getName());
 
-                    services.postMessage(IngestMessage.createDataMessage(InterestingItemsIngestModuleFactory.getModuleName(),
-                            "Interesting File Match: " + filesSet.getName() + "(" + file.getName() +")",
-                            detailsSb.toString(),
-                            file.getName(),
-                            artifact));
+                services.postMessage(IngestMessage.createDataMessage(InterestingItemsIngestModuleFactory.getModuleName(),
+                        "Interesting File Match: " + filesSet.getName() + "(" + file.getName() +")",
+                        detailsSb.toString(),
+                        file.getName(),
+                        artifact));
 
-                } catch (TskCoreException ex) {
-                    FilesIdentifierIngestModule.logger.log(Level.SEVERE, "Error posting to the blackboard", ex); //NOI18N NON-NLS
-                }
+            } catch (TskCoreException ex) {
+                FilesIdentifierIngestModule.logger.log(Level.SEVERE, "Error posting to the blackboard", ex); //NOI18N NON-NLS
             }
         }
         return ProcessResult.OK;
@@ -130,14 +130,7 @@ public Map<String, Rule> getRules() {
      *         will be null if the file does not belong to the set.
      */
     public String fileIsMemberOf(AbstractFile file) {
-        if ((this.ignoreKnownFiles) && (file.getKnown() == TskData.FileKnown.KNOWN)) {
-            return null;
-        }
-
-        if ((this.ignoreUnallocatedSpace)
-                && (file.getType().equals(TskData.TSK_DB_FILES_TYPE_ENUM.UNALLOC_BLOCKS)
-                || file.getType().equals(TskData.TSK_DB_FILES_TYPE_ENUM.SLACK)
-                || file.getType().equals(TskData.TSK_DB_FILES_TYPE_ENUM.UNUSED_BLOCKS))) {
+        if (excludes(file)) {
             return null;
         }
 
@@ -149,6 +142,36 @@ public String fileIsMemberOf(AbstractFile file) {
         return null;
     }
 
+    /**
+     * Determines whether a file is excluded from this interesting files set
+     * regardless of the set membership rules, because it is a known file or
+     * unallocated space that the set ignores.
+     *
+     * @param file A file to test.
+     *
+     * @return True if the file is excluded, false otherwise.
+     */
+    boolean excludes(AbstractFile file) {
+        if ((this.ignoreKnownFiles) && (file.getKnown() == TskData.FileKnown.KNOWN)) {
+            return true;
+        }
+
+        return (this.ignoreUnallocatedSpace)
+                && (file.getType().equals(TskData.TSK_DB_FILES_TYPE_ENUM.UNALLOC_BLOCKS)
+                || file.getType().equals(TskData.TSK_DB_FILES_TYPE_ENUM.SLACK)
+                || file.getType().equals(TskData.TSK_DB_FILES_TYPE_ENUM.UNUSED_BLOCKS));
+    }
+
+    /**
+     * Gets the set membership rules of this interesting files set in the
+     * order in which they are tested by fileIsMemberOf.
+     *
+     * @return A list of rules, possibly empty.
+     */
+    List<Rule> getRulesInTestOrder() {
+        return new ArrayList<>(this.rules.values());
+    }
+
     @Override
     public String toString() {
         // This override is designed to provide a display name for use with 
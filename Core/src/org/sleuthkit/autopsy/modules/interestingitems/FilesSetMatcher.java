@@ -0,0 +1,292 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.interestingitems;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.Immutable;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.ExtensionCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.FileNameCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.FullNameCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.ParentPathCondition;
+import org.sleuthkit.datamodel.AbstractFile;
+
+/**
+ * A list of interesting files sets compiled for testing many files against
+ * all of their rules in one pass per file. The rules are indexed by their
+ * exact file name and extension conditions, with hash lookups, and by their
+ * partial parent path conditions, with a trie that is walked from each
+ * position of the parent path of a file. Only the rules found through the
+ * indexes, plus the rules that have no indexable condition, have their
+ * remaining conditions tested, so the results are the same as testing every
+ * rule with FilesSet.Rule.isSatisfied.
+ */
+@Immutable
+public final class FilesSetMatcher {
+
+    private final List<FilesSet> filesSets;
+    private final Rule[] rules;
+    private final int[] setIndexes;
+    private final boolean[] fileNameConditionIndexed;
+    private final boolean[] pathConditionIndexed;
+    private final Map<String, int[]> rulesByFullName;
+    private final Map<String, int[]> rulesByExtension;
+    private final PathTrieNode pathTrie;
+    private final BitSet unindexedRules;
+
+    /**
+     * Compiles a list of interesting files sets for matching.
+     *
+     * @param filesSets The interesting files sets.
+     *
+     * @return The matcher.
+     */
+    public static FilesSetMatcher compile(List<FilesSet> filesSets) {
+        return new FilesSetMatcher(filesSets);
+    }
+
+    private FilesSetMatcher(List<FilesSet> filesSets) {
+        this.filesSets = new ArrayList<>(filesSets);
+        List<Rule> allRules = new ArrayList<>();
+        List<Integer> allSetIndexes = new ArrayList<>();
+        for (int i = 0; i < this.filesSets.size(); i++) {
+            for (Rule rule : this.filesSets.get(i).getRulesInTestOrder()) {
+                allRules.add(rule);
+                allSetIndexes.add(i);
+            }
+        }
+        rules = allRules.toArray(new Rule[allRules.size()]);
+        setIndexes = allSetIndexes.stream().mapToInt(Integer::intValue).toArray();
+        fileNameConditionIndexed = new boolean[rules.length];
+        pathConditionIndexed = new boolean[rules.length];
+        unindexedRules = new BitSet(rules.length);
+        pathTrie = new PathTrieNode();
+
+        Map<String, List<Integer>> fullNames = new HashMap<>();
+        Map<String, List<Integer>> extensions = new HashMap<>();
+        for (int i = 0; i < rules.length; i++) {
+            FileNameCondition fileNameCondition = rules[i].getFileNameCondition();
+            ParentPathCondition pathCondition = rules[i].getPathCondition();
+            if (fileNameCondition != null && !fileNameCondition.isRegex() && fileNameCondition instanceof FullNameCondition) {
+                addToIndex(fullNames, foldCase(fileNameCondition.getTextToMatch()), i);
+                fileNameConditionIndexed[i] = true;
+            } else if (fileNameCondition != null && !fileNameCondition.isRegex() && fileNameCondition instanceof ExtensionCondition) {
+                addToIndex(extensions, foldCase(fileNameCondition.getTextToMatch()), i);
+                fileNameConditionIndexed[i] = true;
+            } else if (pathCondition != null && !pathCondition.isRegex() && isAscii(pathCondition.getTextToMatch())) {
+                pathTrie.add(pathCondition.getTextToMatch(), i);
+                pathConditionIndexed[i] = true;
+            } else {
+                unindexedRules.set(i);
+            }
+        }
+        rulesByFullName = toArrays(fullNames);
+        rulesByExtension = toArrays(extensions);
+        pathTrie.seal();
+    }
+
+    /**
+     * Finds the rules of the interesting files sets that a file satisfies.
+     *
+     * @param file The file.
+     *
+     * @return A map of the interesting files sets the file is a member of, in
+     *         compilation order, to the rules the file satisfies, in the order
+     *         in which FilesSet.fileIsMemberOf tests them. The first rule for
+     *         each set is the one reported by FilesSet.fileIsMemberOf.
+     */
+    public Map<FilesSet, List<Rule>> findMatches(AbstractFile file) {
+        String name = file.getName();
+        String extension = file.getNameExtension();
+        String parentPath = file.getParentPath() + "/";
+
+        BitSet candidates = (BitSet) unindexedRules.clone();
+        addCandidates(candidates, rulesByFullName.get(foldCase(name)));
+        addCandidates(candidates, rulesByExtension.get(foldCase(extension)));
+        pathTrie.findAll(parentPath, candidates);
+
+        Map<FilesSet, List<Rule>> matches = new LinkedHashMap<>();
+        boolean[] setChecked = new boolean[filesSets.size()];
+        boolean[] setExcluded = new boolean[filesSets.size()];
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int setIndex = setIndexes[i];
+            if (!setChecked[setIndex]) {
+                setExcluded[setIndex] = filesSets.get(setIndex).excludes(file);
+                setChecked[setIndex] = true;
+            }
+            if (setExcluded[setIndex] || !isSatisfied(i, file, name, extension, parentPath)) {
+                continue;
+            }
+            List<Rule> setMatches = matches.get(filesSets.get(setIndex));
+            if (setMatches == null) {
+                setMatches = new ArrayList<>();
+                matches.put(filesSets.get(setIndex), setMatches);
+            }
+            setMatches.add(rules[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Tests the conditions of a rule that were not already satisfied by an
+     * index lookup, in the same order as FilesSet.Rule.isSatisfied, using text
+     * computed once per file.
+     */
+    private boolean isSatisfied(int ruleIndex, AbstractFile file, String name, String extension, String parentPath) {
+        Rule rule = rules[ruleIndex];
+        if (!rule.getMetaTypeCondition().passes(file)) {
+            return false;
+        }
+        if (rule.getFileSizeCondition() != null && !rule.getFileSizeCondition().passes(file)) {
+            return false;
+        }
+        FileNameCondition fileNameCondition = rule.getFileNameCondition();
+        if (fileNameCondition != null && !fileNameConditionIndexed[ruleIndex]) {
+            String subject = fileNameCondition instanceof ExtensionCondition ? extension : name;
+            if (!fileNameCondition.textMatches(subject)) {
+                return false;
+            }
+        }
+        if (rule.getMimeTypeCondition() != null && !rule.getMimeTypeCondition().passes(file)) {
+            return false;
+        }
+        ParentPathCondition pathCondition = rule.getPathCondition();
+        if (pathCondition != null && !pathConditionIndexed[ruleIndex] && !pathCondition.textMatches(parentPath)) {
+            return false;
+        }
+        return rule.getDateCondition() == null || rule.getDateCondition().passes(file);
+    }
+
+    private static void addCandidates(BitSet candidates, int[] ruleIndexes) {
+        if (ruleIndexes != null) {
+            for (int ruleIndex : ruleIndexes) {
+                candidates.set(ruleIndex);
+            }
+        }
+    }
+
+    private static void addToIndex(Map<String, List<Integer>> index, String key, int ruleIndex) {
+        List<Integer> ruleIndexes = index.get(key);
+        if (ruleIndexes == null) {
+            ruleIndexes = new ArrayList<>();
+            index.put(key, ruleIndexes);
+        }
+        ruleIndexes.add(ruleIndex);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> index) {
+        Map<String, int[]> arrays = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : index.entrySet()) {
+            arrays.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return arrays;
+    }
+
+    /**
+     * Folds the case of a string so that two strings fold to the same key if
+     * and only if String.equalsIgnoreCase considers them equal, which compares
+     * them char by char in both upper and lower case.
+     *
+     * @param text The string.
+     *
+     * @return The folded string.
+     */
+    private static String foldCase(String text) {
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Folds the case of a char the same way as a case-insensitive literal
+     * Pattern without the UNICODE_CASE flag, i.e., ASCII letters only.
+     */
+    private static char foldAsciiCase(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A node of a trie of the partial parent path conditions of the rules,
+     * with the ASCII case of the paths folded.
+     */
+    private static final class PathTrieNode {
+
+        private final Map<Character, PathTrieNode> children = new HashMap<>();
+        private final List<Integer> ruleIndexList = new ArrayList<>();
+        private int[] ruleIndexes;
+
+        private void add(String path, int ruleIndex) {
+            PathTrieNode node = this;
+            for (int i = 0; i < path.length(); i++) {
+                Character c = foldAsciiCase(path.charAt(i));
+                PathTrieNode child = node.children.get(c);
+                if (child == null) {
+                    child = new PathTrieNode();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.ruleIndexList.add(ruleIndex);
+        }
+
+        private void seal() {
+            ruleIndexes = ruleIndexList.stream().mapToInt(Integer::intValue).toArray();
+            for (PathTrieNode child : children.values()) {
+                child.seal();
+            }
+        }
+
+        /**
+         * Adds the rules for all of the paths in the trie that occur anywhere
+         * in a parent path to a set of candidate rules.
+         */
+        private void findAll(String parentPath, BitSet candidates) {
+            addCandidates(candidates, ruleIndexes);
+            if (children.isEmpty()) {
+                return;
+            }
+            for (int start = 0; start < parentPath.length(); start++) {
+                PathTrieNode node = this;
+                for (int i = start; i < parentPath.length(); i++) {
+                    node = node.children.get(foldAsciiCase(parentPath.charAt(i)));
+                    if (node == null) {
+                        break;
+                    }
+                    addCandidates(candidates, node.ruleIndexes);
+                }
+            }
+        }
+    }
+}
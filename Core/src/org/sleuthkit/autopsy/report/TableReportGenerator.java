@@ -18,9 +18,9 @@
  */
 package org.sleuthkit.autopsy.report;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimaps;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -53,6 +53,7 @@
 import org.sleuthkit.datamodel.Content;
 import org.sleuthkit.datamodel.ContentTag;
 import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.TagName;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
 
@@ -66,6 +67,9 @@ class TableReportGenerator {
     private final TableReportModule tableReport;
     private final Map<Integer, List<Column>> columnHeaderMap;
     private static final Logger logger = Logger.getLogger(TableReportGenerator.class.getName());
+    private static final int ARTIFACT_BATCH_SIZE = 1000;
+    private static final int MAX_SORTED_TABLE_ROWS = 10000;
+    private Map<Long, String> tagNameLabels = Collections.emptyMap();
 
     private final List<String> errorList;
 
@@ -129,6 +133,33 @@ private void makeBlackboardArtifactTables() {
             comment += makeCommaSeparatedList(tagNamesFilter);
         }
 
+        SleuthkitCase caseDb;
+        try {
+            caseDb = Case.getCurrentCaseThrows().getSleuthkitCase();
+            tagNameLabels = getTagNameLabels(caseDb);
+        } catch (TskCoreException | NoCurrentCaseException ex) {
+            errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
+            logger.log(Level.SEVERE, "Failed to get tag names when generating report.", ex); //NON-NLS
+            return;
+        }
+
+        /*
+         * The tag names filter is applied by the database, by restricting the
+         * artifacts to those that have a tag with one of the selected names.
+         */
+        String tagFilterClause = "";
+        if (!tagNamesFilter.isEmpty()) {
+            List<String> tagNameIds = new ArrayList<>();
+            for (Map.Entry<Long, String> entry : tagNameLabels.entrySet()) {
+                if (tagNamesFilter.contains(entry.getValue())) {
+                    tagNameIds.add(entry.getKey().toString());
+                }
+            }
+            tagFilterClause = tagNameIds.isEmpty()
+                    ? " AND 1 = 0" //NON-NLS
+                    : " AND blackboard_artifacts.artifact_id IN (SELECT artifact_id FROM blackboard_artifact_tags WHERE tag_name_id IN (" + String.join(",", tagNameIds) + "))"; //NON-NLS
+        }
+
         // Add a table to the report for every enabled blackboard artifact type.
         for (BlackboardArtifact.Type type : artifactTypes) {
             // Check for cancellaton.
@@ -150,11 +181,9 @@ private void makeBlackboardArtifactTables() {
                 continue;
             }
 
-            List<ArtifactData> artifactList = getFilteredArtifacts(type, tagNamesFilter);
-
-            if (artifactList.isEmpty()) {
-                continue;
-            }
+            String artifactsClause = "blackboard_artifacts.artifact_type_id = " + type.getTypeID() //NON-NLS
+                    + " AND blackboard_artifacts.review_status_id != " + BlackboardArtifact.ReviewStatus.REJECTED.getID() //NON-NLS
+                    + tagFilterClause;
 
             /*
              * TSK_ACCOUNT artifacts get grouped by their TSK_ACCOUNT_TYPE
@@ -162,17 +191,15 @@ private void makeBlackboardArtifactTables() {
              * tables.
              */
             if (type.getTypeID() == BlackboardArtifact.ARTIFACT_TYPE.TSK_ACCOUNT.getTypeID()) {
-                //Group account artifacts by their account type
-                ListMultimap<String, ArtifactData> groupedArtifacts = Multimaps.index(artifactList,
-                        artifactData -> {
-                            try {
-                                return artifactData.getArtifact().getAttribute(new BlackboardAttribute.Type(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_ACCOUNT_TYPE)).getValueString();
-                            } catch (TskCoreException ex) {
-                                logger.log(Level.SEVERE, "Unable to get value of TSK_ACCOUNT_TYPE attribute. Defaulting to \"unknown\"", ex);
-                                return "unknown";
-                            }
-                        });
-                for (String accountTypeStr : groupedArtifacts.keySet()) {
+                List<String> accountTypes;
+                try {
+                    accountTypes = getAccountTypes(caseDb, artifactsClause);
+                } catch (TskCoreException ex) {
+                    errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
+                    logger.log(Level.SEVERE, "Failed to get account types when generating report.", ex); //NON-NLS
+                    continue;
+                }
+                for (String accountTypeStr : accountTypes) {
                     /*
                      * If the report is a ReportHTML, the data type name
                      * eventualy makes it to useDataTypeIcon which expects but
@@ -180,48 +207,59 @@ private void makeBlackboardArtifactTables() {
                      * compund name by appending a ":" and the account type.
                      */
                     String accountDisplayname = accountTypeStr;
-                    if (accountTypeStr != null) {
-                        try {
-                            Account.Type acctType = Case.getCurrentCaseThrows().getSleuthkitCase().getCommunicationsManager().getAccountType(accountTypeStr);
-                            if (acctType != null) {
-                                accountDisplayname = acctType.getDisplayName();
-                            }
-                        } catch (TskCoreException | NoCurrentCaseException ex) {
-                            logger.log(Level.SEVERE, "Unable to get display name for account type " + accountTypeStr, ex);
+                    try {
+                        Account.Type acctType = caseDb.getCommunicationsManager().getAccountType(accountTypeStr);
+                        if (acctType != null) {
+                            accountDisplayname = acctType.getDisplayName();
                         }
+                    } catch (TskCoreException ex) {
+                        logger.log(Level.SEVERE, "Unable to get display name for account type " + accountTypeStr, ex);
                     }
 
                     final String compundDataTypeName = BlackboardArtifact.ARTIFACT_TYPE.TSK_ACCOUNT.getDisplayName() + ": " + accountDisplayname;
-                    writeTableForDataType(new ArrayList<>(groupedArtifacts.get(accountTypeStr)), type, compundDataTypeName, comment);
+                    String accountClause = artifactsClause
+                            + " AND blackboard_artifacts.artifact_id IN (SELECT artifact_id FROM blackboard_attributes WHERE attribute_type_id = " //NON-NLS
+                            + BlackboardAttribute.ATTRIBUTE_TYPE.TSK_ACCOUNT_TYPE.getTypeID()
+                            + " AND value_text = '" + accountTypeStr.replace("'", "''") + "')"; //NON-NLS
+                    writeTableForDataType(caseDb, accountClause, type, compundDataTypeName, comment);
                 }
             } else {
                 //all other artifact types are sent to writeTableForDataType directly
-                writeTableForDataType(artifactList, type, type.getDisplayName(), comment);
+                writeTableForDataType(caseDb, artifactsClause, type, type.getDisplayName(), comment);
             }
         }
     }
 
     /**
      *
-     * Write the given list of artifacts to the table for the given type.
+     * Write the artifacts selected by the given where clause to the table for
+     * the given type. The artifacts are read in batches of
+     * ARTIFACT_BATCH_SIZE. Tables of up to MAX_SORTED_TABLE_ROWS rows are
+     * sorted by their row data, larger tables are written in artifact id order
+     * as the batches are read so that the memory used does not depend on the
+     * number of artifacts.
      *
-     * @param artifactList The List of artifacts to include in the table.
-     * @param type         The Type of artifacts included in the table. All the
-     *                     artifacts in artifactList should be of this type.
-     * @param tableName    The name of the table.
-     * @param comment      A comment to put in the header.
+     * @param caseDb          The case database.
+     * @param artifactsClause A where clause on the blackboard_artifacts table
+     *                        that selects the artifacts to include in the
+     *                        table. All the selected artifacts should be of
+     *                        the given type.
+     * @param type            The Type of artifacts included in the table.
+     * @param tableName       The name of the table.
+     * @param comment         A comment to put in the header.
      */
-    private void writeTableForDataType(List<ArtifactData> artifactList, BlackboardArtifact.Type type, String tableName, String comment) {
+    private void writeTableForDataType(SleuthkitCase caseDb, String artifactsClause, BlackboardArtifact.Type type, String tableName, String comment) {
         /*
          * Make a sorted set of all of the attribute types that are on any of
-         * the given artifacts.
+         * the selected artifacts.
          */
         Set<BlackboardAttribute.Type> attrTypeSet = new TreeSet<>(Comparator.comparing(BlackboardAttribute.Type::getDisplayName));
-        for (ArtifactData data : artifactList) {
-            List<BlackboardAttribute> attributes = data.getAttributes();
-            for (BlackboardAttribute attribute : attributes) {
-                attrTypeSet.add(attribute.getAttributeType());
-            }
+        try {
+            attrTypeSet.addAll(getAttributeTypes(caseDb, artifactsClause));
+        } catch (TskCoreException ex) {
+            errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBAttribs"));
+            logger.log(Level.SEVERE, "Failed to get Blackboard Attribute types when generating report.", ex); //NON-NLS
+            return;
         }
         /*
          * Get the columns appropriate for the artifact type. This is used to
@@ -234,29 +272,80 @@ private void writeTableForDataType(List<ArtifactData> artifactList, BlackboardAr
         }
         columnHeaderMap.put(type.getTypeID(), columns);
 
-        /*
-         * The artifact list is sorted now, as getting the row data is dependent
-         * on having the columns, which is necessary for sorting.
-         */
-        Collections.sort(artifactList);
+        boolean loadContentTags = type.getTypeID() == BlackboardArtifact.ARTIFACT_TYPE.TSK_INTERESTING_FILE_HIT.getTypeID();
+        List<ArtifactData> sortedArtifacts = new ArrayList<>();
+        boolean streaming = false;
+        Long lastArtifactId = null;
+        while (progressPanel.getStatus() != ReportProgressPanel.ReportStatus.CANCELED) {
+            List<ArtifactData> batch;
+            try {
+                batch = getArtifactBatch(caseDb, artifactsClause, lastArtifactId, loadContentTags);
+            } catch (TskCoreException ex) {
+                errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
+                logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex); //NON-NLS
+                break;
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastArtifactId = batch.get(batch.size() - 1).getArtifactID();
 
-        tableReport.startDataType(tableName, comment);
-        tableReport.startTable(Lists.transform(columns, Column::getColumnHeader));
+            if (streaming) {
+                addRows(batch);
+            } else {
+                sortedArtifacts.addAll(batch);
+                if (sortedArtifacts.size() > MAX_SORTED_TABLE_ROWS) {
+                    /*
+                     * Too many artifacts to sort in memory, write the rows
+                     * read so far and the rest as they are read.
+                     */
+                    tableReport.startDataType(tableName, comment);
+                    tableReport.startTable(Lists.transform(columns, Column::getColumnHeader));
+                    addRows(sortedArtifacts);
+                    sortedArtifacts.clear();
+                    streaming = true;
+                }
+            }
+            if (batch.size() < ARTIFACT_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        if (!streaming) {
+            if (sortedArtifacts.isEmpty() || progressPanel.getStatus() == ReportProgressPanel.ReportStatus.CANCELED) {
+                return;
+            }
+            /*
+             * The artifact list is sorted now, as getting the row data is
+             * dependent on having the columns, which is necessary for sorting.
+             */
+            Collections.sort(sortedArtifacts);
+            tableReport.startDataType(tableName, comment);
+            tableReport.startTable(Lists.transform(columns, Column::getColumnHeader));
+            addRows(sortedArtifacts);
+        }
+        // Finish up this data type
+        progressPanel.increment();
+        tableReport.endTable();
+        tableReport.endDataType();
+    }
 
+    /**
+     * Add a row to the table for each of the given artifacts.
+     *
+     * @param artifactList The artifacts to add rows for.
+     */
+    private void addRows(List<ArtifactData> artifactList) {
         for (ArtifactData artifactData : artifactList) {
             // Get the row data for this artifact, and has the
             // module add it.
             List<String> rowData = artifactData.getRow();
             if (rowData.isEmpty()) {
-                return;
+                continue;
             }
 
             tableReport.addRow(rowData);
         }
-        // Finish up this data type
-        progressPanel.increment();
-        tableReport.endTable();
-        tableReport.endDataType();
     }
 
     /**
@@ -612,6 +701,15 @@ private void writeKeywordHits(TableReportModule tableModule, String comment, Has
                 + //NON-NLS
                 orderByClause; //NON-NLS
 
+        Map<Long, HashSet<String>> artifactTagNames;
+        try {
+            artifactTagNames = getArtifactTagNames(openCase.getSleuthkitCase(), BlackboardArtifact.ARTIFACT_TYPE.TSK_KEYWORD_HIT.getTypeID());
+        } catch (TskCoreException ex) {
+            errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedQueryKWs"));
+            logger.log(Level.SEVERE, "Failed to query keyword hit tags: ", ex); //NON-NLS
+            return;
+        }
+
         try (SleuthkitCase.CaseDbQuery dbQuery = openCase.getSleuthkitCase().executeQuery(keywordsQuery)) {
             ResultSet resultSet = dbQuery.getResultSet();
 
@@ -624,7 +722,7 @@ private void writeKeywordHits(TableReportModule tableModule, String comment, Has
                 }
 
                 // Get any tags that associated with this artifact and apply the tag filter.
-                HashSet<String> uniqueTagNames = getUniqueTagNames(resultSet.getLong("artifact_id")); //NON-NLS
+                HashSet<String> uniqueTagNames = artifactTagNames.getOrDefault(resultSet.getLong("artifact_id"), new HashSet<>()); //NON-NLS
                 if (failsTagFilter(uniqueTagNames, tagNamesFilter)) {
                     continue;
                 }
@@ -639,7 +737,7 @@ private void writeKeywordHits(TableReportModule tableModule, String comment, Has
                 try {
                     AbstractFile f = openCase.getSleuthkitCase().getAbstractFileById(objId);
                     if (f != null) {
-                        uniquePath = openCase.getSleuthkitCase().getAbstractFileById(objId).getUniquePath();
+                        uniquePath = f.getUniquePath();
                     }
                 } catch (TskCoreException ex) {
                     errorList.add(
@@ -763,6 +861,15 @@ private void writeHashsetHits(TableReportModule tableModule, String comment, Has
                 + //NON-NLS
                 orderByClause; //NON-NLS
 
+        Map<Long, HashSet<String>> artifactTagNames;
+        try {
+            artifactTagNames = getArtifactTagNames(openCase.getSleuthkitCase(), BlackboardArtifact.ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID());
+        } catch (TskCoreException ex) {
+            errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedQueryHashsetHits"));
+            logger.log(Level.SEVERE, "Failed to query hashset hit tags: ", ex); //NON-NLS
+            return;
+        }
+
         try (SleuthkitCase.CaseDbQuery dbQuery = openCase.getSleuthkitCase().executeQuery(hashsetHitsQuery)) {
             // Query for hashset hits
             ResultSet resultSet = dbQuery.getResultSet();
@@ -774,7 +881,7 @@ private void writeHashsetHits(TableReportModule tableModule, String comment, Has
                 }
 
                 // Get any tags that associated with this artifact and apply the tag filter.
-                HashSet<String> uniqueTagNames = getUniqueTagNames(resultSet.getLong("artifact_id")); //NON-NLS
+                HashSet<String> uniqueTagNames = artifactTagNames.getOrDefault(resultSet.getLong("artifact_id"), new HashSet<>()); //NON-NLS
                 if (failsTagFilter(uniqueTagNames, tagNamesFilter)) {
                     continue;
                 }
@@ -788,7 +895,7 @@ private void writeHashsetHits(TableReportModule tableModule, String comment, Has
                 try {
                     AbstractFile f = openCase.getSleuthkitCase().getAbstractFileById(objId);
                     if (f != null) {
-                        uniquePath = openCase.getSleuthkitCase().getAbstractFileById(objId).getUniquePath();
+                        uniquePath = f.getUniquePath();
                     }
                 } catch (TskCoreException ex) {
                     errorList.add(
@@ -844,18 +951,16 @@ private class ArtifactData implements Comparable<ArtifactData> {
         private BlackboardArtifact artifact;
         private List<BlackboardAttribute> attributes;
         private HashSet<String> tags;
+        private HashSet<String> contentTags;
         private List<String> rowData = null;
         private Content content;
 
-        ArtifactData(BlackboardArtifact artifact, List<BlackboardAttribute> attrs, HashSet<String> tags) {
+        ArtifactData(BlackboardArtifact artifact, List<BlackboardAttribute> attrs, HashSet<String> tags, Content content, HashSet<String> contentTags) {
             this.artifact = artifact;
             this.attributes = attrs;
             this.tags = tags;
-            try {
-                this.content = Case.getCurrentCaseThrows().getSleuthkitCase().getContentById(artifact.getObjectID());
-            } catch (TskCoreException | NoCurrentCaseException ex) {
-                logger.log(Level.SEVERE, "Could not get content from database", ex);
-            }
+            this.content = content;
+            this.contentTags = contentTags;
         }
 
         public BlackboardArtifact getArtifact() {
@@ -985,20 +1090,11 @@ private List<String> getOrderedRowDataAsStrings() throws TskCoreException {
                     }
                 }
 
-                attributeDataArray[2] = content.getUniquePath();
+                attributeDataArray[2] = getFileUniquePath(content);
                 orderedRowData.addAll(Arrays.asList(attributeDataArray));
 
-                HashSet<String> allTags = getTags();
-                try {
-                    List<ContentTag> contentTags = Case.getCurrentCaseThrows().getServices().getTagsManager().getContentTagsByContent(content);
-                    for (ContentTag ct : contentTags) {
-                        String notableString = ct.getName().getKnownStatus() == TskData.FileKnown.BAD ? TagsManager.getNotableTagLabel() : "";
-                        allTags.add(ct.getName().getDisplayName() + notableString);
-                    }
-                } catch (TskCoreException | NoCurrentCaseException ex) {
-                    errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetContentTags"));
-                    logger.log(Level.SEVERE, "Failed to get content tags", ex); //NON-NLS
-                }
+                HashSet<String> allTags = new HashSet<>(getTags());
+                allTags.addAll(contentTags);
                 orderedRowData.add(makeCommaSeparatedList(allTags));
 
             } else if (columnHeaderMap.containsKey(this.artifact.getArtifactTypeID())) {
@@ -1015,39 +1111,140 @@ private List<String> getOrderedRowDataAsStrings() throws TskCoreException {
     }
 
     /**
-     * Get a List of the artifacts and data of the given type that pass the
-     * given Tag Filter.
+     * Get the next batch of the artifacts selected by the given where clause,
+     * in artifact id order, together with their attributes, tags and source
+     * content.
+     *
+     * @param caseDb          The case database.
+     * @param artifactsClause A where clause on the blackboard_artifacts table.
+     * @param afterArtifactId The id of the last artifact of the previous
+     *                        batch, or null for the first batch.
+     * @param loadContentTags Whether to get the tags of the source content of
+     *                        the artifacts.
      *
-     * @param type           The artifact type to get
-     * @param tagNamesFilter The tag names that should be included.
+     * @return The batch, at most ARTIFACT_BATCH_SIZE artifacts. An empty list
+     *         when there are no more artifacts.
      *
-     * @return a list of the filtered tags.
+     * @throws TskCoreException
      */
-    private List<ArtifactData> getFilteredArtifacts(BlackboardArtifact.Type type, HashSet<String> tagNamesFilter) {
-        List<ArtifactData> artifacts = new ArrayList<>();
-        try {
-            for (BlackboardArtifact artifact : Case.getCurrentCaseThrows().getSleuthkitCase().getBlackboardArtifacts(type.getTypeID())) {
-                List<BlackboardArtifactTag> tags = Case.getCurrentCaseThrows().getServices().getTagsManager().getBlackboardArtifactTagsByArtifact(artifact);
-                HashSet<String> uniqueTagNames = new HashSet<>();
-                for (BlackboardArtifactTag tag : tags) {
-                    String notableString = tag.getName().getKnownStatus() == TskData.FileKnown.BAD ? TagsManager.getNotableTagLabel() : "";
-                    uniqueTagNames.add(tag.getName().getDisplayName() + notableString);
-                }
-                if (failsTagFilter(uniqueTagNames, tagNamesFilter)) {
-                    continue;
-                }
+    private List<ArtifactData> getArtifactBatch(SleuthkitCase caseDb, String artifactsClause, Long afterArtifactId, boolean loadContentTags) throws TskCoreException {
+        String whereClause = "WHERE " + artifactsClause //NON-NLS
+                + (afterArtifactId == null ? "" : " AND blackboard_artifacts.artifact_id > " + afterArtifactId) //NON-NLS
+                + " ORDER BY blackboard_artifacts.artifact_id LIMIT " + ARTIFACT_BATCH_SIZE; //NON-NLS
+        List<BlackboardArtifact> artifacts = caseDb.getMatchingArtifacts(whereClause);
+        if (artifacts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> artifactIds = new HashSet<>();
+        Set<Long> objIds = new HashSet<>();
+        for (BlackboardArtifact artifact : artifacts) {
+            artifactIds.add(artifact.getArtifactID());
+            objIds.add(artifact.getObjectID());
+        }
+        String artifactIdList = makeIdList(artifactIds);
+        String objIdList = makeIdList(objIds);
+
+        ListMultimap<Long, BlackboardAttribute> attributes = ArrayListMultimap.create();
+        for (BlackboardAttribute attribute : caseDb.getMatchingAttributes("WHERE artifact_id IN (" + artifactIdList + ")")) { //NON-NLS
+            attributes.put(attribute.getArtifactID(), attribute);
+        }
+        Map<Long, HashSet<String>> artifactTags = getTagNames(caseDb,
+                "SELECT artifact_id AS id, tag_name_id FROM blackboard_artifact_tags WHERE artifact_id IN (" + artifactIdList + ")"); //NON-NLS
+        Map<Long, HashSet<String>> contentTags = loadContentTags
+                ? getTagNames(caseDb, "SELECT obj_id AS id, tag_name_id FROM content_tags WHERE obj_id IN (" + objIdList + ")") //NON-NLS
+                : Collections.emptyMap();
+
+        /*
+         * Most artifacts are on files, which are read with one query. Any
+         * other content is read individually.
+         */
+        Map<Long, Content> contents = new HashMap<>();
+        for (AbstractFile file : caseDb.findAllFilesWhere("obj_id IN (" + objIdList + ")")) { //NON-NLS
+            contents.put(file.getId(), file);
+        }
+        for (Long objId : objIds) {
+            if (!contents.containsKey(objId)) {
                 try {
-                    artifacts.add(new ArtifactData(artifact, Case.getCurrentCaseThrows().getSleuthkitCase().getBlackboardAttributes(artifact), uniqueTagNames));
+                    contents.put(objId, caseDb.getContentById(objId));
                 } catch (TskCoreException ex) {
-                    errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBAttribs"));
-                    logger.log(Level.SEVERE, "Failed to get Blackboard Attributes when generating report.", ex); //NON-NLS
+                    logger.log(Level.SEVERE, "Could not get content from database", ex); //NON-NLS
                 }
             }
-        } catch (TskCoreException | NoCurrentCaseException ex) {
-            errorList.add(NbBundle.getMessage(this.getClass(), "ReportGenerator.errList.failedGetBBArtifacts"));
-            logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex); //NON-NLS
         }
-        return artifacts;
+
+        List<ArtifactData> batch = new ArrayList<>(artifacts.size());
+        for (BlackboardArtifact artifact : artifacts) {
+            batch.add(new ArtifactData(artifact,
+                    attributes.get(artifact.getArtifactID()),
+                    artifactTags.getOrDefault(artifact.getArtifactID(), new HashSet<>()),
+                    contents.get(artifact.getObjectID()),
+                    contentTags.getOrDefault(artifact.getObjectID(), new HashSet<>())));
+        }
+        return batch;
+    }
+
+    /**
+     * Get the types of the attributes of the artifacts selected by the given
+     * where clause.
+     *
+     * @param caseDb          The case database.
+     * @param artifactsClause A where clause on the blackboard_artifacts table.
+     *
+     * @return The attribute types.
+     *
+     * @throws TskCoreException
+     */
+    private List<BlackboardAttribute.Type> getAttributeTypes(SleuthkitCase caseDb, String artifactsClause) throws TskCoreException {
+        String query = "SELECT DISTINCT types.type_name AS type_name FROM blackboard_attribute_types AS types, blackboard_attributes AS attrs " //NON-NLS
+                + "WHERE types.attribute_type_id = attrs.attribute_type_id " //NON-NLS
+                + "AND attrs.artifact_id IN (SELECT blackboard_artifacts.artifact_id FROM blackboard_artifacts WHERE " + artifactsClause + ")"; //NON-NLS
+        List<String> typeNames = new ArrayList<>();
+        try (SleuthkitCase.CaseDbQuery dbQuery = caseDb.executeQuery(query)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                typeNames.add(resultSet.getString("type_name")); //NON-NLS
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error getting attribute types", ex); //NON-NLS
+        }
+
+        List<BlackboardAttribute.Type> types = new ArrayList<>();
+        for (String typeName : typeNames) {
+            BlackboardAttribute.Type type = caseDb.getAttributeType(typeName);
+            if (type != null) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Get the account types of the TSK_ACCOUNT artifacts selected by the given
+     * where clause, in the order the account types were first seen.
+     *
+     * @param caseDb          The case database.
+     * @param artifactsClause A where clause on the blackboard_artifacts table.
+     *
+     * @return The account type names.
+     *
+     * @throws TskCoreException
+     */
+    private List<String> getAccountTypes(SleuthkitCase caseDb, String artifactsClause) throws TskCoreException {
+        String query = "SELECT value_text AS account_type, MIN(artifact_id) AS first_artifact_id FROM blackboard_attributes " //NON-NLS
+                + "WHERE attribute_type_id = " + BlackboardAttribute.ATTRIBUTE_TYPE.TSK_ACCOUNT_TYPE.getTypeID() //NON-NLS
+                + " AND artifact_id IN (SELECT blackboard_artifacts.artifact_id FROM blackboard_artifacts WHERE " + artifactsClause + ")" //NON-NLS
+                + " GROUP BY value_text ORDER BY first_artifact_id"; //NON-NLS
+        List<String> accountTypes = new ArrayList<>();
+        try (SleuthkitCase.CaseDbQuery dbQuery = caseDb.executeQuery(query)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                accountTypes.add(resultSet.getString("account_type")); //NON-NLS
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error getting account types", ex); //NON-NLS
+        }
+        return accountTypes;
     }
 
     private Boolean failsTagFilter(HashSet<String> tagNames, HashSet<String> tagsNamesFilter) {
@@ -1611,33 +1808,84 @@ private String getFileUniquePath(Content content) {
     }
 
     /**
-     * Get any tags associated with an artifact
+     * Get the report labels of all the tag names in the case, the display name
+     * followed by the notable label for notable tag names.
      *
-     * @param artifactId
+     * @param caseDb The case database.
      *
-     * @return hash set of tag display names
+     * @return A map of tag name ids to labels.
      *
-     * @throws SQLException
+     * @throws TskCoreException
      */
-    @SuppressWarnings("deprecation")
-    private HashSet<String> getUniqueTagNames(long artifactId) throws TskCoreException {
-        HashSet<String> uniqueTagNames = new HashSet<>();
+    private Map<Long, String> getTagNameLabels(SleuthkitCase caseDb) throws TskCoreException {
+        Map<Long, String> labels = new HashMap<>();
+        for (TagName tagName : caseDb.getAllTagNames()) {
+            String notableString = tagName.getKnownStatus() == TskData.FileKnown.BAD ? TagsManager.getNotableTagLabel() : "";
+            labels.put(tagName.getId(), tagName.getDisplayName() + notableString);
+        }
+        return labels;
+    }
 
-        String query = "SELECT display_name, artifact_id FROM tag_names AS tn, blackboard_artifact_tags AS bat "
-                + //NON-NLS 
-                "WHERE tn.tag_name_id = bat.tag_name_id AND bat.artifact_id = " + artifactId; //NON-NLS
+    /**
+     * Get the tags of all the artifacts of a type. There are normally far
+     * fewer tags than artifacts, so the tags are read with one query.
+     *
+     * @param caseDb         The case database.
+     * @param artifactTypeId The artifact type id.
+     *
+     * @return A map of artifact ids to the labels of their tags.
+     *
+     * @throws TskCoreException
+     */
+    private Map<Long, HashSet<String>> getArtifactTagNames(SleuthkitCase caseDb, int artifactTypeId) throws TskCoreException {
+        return getTagNames(caseDb, "SELECT bat.artifact_id AS id, bat.tag_name_id AS tag_name_id " //NON-NLS
+                + "FROM blackboard_artifact_tags AS bat, blackboard_artifacts AS art " //NON-NLS
+                + "WHERE bat.artifact_id = art.artifact_id AND art.artifact_type_id = " + artifactTypeId); //NON-NLS
+    }
 
-        try (SleuthkitCase.CaseDbQuery dbQuery = Case.getCurrentCaseThrows().getSleuthkitCase().executeQuery(query)) {
-            ResultSet tagNameRows = dbQuery.getResultSet();
-            while (tagNameRows.next()) {
-                uniqueTagNames.add(tagNameRows.getString("display_name")); //NON-NLS
+    /**
+     * Run a query for tags and group the labels of the tag names by id.
+     *
+     * @param caseDb The case database.
+     * @param query  A query with an id column, the tagged artifact or content,
+     *               and a tag_name_id column.
+     *
+     * @return A map of ids to the labels of their tags.
+     *
+     * @throws TskCoreException
+     */
+    private Map<Long, HashSet<String>> getTagNames(SleuthkitCase caseDb, String query) throws TskCoreException {
+        Map<Long, HashSet<String>> tagNames = new HashMap<>();
+        try (SleuthkitCase.CaseDbQuery dbQuery = caseDb.executeQuery(query)) {
+            ResultSet resultSet = dbQuery.getResultSet();
+            while (resultSet.next()) {
+                String label = tagNameLabels.get(resultSet.getLong("tag_name_id")); //NON-NLS
+                if (label != null) {
+                    tagNames.computeIfAbsent(resultSet.getLong("id"), id -> new HashSet<>()).add(label); //NON-NLS
+                }
             }
-        } catch (TskCoreException | SQLException | NoCurrentCaseException ex) {
-            throw new TskCoreException("Error getting tag names for artifact: ", ex);
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error getting tag names", ex); //NON-NLS
         }
+        return tagNames;
+    }
 
-        return uniqueTagNames;
-
+    /**
+     * Make a comma-separated list of ids for an SQL IN clause.
+     *
+     * @param ids The ids.
+     *
+     * @return The list.
+     */
+    private static String makeIdList(Collection<Long> ids) {
+        StringBuilder list = new StringBuilder();
+        for (Long id : ids) {
+            if (list.length() > 0) {
+                list.append(',');
+            }
+            list.append(id);
+        }
+        return list.toString();
     }
 
     private interface Column {
@@ -0,0 +1,162 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.interestingitems;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import junit.framework.Test;
+import org.netbeans.junit.NbModuleSuite;
+import org.netbeans.junit.NbTestCase;
+import org.openide.util.Exceptions;
+import org.python.icu.impl.Assert;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.casemodule.ImageDSProcessor;
+import org.sleuthkit.autopsy.casemodule.NoCurrentCaseException;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.ExtensionCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.FileSizeCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.FullNameCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.MetaTypeCondition;
+import org.sleuthkit.autopsy.modules.interestingitems.FilesSet.Rule.ParentPathCondition;
+import org.sleuthkit.autopsy.testutils.CaseUtils;
+import org.sleuthkit.autopsy.testutils.IngestUtils;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Tests that the compiled interesting files set matcher finds the same rules
+ * as FilesSet.fileIsMemberOf for every file in an image, and prints the per
+ * file cost of each.
+ */
+public class FilesSetMatcherTest extends NbTestCase {
+
+    private static final String CASE_NAME = "testFilesSetMatcher";
+    private static final Path CASE_DIRECTORY_PATH = Paths.get(System.getProperty("java.io.tmpdir"), CASE_NAME);
+    private static final int SYNTHETIC_RULES_PER_SET = 100;
+    private static final int BENCHMARK_ITERATIONS = 200;
+    private final Path IMAGE_PATH = Paths.get(this.getDataDir().toString(), "filter_test1.img");
+
+    public static Test suite() {
+        NbModuleSuite.Configuration conf = NbModuleSuite.createConfiguration(FilesSetMatcherTest.class).
+                clusters(".*").
+                enableModules(".*");
+        return conf.suite();
+    }
+
+    public FilesSetMatcherTest(String name) {
+        super(name);
+    }
+
+    @Override
+    public void tearDown() {
+        CaseUtils.closeCase();
+    }
+
+    public void testMatchesFileIsMemberOf() {
+        try {
+            CaseUtils.createCase(CASE_DIRECTORY_PATH, CASE_NAME);
+            IngestUtils.addDataSource(new ImageDSProcessor(), IMAGE_PATH);
+            Case openCase = Case.getCurrentCaseThrows();
+            List<AbstractFile> files = openCase.getServices().getFileManager().findFiles("%%");
+
+            List<FilesSet> filesSets = createFilesSets();
+            FilesSetMatcher matcher = FilesSetMatcher.compile(filesSets);
+            for (AbstractFile file : files) {
+                Map<FilesSet, List<Rule>> matches = matcher.findMatches(file);
+                for (FilesSet filesSet : filesSets) {
+                    String expected = filesSet.fileIsMemberOf(file);
+                    List<Rule> setMatches = matches.get(filesSet);
+                    String actual = setMatches == null ? null : setMatches.get(0).getName();
+                    String errMsg = String.format("Set %s has unexpected rule for file %s (objId=%d).", filesSet.getName(), file.getName(), file.getId());
+                    assertEquals(errMsg, expected, actual);
+                    if (setMatches != null) {
+                        for (Rule rule : setMatches) {
+                            assertTrue(errMsg, rule.isSatisfied(file));
+                        }
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                for (AbstractFile file : files) {
+                    for (FilesSet filesSet : filesSets) {
+                        filesSet.fileIsMemberOf(file);
+                    }
+                }
+            }
+            long ruleByRuleNanos = (System.nanoTime() - start) / ((long) BENCHMARK_ITERATIONS * files.size());
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                for (AbstractFile file : files) {
+                    matcher.findMatches(file);
+                }
+            }
+            long compiledNanos = (System.nanoTime() - start) / ((long) BENCHMARK_ITERATIONS * files.size());
+            System.out.println(String.format("Per file cost for %d rules: %d ns rule by rule, %d ns compiled", //NON-NLS
+                    filesSets.size() * (SYNTHETIC_RULES_PER_SET + 4), ruleByRuleNanos, compiledNanos));
+
+        } catch (NoCurrentCaseException | TskCoreException ex) {
+            Exceptions.printStackTrace(ex);
+            Assert.fail(ex);
+        }
+    }
+
+    /**
+     * Creates sets of rules that mix every kind of condition, padded with
+     * rules that do not match the test image, as in a large rules library.
+     */
+    private static List<FilesSet> createFilesSets() {
+        List<FilesSet> filesSets = new ArrayList<>();
+        for (int set = 0; set < 4; set++) {
+            Map<String, Rule> rules = new HashMap<>();
+            MetaTypeCondition files = new MetaTypeCondition(MetaTypeCondition.Type.FILES);
+            MetaTypeCondition all = new MetaTypeCondition(MetaTypeCondition.Type.ALL);
+            rules.put("jpg", new Rule("jpg", new ExtensionCondition(".JPG"), files, null, null, null, null));
+            rules.put("dir1", new Rule("dir1", null, all, new ParentPathCondition("DIR1"), null, null, null));
+            rules.put("file", new Rule("file", new FullNameCondition(Pattern.compile("^file\\.")), files, new ParentPathCondition(Pattern.compile("dir[0-9]")), null, null, null));
+            rules.put("small", new Rule("small", new FullNameCondition("file.jpg"), files, new ParentPathCondition("/"), null,
+                    new FileSizeCondition(FileSizeCondition.COMPARATOR.LESS_THAN, FileSizeCondition.SIZE_UNIT.MEGABYTE, 1), null));
+            for (int i = 0; i < SYNTHETIC_RULES_PER_SET; i++) {
+                String ruleName = "synthetic" + i;
+                switch (i % 4) {
+                    case 0:
+                        rules.put(ruleName, new Rule(ruleName, new ExtensionCondition("ext" + i), files, null, null, null, null));
+                        break;
+                    case 1:
+                        rules.put(ruleName, new Rule(ruleName, new FullNameCondition("name" + i + ".txt"), files, null, null, null, null));
+                        break;
+                    case 2:
+                        rules.put(ruleName, new Rule(ruleName, null, files, new ParentPathCondition("/Users/user" + i + "/"), null, null, null));
+                        break;
+                    default:
+                        rules.put(ruleName, new Rule(ruleName, new FullNameCondition(Pattern.compile("secret" + i + "\\.(doc|xls)$")), files, null, null, null, null));
+                        break;
+                }
+            }
+            filesSets.add(new FilesSet("Set" + set, null, set % 2 == 0, set > 1, rules));
+        }
+        return filesSets;
+    }
+}
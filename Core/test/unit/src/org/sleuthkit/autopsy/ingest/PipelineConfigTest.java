@@ -0,0 +1,79 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.ingest;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class PipelineConfigTest {
+
+    private static final String STAGE_TWO_DATA_SOURCE_INGEST_PIPELINE_ELEM = "ImageAnalysisStageTwo"; //NON-NLS
+
+    public PipelineConfigTest() {
+    }
+
+    /**
+     * The default second stage data source pipeline has consecutive
+     * concurrent data source ingest modules, which DataSourceIngestPipeline
+     * runs as a concurrent group.
+     */
+    @Test
+    public void testDefaultStageTwoPipelineHasConcurrentGroup() throws Exception {
+        System.out.println("defaultStageTwoPipelineHasConcurrentGroup");
+        int longestConcurrentRun = 0;
+        int concurrentRun = 0;
+        for (String factoryClassName : getDefaultPipelineConfig(STAGE_TWO_DATA_SOURCE_INGEST_PIPELINE_ELEM)) {
+            IngestModuleFactory factory = (IngestModuleFactory) Class.forName(factoryClassName).newInstance();
+            assertTrue(factory.isDataSourceIngestModuleFactory());
+            DataSourceIngestModule module = factory.createDataSourceIngestModule(factory.getDefaultIngestJobSettings());
+            concurrentRun = module instanceof ConcurrentDataSourceIngestModule ? concurrentRun + 1 : 0;
+            longestConcurrentRun = Math.max(longestConcurrentRun, concurrentRun);
+        }
+        assertTrue(longestConcurrentRun >= 2);
+    }
+
+    private List<String> getDefaultPipelineConfig(String pipelineType) throws Exception {
+        Document doc;
+        try (InputStream in = IngestPipelinesConfiguration.class.getResourceAsStream("PipelineConfig.xml")) { //NON-NLS
+            assertNotNull(in);
+            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        }
+        NodeList pipelineElements = doc.getDocumentElement().getElementsByTagName("PIPELINE"); //NON-NLS
+        for (int i = 0; i < pipelineElements.getLength(); ++i) {
+            Element pipelineElement = (Element) pipelineElements.item(i);
+            if (pipelineType.equals(pipelineElement.getAttribute("type"))) { //NON-NLS
+                List<String> pipelineConfig = new ArrayList<>();
+                NodeList moduleElements = pipelineElement.getElementsByTagName("MODULE"); //NON-NLS
+                for (int j = 0; j < moduleElements.getLength(); ++j) {
+                    pipelineConfig.add(moduleElements.item(j).getTextContent().trim());
+                }
+                return pipelineConfig;
+            }
+        }
+        throw new AssertionError("No " + pipelineType + " pipeline in the default pipeline configuration"); //NON-NLS
+    }
+}
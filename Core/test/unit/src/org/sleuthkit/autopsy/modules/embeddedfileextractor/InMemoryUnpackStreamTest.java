@@ -0,0 +1,78 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.modules.embeddedfileextractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.sf.sevenzipjbinding.SevenZipException;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InMemoryUnpackStreamTest {
+
+    private static final int DECLARED_SIZE = 1024;
+    private File localFile;
+
+    public InMemoryUnpackStreamTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        localFile = File.createTempFile("unpack", ".bin");
+        Files.delete(localFile.toPath());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(localFile.toPath());
+    }
+
+    @Test
+    public void testItemOfDeclaredSizeIsBuffered() throws SevenZipException {
+        System.out.println("itemOfDeclaredSizeIsBuffered");
+        SevenZipExtractor.InMemoryUnpackStream stream = new SevenZipExtractor.InMemoryUnpackStream(localFile.getPath(), DECLARED_SIZE);
+        stream.write(new byte[DECLARED_SIZE / 2]);
+        stream.write(new byte[DECLARED_SIZE / 2]);
+        assertTrue(stream.isBuffered());
+        assertFalse(localFile.exists());
+        stream.close();
+        assertTrue(localFile.exists());
+        assertEquals(DECLARED_SIZE, stream.getSize());
+    }
+
+    @Test
+    public void testItemLargerThanDeclaredSizeIsWrittenThrough() throws SevenZipException {
+        System.out.println("itemLargerThanDeclaredSizeIsWrittenThrough");
+        SevenZipExtractor.InMemoryUnpackStream stream = new SevenZipExtractor.InMemoryUnpackStream(localFile.getPath(), DECLARED_SIZE);
+        long bytesWritten = 0;
+        for (int i = 0; i < 64; i++) {
+            bytesWritten += stream.write(new byte[DECLARED_SIZE]);
+        }
+        assertFalse(stream.isBuffered());
+        assertTrue(localFile.exists());
+        stream.close();
+        assertEquals(bytesWritten, stream.getSize());
+        assertTrue(localFile.length() >= bytesWritten);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.experimental.autoingest;
+
+import java.io.Serializable;
+import javax.annotation.concurrent.Immutable;
+import org.sleuthkit.autopsy.events.AutopsyEvent;
+
+/**
+ * Event published when a completed job is queued for processing again by an
+ * automated ingest manager.
+ */
+@Immutable
+final class AutoIngestJobReprocessedEvent extends AutopsyEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final String manifestPath;
+    private final String nodeName;
+
+    /**
+     * Constructs an event that is published when a completed job is queued
+     * for processing again by an automated ingest manager.
+     *
+     * @param manifestPath The path of the manifest file of the job.
+     * @param nodeName     The host name of the node that queued the job.
+     */
+    AutoIngestJobReprocessedEvent(String manifestPath, String nodeName) {
+        super(AutoIngestManager.Event.JOB_REPROCESSED.toString(), null, null);
+        this.manifestPath = manifestPath;
+        this.nodeName = nodeName;
+    }
+
+    String getManifestPath() {
+        return manifestPath;
+    }
+
+    String getNodeName() {
+        return nodeName;
+    }
+
+}
@@ -22,16 +22,8 @@
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
-import java.io.IOException;
-import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
-import java.nio.file.FileVisitResult;
-import static java.nio.file.FileVisitResult.CONTINUE;
-import static java.nio.file.FileVisitResult.TERMINATE;
-import java.nio.file.FileVisitor;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
@@ -39,7 +31,6 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -57,7 +48,6 @@
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javax.annotation.concurrent.GuardedBy;
-import org.openide.util.Lookup;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.casemodule.Case.CaseType;
 import org.sleuthkit.autopsy.casemodule.CaseActionException;
@@ -83,7 +73,6 @@
 import org.sleuthkit.autopsy.events.AutopsyEventPublisher;
 import org.sleuthkit.autopsy.experimental.autoingest.AutoIngestJobLogger.AutoIngestJobLoggerException;
 import org.sleuthkit.autopsy.experimental.autoingest.FileExporter.FileExportException;
-import org.sleuthkit.autopsy.experimental.autoingest.ManifestFileParser.ManifestFileParserException;
 import static org.sleuthkit.autopsy.experimental.autoingest.AutoIngestJob.ProcessingStatus.COMPLETED;
 import static org.sleuthkit.autopsy.experimental.autoingest.AutoIngestJob.ProcessingStatus.DELETED;
 import static org.sleuthkit.autopsy.experimental.autoingest.AutoIngestJob.ProcessingStatus.PENDING;
@@ -135,6 +124,7 @@ final class AutoIngestManager extends Observable implements PropertyChangeListen
         Event.JOB_COMPLETED.toString(),
         Event.CASE_PRIORITIZED.toString(),
         Event.JOB_STARTED.toString(),
+        Event.JOB_REPROCESSED.toString(),
         Event.REPORT_STATE.toString(),
         ControlEventType.PAUSE.toString(),
         ControlEventType.RESUME.toString(),
@@ -143,6 +133,7 @@ final class AutoIngestManager extends Observable implements PropertyChangeListen
     private static final String JOB_STATUS_PUBLISHING_THREAD_NAME = "AIM-job-status-event-publisher-%d";
     private static final long MAX_MISSED_JOB_STATUS_UPDATES = 10;
     private static final int DEFAULT_PRIORITY = 0;
+    private static final long FULL_INPUT_SCAN_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
     private static final Logger sysLogger = AutoIngestSystemLogger.getLogger();
     private static AutoIngestManager instance;
     private final AutopsyEventPublisher eventPublisher;
@@ -162,6 +153,14 @@ final class AutoIngestManager extends Observable implements PropertyChangeListen
     private AutoIngestJob currentJob;
     @GuardedBy("jobsLock")
     private List<AutoIngestJob> completedJobs;
+    @GuardedBy("jobsLock")
+    private ManifestIndex manifestIndex;
+    @GuardedBy("jobsLock")
+    private long lastFullInputScanTime;
+    private volatile boolean fullInputScanRequested;
+    private volatile boolean jobStatusRefreshRequested;
+    private final Set<Path> reprocessedManifestPaths = ConcurrentHashMap.newKeySet();
+    private volatile InputDirWatcher inputDirWatcher;
     private CoordinationService coordinationService;
     private JobProcessingTask jobProcessingTask;
     private Future<?> jobProcessingTaskFuture;
@@ -236,6 +235,18 @@ void startUp() throws AutoIngestManagerException {
         }
         rootInputDirectory = Paths.get(AutoIngestUserPreferences.getAutoModeImageFolder());
         rootOutputDirectory = Paths.get(AutoIngestUserPreferences.getAutoModeResultsFolder());
+        synchronized (jobsLock) {
+            /*
+             * The first scan uses the persisted manifest index to avoid
+             * listing unchanged input directories, but reads the status of
+             * every job, since other nodes may have changed job statuses while
+             * this node was not running.
+             */
+            manifestIndex = null;
+            lastFullInputScanTime = System.currentTimeMillis();
+        }
+        jobStatusRefreshRequested = true;
+        inputDirWatcher = InputDirWatcher.start(this::scanInputDirsNow);
         inputScanSchedulingExecutor.scheduleWithFixedDelay(new InputDirScanSchedulingTask(), 0, AutoIngestUserPreferences.getMinutesOfInputScanInterval(), TimeUnit.MINUTES);
         jobProcessingTask = new JobProcessingTask();
         jobProcessingTaskFuture = jobProcessingExecutor.submit(jobProcessingTask);
@@ -284,6 +295,8 @@ public void propertyChange(PropertyChangeEvent event) {
                     handleRemoteCasePrioritizationEvent((AutoIngestCasePrioritizedEvent) event);
                 } else if (event instanceof AutoIngestCaseDeletedEvent) {
                     handleRemoteCaseDeletedEvent((AutoIngestCaseDeletedEvent) event);
+                } else if (event instanceof AutoIngestJobReprocessedEvent) {
+                    handleRemoteJobReprocessedEvent((AutoIngestJobReprocessedEvent) event);
                 } else if (event instanceof AutoIngestRequestNodeStateEvent) {
                     handleRemoteRequestNodeStateEvent();
                 } else if (event instanceof AutoIngestNodeControlEvent) {
@@ -398,11 +411,27 @@ private void handleRemoteCasePrioritizationEvent(AutoIngestCasePrioritizedEvent
     private void handleRemoteCaseDeletedEvent(AutoIngestCaseDeletedEvent event) {
         String hostName = event.getNodeName();
         hostNamesToLastMsgTime.put(hostName, Instant.now());
+        jobStatusRefreshRequested = true;
         scanInputDirsNow();
         setChanged();
         notifyObservers(Event.CASE_DELETED);
     }
 
+    /**
+     * Processes a job reprocessed event from another node. The manifest index
+     * records the job as completed, so the recorded status is dropped, making
+     * the next input directory scan read the job's coordination service node
+     * data, and a scan is triggered.
+     *
+     * @param event A job reprocessed event from another auto ingest node.
+     */
+    private void handleRemoteJobReprocessedEvent(AutoIngestJobReprocessedEvent event) {
+        String hostName = event.getNodeName();
+        hostNamesToLastMsgTime.put(hostName, Instant.now());
+        reprocessedManifestPaths.add(Paths.get(event.getManifestPath()));
+        scanInputDirsNow();
+    }
+
     /**
      * Handle a request for current state by re-sending the last state event.
      */
@@ -463,6 +492,11 @@ void shutDown() {
      * down their executors.
      */
     private void stopInputFolderScans() throws InterruptedException {
+        InputDirWatcher watcher = inputDirWatcher;
+        if (null != watcher) {
+            watcher.stop();
+            inputDirWatcher = null;
+        }
         inputScanSchedulingExecutor.shutdownNow();
         inputScanExecutor.shutdownNow();
         while (!inputScanSchedulingExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
@@ -553,6 +587,7 @@ void scanInputDirsAndWait() {
             return;
         }
         sysLogger.log(Level.INFO, "Starting input scan of {0}", rootInputDirectory);
+        jobStatusRefreshRequested = true;
         InputDirScanner scanner = new InputDirScanner();
 
         scanner.scan();
@@ -816,7 +851,15 @@ void reprocessJob(Path manifestPath) {
                     completedJob.setProcessingStatus(PENDING);
                     completedJob.setProcessingStage(AutoIngestJob.Stage.PENDING, Date.from(Instant.now()));
                     updateCoordinationServiceManifestNode(completedJob);
+                    if (null != manifestIndex) {
+                        manifestIndex.forgetJobStatus(manifestPath);
+                    }
                     pendingJobs.add(completedJob);
+                    /*
+                     * The other nodes skip reading the node data of jobs their
+                     * manifest indexes record as completed, so tell them.
+                     */
+                    eventPublisher.publishRemotely(new AutoIngestJobReprocessedEvent(manifestPath.toString(), LOCAL_HOST_NAME));
                 } catch (CoordinationServiceException ex) {
                     sysLogger.log(Level.SEVERE, String.format("Coordination service error while reprocessing %s", manifestPath), ex);
                     completedJobs.add(completedJob);
@@ -910,6 +953,9 @@ CaseDeletionResult deleteCase(String caseName, Path caseDirectoryPath) {
                         AutoIngestJob deletedJob = new AutoIngestJob(nodeData);
                         deletedJob.setProcessingStatus(AutoIngestJob.ProcessingStatus.DELETED);
                         this.updateCoordinationServiceManifestNode(deletedJob);
+                        if (null != manifestIndex) {
+                            manifestIndex.recordDeletedJob(manifestPath);
+                        }
                     } catch (AutoIngestJobNodeData.InvalidDataException | AutoIngestJobException ex) {
                         sysLogger.log(Level.WARNING, String.format("Invalid auto ingest job node data for %s", manifestPath), ex);
                         return CaseDeletionResult.PARTIALLY_DELETED;
@@ -1103,21 +1149,32 @@ public Void call() throws Exception {
     }
 
     /**
-     * A FileVisitor that searches the input directories for manifest files. The
-     * search results are used to refresh the pending jobs queue and the
-     * completed jobs list. Crashed job recovery is performed as needed.
+     * Searches the input directories for manifest files, using the manifest
+     * index to list only the directories that have changed since the last
+     * scan. The search results are used to refresh the pending jobs queue and
+     * the completed jobs list. Crashed job recovery is performed as needed.
      */
-    private final class InputDirScanner implements FileVisitor<Path> {
+    private final class InputDirScanner {
 
         private final List<AutoIngestJob> newPendingJobsList = new ArrayList<>();
         private final List<AutoIngestJob> newCompletedJobsList = new ArrayList<>();
+        private final Map<String, Path> caseDirectories = new HashMap<>();
 
         /**
          * Searches the input directories for manifest files. The search results
          * are used to refresh the pending jobs queue and the completed jobs
          * list.
+         * <p>
+         * The scan is a full scan, which lists every input directory and reads
+         * the coordination service node data for every manifest, if one has
+         * been requested or the full scan interval has elapsed. Otherwise, only
+         * the input directories that have changed are listed, and the jobs
+         * recorded as completed or deleted in the manifest index are not read
+         * from the coordination service unless a refresh of the job statuses
+         * has been requested.
          */
         private void scan() {
+            List<Path> visitedDirectories = new ArrayList<>();
             synchronized (jobsLock) {
                 if (Thread.currentThread().isInterrupted()) {
                     return;
@@ -1125,11 +1182,45 @@ private void scan() {
                 try {
                     newPendingJobsList.clear();
                     newCompletedJobsList.clear();
-                    Files.walkFileTree(rootInputDirectory, EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, this);
+                    caseDirectories.clear();
+                    if (null == manifestIndex) {
+                        manifestIndex = ManifestIndex.load(rootInputDirectory);
+                    }
+                    for (Iterator<Path> iterator = reprocessedManifestPaths.iterator(); iterator.hasNext();) {
+                        manifestIndex.forgetJobStatus(iterator.next());
+                        iterator.remove();
+                    }
+
+                    long scanStartTime = System.currentTimeMillis();
+                    boolean fullScan = fullInputScanRequested || scanStartTime - lastFullInputScanTime >= FULL_INPUT_SCAN_INTERVAL_MILLIS;
+                    Set<Path> changedDirectories = Collections.emptySet();
+                    InputDirWatcher watcher = inputDirWatcher;
+                    if (null != watcher) {
+                        fullScan |= watcher.takeEventsLost();
+                        changedDirectories = watcher.takeChangedDirectories();
+                    }
+                    boolean refreshJobStatuses = fullScan || jobStatusRefreshRequested;
+                    fullInputScanRequested = false;
+                    jobStatusRefreshRequested = false;
+
+                    List<ManifestIndex.ManifestEntry> manifestEntries = manifestIndex.update(fullScan, changedDirectories, visitedDirectories);
+                    if (fullScan) {
+                        lastFullInputScanTime = scanStartTime;
+                    }
+                    for (ManifestIndex.ManifestEntry manifestEntry : manifestEntries) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        addJobForManifest(manifestEntry, refreshJobStatuses);
+                    }
                     Collections.sort(newPendingJobsList, new AutoIngestJob.PriorityComparator());
                     AutoIngestManager.this.pendingJobs = newPendingJobsList;
                     AutoIngestManager.this.completedJobs = newCompletedJobsList;
+                    manifestIndex.storeIfModified();
+                    sysLogger.log(Level.INFO, "{0} input scan found {1} manifests in {2} directories in {3} ms", new Object[]{fullScan ? "Full" : "Incremental", manifestEntries.size(), visitedDirectories.size(), System.currentTimeMillis() - scanStartTime});
 
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
                 } catch (Exception ex) {
                     /*
                      * NOTE: Need to catch all exceptions here. Otherwise
@@ -1137,155 +1228,146 @@ private void scan() {
                      * thread and may stop it from running.
                      */
                     sysLogger.log(Level.SEVERE, String.format("Error scanning the input directory %s", rootInputDirectory), ex);
+                    fullInputScanRequested = true;
                 }
             }
             synchronized (scanMonitor) {
                 scanMonitor.notify();
             }
-        }
-
-        /**
-         * Invoked for an input directory before entries in the directory are
-         * visited. Checks if the task thread has been interrupted because auto
-         * ingest is shutting down and terminates the scan if that is the case.
-         *
-         * @param dirPath  The directory about to be visited.
-         * @param dirAttrs The basic file attributes of the directory about to
-         *                 be visited.
-         *
-         * @return TERMINATE if the task thread has been interrupted, CONTINUE
-         *         if it has not.
-         *
-         * @throws IOException if an I/O error occurs, but this implementation
-         *                     does not throw.
-         */
-        @Override
-        public FileVisitResult preVisitDirectory(Path dirPath, BasicFileAttributes dirAttrs) throws IOException {
-            if (Thread.currentThread().isInterrupted()) {
-                return TERMINATE;
+            InputDirWatcher watcher = inputDirWatcher;
+            if (null != watcher && !visitedDirectories.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                watcher.watch(visitedDirectories);
             }
-            return CONTINUE;
         }
 
         /**
-         * Invoked for a file in a directory. If the file is a manifest file,
-         * creates a pending pending or completed auto ingest job for the
-         * manifest, based on the data stored in the coordination service node
-         * for the manifest.
+         * Creates a pending or completed auto ingest job for a manifest, based
+         * on the data stored in the coordination service node for the
+         * manifest, or on the job status recorded in the manifest index.
          * <p>
          * Note that the mapping of case names to manifest paths that is used
          * for case deletion is updated as well.
          *
-         * @param filePath The path of the file.
-         * @param attrs    The file system attributes of the file.
-         *
-         * @return TERMINATE if auto ingest is shutting down, CONTINUE if it has
-         *         not.
+         * @param manifestEntry      The manifest index entry for the manifest.
+         * @param refreshJobStatuses Whether or not to read the coordination
+         *                           service node data for jobs recorded as
+         *                           completed or deleted in the index.
          *
+         * @throws InterruptedException if the thread running the input
+         *                              directory scan task is interrupted while
+         *                              blocked, i.e., if auto ingest is
+         *                              shutting down.
          */
-        @Override
-        public FileVisitResult visitFile(Path filePath, BasicFileAttributes attrs) {
-            if (Thread.currentThread().isInterrupted()) {
-                return TERMINATE;
-            }
-
+        private void addJobForManifest(ManifestIndex.ManifestEntry manifestEntry, boolean refreshJobStatuses) throws InterruptedException {
             try {
-                Manifest manifest = null;
-                for (ManifestFileParser parser : Lookup.getDefault().lookupAll(ManifestFileParser.class)) {
-                    if (parser.fileIsManifest(filePath)) {
+                /*
+                 * Update the mapping of case names to manifest paths that is
+                 * used for case deletion.
+                 */
+                Manifest manifest = manifestEntry.getManifest();
+                String caseName = manifest.getCaseName();
+                Path manifestPath = manifest.getFilePath();
+                if (casesToManifests.containsKey(caseName)) {
+                    Set<Path> manifestPaths = casesToManifests.get(caseName);
+                    manifestPaths.add(manifestPath);
+                } else {
+                    Set<Path> manifestPaths = new HashSet<>();
+                    manifestPaths.add(manifestPath);
+                    casesToManifests.put(caseName, manifestPaths);
+                }
+
+                /*
+                 * Jobs that are completed or deleted normally stay that way,
+                 * so their status is taken from the manifest index unless a
+                 * refresh has been requested.
+                 */
+                if (!refreshJobStatuses) {
+                    if (DELETED == manifestEntry.getJobStatus()) {
+                        return;
+                    }
+                    if (COMPLETED == manifestEntry.getJobStatus()) {
                         try {
-                            manifest = parser.parse(filePath);
-                            break;
-                        } catch (ManifestFileParserException ex) {
-                            sysLogger.log(Level.SEVERE, String.format("Error attempting to parse %s with parser %s", filePath, parser.getClass().getCanonicalName()), ex);
+                            addCompletedJob(manifest, new AutoIngestJobNodeData(manifestEntry.getCompletedJobNodeData()));
+                            return;
+                        } catch (AutoIngestJobNodeData.InvalidDataException | AutoIngestJobException ex) {
+                            sysLogger.log(Level.WARNING, String.format("Invalid indexed auto ingest job node data for %s, reading node data", manifestPath), ex);
+                            manifestIndex.forgetJobStatus(manifestPath);
                         }
                     }
-                    if (Thread.currentThread().isInterrupted()) {
-                        return TERMINATE;
-                    }
-                }
-
-                if (Thread.currentThread().isInterrupted()) {
-                    return TERMINATE;
                 }
 
-                if (null != manifest) {
-                    /*
-                     * Update the mapping of case names to manifest paths that
-                     * is used for case deletion.
-                     */
-                    String caseName = manifest.getCaseName();
-                    Path manifestPath = manifest.getFilePath();
-                    if (casesToManifests.containsKey(caseName)) {
-                        Set<Path> manifestPaths = casesToManifests.get(caseName);
-                        manifestPaths.add(manifestPath);
-                    } else {
-                        Set<Path> manifestPaths = new HashSet<>();
-                        manifestPaths.add(manifestPath);
-                        casesToManifests.put(caseName, manifestPaths);
-                    }
-
-                    /*
-                     * Add a job to the pending jobs queue, the completed jobs
-                     * list, or do crashed job recovery, as required.
-                     */
-                    try {
-                        byte[] rawData = coordinationService.getNodeData(CoordinationService.CategoryNode.MANIFESTS, manifestPath.toString());
-                        if (null != rawData && rawData.length > 0) {
-                            try {
-                                AutoIngestJobNodeData nodeData = new AutoIngestJobNodeData(rawData);
-                                AutoIngestJob.ProcessingStatus processingStatus = nodeData.getProcessingStatus();
-                                switch (processingStatus) {
-                                    case PENDING:
-                                        addPendingJob(manifest, nodeData);
-                                        break;
-                                    case PROCESSING:
-                                        doRecoveryIfCrashed(manifest, nodeData);
-                                        break;
-                                    case COMPLETED:
-                                        addCompletedJob(manifest, nodeData);
-                                        break;
-                                    case DELETED:
-                                        /*
-                                         * Ignore jobs marked as "deleted."
-                                         */
-                                        break;
-                                    default:
-                                        sysLogger.log(Level.SEVERE, "Unknown ManifestNodeData.ProcessingStatus");
-                                        break;
-                                }
-                            } catch (AutoIngestJobNodeData.InvalidDataException | AutoIngestJobException ex) {
-                                sysLogger.log(Level.SEVERE, String.format("Invalid auto ingest job node data for %s", manifestPath), ex);
-                            }
-                        } else {
-                            try {
-                                addNewPendingJob(manifest);
-                            } catch (AutoIngestJobException ex) {
-                                sysLogger.log(Level.SEVERE, String.format("Invalid manifest data for %s", manifestPath), ex);
+                /*
+                 * Add a job to the pending jobs queue, the completed jobs
+                 * list, or do crashed job recovery, as required.
+                 */
+                try {
+                    byte[] rawData = coordinationService.getNodeData(CoordinationService.CategoryNode.MANIFESTS, manifestPath.toString());
+                    if (null != rawData && rawData.length > 0) {
+                        try {
+                            AutoIngestJobNodeData nodeData = new AutoIngestJobNodeData(rawData);
+                            AutoIngestJob.ProcessingStatus processingStatus = nodeData.getProcessingStatus();
+                            switch (processingStatus) {
+                                case PENDING:
+                                    manifestIndex.forgetJobStatus(manifestPath);
+                                    addPendingJob(manifest, nodeData);
+                                    break;
+                                case PROCESSING:
+                                    manifestIndex.forgetJobStatus(manifestPath);
+                                    doRecoveryIfCrashed(manifest, nodeData);
+                                    break;
+                                case COMPLETED:
+                                    AutoIngestJob completedJob = addCompletedJob(manifest, nodeData);
+                                    if (null != completedJob) {
+                                        manifestIndex.recordCompletedJob(manifestPath, completedJob);
+                                    }
+                                    break;
+                                case DELETED:
+                                    /*
+                                     * Ignore jobs marked as "deleted."
+                                     */
+                                    manifestIndex.recordDeletedJob(manifestPath);
+                                    break;
+                                default:
+                                    sysLogger.log(Level.SEVERE, "Unknown ManifestNodeData.ProcessingStatus");
+                                    break;
                             }
+                        } catch (AutoIngestJobNodeData.InvalidDataException | AutoIngestJobException ex) {
+                            sysLogger.log(Level.SEVERE, String.format("Invalid auto ingest job node data for %s", manifestPath), ex);
+                        }
+                    } else {
+                        try {
+                            addNewPendingJob(manifest);
+                        } catch (AutoIngestJobException ex) {
+                            sysLogger.log(Level.SEVERE, String.format("Invalid manifest data for %s", manifestPath), ex);
                         }
-                    } catch (CoordinationServiceException ex) {
-                        sysLogger.log(Level.SEVERE, String.format("Error transmitting node data for %s", manifestPath), ex);
-                        return CONTINUE;
-                    } catch (InterruptedException ex) {
-                        Thread.currentThread().interrupt();
-                        return TERMINATE;
                     }
+                } catch (CoordinationServiceException ex) {
+                    sysLogger.log(Level.SEVERE, String.format("Error transmitting node data for %s", manifestPath), ex);
                 }
 
+            } catch (InterruptedException ex) {
+                throw ex;
             } catch (Exception ex) {
                 // Catch all unhandled and unexpected exceptions. Otherwise one bad file 
                 // can stop the entire input folder scanning. Given that the exception is unexpected,
                 // I'm hesitant to add logging which requires accessing or de-referencing data.
-                sysLogger.log(Level.SEVERE, "Unexpected exception in file visitor", ex);
-                return CONTINUE;
+                sysLogger.log(Level.SEVERE, "Unexpected exception in input directory scan", ex);
             }
+        }
 
-            if (!Thread.currentThread().isInterrupted()) {
-                return CONTINUE;
-            } else {
-                return TERMINATE;
+        /**
+         * Searches the output directory for the case directory of a case,
+         * remembering the result for the rest of the scan.
+         *
+         * @param caseName The name of the case.
+         *
+         * @return The path of the case directory, or null if it is not found.
+         */
+        private Path findCaseDirectory(String caseName) {
+            if (!caseDirectories.containsKey(caseName)) {
+                caseDirectories.put(caseName, PathUtils.findCaseDirectory(rootOutputDirectory, caseName));
             }
+            return caseDirectories.get(caseName);
         }
 
         /**
@@ -1304,14 +1386,14 @@ private void addPendingJob(Manifest manifest, AutoIngestJobNodeData nodeData) th
             AutoIngestJob job;
             if (nodeData.getVersion() == AutoIngestJobNodeData.getCurrentVersion()) {
                 job = new AutoIngestJob(nodeData);
-                Path caseDirectory = PathUtils.findCaseDirectory(rootOutputDirectory, manifest.getCaseName());
+                Path caseDirectory = findCaseDirectory(manifest.getCaseName());
                 if (null != caseDirectory) {
                     job.setCaseDirectoryPath(caseDirectory);
                 }
             } else {
                 job = new AutoIngestJob(manifest);
                 job.setPriority(nodeData.getPriority()); // Retain priority, present in all versions of the node data.
-                Path caseDirectory = PathUtils.findCaseDirectory(rootOutputDirectory, manifest.getCaseName());
+                Path caseDirectory = findCaseDirectory(manifest.getCaseName());
                 if (null != caseDirectory) {
                     job.setCaseDirectoryPath(caseDirectory);
                 }
@@ -1337,7 +1419,7 @@ private void addPendingJob(Manifest manifest, AutoIngestJobNodeData nodeData) th
                     sysLogger.log(Level.SEVERE, String.format("Error attempting to set node data for %s", manifest.getFilePath()), ex);
                 }
             }
-            Path caseDirectory = PathUtils.findCaseDirectory(rootOutputDirectory, manifest.getCaseName());
+            Path caseDirectory = findCaseDirectory(manifest.getCaseName());
             if (null != caseDirectory) {
                 job.setCaseDirectoryPath(caseDirectory);
             }
@@ -1409,7 +1491,7 @@ private void doRecoveryIfCrashed(Manifest manifest, AutoIngestJobNodeData jobNod
                 if (null != manifestLock) {
                     sysLogger.log(Level.SEVERE, "Attempting crash recovery for {0}", manifestPath);
                     try {
-                        Path caseDirectoryPath = PathUtils.findCaseDirectory(rootOutputDirectory, manifest.getCaseName());
+                        Path caseDirectoryPath = findCaseDirectory(manifest.getCaseName());
 
                         /*
                          * Create the recovery job.
@@ -1497,11 +1579,14 @@ private void doRecoveryIfCrashed(Manifest manifest, AutoIngestJobNodeData jobNod
          *                 the manifest.
          * @param manifest The manifest for upgrading the node.
          *
+         * @return The job, or null if the case directory for the job could not
+         *         be found.
+         *
          * @throws CoordinationServiceException
          * @throws InterruptedException
          */
-        private void addCompletedJob(Manifest manifest, AutoIngestJobNodeData nodeData) throws CoordinationServiceException, InterruptedException, AutoIngestJobException {
-            Path caseDirectoryPath = PathUtils.findCaseDirectory(rootOutputDirectory, manifest.getCaseName());
+        private AutoIngestJob addCompletedJob(Manifest manifest, AutoIngestJobNodeData nodeData) throws CoordinationServiceException, InterruptedException, AutoIngestJobException {
+            Path caseDirectoryPath = findCaseDirectory(manifest.getCaseName());
             if (null != caseDirectoryPath) {
                 AutoIngestJob job;
                 if (nodeData.getVersion() == AutoIngestJobNodeData.getCurrentVersion()) {
@@ -1545,58 +1630,14 @@ private void addCompletedJob(Manifest manifest, AutoIngestJobNodeData nodeData)
                     }
                 }
                 newCompletedJobsList.add(job);
+                return job;
 
             } else {
                 sysLogger.log(Level.WARNING, String.format("Job completed for %s, but cannot find case directory, ignoring job", nodeData.getManifestFilePath()));
+                return null;
             }
         }
 
-        /**
-         * Invoked for a file that could not be visited because an I/O exception
-         * was thrown when visiting a file. Logs the exceptino and checks if the
-         * task thread has been interrupted because auto ingest is shutting down
-         * and terminates the scan if that is the case.
-         *
-         * @param file The file.
-         * @param ex   The exception.
-         *
-         * @return TERMINATE if auto ingest is shutting down, CONTINUE if it has
-         *         not.
-         *
-         * @throws IOException if an I/O error occurs, but this implementation
-         *                     does not throw.
-         */
-        @Override
-        public FileVisitResult visitFileFailed(Path file, IOException ex) throws IOException {
-            sysLogger.log(Level.SEVERE, String.format("Error while visiting %s during input directories scan", file.toString()), ex);
-            if (Thread.currentThread().isInterrupted()) {
-                return TERMINATE;
-            }
-            return CONTINUE;
-        }
-
-        /**
-         * Invoked for an input directory after entries in the directory are
-         * visited. Checks if the task thread has been interrupted because auto
-         * ingest is shutting down and terminates the scan if that is the case.
-         *
-         * @param dirPath The directory about to be visited.
-         * @param unused  Unused.
-         *
-         * @return TERMINATE if the task thread has been interrupted, CONTINUE
-         *         if it has not.
-         *
-         * @throws IOException if an I/O error occurs, but this implementation
-         *                     does not throw.
-         */
-        @Override
-        public FileVisitResult postVisitDirectory(Path dirPath, IOException unused) throws IOException {
-            if (Thread.currentThread().isInterrupted()) {
-                return TERMINATE;
-            }
-            return CONTINUE;
-        }
-
     }
 
     /**
@@ -3096,6 +3137,7 @@ public enum Event {
         JOB_STARTED,
         JOB_STATUS_UPDATED,
         JOB_COMPLETED,
+        JOB_REPROCESSED,
         CASE_PRIORITIZED,
         CASE_DELETED,
         PAUSE_REQUESTED,
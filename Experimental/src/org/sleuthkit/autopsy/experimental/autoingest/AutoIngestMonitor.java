@@ -23,14 +23,17 @@
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import javax.annotation.concurrent.GuardedBy;
@@ -54,6 +57,8 @@ final class AutoIngestMonitor extends Observable implements PropertyChangeListen
     private static final int NUM_COORD_SVC_QUERY_THREADS = 1;
     private static final String COORD_SVC_QUERY_THREAD_NAME = "AIM-coord-svc-query-thread-%d"; //NON-NLS
     private static final int CORRD_SVC_QUERY_INERVAL_MINS = 5;
+    private static final long JOBS_CACHE_RECONCILIATION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(60);
+    private static final long JOBS_CHANGED_NOTIFICATION_DELAY_MILLIS = 500;
     private static final String LOCAL_HOST_NAME = NetworkUtils.getLocalHostName();
     private static final String EVENT_CHANNEL_NAME = "Auto-Ingest-Manager-Events"; //NON-NLS
     private static final Set<String> EVENT_LIST = new HashSet<>(Arrays.asList(new String[]{
@@ -75,6 +80,11 @@ final class AutoIngestMonitor extends Observable implements PropertyChangeListen
     private final Object jobsLock;
     @GuardedBy("jobsLock")
     private JobsSnapshot jobsSnapshot;
+    @GuardedBy("jobsLock")
+    private ManifestNodesCache jobsCache;
+    @GuardedBy("jobsLock")
+    private ManifestNodesCache newJobsCache;
+    private final AtomicBoolean jobsChangedNotificationPending;
 
     private final Map<String, AutoIngestNodeState> nodeStates = new ConcurrentHashMap<>();
 
@@ -87,6 +97,7 @@ final class AutoIngestMonitor extends Observable implements PropertyChangeListen
         coordSvcQueryExecutor = new ScheduledThreadPoolExecutor(NUM_COORD_SVC_QUERY_THREADS, new ThreadFactoryBuilder().setNameFormat(COORD_SVC_QUERY_THREAD_NAME).build());
         jobsLock = new Object();
         jobsSnapshot = new JobsSnapshot();
+        jobsChangedNotificationPending = new AtomicBoolean();
     }
 
     /**
@@ -106,7 +117,7 @@ void startUp() throws AutoIngestMonitor.AutoIngestMonitorException {
         } catch (AutopsyEventException ex) {
             throw new AutoIngestMonitorException("Failed to open auto ingest event channel", ex); //NON-NLS
         }
-        coordSvcQueryExecutor.scheduleWithFixedDelay(new CoordinationServiceQueryTask(), 0, CORRD_SVC_QUERY_INERVAL_MINS, TimeUnit.MINUTES);
+        coordSvcQueryExecutor.scheduleWithFixedDelay(new JobsCacheReconciliationTask(), 0, CORRD_SVC_QUERY_INERVAL_MINS, TimeUnit.MINUTES);
         eventPublisher.addSubscriber(EVENT_LIST, this);
 
         // Publish an event that asks running nodes to send their state.
@@ -119,6 +130,16 @@ void startUp() throws AutoIngestMonitor.AutoIngestMonitorException {
     void shutDown() {
         try {
             eventPublisher.removeSubscriber(EVENT_LIST, this);
+            synchronized (jobsLock) {
+                if (null != newJobsCache) {
+                    newJobsCache.close();
+                    newJobsCache = null;
+                }
+                if (null != jobsCache) {
+                    jobsCache.close();
+                    jobsCache = null;
+                }
+            }
             coordSvcQueryExecutor.shutdownNow();
             while (!coordSvcQueryExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
                 LOGGER.log(Level.WARNING, "Auto ingest monitor waited at least thirty seconds for coordination service executor to shut down, continuing to wait"); //NON-NLS
@@ -206,7 +227,9 @@ private void handleJobCompletedEvent(AutoIngestJobCompletedEvent event) {
      * @param event A job/case prioritization event.
      */
     private void handleCasePrioritizationEvent(AutoIngestCasePrioritizedEvent event) {
-        coordSvcQueryExecutor.submit(new CoordinationServiceQueryTask());
+        if (!isWatchingManifestNodes()) {
+            coordSvcQueryExecutor.submit(new CoordinationServiceQueryTask());
+        }
     }
 
     /**
@@ -215,7 +238,9 @@ private void handleCasePrioritizationEvent(AutoIngestCasePrioritizedEvent event)
      * @param event A job/case deletion event.
      */
     private void handleCaseDeletedEvent(AutoIngestCaseDeletedEvent event) {
-        coordSvcQueryExecutor.submit(new CoordinationServiceQueryTask());
+        if (!isWatchingManifestNodes()) {
+            coordSvcQueryExecutor.submit(new CoordinationServiceQueryTask());
+        }
     }
 
     /**
@@ -247,7 +272,7 @@ private void handleAutoIngestNodeStateEvent(AutoIngestNodeStateEvent event) {
      */
     JobsSnapshot getJobsSnapshot() {
         synchronized (jobsLock) {
-            return jobsSnapshot;
+            return new JobsSnapshot(jobsSnapshot);
         }
     }
 
@@ -268,8 +293,46 @@ List<AutoIngestNodeState> getNodeStates() {
      */
     JobsSnapshot refreshJobsSnapshot() {
         synchronized (jobsLock) {
-            jobsSnapshot = queryCoordinationService();
-            return jobsSnapshot;
+            if (null == jobsCache) {
+                jobsSnapshot = queryCoordinationService();
+            }
+            return new JobsSnapshot(jobsSnapshot);
+        }
+    }
+
+    /**
+     * Determines whether or not the jobs snapshot is being kept up to date by
+     * watching the manifest nodes of the coordination service.
+     *
+     * @return True or false.
+     */
+    private boolean isWatchingManifestNodes() {
+        synchronized (jobsLock) {
+            return null != jobsCache;
+        }
+    }
+
+    /**
+     * Notifies the observers of the auto ingest monitor that the jobs snapshot
+     * has changed. Changes that are made in quick succession, e.g., by several
+     * nodes updating the coordination service at once, result in a single
+     * notification.
+     */
+    private void notifyJobsChanged() {
+        if (jobsChangedNotificationPending.compareAndSet(false, true)) {
+            try {
+                coordSvcQueryExecutor.schedule(() -> {
+                    jobsChangedNotificationPending.set(false);
+                    JobsSnapshot snapshot = getJobsSnapshot();
+                    setChanged();
+                    notifyObservers(snapshot);
+                }, JOBS_CHANGED_NOTIFICATION_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                /*
+                 * The monitor is shutting down.
+                 */
+                jobsChangedNotificationPending.set(false);
+            }
         }
     }
 
@@ -368,7 +431,7 @@ JobsSnapshot deprioritizeCase(final String caseName) throws AutoIngestMonitorExc
                     eventPublisher.publishRemotely(new AutoIngestCasePrioritizedEvent(LOCAL_HOST_NAME, caseName));
                 }).start();
             }
-            return jobsSnapshot;
+            return new JobsSnapshot(jobsSnapshot);
         }
     }
 
@@ -415,7 +478,7 @@ JobsSnapshot prioritizeCase(final String caseName) throws AutoIngestMonitorExcep
                     eventPublisher.publishRemotely(new AutoIngestCasePrioritizedEvent(LOCAL_HOST_NAME, caseName));
                 }).start();
             }
-            return jobsSnapshot;
+            return new JobsSnapshot(jobsSnapshot);
         }
     }
 
@@ -466,7 +529,7 @@ JobsSnapshot deprioritizeJob(AutoIngestJob job) throws AutoIngestMonitorExceptio
                 }).start();
 
             }
-            return jobsSnapshot;
+            return new JobsSnapshot(jobsSnapshot);
         }
     }
 
@@ -522,7 +585,7 @@ JobsSnapshot prioritizeJob(AutoIngestJob job) throws AutoIngestMonitorException
                 }).start();
 
             }
-            return jobsSnapshot;
+            return new JobsSnapshot(jobsSnapshot);
         }
     }
 
@@ -581,6 +644,9 @@ private final class CoordinationServiceQueryTask implements Runnable {
         public void run() {
             if (!Thread.currentThread().isInterrupted()) {
                 synchronized (jobsLock) {
+                    if (null != jobsCache) {
+                        return;
+                    }
                     jobsSnapshot = queryCoordinationService();
                     setChanged();
                     notifyObservers(jobsSnapshot);
@@ -590,6 +656,199 @@ public void run() {
 
     }
 
+    /**
+     * A task that keeps the jobs snapshot up to date by watching the manifest
+     * nodes of the coordination service. The first time the task runs, it
+     * starts a cache of the jobs for the manifest nodes. After that, it
+     * reconciles the snapshot with the coordination service at long intervals
+     * by starting a new cache, which reads every manifest node, and replacing
+     * the current cache with it once it is complete. If the manifest nodes
+     * can not be watched, the task queries the coordination service for every
+     * manifest node instead.
+     */
+    private final class JobsCacheReconciliationTask implements Runnable {
+
+        @Override
+        public void run() {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            synchronized (jobsLock) {
+                long now = System.currentTimeMillis();
+                if (null != jobsCache && now - jobsCache.getStartTime() < JOBS_CACHE_RECONCILIATION_INTERVAL_MILLIS) {
+                    return;
+                }
+                if (null != newJobsCache) {
+                    if (now - newJobsCache.getStartTime() < JOBS_CACHE_RECONCILIATION_INTERVAL_MILLIS) {
+                        return;
+                    }
+                    LOGGER.log(Level.WARNING, "Manifest nodes cache did not finish reading the manifest nodes, restarting it"); //NON-NLS
+                    newJobsCache.close();
+                }
+                ManifestNodesCache cache = new ManifestNodesCache();
+                newJobsCache = cache;
+                try {
+                    cache.start();
+                    return;
+                } catch (CoordinationServiceException ex) {
+                    newJobsCache = null;
+                    if (null != jobsCache) {
+                        LOGGER.log(Level.WARNING, "Failed to start reconciliation of the manifest nodes cache, continuing to use the current cache", ex); //NON-NLS
+                        return;
+                    }
+                    LOGGER.log(Level.WARNING, "Failed to watch the manifest nodes, querying the coordination service instead", ex); //NON-NLS
+                }
+            }
+            new CoordinationServiceQueryTask().run();
+        }
+    }
+
+    /**
+     * A cache of the auto ingest jobs for the manifest nodes of the
+     * coordination service, kept up to date by watching the manifest nodes so
+     * that only the nodes that change are read. The jobs snapshot of the
+     * monitor is the snapshot of the current cache.
+     */
+    private final class ManifestNodesCache implements CoordinationService.CategoryNodeListener {
+
+        private final long startTime = System.currentTimeMillis();
+        @GuardedBy("jobsLock")
+        private final JobsSnapshot snapshot = new JobsSnapshot();
+        @GuardedBy("jobsLock")
+        private final Map<String, AutoIngestJob> jobsByNodeName = new HashMap<>();
+        @GuardedBy("jobsLock")
+        private CoordinationService.CategoryNodeWatch watch;
+
+        /**
+         * Starts watching the manifest nodes.
+         *
+         * @throws CoordinationServiceException If the manifest nodes can not
+         *                                      be watched.
+         */
+        @GuardedBy("jobsLock")
+        private void start() throws CoordinationServiceException {
+            watch = coordinationService.watchCategoryNodes(CoordinationService.CategoryNode.MANIFESTS, this);
+        }
+
+        /**
+         * Stops watching the manifest nodes.
+         */
+        @GuardedBy("jobsLock")
+        private void close() {
+            if (null != watch) {
+                try {
+                    watch.close();
+                } catch (CoordinationServiceException ex) {
+                    LOGGER.log(Level.WARNING, "Error closing manifest nodes watch", ex); //NON-NLS
+                }
+                watch = null;
+            }
+        }
+
+        private long getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public void nodeAddedOrChanged(String nodeName, byte[] data) {
+            AutoIngestJob job = null;
+            ProcessingStatus processingStatus = null;
+            if (null != data && data.length > 0) {
+                try {
+                    AutoIngestJobNodeData nodeData = new AutoIngestJobNodeData(data);
+                    /*
+                     * Ignore version '0' nodes that have not been "upgraded"
+                     * since they don't carry enough data.
+                     */
+                    if (nodeData.getVersion() >= 1) {
+                        job = new AutoIngestJob(nodeData);
+                        processingStatus = nodeData.getProcessingStatus();
+                    }
+                } catch (AutoIngestJobNodeData.InvalidDataException ex) {
+                    LOGGER.log(Level.SEVERE, String.format("Unable to use node data for '%s'", nodeName), ex); //NON-NLS
+                } catch (AutoIngestJob.AutoIngestJobException ex) {
+                    LOGGER.log(Level.SEVERE, String.format("Failed to create a job for '%s'", nodeName), ex); //NON-NLS
+                }
+            }
+            synchronized (jobsLock) {
+                if (this != jobsCache && this != newJobsCache) {
+                    return;
+                }
+                removeJob(nodeName);
+                if (null != job) {
+                    switch (processingStatus) {
+                        case PENDING:
+                            snapshot.addOrReplacePendingJob(job);
+                            jobsByNodeName.put(nodeName, job);
+                            break;
+                        case PROCESSING:
+                            snapshot.addOrReplaceRunningJob(job);
+                            jobsByNodeName.put(nodeName, job);
+                            break;
+                        case COMPLETED:
+                            snapshot.addOrReplaceCompletedJob(job);
+                            jobsByNodeName.put(nodeName, job);
+                            break;
+                        case DELETED:
+                            break;
+                        default:
+                            LOGGER.log(Level.SEVERE, "Unknown AutoIngestJobData.ProcessingStatus"); //NON-NLS
+                            break;
+                    }
+                }
+                if (this == jobsCache) {
+                    notifyJobsChanged();
+                }
+            }
+        }
+
+        @Override
+        public void nodeRemoved(String nodeName) {
+            synchronized (jobsLock) {
+                if (this != jobsCache && this != newJobsCache) {
+                    return;
+                }
+                removeJob(nodeName);
+                if (this == jobsCache) {
+                    notifyJobsChanged();
+                }
+            }
+        }
+
+        @Override
+        public void existingNodesReported() {
+            synchronized (jobsLock) {
+                if (this != newJobsCache) {
+                    return;
+                }
+                if (null != jobsCache) {
+                    jobsCache.close();
+                }
+                jobsCache = this;
+                newJobsCache = null;
+                jobsSnapshot = snapshot;
+                LOGGER.log(Level.INFO, "Read {0} manifest nodes from the coordination service", jobsByNodeName.size()); //NON-NLS
+            }
+            notifyJobsChanged();
+        }
+
+        /**
+         * Removes the job for a manifest node from the snapshot, if there is
+         * one.
+         *
+         * @param nodeName The name of the manifest node.
+         */
+        @GuardedBy("jobsLock")
+        private void removeJob(String nodeName) {
+            AutoIngestJob oldJob = jobsByNodeName.remove(nodeName);
+            if (null != oldJob) {
+                snapshot.removePendingJob(oldJob);
+                snapshot.removeRunningJob(oldJob);
+                snapshot.removeCompletedJob(oldJob);
+            }
+        }
+    }
+
     /**
      * A snapshot of the pending jobs queue, running jobs list and completed jobs
      * list for an auto ingest cluster.
@@ -600,6 +859,25 @@ static final class JobsSnapshot {
         private final Set<AutoIngestJob> runningJobs = new HashSet<>();
         private final Set<AutoIngestJob> completedJobs = new HashSet<>();
 
+        /**
+         * Constructs an empty snapshot of the pending jobs queue, running jobs
+         * list and completed jobs list for an auto ingest cluster.
+         */
+        private JobsSnapshot() {
+        }
+
+        /**
+         * Constructs a copy of a snapshot of the pending jobs queue, running
+         * jobs list and completed jobs list for an auto ingest cluster.
+         *
+         * @param snapshot The snapshot to copy.
+         */
+        private JobsSnapshot(JobsSnapshot snapshot) {
+            pendingJobs.addAll(snapshot.pendingJobs);
+            runningJobs.addAll(snapshot.runningJobs);
+            completedJobs.addAll(snapshot.completedJobs);
+        }
+
         /**
          * Gets the snapshot of the pending jobs queue for an auto ingest
          * cluster.
@@ -689,7 +967,7 @@ private void addOrReplaceCompletedJob(AutoIngestJob job) {
          * @param job The auot ingest job.
          */
         private void removeCompletedJob(AutoIngestJob job) {
-            this.pendingJobs.remove(job);
+            this.completedJobs.remove(job);
         }
 
         /**
@@ -0,0 +1,210 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.experimental.autoingest;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.concurrent.ThreadSafe;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * Watches the directories of an auto ingest input directory tree for changes
+ * using the file system change notifications of the platform, so that new
+ * manifest files can be picked up without waiting for the next scheduled input
+ * directory scan. Changes are collected until they are taken by the next scan,
+ * and a callback is invoked when a burst of changes has ended.
+ * <p>
+ * Change notifications are not available for every file system, e.g., many
+ * network file systems mounted on Linux do not report changes made by other
+ * hosts, and only a limited number of directories are watched, so the
+ * scheduled scans are still required.
+ */
+@ThreadSafe
+final class InputDirWatcher {
+
+    private static final Logger sysLogger = AutoIngestSystemLogger.getLogger();
+    private static final String WATCHER_THREAD_NAME = "AIM-input-dir-watcher"; //NON-NLS
+    private static final int MAX_WATCHED_DIRECTORIES = 10000;
+    private static final long QUIET_PERIOD_MILLIS = 2000;
+    private final WatchService watchService;
+    private final Runnable changeCallback;
+    private final Map<Path, WatchKey> watchKeys;
+    private final Set<Path> changedDirectories;
+    private final Thread watcherThread;
+    private volatile boolean eventsLost;
+
+    /**
+     * Starts watching for changes, if the platform supports file system change
+     * notifications.
+     *
+     * @param changeCallback The callback to invoke after changes are detected.
+     *                       It is invoked on the watcher thread.
+     *
+     * @return The watcher, or null if change notifications are not supported.
+     */
+    static InputDirWatcher start(Runnable changeCallback) {
+        try {
+            InputDirWatcher watcher = new InputDirWatcher(FileSystems.getDefault().newWatchService(), changeCallback);
+            watcher.watcherThread.start();
+            return watcher;
+        } catch (IOException | UnsupportedOperationException ex) {
+            sysLogger.log(Level.WARNING, "File system change notifications are not available, relying on scheduled input scans", ex);
+            return null;
+        }
+    }
+
+    private InputDirWatcher(WatchService watchService, Runnable changeCallback) {
+        this.watchService = watchService;
+        this.changeCallback = changeCallback;
+        this.watchKeys = new ConcurrentHashMap<>();
+        this.changedDirectories = ConcurrentHashMap.newKeySet();
+        this.watcherThread = new Thread(this::processEvents, WATCHER_THREAD_NAME);
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Sets the directories to watch. Directories that are no longer in the
+     * list stop being watched. If there are more directories than can be
+     * watched, the first ones in the list are watched, so the list should be
+     * ordered with the directories where new manifest files are most likely
+     * to appear first, e.g., breadth first from the root of the tree.
+     *
+     * @param directories The directories.
+     */
+    synchronized void watch(List<Path> directories) {
+        Set<Path> directoriesToWatch = new HashSet<>();
+        for (Path directory : directories) {
+            if (directoriesToWatch.size() >= MAX_WATCHED_DIRECTORIES) {
+                break;
+            }
+            directoriesToWatch.add(directory);
+        }
+        for (Iterator<Map.Entry<Path, WatchKey>> iterator = watchKeys.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<Path, WatchKey> entry = iterator.next();
+            if (!directoriesToWatch.contains(entry.getKey()) || !entry.getValue().isValid()) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+        for (Path directory : directoriesToWatch) {
+            if (!watchKeys.containsKey(directory)) {
+                try {
+                    watchKeys.put(directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+                } catch (IOException | ClosedWatchServiceException ex) {
+                    sysLogger.log(Level.WARNING, String.format("Failed to watch %s for changes, watching %d directories", directory, watchKeys.size()), ex);
+                    break;
+                }
+            }
+        }
+        if (directories.size() > watchKeys.size()) {
+            sysLogger.log(Level.INFO, "Watching {0} of {1} input directories for changes", new Object[]{watchKeys.size(), directories.size()});
+        }
+    }
+
+    /**
+     * Takes the directories in which changes have been detected since the
+     * last call.
+     *
+     * @return The changed directories.
+     */
+    Set<Path> takeChangedDirectories() {
+        Set<Path> directories = new HashSet<>();
+        for (Iterator<Path> iterator = changedDirectories.iterator(); iterator.hasNext();) {
+            directories.add(iterator.next());
+            iterator.remove();
+        }
+        return directories;
+    }
+
+    /**
+     * Determines whether change notifications have been lost since the last
+     * call, in which case the changed directories are not known.
+     *
+     * @return True or false.
+     */
+    boolean takeEventsLost() {
+        boolean lost = eventsLost;
+        eventsLost = false;
+        return lost;
+    }
+
+    /**
+     * Stops watching for changes.
+     */
+    void stop() {
+        watcherThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            sysLogger.log(Level.WARNING, "Error closing input directory watch service", ex);
+        }
+    }
+
+    /**
+     * Collects change notifications until the watch service is closed,
+     * invoking the change callback when no notification has arrived for the
+     * quiet period.
+     */
+    private void processEvents() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                while (null != key) {
+                    collectEvents(key);
+                    key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                changeCallback.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // Stopped.
+        }
+    }
+
+    private void collectEvents(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (StandardWatchEventKinds.OVERFLOW == event.kind()) {
+                eventsLost = true;
+            } else {
+                changedDirectories.add(directory);
+            }
+        }
+        if (!key.reset()) {
+            /*
+             * The directory is no longer accessible, which its parent directory
+             * will also report.
+             */
+            watchKeys.remove(directory, key);
+        }
+    }
+}
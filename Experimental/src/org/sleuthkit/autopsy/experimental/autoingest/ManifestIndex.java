@@ -0,0 +1,466 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.experimental.autoingest;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.openide.util.Lookup;
+import org.openide.util.io.NbObjectInputStream;
+import org.openide.util.io.NbObjectOutputStream;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.PlatformUtil;
+import org.sleuthkit.autopsy.experimental.autoingest.ManifestFileParser.ManifestFileParserException;
+
+/**
+ * A local index of the manifest files in an auto ingest input directory tree,
+ * persisted between runs of auto ingest. For each directory in the tree, the
+ * index records the last modified time of the directory, its subdirectories
+ * and its manifest files. For each manifest file, it records the last modified
+ * time and size of the file, the parsed manifest, and the last known
+ * processing status of the job for the manifest if that status is final.
+ * <p>
+ * Adding, removing or renaming an entry of a directory changes the last
+ * modified time of the directory, so an update of the index only needs to list
+ * the directories whose last modified time has changed and only needs to parse
+ * the manifest files that are new or have changed. A full update that lists
+ * every directory and checks every file is also supported.
+ */
+@NotThreadSafe
+final class ManifestIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger sysLogger = AutoIngestSystemLogger.getLogger();
+    private static final String INDEX_FILE_NAME = "auto_ingest_manifest_index.ser"; //NON-NLS
+
+    /*
+     * A directory modified this recently is listed on every update, because a
+     * file in it may still be being written, and writing to a file does not
+     * change the last modified time of its directory.
+     */
+    private static final long DIRECTORY_SETTLE_TIME_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private final String rootInputDirectory;
+    private Map<String, DirectoryEntry> directories;
+    private Map<String, ManifestEntry> manifests;
+    private transient boolean modified;
+
+    /**
+     * Loads the persisted index for an input directory tree, or creates an
+     * empty index if there is no persisted index for the tree or it can not be
+     * read.
+     *
+     * @param rootInputDirectory The root directory of the input directory
+     *                           tree.
+     *
+     * @return The index.
+     */
+    static ManifestIndex load(Path rootInputDirectory) {
+        Path indexFilePath = getIndexFilePath();
+        if (indexFilePath.toFile().exists()) {
+            try (NbObjectInputStream in = new NbObjectInputStream(new FileInputStream(indexFilePath.toString()))) {
+                ManifestIndex index = (ManifestIndex) in.readObject();
+                if (index.rootInputDirectory.equals(rootInputDirectory.toString())) {
+                    return index;
+                }
+                sysLogger.log(Level.INFO, "Discarding manifest index for previous input directory {0}", index.rootInputDirectory);
+            } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+                sysLogger.log(Level.WARNING, String.format("Failed to read manifest index from %s, the input directory will be scanned in full", indexFilePath), ex);
+            }
+        }
+        return new ManifestIndex(rootInputDirectory);
+    }
+
+    /**
+     * Constructs an empty index for an input directory tree.
+     *
+     * @param rootInputDirectory The root directory of the input directory
+     *                           tree.
+     */
+    private ManifestIndex(Path rootInputDirectory) {
+        this.rootInputDirectory = rootInputDirectory.toString();
+        this.directories = new HashMap<>();
+        this.manifests = new HashMap<>();
+        this.modified = true;
+    }
+
+    /**
+     * Writes the index to the user directory if it has been modified since it
+     * was loaded or last stored. The index is written under a temporary name
+     * and then moved into place, so that a crash while writing does not leave
+     * a partial index.
+     */
+    void storeIfModified() {
+        if (!modified) {
+            return;
+        }
+        Path indexFilePath = getIndexFilePath();
+        Path tempFilePath = Paths.get(indexFilePath.toString() + ".tmp"); //NON-NLS
+        try {
+            Files.createDirectories(indexFilePath.getParent());
+            try (NbObjectOutputStream out = new NbObjectOutputStream(new FileOutputStream(tempFilePath.toString()))) {
+                out.writeObject(this);
+            }
+            try {
+                Files.move(tempFilePath, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFilePath, indexFilePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            modified = false;
+        } catch (IOException ex) {
+            sysLogger.log(Level.WARNING, String.format("Failed to write manifest index to %s", indexFilePath), ex);
+        }
+    }
+
+    /**
+     * Brings the index up to date with the input directory tree. The tree is
+     * walked breadth first, following symbolic links. A directory is listed
+     * if this is a full update, if it is not in the index, if its last
+     * modified time has changed or is recent, or if it has been reported as
+     * changed; otherwise the subdirectories and manifest files recorded for it
+     * are used. A manifest file is parsed if it is not in the index or its
+     * last modified time or size has changed.
+     *
+     * @param fullUpdate          Whether or not to list every directory and
+     *                            check every file.
+     * @param changedDirectories  Directories known to have changed, e.g., from
+     *                            file system change notifications.
+     * @param visitedDirectories  A list to which the directories in the tree
+     *                            are added, in the order in which they were
+     *                            visited.
+     *
+     * @return The entries for the manifest files in the tree, in the order in
+     *         which they were found.
+     *
+     * @throws InterruptedException If the thread running the update is
+     *                              interrupted, i.e., if auto ingest is
+     *                              shutting down. The index is not changed.
+     */
+    List<ManifestEntry> update(boolean fullUpdate, Set<Path> changedDirectories, List<Path> visitedDirectories) throws InterruptedException {
+        Map<String, DirectoryEntry> updatedDirectories = new HashMap<>();
+        Map<String, ManifestEntry> updatedManifests = new HashMap<>();
+        Map<String, ManifestEntry> listedManifests = new HashMap<>();
+        List<ManifestEntry> foundManifests = new ArrayList<>();
+        Set<Object> visitedFileKeys = new HashSet<>();
+        long now = System.currentTimeMillis();
+        Deque<Path> directoriesToVisit = new ArrayDeque<>();
+        directoriesToVisit.add(Paths.get(rootInputDirectory));
+        while (!directoriesToVisit.isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            Path dirPath = directoriesToVisit.poll();
+            BasicFileAttributes dirAttrs;
+            try {
+                dirAttrs = Files.readAttributes(dirPath, BasicFileAttributes.class);
+            } catch (IOException ex) {
+                sysLogger.log(Level.SEVERE, String.format("Error while visiting %s during input directories scan", dirPath), ex);
+                continue;
+            }
+            if (!dirAttrs.isDirectory()) {
+                continue;
+            }
+            Object fileKey = dirAttrs.fileKey();
+            if (null != fileKey && !visitedFileKeys.add(fileKey)) {
+                /*
+                 * A symbolic link cycle.
+                 */
+                continue;
+            }
+
+            String dirKey = dirPath.toString();
+            long lastModified = dirAttrs.lastModifiedTime().toMillis();
+            DirectoryEntry dirEntry = directories.get(dirKey);
+            boolean listDirectory = fullUpdate
+                    || null == dirEntry
+                    || dirEntry.lastModified != lastModified
+                    || now - lastModified < DIRECTORY_SETTLE_TIME_MILLIS
+                    || changedDirectories.contains(dirPath);
+            if (listDirectory) {
+                DirectoryEntry listedEntry = listDirectory(dirPath, lastModified, listedManifests);
+                if (null != listedEntry) {
+                    if (!listedEntry.equals(dirEntry)) {
+                        modified = true;
+                    }
+                    dirEntry = listedEntry;
+                } else if (null == dirEntry) {
+                    continue;
+                }
+            }
+            updatedDirectories.put(dirKey, dirEntry);
+            visitedDirectories.add(dirPath);
+
+            for (String manifestFileName : dirEntry.manifestFileNames) {
+                String manifestKey = dirPath.resolve(manifestFileName).toString();
+                ManifestEntry manifestEntry = listedManifests.get(manifestKey);
+                if (null == manifestEntry) {
+                    manifestEntry = manifests.get(manifestKey);
+                }
+                if (null != manifestEntry) {
+                    updatedManifests.put(manifestKey, manifestEntry);
+                    foundManifests.add(manifestEntry);
+                }
+            }
+            for (String subdirectoryName : dirEntry.subdirectoryNames) {
+                directoriesToVisit.add(dirPath.resolve(subdirectoryName));
+            }
+        }
+
+        if (updatedDirectories.size() != directories.size() || updatedManifests.size() != manifests.size()) {
+            modified = true;
+        }
+        directories = updatedDirectories;
+        manifests = updatedManifests;
+        return foundManifests;
+    }
+
+    /**
+     * Records that the job for a manifest has been completed, so that the job
+     * can be recreated from the index instead of from the coordination service
+     * node data for the manifest.
+     *
+     * @param manifestPath The path of the manifest file.
+     * @param job          The completed job.
+     */
+    void recordCompletedJob(Path manifestPath, AutoIngestJob job) {
+        ManifestEntry entry = manifests.get(manifestPath.toString());
+        if (null != entry) {
+            entry.jobStatus = AutoIngestJob.ProcessingStatus.COMPLETED;
+            entry.completedJobNodeData = new AutoIngestJobNodeData(job).toArray();
+            modified = true;
+        }
+    }
+
+    /**
+     * Records that the job for a manifest has been deleted.
+     *
+     * @param manifestPath The path of the manifest file.
+     */
+    void recordDeletedJob(Path manifestPath) {
+        ManifestEntry entry = manifests.get(manifestPath.toString());
+        if (null != entry && AutoIngestJob.ProcessingStatus.DELETED != entry.jobStatus) {
+            entry.jobStatus = AutoIngestJob.ProcessingStatus.DELETED;
+            entry.completedJobNodeData = null;
+            modified = true;
+        }
+    }
+
+    /**
+     * Forgets the recorded status of the job for a manifest, e.g., because
+     * the job is pending again, so that the status is read from the
+     * coordination service node data for the manifest.
+     *
+     * @param manifestPath The path of the manifest file.
+     */
+    void forgetJobStatus(Path manifestPath) {
+        ManifestEntry entry = manifests.get(manifestPath.toString());
+        if (null != entry && null != entry.jobStatus) {
+            entry.jobStatus = null;
+            entry.completedJobNodeData = null;
+            modified = true;
+        }
+    }
+
+    /**
+     * Lists a directory. The index entries of the manifest files in the
+     * directory that have not changed are reused; the other files are parsed
+     * if they are manifest files.
+     *
+     * @param dirPath         The path of the directory.
+     * @param lastModified    The last modified time of the directory.
+     * @param listedManifests A map to which the entries for the manifest files
+     *                        in the directory are added, by path.
+     *
+     * @return The directory entry, or null if the directory can not be listed.
+     *
+     * @throws InterruptedException If the thread running the update is
+     *                              interrupted.
+     */
+    private DirectoryEntry listDirectory(Path dirPath, long lastModified, Map<String, ManifestEntry> listedManifests) throws InterruptedException {
+        List<String> subdirectoryNames = new ArrayList<>();
+        List<String> manifestFileNames = new ArrayList<>();
+        try (DirectoryStream<Path> dirEntries = Files.newDirectoryStream(dirPath)) {
+            for (Path filePath : dirEntries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+                } catch (IOException ex) {
+                    sysLogger.log(Level.SEVERE, String.format("Error while visiting %s during input directories scan", filePath), ex);
+                    continue;
+                }
+                String fileName = filePath.getFileName().toString();
+                if (attrs.isDirectory()) {
+                    subdirectoryNames.add(fileName);
+                    continue;
+                }
+                long fileLastModified = attrs.lastModifiedTime().toMillis();
+                ManifestEntry manifestEntry = manifests.get(filePath.toString());
+                if (null == manifestEntry || manifestEntry.fileLastModified != fileLastModified || manifestEntry.fileSize != attrs.size()) {
+                    Manifest manifest = parseManifest(filePath);
+                    if (null != manifest) {
+                        manifestEntry = new ManifestEntry(manifest, fileLastModified, attrs.size());
+                        modified = true;
+                    } else {
+                        manifestEntry = null;
+                    }
+                }
+                if (null != manifestEntry) {
+                    manifestFileNames.add(fileName);
+                    listedManifests.put(filePath.toString(), manifestEntry);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException ex) {
+            sysLogger.log(Level.SEVERE, String.format("Error while visiting %s during input directories scan", dirPath), ex);
+            return null;
+        }
+        return new DirectoryEntry(lastModified, subdirectoryNames, manifestFileNames);
+    }
+
+    /**
+     * Parses a file with the first manifest file parser that recognizes it as
+     * a manifest file.
+     *
+     * @param filePath The path of the file.
+     *
+     * @return The manifest, or null if the file is not a manifest file or can
+     *         not be parsed.
+     */
+    private static Manifest parseManifest(Path filePath) {
+        for (ManifestFileParser parser : Lookup.getDefault().lookupAll(ManifestFileParser.class)) {
+            if (parser.fileIsManifest(filePath)) {
+                try {
+                    return parser.parse(filePath);
+                } catch (ManifestFileParserException ex) {
+                    sysLogger.log(Level.SEVERE, String.format("Error attempting to parse %s with parser %s", filePath, parser.getClass().getCanonicalName()), ex);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Path getIndexFilePath() {
+        return Paths.get(PlatformUtil.getUserDirectory().getAbsolutePath(), "var", INDEX_FILE_NAME); //NON-NLS
+    }
+
+    /**
+     * The index entry for a directory.
+     */
+    private static final class DirectoryEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private final long lastModified;
+        private final List<String> subdirectoryNames;
+        private final List<String> manifestFileNames;
+
+        private DirectoryEntry(long lastModified, List<String> subdirectoryNames, List<String> manifestFileNames) {
+            this.lastModified = lastModified;
+            this.subdirectoryNames = subdirectoryNames.isEmpty() ? Collections.emptyList() : subdirectoryNames;
+            this.manifestFileNames = manifestFileNames.isEmpty() ? Collections.emptyList() : manifestFileNames;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DirectoryEntry)) {
+                return false;
+            }
+            DirectoryEntry other = (DirectoryEntry) obj;
+            return lastModified == other.lastModified
+                    && subdirectoryNames.equals(other.subdirectoryNames)
+                    && manifestFileNames.equals(other.manifestFileNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModified, subdirectoryNames, manifestFileNames);
+        }
+    }
+
+    /**
+     * The index entry for a manifest file.
+     */
+    static final class ManifestEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private final Manifest manifest;
+        private final long fileLastModified;
+        private final long fileSize;
+        private AutoIngestJob.ProcessingStatus jobStatus;
+        private byte[] completedJobNodeData;
+
+        private ManifestEntry(Manifest manifest, long fileLastModified, long fileSize) {
+            this.manifest = manifest;
+            this.fileLastModified = fileLastModified;
+            this.fileSize = fileSize;
+        }
+
+        /**
+         * Gets the parsed manifest.
+         *
+         * @return The manifest.
+         */
+        Manifest getManifest() {
+            return manifest;
+        }
+
+        /**
+         * Gets the recorded status of the job for the manifest, if the status
+         * is final.
+         *
+         * @return COMPLETED, DELETED, or null if the status has not been
+         *         recorded or is not final.
+         */
+        AutoIngestJob.ProcessingStatus getJobStatus() {
+            return jobStatus;
+        }
+
+        /**
+         * Gets the coordination service node data of the completed job for
+         * the manifest.
+         *
+         * @return The node data, or null if the job status is not COMPLETED.
+         */
+        byte[] getCompletedJobNodeData() {
+            return completedJobNodeData;
+        }
+    }
+}
@@ -23,6 +23,7 @@
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Executors;
@@ -54,6 +55,7 @@
 import javafx.scene.paint.Color;
 import javax.annotation.Nullable;
 import javax.swing.SwingUtilities;
+import org.apache.commons.lang3.StringUtils;
 import org.netbeans.api.progress.ProgressHandle;
 import org.openide.util.Cancellable;
 import org.openide.util.NbBundle;
@@ -677,6 +679,12 @@ abstract static private class BulkTransferTask extends BackgroundTask {
                 //grab files with image or video mime-types even if we don't officially support them
                 + " OR mime_type LIKE 'video/%' OR mime_type LIKE 'image/%' )"; //NON-NLS
 
+        /**
+         * The number of files read from the case db, and committed to the
+         * drawable db, at a time.
+         */
+        static private final int BATCH_SIZE = 2000;
+
         final ImageGalleryController controller;
         final DrawableDB taskDB;
         final SleuthkitCase tskCase;
@@ -691,48 +699,118 @@ abstract static private class BulkTransferTask extends BackgroundTask {
 
         abstract void cleanup(boolean success);
 
-        abstract List<AbstractFile> getFiles() throws TskCoreException;
+        /**
+         * @return a SQL where clause for the files to transfer (do not begin
+         *         the WHERE clause with the word WHERE!)
+         *
+         * @throws TskCoreException if there is a problem building the clause
+         */
+        abstract String getFilesWhereClause() throws TskCoreException;
+
+        /**
+         * Process one file of a batch.
+         *
+         * @param f  the file
+         * @param tr the transaction of the batch, for removing files
+         *
+         * @return the file to insert or update in the drawable db, or null if
+         *         there is nothing to insert or update
+         */
+        abstract DrawableFile processFile(final AbstractFile f, DrawableDB.DrawableTransaction tr) throws TskCoreException;
 
-        abstract void processFile(final AbstractFile f, DrawableDB.DrawableTransaction tr) throws TskCoreException;
+        /**
+         * Insert or update the files of a batch in the drawable db.
+         *
+         * @param files the files
+         * @param tr    the transaction of the batch
+         */
+        abstract void addFiles(List<DrawableFile> files, DrawableDB.DrawableTransaction tr);
 
+        /**
+         * Get the object id of the last file that was transferred by a run of
+         * this task that did not finish, e.g., because the case was closed.
+         *
+         * @return the object id, or zero to start from the first file
+         */
+        long getResumeObjID() {
+            return 0;
+        }
+
+        /**
+         * Record the object id of the last file that was transferred, so that
+         * a later run of this task can resume from it.
+         *
+         * @param objID the object id, or zero once all the files have been
+         *              transferred
+         */
+        void setResumeObjID(long objID) {
+        }
+
+        /**
+         * Transfer the files a batch at a time, in order of object id. Each
+         * batch is read with its own case db query and committed in its own
+         * drawable db transaction, so that only one batch of files is in
+         * memory at a time and a run that is stopped part way through leaves
+         * the drawable db consistent up to the last committed batch.
+         */
         @Override
         public void run() {
             progressHandle = getInitialProgressHandle();
             progressHandle.start();
             updateMessage(Bundle.CopyAnalyzedFiles_populatingDb_status());
 
+            boolean completed = false;
             try {
-                //grab all files with supported extension or detected mime types
-                final List<AbstractFile> files = getFiles();
-                progressHandle.switchToDeterminate(files.size());
+                //count all files with supported extension or detected mime types
+                long lastObjID = getResumeObjID();
+                final long fileCount = tskCase.countFilesWhere(getFilesWhereClause() + " AND obj_id > " + lastObjID); //NON-NLS
+                progressHandle.switchToDeterminate((int) Math.min(fileCount, Integer.MAX_VALUE));
 
                 updateProgress(0.0);
 
-                //do in transaction
-                DrawableDB.DrawableTransaction tr = taskDB.beginTransaction();
-                int workDone = 0;
-                for (final AbstractFile f : files) {
+                long workDone = 0;
+                while (true) {
                     if (isCancelled() || Thread.interrupted()) {
                         LOGGER.log(Level.WARNING, "Task cancelled: not all contents may be transfered to drawable database."); //NON-NLS
                         progressHandle.finish();
                         break;
                     }
 
-                    processFile(f, tr);
+                    //grab the next batch of files
+                    final List<AbstractFile> files = tskCase.findAllFilesWhere(getFilesWhereClause()
+                            + " AND obj_id > " + lastObjID + " ORDER BY obj_id LIMIT " + BATCH_SIZE); //NON-NLS
+                    if (files.isEmpty()) {
+                        setResumeObjID(0);
+                        completed = true;
+                        break;
+                    }
+
+                    //do in transaction
+                    DrawableDB.DrawableTransaction tr = taskDB.beginTransaction();
+                    List<DrawableFile> drawableFiles = new ArrayList<>();
+                    for (final AbstractFile f : files) {
+                        DrawableFile drawableFile = processFile(f, tr);
+                        if (drawableFile != null) {
+                            drawableFiles.add(drawableFile);
+                        }
+                    }
+                    addFiles(drawableFiles, tr);
+                    taskDB.commitTransaction(tr, true);
+                    if (Case.isCaseOpen() == false) {
+                        //the batch may not have been committed, so don't move the resume point past it
+                        LOGGER.log(Level.WARNING, "Case closed: not all contents were transfered to drawable database."); //NON-NLS
+                        break;
+                    }
 
-                    workDone++;
-                    progressHandle.progress(f.getName(), workDone);
-                    updateProgress(workDone - 1 / (double) files.size());
-                    updateMessage(f.getName());
+                    lastObjID = files.get(files.size() - 1).getId();
+                    setResumeObjID(lastObjID);
+                    workDone += files.size();
+                    progressHandle.progress(files.get(files.size() - 1).getName(), (int) Math.min(workDone, fileCount));
+                    updateProgress(workDone / (double) Math.max(fileCount, 1));
+                    updateMessage(files.get(files.size() - 1).getName());
                 }
 
                 progressHandle.finish();
-                progressHandle = ProgressHandle.createHandle(Bundle.BulkTask_committingDb_status());
-                updateMessage(Bundle.BulkTask_committingDb_status());
-                updateProgress(1.0);
-
-                progressHandle.start();
-                taskDB.commitTransaction(tr, true);
 
             } catch (TskCoreException ex) {
                 progressHandle.progress(Bundle.BulkTask_stopCopy_status());
@@ -745,7 +823,7 @@ public void run() {
                 updateMessage("");
                 updateProgress(-1.0);
             }
-            cleanup(true);
+            cleanup(completed);
         }
 
         abstract ProgressHandle getInitialProgressHandle();
@@ -756,7 +834,9 @@ public void run() {
      *
      * Grabs all files with supported image/video mime types or extensions, and
      * adds them to the Drawable DB. Uses the presence of a mimetype as an
-     * approximation to 'analyzed'.
+     * approximation to 'analyzed'. If the case is closed before all the files
+     * have been added, the next run of this task resumes after the last batch
+     * that was committed.
      */
     @NbBundle.Messages({"CopyAnalyzedFiles.committingDb.status=committing image/video database",
         "CopyAnalyzedFiles.stopCopy.status=Stopping copy to drawable db task.",
@@ -773,12 +853,12 @@ protected void cleanup(boolean success) {
         }
 
         @Override
-        List<AbstractFile> getFiles() throws TskCoreException {
-            return tskCase.findAllFilesWhere(DRAWABLE_QUERY);
+        String getFilesWhereClause() {
+            return DRAWABLE_QUERY;
         }
 
         @Override
-        void processFile(AbstractFile f, DrawableDB.DrawableTransaction tr) {
+        DrawableFile processFile(AbstractFile f, DrawableDB.DrawableTransaction tr) {
             final boolean known = f.getKnown() == TskData.FileKnown.KNOWN;
 
             if (known) {
@@ -787,7 +867,7 @@ void processFile(AbstractFile f, DrawableDB.DrawableTransaction tr) {
 
                 try {
                     if (FileTypeUtils.hasDrawableMIMEType(f)) {  //supported mimetype => analyzed
-                        taskDB.updateFile(DrawableFile.create(f, true, false), tr);
+                        return DrawableFile.create(f, true, false);
                     } else { //unsupported mimtype => analyzed but shouldn't include
                         taskDB.removeFile(f.getId(), tr);
                     }
@@ -795,6 +875,37 @@ void processFile(AbstractFile f, DrawableDB.DrawableTransaction tr) {
                     throw new RuntimeException(ex);
                 }
             }
+            return null;
+        }
+
+        @Override
+        void addFiles(List<DrawableFile> files, DrawableDB.DrawableTransaction tr) {
+            taskDB.updateFiles(files, tr);
+        }
+
+        @Override
+        long getResumeObjID() {
+            try {
+                Case currentCase = Case.getCurrentCaseThrows();
+                if (ImageGalleryModule.isDrawableDBStale(currentCase)) {
+                    String resumeObjID = new PerCaseProperties(currentCase).getConfigSetting(ImageGalleryModule.getModuleName(), PerCaseProperties.RESUME_OBJ_ID);
+                    if (StringUtils.isNotBlank(resumeObjID)) {
+                        return Long.parseLong(resumeObjID);
+                    }
+                }
+            } catch (NoCurrentCaseException | NumberFormatException ex) {
+                LOGGER.log(Level.WARNING, "Could not get the object id to resume populating the drawable db from, starting from the first file.", ex); //NON-NLS
+            }
+            return 0;
+        }
+
+        @Override
+        void setResumeObjID(long objID) {
+            try {
+                new PerCaseProperties(Case.getCurrentCaseThrows()).setConfigSetting(ImageGalleryModule.getModuleName(), PerCaseProperties.RESUME_OBJ_ID, Long.toString(objID));
+            } catch (NoCurrentCaseException ex) {
+                LOGGER.log(Level.WARNING, "Exception while getting open case."); //NON-NLS
+            }
         }
 
         @Override
@@ -833,14 +944,19 @@ protected void cleanup(boolean success) {
         }
 
         @Override
-        void processFile(final AbstractFile f, DrawableDB.DrawableTransaction tr) {
-            taskDB.insertFile(DrawableFile.create(f, false, false), tr);
+        DrawableFile processFile(final AbstractFile f, DrawableDB.DrawableTransaction tr) {
+            return DrawableFile.create(f, false, false);
+        }
+
+        @Override
+        void addFiles(List<DrawableFile> files, DrawableDB.DrawableTransaction tr) {
+            taskDB.insertFiles(files, tr);
         }
 
         @Override
-        List<AbstractFile> getFiles() throws TskCoreException {
+        String getFilesWhereClause() throws TskCoreException {
             long datasourceID = dataSource.getDataSource().getId();
-            return tskCase.findAllFilesWhere("data_source_obj_id = " + datasourceID + " AND " + DRAWABLE_QUERY);
+            return "data_source_obj_id = " + datasourceID + " AND " + DRAWABLE_QUERY; //NON-NLS
         }
 
         @Override
@@ -41,6 +41,8 @@ class PerCaseProperties {
 
     public static final String STALE = "stale"; //NON-NLS
 
+    public static final String RESUME_OBJ_ID = "resume_obj_id"; //NON-NLS
+
     private final Case theCase;
 
     PerCaseProperties(Case c) {
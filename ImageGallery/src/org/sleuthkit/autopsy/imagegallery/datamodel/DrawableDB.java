@@ -29,6 +29,7 @@
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -47,6 +48,7 @@
 import javax.annotation.concurrent.GuardedBy;
 import javax.swing.SortOrder;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.text.WordUtils;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.imagegallery.FileTypeUtils;
@@ -89,6 +91,8 @@ public final class DrawableDB {
 
     private final PreparedStatement groupSeenQueryStmt;
 
+    private final PreparedStatement groupsSeenQueryStmt;
+
     private final PreparedStatement insertGroupStmt;
 
     private final List<PreparedStatement> preparedStatements = new ArrayList<>();
@@ -224,6 +228,7 @@ private DrawableDB(Path dbPath, ImageGalleryController controller) throws SQLExc
             insertGroupStmt = prepareStatement("insert or ignore into groups (value, attribute) values (?,?)"); //NON-NLS
 
             groupSeenQueryStmt = prepareStatement("SELECT seen FROM groups WHERE value = ? AND attribute = ?"); //NON-NLS
+            groupsSeenQueryStmt = prepareStatement("SELECT value, seen FROM groups WHERE attribute = ?"); //NON-NLS
 
             selectHashSetNamesStmt = prepareStatement("SELECT DISTINCT hash_set_name FROM hash_sets"); //NON-NLS
             insertHashSetStmt = prepareStatement("INSERT OR IGNORE INTO hash_sets (hash_set_name)  VALUES (?)"); //NON-NLS
@@ -547,6 +552,131 @@ public boolean isGroupSeen(GroupKey<?> groupKey) {
         return false;
     }
 
+    /**
+     * Can the groups for the given attribute be built by
+     * {@link #scanGroups(DrawableAttribute, GroupScanCallback)}?
+     *
+     * @param groupBy the attribute to group by
+     *
+     * @return true if the values of the attribute are stored in this db
+     */
+    public static boolean canScanGroups(DrawableAttribute<?> groupBy) {
+        switch (groupBy.attrName) {
+            case PATH:
+            case NAME:
+            case CREATED_TIME:
+            case MODIFIED_TIME:
+            case MAKE:
+            case MODEL:
+            case ANALYZED:
+            case HASHSET:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Build all the groups for the given attribute with a single query that
+     * returns the files ordered by their value for the attribute, and pass each
+     * group to the callback as soon as all of its files have been read. This
+     * replaces finding the values of the attribute and then querying the files
+     * and seen state of each group separately. Files with no value for the
+     * attribute are not part of any group.
+     *
+     * @param groupBy  the attribute to group by, one for which
+     *                 {@link #canScanGroups(DrawableAttribute)} is true
+     * @param callback the callback to pass the groups to, it is called with
+     *                 the db locked, so it must not access the db
+     *
+     * @throws TskCoreException if there is a problem querying the db
+     */
+    public <A extends Comparable<A>> void scanGroups(DrawableAttribute<A> groupBy, GroupScanCallback<A> callback) throws TskCoreException {
+        if (canScanGroups(groupBy) == false) {
+            throw new UnsupportedOperationException("Can not scan groups for " + groupBy.attrName); //NON-NLS
+        }
+        final String query;
+        if (groupBy == DrawableAttribute.HASHSET) {
+            query = "SELECT hash_sets.hash_set_name AS group_value, drawable_files.obj_id AS obj_id, drawable_files.analyzed AS analyzed " //NON-NLS
+                    + " FROM drawable_files, hash_sets, hash_set_hits " //NON-NLS
+                    + " WHERE drawable_files.obj_id = hash_set_hits.obj_id AND hash_sets.hash_set_id = hash_set_hits.hash_set_id " //NON-NLS
+                    + " ORDER BY hash_sets.hash_set_name"; //NON-NLS
+        } else {
+            final String column = groupBy.attrName.toString();
+            query = "SELECT " + column + " AS group_value, obj_id, analyzed FROM drawable_files WHERE " + column + " IS NOT NULL ORDER BY " + column; //NON-NLS
+        }
+
+        dbReadLock();
+        try {
+            //the seen state of every group for the attribute, looked up by value as in isGroupSeen()
+            Map<String, Boolean> seenByValue = new HashMap<>();
+            groupsSeenQueryStmt.clearParameters();
+            groupsSeenQueryStmt.setString(1, groupBy.attrName.toString());
+            try (ResultSet rs = groupsSeenQueryStmt.executeQuery()) {
+                while (rs.next()) {
+                    seenByValue.put(rs.getString("value"), rs.getBoolean("seen")); //NON-NLS
+                }
+            }
+
+            try (Statement stmt = con.createStatement();
+                    ResultSet rs = stmt.executeQuery(query)) {
+                A groupValue = null;
+                Set<Long> fileIDs = new HashSet<>();
+                boolean analyzed = true;
+                while (rs.next()) {
+                    /*
+                     * As in findValuesForAttribute(), we know the value is of
+                     * type A, except for ANALYZED which sqlite stores as an
+                     * integer
+                     */
+                    @SuppressWarnings("unchecked")
+                    A value = (groupBy == DrawableAttribute.ANALYZED)
+                            ? (A) Boolean.valueOf(rs.getBoolean("group_value")) //NON-NLS
+                            : (A) rs.getObject("group_value"); //NON-NLS
+                    if (groupValue != null && groupValue.equals(value) == false) {
+                        GroupKey<A> groupKey = new GroupKey<>(groupBy, groupValue);
+                        if (callback.groupScanned(groupKey, fileIDs, analyzed, seenByValue.getOrDefault(groupKey.getValueDisplayName(), false)) == false) {
+                            return;
+                        }
+                        fileIDs = new HashSet<>();
+                        analyzed = true;
+                    }
+                    groupValue = value;
+                    fileIDs.add(rs.getLong(OBJ_ID));
+                    analyzed &= rs.getBoolean(ANALYZED);
+                }
+                if (groupValue != null) {
+                    GroupKey<A> groupKey = new GroupKey<>(groupBy, groupValue);
+                    callback.groupScanned(groupKey, fileIDs, analyzed, seenByValue.getOrDefault(groupKey.getValueDisplayName(), false));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Failed to scan groups for " + groupBy.attrName, ex); //NON-NLS
+        } finally {
+            dbReadUnlock();
+        }
+    }
+
+    /**
+     * Receives the groups built by
+     * {@link #scanGroups(DrawableAttribute, GroupScanCallback)}, in the order of
+     * their values.
+     *
+     * @param <A> the type of the values of the attribute grouped by
+     */
+    public interface GroupScanCallback<A extends Comparable<A>> {
+
+        /**
+         * @param groupKey the key of the group
+         * @param fileIDs  the ids of all the files in the group
+         * @param analyzed true if all the files in the group are analyzed
+         * @param seen     true if the group has been marked as seen
+         *
+         * @return false to stop the scan
+         */
+        boolean groupScanned(GroupKey<A> groupKey, Set<Long> fileIDs, boolean analyzed, boolean seen);
+    }
+
     public void markGroupSeen(GroupKey<?> gk, boolean seen) {
         dbWriteLock();
         try {
@@ -676,6 +806,193 @@ private void insertOrUpdateFile(DrawableFile f, @Nonnull DrawableTransaction tr,
         }
     }
 
+    public void insertFiles(List<DrawableFile> files, DrawableTransaction tr) {
+        insertOrUpdateFiles(files, tr, insertFileStmt);
+    }
+
+    public void updateFiles(List<DrawableFile> files, DrawableTransaction tr) {
+        insertOrUpdateFiles(files, tr, updateFileStmt);
+    }
+
+    /**
+     * Update (or insert) a batch of files in(to) the drawable db. This has the
+     * same effect as calling
+     * {@link #insertOrUpdateFile(DrawableFile, DrawableTransaction, PreparedStatement)}
+     * for each file, but it looks up the make, model, and hash set names of
+     * all the files with one query each instead of several queries per file,
+     * and executes the inserts as jdbc batches. Files without a make or model
+     * get the same empty value DrawableFile reports for them. Groups are not
+     * inserted for categories and tags, since looking them up takes queries
+     * per file and a group without a row in the groups table is treated as unseen anyway.
+     *
+     * @param files The files to insert.
+     * @param tr    a transaction to use, must not be null
+     * @param stmt  the statement that does the actull inserting
+     */
+    private void insertOrUpdateFiles(List<DrawableFile> files, @Nonnull DrawableTransaction tr, @Nonnull PreparedStatement stmt) {
+        if (tr.isClosed()) {
+            throw new IllegalArgumentException("can't update database with closed transaction");
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        final Map<Long, String> makes = new HashMap<>();
+        final Map<Long, String> models = new HashMap<>();
+        final Map<Long, Set<String>> hashSetNames = new HashMap<>();
+        try {
+            lookUpBatchAttributes(files, makes, models, hashSetNames);
+        } catch (TskCoreException | SQLException ex) {
+            LOGGER.log(Level.WARNING, "failed to look up attributes of a batch of files, inserting them one at a time", ex); //NON-NLS
+            for (DrawableFile f : files) {
+                insertOrUpdateFile(f, tr, stmt);
+            }
+            return;
+        }
+
+        dbWriteLock();
+        try {
+            // "INSERT OR IGNORE/ INTO drawable_files (path, name, created_time, modified_time, make, model, analyzed)"
+            for (DrawableFile f : files) {
+                stmt.setLong(1, f.getId());
+                stmt.setString(2, f.getDrawablePath());
+                stmt.setString(3, f.getName());
+                stmt.setLong(4, f.getCrtime());
+                stmt.setLong(5, f.getMtime());
+                stmt.setString(6, makes.getOrDefault(f.getId(), NO_MAKE_OR_MODEL));
+                stmt.setString(7, models.getOrDefault(f.getId(), NO_MAKE_OR_MODEL));
+                stmt.setBoolean(8, f.isAnalyzed());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            // "insert or ignore into hash_sets (hash_set_name)  values (?)"
+            Map<String, Integer> hashSetIDs = new HashMap<>();
+            for (Set<String> names : hashSetNames.values()) {
+                for (String name : names) {
+                    if (hashSetIDs.containsKey(name) == false) {
+                        insertHashSetStmt.setString(1, name);
+                        insertHashSetStmt.executeUpdate();
+                        selectHashSetStmt.setString(1, name);
+                        try (ResultSet rs = selectHashSetStmt.executeQuery()) {
+                            while (rs.next()) {
+                                hashSetIDs.put(name, rs.getInt("hash_set_id")); //NON-NLS
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            //"insert or ignore into hash_set_hits (hash_set_id, obj_id) values (?,?)";
+            for (Map.Entry<Long, Set<String>> entry : hashSetNames.entrySet()) {
+                for (String name : entry.getValue()) {
+                    Integer hashSetID = hashSetIDs.get(name);
+                    if (hashSetID != null) {
+                        insertHashHitStmt.setInt(1, hashSetID);
+                        insertHashHitStmt.setLong(2, entry.getKey());
+                        insertHashHitStmt.addBatch();
+                    }
+                }
+            }
+            insertHashHitStmt.executeBatch();
+
+            //and insert all the groups these files are in, once each
+            Set<List<String>> groups = new HashSet<>();
+            for (DrawableFile f : files) {
+                addGroup(groups, DrawableAttribute.PATH, f.getDrawablePath());
+                addGroup(groups, DrawableAttribute.MAKE, makes.getOrDefault(f.getId(), NO_MAKE_OR_MODEL));
+                addGroup(groups, DrawableAttribute.MODEL, models.getOrDefault(f.getId(), NO_MAKE_OR_MODEL));
+                addGroup(groups, DrawableAttribute.MIME_TYPE, f.getMIMEType());
+                for (String name : hashSetNames.getOrDefault(f.getId(), Collections.emptySet())) {
+                    addGroup(groups, DrawableAttribute.HASHSET, name);
+                }
+            }
+            //"insert or ignore into groups (value, attribute) values (?,?)"
+            for (List<String> group : groups) {
+                insertGroupStmt.setString(1, group.get(0));
+                insertGroupStmt.setString(2, group.get(1));
+                insertGroupStmt.addBatch();
+            }
+            insertGroupStmt.executeBatch();
+
+            for (DrawableFile f : files) {
+                // Update the list of file IDs in memory
+                addImageFileToList(f.getId());
+                tr.addUpdatedFile(f.getId());
+            }
+        } catch (SQLException | NullPointerException ex) {
+            /*
+             * This is one of the places where we get an error if the case is
+             * closed during processing, which doesn't need to be reported here.
+             */
+            if (Case.isCaseOpen()) {
+                LOGGER.log(Level.SEVERE, "failed to insert/update a batch of " + files.size() + " files", ex); //NON-NLS
+            }
+        } finally {
+            dbWriteUnlock();
+        }
+    }
+
+    /**
+     * The make or model of a file without one, as DrawableFile.getMake() and
+     * DrawableFile.getModel() report it, so that bulk inserted files and files
+     * inserted one at a time are grouped alike.
+     */
+    private static final String NO_MAKE_OR_MODEL = "";
+
+    private static void addGroup(Set<List<String>> groups, DrawableAttribute<?> attr, String value) {
+        if (null != value) {
+            groups.add(Arrays.asList(value, attr.attrName.toString()));
+        }
+    }
+
+    /**
+     * Look up the make, model, and hash set names of a batch of files in the
+     * case db, the same way DrawableFile and AbstractFile do for a single file.
+     *
+     * @param files        the files to look up
+     * @param makes        filled in with the camera make of each file that has
+     *                     one
+     * @param models       filled in with the camera model of each file that
+     *                     has one
+     * @param hashSetNames filled in with the names of the hash sets each file
+     *                     that has hash set hits is in
+     *
+     * @throws TskCoreException if there is a problem querying the case db
+     * @throws SQLException     if there is a problem reading the results
+     */
+    private void lookUpBatchAttributes(List<DrawableFile> files, Map<Long, String> makes, Map<Long, String> models, Map<Long, Set<String>> hashSetNames) throws TskCoreException, SQLException {
+        String fileIDs = files.stream()
+                .map(f -> Long.toString(f.getId()))
+                .collect(Collectors.joining(",", "(", ")"));
+        String query = "SELECT blackboard_artifacts.obj_id AS obj_id, blackboard_artifacts.artifact_type_id AS artifact_type_id, " //NON-NLS
+                + " blackboard_attributes.attribute_type_id AS attribute_type_id, blackboard_attributes.value_text AS value_text " //NON-NLS
+                + " FROM blackboard_artifacts, blackboard_attributes " //NON-NLS
+                + " WHERE blackboard_artifacts.artifact_id = blackboard_attributes.artifact_id " //NON-NLS
+                + " AND blackboard_artifacts.obj_id IN " + fileIDs //NON-NLS
+                + " AND ((blackboard_artifacts.artifact_type_id = " + BlackboardArtifact.ARTIFACT_TYPE.TSK_METADATA_EXIF.getTypeID() //NON-NLS
+                + " AND blackboard_attributes.attribute_type_id IN (" + BlackboardAttribute.ATTRIBUTE_TYPE.TSK_DEVICE_MAKE.getTypeID() //NON-NLS
+                + "," + BlackboardAttribute.ATTRIBUTE_TYPE.TSK_DEVICE_MODEL.getTypeID() + "))" //NON-NLS
+                + " OR (blackboard_artifacts.artifact_type_id = " + BlackboardArtifact.ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID() //NON-NLS
+                + " AND blackboard_attributes.attribute_type_id = " + BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID() + "))" //NON-NLS
+                + " ORDER BY blackboard_artifacts.artifact_id"; //NON-NLS
+        try (SleuthkitCase.CaseDbQuery executeQuery = tskCase.executeQuery(query);
+                ResultSet rs = executeQuery.getResultSet()) {
+            while (rs.next()) {
+                long objID = rs.getLong("obj_id"); //NON-NLS
+                String value = rs.getString("value_text"); //NON-NLS
+                if (rs.getInt("artifact_type_id") == BlackboardArtifact.ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID()) { //NON-NLS
+                    hashSetNames.computeIfAbsent(objID, id -> new HashSet<>()).add(value);
+                } else if (rs.getInt("attribute_type_id") == BlackboardAttribute.ATTRIBUTE_TYPE.TSK_DEVICE_MAKE.getTypeID()) { //NON-NLS
+                    //like DrawableFile.getMake(), use the first value found
+                    makes.putIfAbsent(objID, WordUtils.capitalizeFully(value));
+                } else {
+                    models.putIfAbsent(objID, WordUtils.capitalizeFully(value));
+                }
+            }
+        }
+    }
+
     public DrawableTransaction beginTransaction() {
         return new DrawableTransaction();
     }
@@ -28,6 +28,7 @@
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -92,6 +93,12 @@ public class GroupManager {
 
     private static final Logger LOGGER = Logger.getLogger(GroupManager.class.getName());
 
+    /**
+     * the number of groups built by a regroup scan that are added to the ui at
+     * a time
+     */
+    private static final int REGROUP_BATCH_SIZE = 200;
+
     private DrawableDB db;
 
     private final ImageGalleryController controller;
@@ -666,22 +673,8 @@ private DrawableGroup popuplateIfAnalyzed(GroupKey<?> groupKey, ReGroupTask<?> t
                 try {
                     Set<Long> fileIDs = getFileIDsInGroup(groupKey);
                     if (Objects.nonNull(fileIDs)) {
-                        DrawableGroup group;
                         final boolean groupSeen = db.isGroupSeen(groupKey);
-                        synchronized (groupMap) {
-                            if (groupMap.containsKey(groupKey)) {
-                                group = groupMap.get(groupKey);
-
-                                group.setFiles(ObjectUtils.defaultIfNull(fileIDs, Collections.emptySet()));
-                            } else {
-                                group = new DrawableGroup(groupKey, fileIDs, groupSeen);
-                                controller.getCategoryManager().registerListener(group);
-                                group.seenProperty().addListener((o, oldSeen, newSeen) -> 
-                                    Platform.runLater(() -> markGroupSeen(group, newSeen))
-                                );
-                                groupMap.put(groupKey, group);
-                            }
-                        }
+                        final DrawableGroup group = getOrCreateGroup(groupKey, fileIDs, groupSeen);
                         Platform.runLater(() -> {
                             if (analyzedGroups.contains(group) == false) {
                                 analyzedGroups.add(group);
@@ -702,6 +695,35 @@ private DrawableGroup popuplateIfAnalyzed(GroupKey<?> groupKey, ReGroupTask<?> t
         return null;
     }
 
+    /**
+     * get the group for the given key from the group map, setting its files to
+     * the given files, or create the group and add it to the map if there
+     * isn't one.
+     *
+     * @param groupKey the key of the group
+     * @param fileIDs  the ids of the files in the group
+     * @param seen     the seen state for a newly created group
+     *
+     * @return the group for the given key
+     */
+    private DrawableGroup getOrCreateGroup(GroupKey<?> groupKey, Set<Long> fileIDs, boolean seen) {
+        synchronized (groupMap) {
+            if (groupMap.containsKey(groupKey)) {
+                DrawableGroup group = groupMap.get(groupKey);
+                group.setFiles(ObjectUtils.defaultIfNull(fileIDs, Collections.emptySet()));
+                return group;
+            } else {
+                DrawableGroup group = new DrawableGroup(groupKey, fileIDs, seen);
+                controller.getCategoryManager().registerListener(group);
+                group.seenProperty().addListener((o, oldSeen, newSeen)
+                        -> Platform.runLater(() -> markGroupSeen(group, newSeen))
+                );
+                groupMap.put(groupKey, group);
+                return group;
+            }
+        }
+    }
+
     public Set<Long> getFileIDsWithMimeType(String mimeType) throws TskCoreException {
 
         HashSet<Long> hashSet = new HashSet<>();
@@ -736,7 +758,10 @@ public Set<Long> getFileIDsWithMimeType(String mimeType) throws TskCoreException
         "ReGroupTask.displayTitle=regrouping files by {0} sorted by {1} in {2} order",
         "# {0} - groupBy attribute Name",
         "# {1} - atribute value",
-        "ReGroupTask.progressUpdate=regrouping files by {0} : {1}"})
+        "ReGroupTask.progressUpdate=regrouping files by {0} : {1}",
+        "# {0} - groupBy attribute Name",
+        "# {1} - number of groups",
+        "ReGroupTask.scanProgressUpdate=regrouping files by {0} : {1} groups"})
     private class ReGroupTask<AttrType extends Comparable<AttrType>> extends LoggedTask<Void> {
 
         private ProgressHandle groupProgress;
@@ -773,6 +798,11 @@ protected Void call() throws Exception {
                 unSeenGroups.clear();
             });
 
+            if (nonNull(db) && DrawableDB.canScanGroups(groupBy)) {
+                scanGroups();
+                return null;
+            }
+
             // Get the list of group keys
             final List<AttrType> vals = findValuesForAttribute(groupBy);
 
@@ -796,6 +826,82 @@ protected Void call() throws Exception {
             return null;
         }
 
+        /**
+         * Build all the groups with a single ordered scan of the db, adding
+         * them to the ui in batches as they are built, instead of querying the
+         * db for each group.
+         */
+        private void scanGroups() throws TskCoreException {
+            final int fileCount = Math.max(db.countAllFiles(), 1);
+            groupProgress.start(fileCount);
+
+            final Map<DrawableGroup, Boolean> batch = new LinkedHashMap<>();
+            final int[] counts = new int[2]; //files scanned, groups built
+            db.scanGroups(groupBy, (groupKey, fileIDs, analyzed, seen) -> {
+                if (isCancelled()) {
+                    return false; //abort
+                }
+                counts[0] = Math.min(counts[0] + fileIDs.size(), fileCount);
+                /*
+                 * for attributes other than path we can't be sure a group is
+                 * fully analyzed because we don't know all the files that will
+                 * be a part of that group,. just show them no matter what.
+                 */
+                if (groupKey.getAttribute() != DrawableAttribute.PATH || analyzed) {
+                    counts[1]++;
+                    batch.put(getOrCreateGroup(groupKey, fileIDs, seen), seen);
+                    if (batch.size() >= REGROUP_BATCH_SIZE) {
+                        addGroups(new LinkedHashMap<>(batch));
+                        batch.clear();
+                        String message = Bundle.ReGroupTask_scanProgressUpdate(groupBy.attrName.toString(), counts[1]);
+                        updateMessage(message);
+                        updateProgress(counts[0], fileCount);
+                        groupProgress.progress(message, counts[0]);
+                    }
+                }
+                return true;
+            });
+            if (isCancelled()) {
+                return;
+            }
+            addGroups(batch);
+            Platform.runLater(() -> {
+                FXCollections.sort(analyzedGroups, applySortOrder(sortOrder, sortBy));
+                FXCollections.sort(unSeenGroups, applySortOrder(sortOrder, sortBy));
+            });
+            updateProgress(1, 1);
+        }
+
+        /**
+         * add a batch of built groups to the analyzed and unseen groups. The
+         * seen state of the groups came from the db, so unlike
+         * markGroupSeen(), this doesn't write it back.
+         *
+         * @param groups the groups, mapped to their seen state
+         */
+        private void addGroups(Map<DrawableGroup, Boolean> groups) {
+            Platform.runLater(() -> {
+                if (isCancelled()) {
+                    return;
+                }
+                Set<DrawableGroup> analyzed = new HashSet<>(analyzedGroups);
+                Set<DrawableGroup> unSeen = new HashSet<>(unSeenGroups);
+                groups.forEach((group, seen) -> {
+                    if (analyzed.contains(group) == false) {
+                        analyzedGroups.add(group);
+                    }
+                    group.setSeen(seen);
+                    if (seen) {
+                        if (unSeen.contains(group)) {
+                            unSeenGroups.remove(group);
+                        }
+                    } else if (unSeen.contains(group) == false) {
+                        unSeenGroups.add(group);
+                    }
+                });
+            });
+        }
+
         @Override
         protected void done() {
             super.done();
@@ -19,10 +19,8 @@
 package org.sleuthkit.autopsy.keywordsearch;
 
 import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -35,14 +33,13 @@
  * for loop. The base chunk is the part of the chunk before the overlapping
  * window. The window will be included at the end of the current chunk as well
  * as at the beginning of the next chunk.
+ *
+ * The text is read, sanitized and measured in reusable char buffers, so the
+ * only per chunk allocation is the String of the chunk itself.
  */
 @NotThreadSafe
 class Chunker implements Iterator<Chunk>, Iterable<Chunk> {
 
-    //local references to standard encodings
-    private static final Charset UTF_16 = StandardCharsets.UTF_16;
-    private static final Charset UTF_8 = StandardCharsets.UTF_8;
-
     //Chunking algorithm paramaters-------------------------------------//
     /** the maximum size of a chunk, including the window. */
     private static final int MAX_TOTAL_CHUNK_SIZE = 32760; //bytes
@@ -58,12 +55,30 @@ class Chunker implements Iterator<Chunk>, Iterable<Chunk> {
     /** The number of characters to read in one go from the Reader. */
     private static final int READ_CHARS_BUFFER_SIZE = 512; //chars
 
+    /** The replacement for unpaired surrogates, i.e., invalid UTF-16. */
+    private static final char INVALID_UTF16_REPLACEMENT = '\uFFFD';
+    /** The replacement for characters that Solr does not accept. */
+    private static final char INVALID_SOLR_UTF8_REPLACEMENT = '^';
+
     ////chunker state--------------------------------------------///
-    /** The Reader that this chunk reads from, and divides into chunks. It must
-     * be a buffered reader to ensure that mark/reset are supported. */
-    private final PushbackReader reader;
+    /** The Reader that this chunk reads from, and divides into chunks. */
+    private final Reader reader;
+    /** Characters that have been pushed back to be read again before reading
+     * more from the Reader. They are stored at the end of the array, starting
+     * at pushbackPos. */
+    private char[] pushbackBuf = new char[MAX_TOTAL_CHUNK_SIZE];
+    private int pushbackPos = MAX_TOTAL_CHUNK_SIZE;
+    /** Has the Reader itself returned end of stream? There may still be
+     * pushed back chars to read. */
+    private boolean readerExhausted = false;
     /** The local buffer of characters read from the Reader. */
     private final char[] tempChunkBuf = new char[READ_CHARS_BUFFER_SIZE];
+    /** The sanitized text of the chunk (so far). Every char read takes at
+     * least one byte of UTF-8, so a chunk will fit unless the last segment
+     * read pushes it over. */
+    private char[] chunkBuf = new char[MAX_TOTAL_CHUNK_SIZE + READ_CHARS_BUFFER_SIZE];
+    /** the length in chars of the chunk (so far). */
+    private int chunkLength = 0;
 
     /** the size in bytes of the chunk (so far). */
     private int chunkSizeBytes = 0;
@@ -79,8 +94,7 @@ class Chunker implements Iterator<Chunk>, Iterable<Chunk> {
      * @param reader The content to chunk.
      */
     Chunker(Reader reader) {
-        //Using MAX_TOTAL_CHUNK_SIZE is safe but probably overkill.
-        this.reader = new PushbackReader(reader, MAX_TOTAL_CHUNK_SIZE);
+        this.reader = reader;
     }
 
     @Override
@@ -114,41 +128,51 @@ public boolean hasNext() {
     }
 
     /**
-     * Sanitize the given StringBuilder by replacing non-UTF-8 characters with
-     * caret '^'
+     * Copy a segment of text to the end of the current chunk, sanitizing it
+     * on the way. Unpaired surrogates are replaced with the default
+     * replacement character U+FFFD / \uFFFD, and characters that are not valid
+     * in Solr are replaced with caret '^'. Each char is replaced by exactly one
+     * char, so the sanitized segment has the same length as the original.
      *
-     * @param sb the StringBuilder to sanitize
+     * The length of the chunk is not updated, so that the caller can decide
+     * whether to keep the segment or not.
      *
-     * //JMTODO: use Charsequence.chars() or codePoints() and then a mapping
-     * function?
+     * @param segment       The chars of the segment.
+     * @param segmentLength The number of chars in the segment.
+     *
+     * @return The size in bytes of the UTF-8 encoding of the sanitized segment.
      */
-    private static StringBuilder sanitizeToUTF8(StringBuilder sb) {
-        final int length = sb.length();
-        for (int i = 0; i < length; i++) {
-            if (TextUtil.isValidSolrUTF8(sb.charAt(i)) == false) {
-                sb.replace(i, i + 1, "^");
+    private int sanitizeToChunk(char[] segment, int segmentLength) {
+        if (chunkLength + segmentLength > chunkBuf.length) {
+            chunkBuf = Arrays.copyOf(chunkBuf, Math.max(chunkBuf.length * 2, chunkLength + segmentLength));
+        }
+        int segmentSizeBytes = 0;
+        for (int i = 0; i < segmentLength; i++) {
+            char ch = segment[i];
+            if (Character.isHighSurrogate(ch) && (i + 1 < segmentLength) && Character.isLowSurrogate(segment[i + 1])) {
+                //a valid surrogate pair is a supplementary code point, 4 bytes in utf-8
+                chunkBuf[chunkLength + i] = ch;
+                chunkBuf[chunkLength + i + 1] = segment[i + 1];
+                segmentSizeBytes += 4;
+                i++;
+                continue;
+            }
+            if (Character.isSurrogate(ch)) {
+                ch = INVALID_UTF16_REPLACEMENT;
+            }
+            if (TextUtil.isValidSolrUTF8(ch) == false) {
+                ch = INVALID_SOLR_UTF8_REPLACEMENT;
+            }
+            chunkBuf[chunkLength + i] = ch;
+            if (ch < 0x80) {
+                segmentSizeBytes += 1;
+            } else if (ch < 0x800) {
+                segmentSizeBytes += 2;
+            } else {
+                segmentSizeBytes += 3;
             }
         }
-        return sb;
-    }
-
-    /**
-     * Cleanup invalid codepoint sequences by replacing them with the default
-     * replacement character: U+FFFD / �.
-     *
-     * @param s The string to cleanup.
-     *
-     * @return A StringBuilder with the same content as s but where all invalid
-     *         code     *         points have been replaced.
-     */
-    private static StringBuilder replaceInvalidUTF16(String s) {
-        /* encode the string to UTF-16 which does the replcement, see
-         * Charset.encode(), then decode back to a StringBuilder. */
-        return new StringBuilder(UTF_16.decode(UTF_16.encode(s)));
-    }
-
-    private static StringBuilder sanitize(String s) {
-        return sanitizeToUTF8(replaceInvalidUTF16(s));
+        return segmentSizeBytes;
     }
 
     @Override
@@ -159,33 +183,33 @@ public Chunk next() {
         //reset state for the next chunk
 
         chunkSizeBytes = 0;
+        chunkLength = 0;
         int baseChunkSizeChars = 0;
-        StringBuilder currentChunk = new StringBuilder();
-        StringBuilder currentWindow = new StringBuilder();
 
         try {
-            currentChunk.append(readBaseChunk());
-            baseChunkSizeChars = currentChunk.length(); //save the base chunk length
-            currentWindow.append(readWindow());
-                //add the window text to the current chunk.
-        currentChunk.append(currentWindow);
+            readBaseChunk();
+            baseChunkSizeChars = chunkLength; //save the base chunk length
+            //add the window text to the current chunk.
+            readWindow();
             if (endOfReaderReached) {
                 /* if we have reached the end of the content,we won't make
                  * another overlapping chunk, so the length of the base chunk
                  * can be extended to the end. */
-                baseChunkSizeChars = currentChunk.length();
+                baseChunkSizeChars = chunkLength;
             } else {
                 /* otherwise we will make another chunk, so unread the window */
-                reader.unread(currentWindow.toString().toCharArray());
+                unread(chunkBuf, baseChunkSizeChars, chunkLength - baseChunkSizeChars);
             }
         } catch (Exception ioEx) {
             /* Save the exception, which will cause hasNext() to return false,
-             * and break any chunking loop in client code. */
+             * and break any chunking loop in client code. A partially read
+             * base chunk or window is dropped. */
             ex = ioEx;
+            chunkLength = baseChunkSizeChars;
         }
-    
-        //sanitize the text and return a Chunk object, that includes the base chunk length.
-        return new Chunk(currentChunk, baseChunkSizeChars, chunkSizeBytes);
+
+        //return a Chunk object, that includes the base chunk length.
+        return new Chunk(new String(chunkBuf, 0, chunkLength), baseChunkSizeChars, chunkSizeBytes);
     }
 
     /**
@@ -193,14 +217,12 @@ public Chunk next() {
      *
      * @throws IOException if there is a problem reading from the reader.
      */
-    private StringBuilder readBaseChunk() throws IOException {
-        StringBuilder currentChunk = new StringBuilder();
+    private void readBaseChunk() throws IOException {
         //read the chunk until the minimum base chunk size
-        readHelper(MINIMUM_BASE_CHUNK_SIZE, currentChunk);
+        readHelper(MINIMUM_BASE_CHUNK_SIZE);
 
         //keep reading until the maximum base chunk size or white space is reached.
-        readToWhiteSpaceHelper(MAXIMUM_BASE_CHUNK_SIZE, currentChunk);
-        return currentChunk;
+        readToWhiteSpaceHelper(MAXIMUM_BASE_CHUNK_SIZE);
     }
 
     /**
@@ -208,56 +230,52 @@ private StringBuilder readBaseChunk() throws IOException {
      *
      * @throws IOException if there is a problem reading from the reader.
      */
-    private StringBuilder readWindow() throws IOException {
-        StringBuilder currentWindow = new StringBuilder();
+    private void readWindow() throws IOException {
         //read the window, leaving some room to look for white space to break at.
-        readHelper(MAX_TOTAL_CHUNK_SIZE - WHITE_SPACE_BUFFER_SIZE, currentWindow);
+        readHelper(MAX_TOTAL_CHUNK_SIZE - WHITE_SPACE_BUFFER_SIZE);
 
         //keep reading until the max chunk size, or until whitespace is reached.
-        readToWhiteSpaceHelper(MAX_TOTAL_CHUNK_SIZE, currentWindow);
-        return currentWindow;
+        readToWhiteSpaceHelper(MAX_TOTAL_CHUNK_SIZE);
     }
 
     /**
      * Read until the maxBytes reached, or end of reader.
      *
      * @param maxBytes
-     * @param currentSegment
      *
      * @throws IOException
      */
-    private void readHelper(int maxBytes, StringBuilder currentSegment) throws IOException {
+    private void readHelper(int maxBytes) throws IOException {
         int charsRead = 0;
         //read chars up to maxBytes, or the end of the reader.
         while ((chunkSizeBytes < maxBytes)
                 && (endOfReaderReached == false)) {
-            charsRead = reader.read(tempChunkBuf, 0, READ_CHARS_BUFFER_SIZE);
+            charsRead = read(tempChunkBuf, 0, READ_CHARS_BUFFER_SIZE);
             if (-1 == charsRead) {
                 //this is the last chunk
                 endOfReaderReached = true;
                 return;
             } else {
-                //if the last char might be part of a surroate pair, unread it.
+                /* if the last char might be part of a surroate pair, unread
+                 * it, unless it is an unpaired surrogate at the very end of
+                 * the reader, which would otherwise be read again forever. */
                 final char lastChar = tempChunkBuf[charsRead - 1];
-                if (Character.isHighSurrogate(lastChar)) {
+                if (Character.isHighSurrogate(lastChar) && (charsRead > 1 || readerExhausted == false)) {
                     charsRead--;
-                    reader.unread(lastChar);
+                    unread(tempChunkBuf, charsRead, 1);
                 }
 
-                //cleanup any invalid utf-16 sequences
-                StringBuilder chunkSegment = sanitize(new String(tempChunkBuf, 0, charsRead));
-
-                //get the length in utf8 bytes of the read chars
-                int segmentSize = chunkSegment.toString().getBytes(UTF_8).length;
+                //cleanup any invalid utf-16 sequences, and get the length in utf8 bytes of the read chars
+                int segmentSize = sanitizeToChunk(tempChunkBuf, charsRead);
 
                 //if it will not put us past maxBytes
                 if (chunkSizeBytes + segmentSize < maxBytes) {
                     //add it to the chunk
-                    currentSegment.append(chunkSegment);
+                    chunkLength += charsRead;
                     chunkSizeBytes += segmentSize;
                 } else {
                     //unread it, and break out of read loop.
-                    reader.unread(tempChunkBuf, 0, charsRead);
+                    unread(tempChunkBuf, 0, charsRead);
                     return;
                 }
             }
@@ -268,18 +286,17 @@ private void readHelper(int maxBytes, StringBuilder currentSegment) throws IOExc
      * Read until the maxBytes reached, whitespace, or end of reader.
      *
      * @param maxBytes
-     * @param currentChunk
      *
      * @throws IOException
      */
-    private void readToWhiteSpaceHelper(int maxBytes, StringBuilder currentChunk) throws IOException {
+    private void readToWhiteSpaceHelper(int maxBytes) throws IOException {
         int charsRead = 0;
         boolean whitespaceFound = false;
         //read 1 char at a time up to maxBytes, whitespaceFound, or we reach the end of the reader.
         while ((chunkSizeBytes < maxBytes)
                 && (whitespaceFound == false)
                 && (endOfReaderReached == false)) {
-            charsRead = reader.read(tempChunkBuf, 0, 1);
+            charsRead = read(tempChunkBuf, 0, 1);
             if (-1 == charsRead) {
                 //this is the last chunk
                 endOfReaderReached = true;
@@ -287,46 +304,101 @@ private void readToWhiteSpaceHelper(int maxBytes, StringBuilder currentChunk) th
             } else {
                 //if the last charcter might be part of a surroate pair, read another char
                 final char ch = tempChunkBuf[0];
-                String chunkSegment;
+                int segmentLength;
                 if (Character.isHighSurrogate(ch)) {
                     //read another char into the buffer.
-                    charsRead = reader.read(tempChunkBuf, 1, 1);
+                    charsRead = read(tempChunkBuf, 1, 1);
                     if (charsRead == -1) {
                         //this is the last chunk, so just drop the unpaired surrogate
                         endOfReaderReached = true;
                         return;
                     } else {
                         //try to use the pair together.
-                        chunkSegment = new String(tempChunkBuf, 0, 2);
+                        segmentLength = 2;
                     }
                 } else {
                     //one char
-                    chunkSegment = new String(tempChunkBuf, 0, 1);
+                    segmentLength = 1;
                 }
 
                 //cleanup any invalid utf-16 sequences
-                StringBuilder sanitizedChunkSegment = sanitize(chunkSegment);
+                int segmentSize = sanitizeToChunk(tempChunkBuf, segmentLength);
                 //check for whitespace.
-                whitespaceFound = Character.isWhitespace(sanitizedChunkSegment.codePointAt(0));
+                whitespaceFound = Character.isWhitespace(Character.codePointAt(chunkBuf, chunkLength, chunkLength + segmentLength));
                 //add read chars to the chunk and update the length.
-                currentChunk.append(sanitizedChunkSegment);
-                chunkSizeBytes += sanitizedChunkSegment.toString().getBytes(UTF_8).length;
+                chunkLength += segmentLength;
+                chunkSizeBytes += segmentSize;
             }
         }
     }
 
+    /**
+     * Read chars, taking any pushed back chars first and then reading from the
+     * Reader, with the same semantics as PushbackReader.read().
+     *
+     * @param cbuf The buffer to read into.
+     * @param off  The offset in the buffer to start at.
+     * @param len  The maximum number of chars to read.
+     *
+     * @return The number of chars read, or -1 if the end of the reader has been
+     *         reached.
+     *
+     * @throws IOException
+     */
+    private int read(char[] cbuf, int off, int len) throws IOException {
+        int pushedBack = pushbackBuf.length - pushbackPos;
+        if (pushedBack > 0) {
+            if (len < pushedBack) {
+                pushedBack = len;
+            }
+            System.arraycopy(pushbackBuf, pushbackPos, cbuf, off, pushedBack);
+            pushbackPos += pushedBack;
+            off += pushedBack;
+            len -= pushedBack;
+        }
+        if (len > 0) {
+            int charsRead = reader.read(cbuf, off, len);
+            if (charsRead == -1) {
+                readerExhausted = true;
+                return (pushedBack == 0) ? -1 : pushedBack;
+            }
+            return pushedBack + charsRead;
+        }
+        return pushedBack;
+    }
+
+    /**
+     * Push back chars, so that they are read again before any chars already
+     * pushed back.
+     *
+     * @param cbuf The buffer holding the chars.
+     * @param off  The offset of the chars in the buffer.
+     * @param len  The number of chars.
+     */
+    private void unread(char[] cbuf, int off, int len) {
+        if (len > pushbackPos) {
+            int pushedBack = pushbackBuf.length - pushbackPos;
+            char[] newPushbackBuf = new char[Math.max(pushbackBuf.length * 2, pushedBack + len)];
+            System.arraycopy(pushbackBuf, pushbackPos, newPushbackBuf, newPushbackBuf.length - pushedBack, pushedBack);
+            pushbackBuf = newPushbackBuf;
+            pushbackPos = newPushbackBuf.length - pushedBack;
+        }
+        pushbackPos -= len;
+        System.arraycopy(cbuf, off, pushbackBuf, pushbackPos, len);
+    }
+
     /**
      * Represents one chunk as the text in it and the length of the base chunk,
      * in chars.
      */
     static class Chunk {
 
-        private final StringBuilder sb;
+        private final String text;
         private final int baseChunkSizeChars;
         private final int chunkSizeBytes;
 
-        Chunk(StringBuilder sb, int baseChunkSizeChars, int chunkSizeBytes) {
-            this.sb = sb;
+        Chunk(String text, int baseChunkSizeChars, int chunkSizeBytes) {
+            this.text = text;
             this.baseChunkSizeChars = baseChunkSizeChars;
             this.chunkSizeBytes = chunkSizeBytes;
         }
@@ -338,7 +410,7 @@ static class Chunk {
          */
         @Override
         public String toString() {
-            return sb.toString();
+            return text;
         }
 
         /**
@@ -199,11 +199,48 @@ public synchronized void addKeywordListsToAllJobs(List<String> keywordListNames)
         }
     }
 
+    /**
+     * Gets the index-time keyword matcher of a job. The matcher is compiled
+     * from the keyword lists of the job when the job is started, the keywords
+     * it matches are not searched for by the periodic and final searches of
+     * the job.
+     *
+     * @param jobId The id of the job.
+     *
+     * @return The matcher, or null if the job has not been started or does not
+     *         do index-time keyword matching.
+     */
+    KeywordMatcher getIndexTimeMatcher(long jobId) {
+        SearchJobInfo job = jobs.get(jobId);
+        return (null == job) ? null : job.getIndexTimeMatcher();
+    }
+
+    /**
+     * Gets the index-time keyword matcher of a job that is ingesting a data
+     * source. This is used to match the keywords against the text of artifacts
+     * that are indexed by other ingest modules.
+     *
+     * @param dataSourceId The object id of the data source.
+     *
+     * @return The matcher, or null if there is no such job or it does not do
+     *         index-time keyword matching.
+     */
+    KeywordMatcher getIndexTimeMatcherForDataSource(long dataSourceId) {
+        for (SearchJobInfo job : jobs.values()) {
+            if (job.getDataSourceId() == dataSourceId && null != job.getIndexTimeMatcher()) {
+                return job.getIndexTimeMatcher();
+            }
+        }
+        return null;
+    }
+
     /**
      * Commits index and notifies listeners of index update
+     *
+     * @return The index batch that was committed, see Ingester.commit().
      */
-    private void commit() {
-        ingester.commit();
+    private long commit() {
+        long committedIndexBatch = ingester.commit();
 
         // Signal a potential change in number of text_ingested files
         try {
@@ -212,6 +249,7 @@ private void commit() {
         } catch (NoOpenCoreException | KeywordSearchModuleException ex) {
             logger.log(Level.SEVERE, "Error executing Solr query to check number of indexed files", ex); //NON-NLS
         }
+        return committedIndexBatch;
     }
 
     /**
@@ -223,7 +261,7 @@ private void commit() {
     private void doFinalSearch(SearchJobInfo job) {
         // Run one last search as there are probably some new files committed
         logger.log(Level.INFO, "Starting final search for search job {0}", job.getJobId());         //NON-NLS
-        if (!job.getKeywordListNames().isEmpty()) {
+        if (job.hasKeywordsToSearch()) {
             try {
                 // In case this job still has a worker running, wait for it to finish
                 logger.log(Level.INFO, "Checking for previous search for search job {0} before executing final search", job.getJobId()); //NON-NLS
@@ -248,7 +286,11 @@ private void doFinalSearch(SearchJobInfo job) {
     }
 
     /**
-     * Task to perform periodic searches for each job (does a single index commit first)
+     * Task to perform periodic searches for each job (does a single index
+     * commit first). The periodic searches only search the documents committed
+     * since the previous periodic search of the job, so their cost depends on
+     * the amount of new data rather than the size of the index. The final
+     * search of a job searches all of the job's data.
      */
     private final class PeriodicSearchTask implements Runnable {
 
@@ -263,7 +305,21 @@ public void run() {
                 return;
             }
 
-            commit();
+            // If all of the jobs match their keywords at index time, there is nothing to commit the index for
+            boolean commitNeeded = false;
+            for (SearchJobInfo job : jobs.values()) {
+                if (null == job.getIndexTimeMatcher() || job.hasKeywordsToSearch()) {
+                    commitNeeded = true;
+                    break;
+                }
+            }
+            if (!commitNeeded) {
+                logger.log(Level.INFO, "All keywords are matched at index time, skipping periodic commit and searches"); //NON-NLS
+                jobProcessingTaskFuture = jobProcessingExecutor.schedule(new PeriodicSearchTask(), currentUpdateIntervalMs, MILLISECONDS);
+                return;
+            }
+
+            long committedIndexBatch = commit();
 
             logger.log(Level.INFO, "Starting periodic searches");
             final StopWatch stopWatch = new StopWatch();
@@ -278,11 +334,11 @@ public void run() {
                     return;
                 }
 
-                // If no lists or the worker is already running then skip it
-                if (!job.getKeywordListNames().isEmpty() && !job.isWorkerRunning()) {
+                // If no keywords to search for or the worker is already running then skip it
+                if (job.hasKeywordsToSearch() && !job.isWorkerRunning()) {
                     // Spawn a search thread for each job
                     logger.log(Level.INFO, "Executing periodic search for search job {0}", job.getJobId());
-                    Searcher searcher = new Searcher(job);  // SwingWorker
+                    Searcher searcher = new Searcher(job, committedIndexBatch);  // SwingWorker
                     job.setCurrentSearcher(searcher); //save the ref
                     searcher.execute(); //start thread
                     job.setWorkerRunning(true);
@@ -341,6 +397,12 @@ private class SearchJobInfo {
 
         // Map of keyword to the object ids that contain a hit
         private Map<Keyword, Set<Long>> currentResults; //guarded by SearchJobInfo.this
+        // the index batch that was current when the job started
+        private final long startIndexBatch;
+        // Map of keyword list name to the first index batch that the next periodic search of the list needs to search
+        private Map<String, Long> firstIndexBatchesToSearch; //guarded by SearchJobInfo.this
+        // matches the literal keywords of the job's lists at index time, null if index-time matching is disabled or there are no such keywords
+        private final KeywordMatcher indexTimeMatcher;
         private IngestSearchRunner.Searcher currentSearcher;
         private AtomicLong moduleReferenceCount = new AtomicLong(0);
         private final Object finalSearchLock = new Object(); //used for a condition wait
@@ -351,6 +413,22 @@ private SearchJobInfo(IngestJobContext jobContext, List<String> keywordListNames
             this.dataSourceId = jobContext.getDataSource().getId();
             this.keywordListNames = new ArrayList<>(keywordListNames);
             currentResults = new HashMap<>();
+            startIndexBatch = ingester.getCurrentIndexBatch();
+            firstIndexBatchesToSearch = new HashMap<>();
+            if (KeywordSearchSettings.getIndexTimeMatching()) {
+                XmlKeywordSearchList loader = XmlKeywordSearchList.getCurrent();
+                List<KeywordList> keywordLists = new ArrayList<>();
+                for (String keywordListName : keywordListNames) {
+                    KeywordList keywordList = loader.getList(keywordListName);
+                    if (null != keywordList) {
+                        keywordLists.add(keywordList);
+                    }
+                }
+                KeywordMatcher matcher = KeywordMatcher.create(keywordLists);
+                indexTimeMatcher = matcher.isEmpty() ? null : matcher;
+            } else {
+                indexTimeMatcher = null;
+            }
             workerRunning = false;
             currentSearcher = null;
         }
@@ -371,12 +449,83 @@ private synchronized List<String> getKeywordListNames() {
             return new ArrayList<>(keywordListNames);
         }
 
+        private KeywordMatcher getIndexTimeMatcher() {
+            return indexTimeMatcher;
+        }
+
+        /**
+         * Indicates whether or not a keyword from one of the lists of the job
+         * needs to be searched for in the index, i.e., it is not matched at
+         * index time.
+         *
+         * @param keywordListName The name of the keyword list.
+         * @param keyword         The keyword.
+         *
+         * @return True if the keyword needs to be searched for.
+         */
+        private boolean keywordNeedsSearch(String keywordListName, Keyword keyword) {
+            return null == indexTimeMatcher || !indexTimeMatcher.handles(keywordListName, keyword);
+        }
+
+        /**
+         * Indicates whether or not any of the keywords of the lists of the job
+         * need to be searched for in the index.
+         *
+         * @return True if there are keywords to search for.
+         */
+        private boolean hasKeywordsToSearch() {
+            XmlKeywordSearchList loader = XmlKeywordSearchList.getCurrent();
+            for (String keywordListName : getKeywordListNames()) {
+                KeywordList keywordList = loader.getList(keywordListName);
+                if (null == keywordList) {
+                    continue;
+                }
+                for (Keyword keyword : keywordList.getKeywords()) {
+                    if (keywordNeedsSearch(keywordListName, keyword)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
         private synchronized void addKeywordListName(String keywordListName) {
             if (!keywordListNames.contains(keywordListName)) {
                 keywordListNames.add(keywordListName);
             }
         }
 
+        /**
+         * Gets the first index batch that a periodic search for the keywords
+         * in a list needs to search. Lists that have not been searched yet,
+         * including lists added to the job after it started, need to search
+         * all of the job's data.
+         *
+         * @param keywordListName The name of the keyword list.
+         *
+         * @return The first index batch to search.
+         */
+        private synchronized long getFirstIndexBatchToSearch(String keywordListName) {
+            Long firstIndexBatch = firstIndexBatchesToSearch.get(keywordListName);
+            return (null == firstIndexBatch) ? startIndexBatch : firstIndexBatch;
+        }
+
+        /**
+         * Records that the documents up to and including a committed index
+         * batch have been searched for the keywords in some lists.
+         *
+         * @param keywordListNames    The names of the keyword lists.
+         * @param committedIndexBatch The committed index batch. Some of its
+         *                            documents may not have been visible to
+         *                            the search, so it is searched again next
+         *                            time.
+         */
+        private synchronized void setIndexBatchSearched(List<String> keywordListNames, long committedIndexBatch) {
+            for (String keywordListName : keywordListNames) {
+                firstIndexBatchesToSearch.put(keywordListName, committedIndexBatch);
+            }
+        }
+
         private synchronized Set<Long> currentKeywordResults(Keyword k) {
             return currentResults.get(k);
         }
@@ -455,6 +604,7 @@ private final class Searcher extends SwingWorker<Object, Void> {
         private AggregateProgressHandle progressGroup;
         private final Logger logger = Logger.getLogger(IngestSearchRunner.Searcher.class.getName());
         private boolean finalRun = false;
+        private long committedIndexBatch;
 
         Searcher(SearchJobInfo job) {
             this.job = job;
@@ -470,6 +620,19 @@ private final class Searcher extends SwingWorker<Object, Void> {
             this.finalRun = finalRun;
         }
 
+        /**
+         * Constructs a searcher for a periodic search, which only searches
+         * the documents committed since the previous periodic search.
+         *
+         * @param job                 The search job.
+         * @param committedIndexBatch The index batch committed just before
+         *                            this search.
+         */
+        Searcher(SearchJobInfo job, long committedIndexBatch) {
+            this(job);
+            this.committedIndexBatch = committedIndexBatch;
+        }
+
         @Override
         @Messages("SearchRunner.query.exception.msg=Error performing query:")
         protected Object doInBackground() throws Exception {
@@ -527,6 +690,10 @@ public boolean cancel() {
                     //set up a filter with 1 or more image ids OR'ed
                     final KeywordQueryFilter dataSourceFilter = new KeywordQueryFilter(KeywordQueryFilter.FilterType.DATA_SOURCE, job.getDataSourceId());
                     keywordSearchQuery.addFilter(dataSourceFilter);
+                    //limit periodic searches to the documents committed since the last one
+                    if (!finalRun) {
+                        keywordSearchQuery.addFilter(new KeywordQueryFilter(KeywordQueryFilter.FilterType.INDEX_BATCH, job.getFirstIndexBatchToSearch(keywordList.getName())));
+                    }
 
                     QueryResults queryResults;
 
@@ -574,6 +741,10 @@ public boolean cancel() {
 
                 } //for each keyword
 
+                if (!finalRun) {
+                    job.setIndexBatchSearched(keywordListNames, committedIndexBatch);
+                }
+
             } //end try block
             catch (Exception ex) {
                 logger.log(Level.WARNING, "searcher exception occurred", ex); //NON-NLS
@@ -605,6 +776,10 @@ private void updateKeywords() {
                 KeywordList list = loader.getList(name);
                 keywordLists.add(list);
                 for (Keyword k : list.getKeywords()) {
+                    // keywords matched at index time have already been found
+                    if (!job.keywordNeedsSearch(name, k)) {
+                        continue;
+                    }
                     keywords.add(k);
                     keywordToList.put(k, list);
                 }
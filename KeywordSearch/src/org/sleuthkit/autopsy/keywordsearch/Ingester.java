@@ -19,16 +19,18 @@
 package org.sleuthkit.autopsy.keywordsearch;
 
 import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrInputDocument;
 import org.openide.util.NbBundle;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
-import org.sleuthkit.autopsy.healthmonitor.EnterpriseHealthMonitor;
-import org.sleuthkit.autopsy.healthmonitor.TimingMetric;
 import org.sleuthkit.autopsy.ingest.IngestJobContext;
 import org.sleuthkit.autopsy.keywordsearch.Chunker.Chunk;
 import org.sleuthkit.datamodel.AbstractFile;
@@ -58,6 +60,20 @@ class Ingester {
     private static final SolrFieldsVisitor SOLR_FIELDS_VISITOR = new SolrFieldsVisitor();
     private static Ingester instance;
     private static final int SINGLE_READ_CHARS = 512;
+    /*
+     * The chunks of a source are sent to Solr in batches, rather than with one
+     * update request per chunk. A batch is sent when it reaches either limit.
+     */
+    private static final int MAX_BATCH_DOCUMENTS = 64;
+    private static final int MAX_BATCH_CHARS = 1024 * 1024;
+    /*
+     * Every document is stamped with the current index batch when it is sent
+     * to Solr, and the batch is advanced on every commit, so that periodic
+     * searches can be limited to the documents committed since the previous
+     * search. The batches are seeded from the clock so that the batches of
+     * earlier sessions in the same index are older.
+     */
+    private final AtomicLong currentIndexBatch = new AtomicLong(System.currentTimeMillis());
 
     private Ingester() {
     }
@@ -142,10 +158,36 @@ private Map<String, String> getContentFields(SleuthkitVisitableItem item) {
      */
     // TODO (JIRA-3118): Cancelled text indexing does not propagate cancellation to clients 
     < T extends SleuthkitVisitableItem> boolean indexText(TextExtractor< T> extractor, T source, IngestJobContext context) throws Ingester.IngesterException {
+        return indexText(extractor, source, context, null);
+    }
+
+    /**
+     * Use the given TextExtractor to extract text from the given source. The
+     * text will be chunked and each chunk passed to Solr to add to the index.
+     * Each chunk is also matched against the keywords of an index-time keyword
+     * matcher, if one is given.
+     *
+     * @param <T>            A subclass of SleuthkitVisibleItem.
+     * @param extractor      The TextExtractor that will be used to extract
+     *                       text from the given source.
+     * @param source         The source from which text will be extracted,
+     *                       chunked, and indexed.
+     * @param context        The ingest job context that can be used to cancel
+     *                       this process.
+     * @param keywordMatches Collects the keyword hits in the chunks, may be
+     *                       null.
+     *
+     * @return True if indexing was completed, false otherwise.
+     *
+     * @throws org.sleuthkit.autopsy.keywordsearch.Ingester.IngesterException
+     */
+    < T extends SleuthkitVisitableItem> boolean indexText(TextExtractor< T> extractor, T source, IngestJobContext context, KeywordMatcher.SourceMatches keywordMatches) throws Ingester.IngesterException {
         final long sourceID = extractor.getID(source);
         final String sourceName = extractor.getName(source);
 
         int numChunks = 0; //unknown until chunking is done
+        int numIndexedChunks = 0; //chunks that Solr has accepted
+        boolean indexingFailed = false;
 
         if (extractor.isDisabled()) {
             /*
@@ -156,6 +198,8 @@ < T extends SleuthkitVisitableItem> boolean indexText(TextExtractor< T> extracto
         }
 
         Map<String, String> fields = getContentFields(source);
+        List<SolrInputDocument> batch = new ArrayList<>();
+        int batchChars = 0;
         //Get a reader for the content of the given source
         try (BufferedReader reader = new BufferedReader(extractor.getReader(source));) {
             Chunker chunker = new Chunker(reader);
@@ -168,10 +212,25 @@ < T extends SleuthkitVisitableItem> boolean indexText(TextExtractor< T> extracto
                 fields.put(Server.Schema.ID.toString(), chunkId);
                 fields.put(Server.Schema.CHUNK_SIZE.toString(), String.valueOf(chunk.getBaseChunkLength()));
                 try {
-                    //add the chunk text to Solr index
-                    indexChunk(chunk.toString(), sourceName, fields);
+                    //add the chunk text to the batch, and send the batch to Solr if it is full
+                    String chunkText = chunk.toString();
+                    if (keywordMatches != null) {
+                        keywordMatches.matchChunk(numChunks + 1, chunkText);
+                    }
+                    batch.add(createDocument(chunkText, sourceName, fields));
+                    batchChars += chunkText.length();
                     numChunks++;
+                    if (batch.size() >= MAX_BATCH_DOCUMENTS || batchChars >= MAX_BATCH_CHARS) {
+                        indexDocuments(batch, sourceName);
+                        batch.clear();
+                        batchChars = 0;
+                        numIndexedChunks = numChunks;
+                    }
                 } catch (Ingester.IngesterException ingEx) {
+                    //drop the chunks that were not indexed so that they are not sent again with the parent doc
+                    batch.clear();
+                    numChunks = numIndexedChunks;
+                    indexingFailed = true;
                     extractor.logWarning("Ingester had a problem with extracted string from file '" //NON-NLS
                             + sourceName + "' (id: " + sourceID + ").", ingEx);//NON-NLS
 
@@ -195,7 +254,19 @@ < T extends SleuthkitVisitableItem> boolean indexText(TextExtractor< T> extracto
                 fields.put(Server.Schema.ID.toString(), Long.toString(sourceID));
                 //"parent" docs don't have chunk_size
                 fields.remove(Server.Schema.CHUNK_SIZE.toString());
-                indexChunk(null, sourceName, fields);
+                //send the parent doc along with the last batch of chunks
+                if (indexingFailed) {
+                    //there are no chunks left to send, and the earlier failure is what gets reported
+                    try {
+                        indexDocuments(Collections.singletonList(createDocument(null, sourceName, fields)), sourceName);
+                    } catch (Ingester.IngesterException ex) {
+                        extractor.logWarning("Ingester could not index the parent document of '" //NON-NLS
+                                + sourceName + "' (id: " + sourceID + ").", ex);//NON-NLS
+                    }
+                } else {
+                    batch.add(createDocument(null, sourceName, fields));
+                    indexDocuments(batch, sourceName);
+                }
             }
         }
         return true;
@@ -204,17 +275,28 @@ < T extends SleuthkitVisitableItem> boolean indexText(TextExtractor< T> extracto
     /**
      * Add one chunk as to the Solr index as a separate Solr document.
      *
-     * TODO see if can use a byte or string streaming way to add content to
-     * /update handler e.g. with XMLUpdateRequestHandler (deprecated in SOlr
-     * 4.0.0), see if possible to stream with UpdateRequestHandler
-     *
-     * @param chunk  The chunk content as a string
-     * @param fields
-     * @param size
+     * @param chunk      The chunk content as a string
+     * @param sourceName The name of the source of the chunk
+     * @param fields     The fields of the Solr document
      *
      * @throws org.sleuthkit.autopsy.keywordsearch.Ingester.IngesterException
      */
     private void indexChunk(String chunk, String sourceName, Map<String, String> fields) throws IngesterException {
+        indexDocuments(Collections.singletonList(createDocument(chunk, sourceName, fields)), sourceName);
+    }
+
+    /**
+     * Makes a Solr document for one chunk of a source.
+     *
+     * @param chunk      The chunk content as a string
+     * @param sourceName The name of the source of the chunk
+     * @param fields     The fields of the Solr document, which are copied
+     *
+     * @return The Solr document
+     *
+     * @throws org.sleuthkit.autopsy.keywordsearch.Ingester.IngesterException
+     */
+    private SolrInputDocument createDocument(String chunk, String sourceName, Map<String, String> fields) throws IngesterException {
         if (fields.get(Server.Schema.IMAGE_ID.toString()) == null) {
             //JMTODO: actually if the we couldn't get the image id it is set to -1,
             // but does this really mean we don't want to index it?
@@ -234,12 +316,30 @@ private void indexChunk(String chunk, String sourceName, Map<String, String> fie
         //add the content to the SolrInputDocument
         //JMTODO: can we just add it to the field map before passing that in?
         updateDoc.addField(Server.Schema.CONTENT.toString(), chunk);
+        return updateDoc;
+    }
 
+    /**
+     * Sends a batch of Solr documents for the chunks of one source to Solr in
+     * a single update request.
+     *
+     * @param docs       The documents
+     * @param sourceName The name of the source of the chunks, used to report
+     *                   a failure of the batch against that source
+     *
+     * @throws org.sleuthkit.autopsy.keywordsearch.Ingester.IngesterException
+     */
+    private void indexDocuments(List<SolrInputDocument> docs, String sourceName) throws IngesterException {
+        if (docs.isEmpty()) {
+            return;
+        }
         try {
+            long indexBatch = currentIndexBatch.get();
+            for (SolrInputDocument doc : docs) {
+                doc.setField(Server.Schema.INDEX_BATCH.toString(), indexBatch);
+            }
             //TODO: consider timeout thread, or vary socket timeout based on size of indexed content
-            TimingMetric metric = EnterpriseHealthMonitor.getTimingMetric("Solr: Index chunk");
-            solrServer.addDocument(updateDoc);
-            EnterpriseHealthMonitor.submitTimingMetric(metric);
+            solrServer.addDocuments(docs);
             uncommitedIngests = true;
 
         } catch (KeywordSearchModuleException | NoOpenCoreException ex) {
@@ -249,11 +349,26 @@ private void indexChunk(String chunk, String sourceName, Map<String, String> fie
         }
     }
 
+    /**
+     * Gets the index batch that documents sent to Solr now are stamped with.
+     *
+     * @return The current index batch.
+     */
+    long getCurrentIndexBatch() {
+        return currentIndexBatch.get();
+    }
+
     /**
      * Tells Solr to commit (necessary before ingested files will appear in
-     * searches)
+     * searches), and starts a new index batch.
+     *
+     * @return The index batch that was current before the commit. Documents
+     *         from this batch that were being sent during the commit may not
+     *         be visible until the next commit, so searches for documents
+     *         committed after this one should include this batch.
      */
-    void commit() {
+    long commit() {
+        long committedIndexBatch = currentIndexBatch.getAndIncrement();
         try {
             solrServer.commit();
             uncommitedIngests = false;
@@ -261,6 +376,7 @@ void commit() {
             logger.log(Level.WARNING, "Error commiting index", ex); //NON-NLS
 
         }
+        return committedIndexBatch;
     }
 
     /**
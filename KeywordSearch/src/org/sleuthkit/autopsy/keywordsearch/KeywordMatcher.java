@@ -0,0 +1,405 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.keywordsearch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.sleuthkit.datamodel.BlackboardArtifact;
+
+/**
+ * Matches the literal keywords of a set of keyword lists against text as it is
+ * indexed, so that keyword hits can be posted without waiting for an index
+ * commit and a search. All of the keywords are compiled into a single
+ * Aho-Corasick automaton, so each piece of text is scanned once, no matter how
+ * many keywords there are.
+ *
+ * Matching is case insensitive. Whole word keywords only match if they are not
+ * preceded or followed by a letter or digit, which approximates the
+ * tokenization of the text index. Substring keywords match anywhere, and the
+ * hit is reported for the run of letters and digits that contains the match,
+ * as the substring search of the text index reports the matching terms.
+ *
+ * Regular expressions and keywords that are associated with an artifact
+ * attribute type are not matched, they are still searched for in the text
+ * index.
+ */
+@Immutable
+final class KeywordMatcher {
+
+    private static final int ROOT_STATE = 0;
+    private static final int SNIPPET_CONTEXT_LENGTH = 20;
+    private static final String SNIPPET_DELIMITER = String.valueOf(Character.toChars(171));
+
+    /*
+     * The keywords, indexed by pattern number.
+     */
+    private final Keyword[] keywords;
+    private final KeywordList[] keywordLists;
+    private final int[] patternLengths;
+    private final Map<String, Set<Keyword>> keywordsByListName;
+
+    /*
+     * The automaton. The transitions out of the root state are held in a
+     * table indexed by character, the transitions out of the other states are
+     * held in sorted arrays that are binary searched. The outputs of a state
+     * include the outputs of the states reached by following its failure
+     * links.
+     */
+    private final int[] rootTransitions;
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failureLinks;
+    private final int[][] outputs;
+
+    /**
+     * Compiles a matcher for the literal keywords of some keyword lists.
+     *
+     * @param keywordLists The keyword lists.
+     *
+     * @return The matcher.
+     */
+    static KeywordMatcher create(List<KeywordList> keywordLists) {
+        List<Keyword> keywords = new ArrayList<>();
+        List<KeywordList> keywordListsForKeywords = new ArrayList<>();
+        for (KeywordList keywordList : keywordLists) {
+            for (Keyword keyword : keywordList.getKeywords()) {
+                if (keyword.searchTermIsLiteral() && keyword.getArtifactAttributeType() == null && !keyword.getSearchTerm().isEmpty()) {
+                    keywords.add(keyword);
+                    keywordListsForKeywords.add(keywordList);
+                }
+            }
+        }
+        return new KeywordMatcher(keywords, keywordListsForKeywords);
+    }
+
+    private KeywordMatcher(List<Keyword> keywords, List<KeywordList> keywordLists) {
+        this.keywords = keywords.toArray(new Keyword[keywords.size()]);
+        this.keywordLists = keywordLists.toArray(new KeywordList[keywordLists.size()]);
+        patternLengths = new int[this.keywords.length];
+        keywordsByListName = new HashMap<>();
+
+        /*
+         * Build the trie of the folded search terms.
+         */
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        trieOutputs.add(new ArrayList<>());
+        for (int pattern = 0; pattern < this.keywords.length; pattern++) {
+            String searchTerm = this.keywords[pattern].getSearchTerm();
+            int state = ROOT_STATE;
+            for (int i = 0; i < searchTerm.length(); i++) {
+                char c = Character.toLowerCase(searchTerm.charAt(i));
+                Integer nextState = trie.get(state).get(c);
+                if (null == nextState) {
+                    nextState = trie.size();
+                    trie.add(new TreeMap<>());
+                    trieOutputs.add(new ArrayList<>());
+                    trie.get(state).put(c, nextState);
+                }
+                state = nextState;
+            }
+            trieOutputs.get(state).add(pattern);
+            patternLengths[pattern] = searchTerm.length();
+            keywordsByListName.computeIfAbsent(this.keywordLists[pattern].getName(), name -> new HashSet<>()).add(this.keywords[pattern]);
+        }
+
+        /*
+         * Compile the transitions.
+         */
+        int stateCount = trie.size();
+        rootTransitions = new int[Character.MAX_VALUE + 1];
+        for (Map.Entry<Character, Integer> transition : trie.get(ROOT_STATE).entrySet()) {
+            rootTransitions[transition.getKey()] = transition.getValue();
+        }
+        transitionChars = new char[stateCount][];
+        transitionTargets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> transitions = trie.get(state);
+            transitionChars[state] = new char[transitions.size()];
+            transitionTargets[state] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                transitionChars[state][i] = transition.getKey();
+                transitionTargets[state][i] = transition.getValue();
+                i++;
+            }
+        }
+
+        /*
+         * Compute the failure links and merge the outputs, breadth first so
+         * that the failure links of shallower states are done first.
+         */
+        failureLinks = new int[stateCount];
+        outputs = new int[stateCount][];
+        outputs[ROOT_STATE] = new int[0];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitionTargets[ROOT_STATE]) {
+            failureLinks[child] = ROOT_STATE;
+            outputs[child] = toArray(trieOutputs.get(child));
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int i = 0; i < transitionChars[state].length; i++) {
+                char c = transitionChars[state][i];
+                int child = transitionTargets[state][i];
+                int failureLink = nextState(failureLinks[state], c);
+                failureLinks[child] = failureLink;
+                List<Integer> childOutputs = new ArrayList<>(trieOutputs.get(child));
+                for (int pattern : outputs[failureLink]) {
+                    childOutputs.add(pattern);
+                }
+                outputs[child] = toArray(childOutputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Gets the state that the automaton moves to from a given state on a
+     * given (folded) character, following failure links as needed.
+     *
+     * @param state The current state.
+     * @param c     The character.
+     *
+     * @return The next state.
+     */
+    private int nextState(int state, char c) {
+        while (state != ROOT_STATE) {
+            int i = Arrays.binarySearch(transitionChars[state], c);
+            if (i >= 0) {
+                return transitionTargets[state][i];
+            }
+            state = failureLinks[state];
+        }
+        return rootTransitions[c];
+    }
+
+    /**
+     * Indicates whether or not the matcher has any keywords to match.
+     *
+     * @return True if there are no keywords.
+     */
+    boolean isEmpty() {
+        return keywords.length == 0;
+    }
+
+    /**
+     * Indicates whether or not hits for a keyword from a keyword list are
+     * found by this matcher, rather than by searching the text index.
+     *
+     * @param keywordListName The name of the keyword list.
+     * @param keyword         The keyword.
+     *
+     * @return True if the keyword is matched by this matcher.
+     */
+    boolean handles(String keywordListName, Keyword keyword) {
+        Set<Keyword> keywordsForList = keywordsByListName.get(keywordListName);
+        return null != keywordsForList && keywordsForList.contains(keyword);
+    }
+
+    /**
+     * Starts collecting the keyword hits in the text of a text source object
+     * (a file or an artifact).
+     *
+     * @param solrObjectId The Solr object id of the text source object.
+     *
+     * @return The collector for the hits.
+     */
+    SourceMatches newSourceMatches(long solrObjectId) {
+        return new SourceMatches(solrObjectId);
+    }
+
+    /**
+     * Collects the keyword hits in the text of a single text source object. As
+     * for the hits found by searching the text index, only the first hit for
+     * each keyword (or, for substring keywords, for each matching term) is
+     * kept.
+     */
+    @NotThreadSafe
+    final class SourceMatches {
+
+        private final long solrObjectId;
+        private final Map<Integer, Map<String, KeywordHit>> hits = new LinkedHashMap<>();
+
+        private SourceMatches(long solrObjectId) {
+            this.solrObjectId = solrObjectId;
+        }
+
+        /**
+         * Matches the keywords against the name of the text source object,
+         * which is indexed with the object's metadata.
+         *
+         * @param name The name.
+         */
+        void matchName(String name) {
+            match(Long.toString(solrObjectId), name);
+        }
+
+        /**
+         * Matches the keywords against a chunk of the text of the text source
+         * object.
+         *
+         * @param chunkNumber The number of the chunk.
+         * @param chunkText   The text of the chunk.
+         */
+        void matchChunk(int chunkNumber, String chunkText) {
+            match(Server.getChunkIdString(solrObjectId, chunkNumber), chunkText);
+        }
+
+        private void match(String solrDocumentId, String text) {
+            int state = ROOT_STATE;
+            for (int end = 0; end < text.length(); end++) {
+                state = nextState(state, Character.toLowerCase(text.charAt(end)));
+                for (int pattern : outputs[state]) {
+                    addHit(pattern, solrDocumentId, text, end + 1 - patternLengths[pattern], end + 1);
+                }
+            }
+        }
+
+        private void addHit(int pattern, String solrDocumentId, String text, int start, int end) {
+            Keyword keyword = keywords[pattern];
+            int hitStart = start;
+            int hitEnd = end;
+            if (keyword.searchTermIsWholeWord()) {
+                if ((start > 0 && Character.isLetterOrDigit(text.charAt(start - 1)))
+                        || (end < text.length() && Character.isLetterOrDigit(text.charAt(end)))) {
+                    return;
+                }
+            } else {
+                while (hitStart > 0 && Character.isLetterOrDigit(text.charAt(hitStart - 1))) {
+                    hitStart--;
+                }
+                while (hitEnd < text.length() && Character.isLetterOrDigit(text.charAt(hitEnd))) {
+                    hitEnd++;
+                }
+            }
+            String hit = keyword.searchTermIsWholeWord() ? keyword.getSearchTerm() : text.substring(hitStart, hitEnd).toLowerCase();
+            Map<String, KeywordHit> hitsForPattern = hits.computeIfAbsent(pattern, p -> new LinkedHashMap<>());
+            if (!hitsForPattern.containsKey(hit)) {
+                hitsForPattern.put(hit, new KeywordHit(solrDocumentId, makeSnippet(text, hitStart, hitEnd), hit));
+            }
+        }
+
+        /**
+         * Discards the keyword hits found in the chunks of the text, keeping
+         * the hits found in the name. Used when the chunks are not indexed,
+         * e.g., when text extraction fails part way through.
+         */
+        void discardChunkHits() {
+            String nameDocumentId = Long.toString(solrObjectId);
+            for (Iterator<Map<String, KeywordHit>> iterator = hits.values().iterator(); iterator.hasNext();) {
+                Map<String, KeywordHit> hitsForPattern = iterator.next();
+                hitsForPattern.values().removeIf(hit -> !hit.getSolrDocumentId().equals(nameDocumentId));
+                if (hitsForPattern.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        /**
+         * Indicates whether or not any keyword hits have been found.
+         *
+         * @return True if there are no hits.
+         */
+        boolean isEmpty() {
+            return hits.isEmpty();
+        }
+
+        /**
+         * Gets the keyword hits found so far, in the order in which they were
+         * found.
+         *
+         * @return The hits.
+         */
+        List<KeywordHit> getHits() {
+            List<KeywordHit> allHits = new ArrayList<>();
+            for (Map<String, KeywordHit> hitsForPattern : hits.values()) {
+                allHits.addAll(hitsForPattern.values());
+            }
+            return allHits;
+        }
+
+        /**
+         * Posts the keyword hits found so far to the blackboard, sends the
+         * ingest inbox messages for them, and publishes a single event per
+         * artifact type to notify subscribers of all of the blackboard posts.
+         */
+        void post() {
+            List<BlackboardArtifact> hitArtifacts = new ArrayList<>();
+            for (Map.Entry<Integer, Map<String, KeywordHit>> hitsForPattern : hits.entrySet()) {
+                Keyword keyword = keywords[hitsForPattern.getKey()];
+                KeywordList keywordList = keywordLists[hitsForPattern.getKey()];
+                KeywordSearchQuery query = KeywordSearchUtil.getQueryForKeyword(keyword, keywordList);
+                QueryResults results = new QueryResults(query);
+                for (KeywordHit hit : hitsForPattern.getValue().values()) {
+                    /*
+                     * The keyword that was found is made up the same way as
+                     * it is by the query for the keyword.
+                     */
+                    Keyword foundKeyword = keyword.searchTermIsWholeWord()
+                            ? new Keyword(keyword.getSearchTerm(), true, true, keyword.getListName(), keyword.getOriginalTerm())
+                            : new Keyword(hit.getHit(), false, true, keyword.getListName(), keyword.getOriginalTerm());
+                    results.addResult(foundKeyword, Collections.singletonList(hit));
+                }
+                hitArtifacts.addAll(results.postHits(null, null, null, keywordList.getIngestMessages()));
+            }
+            hits.clear();
+            QueryResults.fireModuleDataEvents(hitArtifacts);
+        }
+    }
+
+    /**
+     * Makes a snippet for a hit, in the same form as the snippets made by the
+     * regular expression search.
+     *
+     * @param text  The text that contains the hit.
+     * @param start The start of the hit.
+     * @param end   The end of the hit.
+     *
+     * @return The snippet.
+     */
+    private static String makeSnippet(String text, int start, int end) {
+        return text.substring(Math.max(0, start - SNIPPET_CONTEXT_LENGTH), start)
+                + SNIPPET_DELIMITER + text.substring(start, end) + SNIPPET_DELIMITER
+                + text.substring(end, Math.min(text.length(), end + SNIPPET_CONTEXT_LENGTH));
+    }
+}
@@ -25,13 +25,15 @@
 /**
  *
  * Filter to restrict query only specific files, chunks, images Single filter
- * supports multiple ids per file/chunk/image, that act as OR filter
+ * supports multiple ids per file/chunk/image, that act as OR filter. An index
+ * batch filter restricts the query to documents sent to the index in the given
+ * index batch or any later one.
  */
 class KeywordQueryFilter {
 
     public static enum FilterType {
 
-        FILE, CHUNK, DATA_SOURCE
+        FILE, CHUNK, DATA_SOURCE, INDEX_BATCH
     };
     private Set<Long> idFilters;
     private FilterType filterType;
@@ -66,7 +68,13 @@ public String toString() {
                 sb.append(" "); //OR
             }
             long idVal = it.next();
-            if (filterType == FilterType.DATA_SOURCE) {
+            if (filterType == FilterType.INDEX_BATCH) {
+                sb.append(Server.Schema.INDEX_BATCH.toString());
+                sb.append(":[");
+                sb.append(idVal);
+                sb.append(" TO *]");
+                continue;
+            } else if (filterType == FilterType.DATA_SOURCE) {
                 id = Server.Schema.IMAGE_ID.toString();
             } else {
                 id = Server.Schema.ID.toString();
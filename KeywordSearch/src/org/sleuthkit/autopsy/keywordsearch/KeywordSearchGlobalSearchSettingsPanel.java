@@ -45,8 +45,10 @@ class KeywordSearchGlobalSearchSettingsPanel extends javax.swing.JPanel implemen
     private void activateWidgets() {
         skipNSRLCheckBox.setSelected(KeywordSearchSettings.getSkipKnown());
         showSnippetsCB.setSelected(KeywordSearchSettings.getShowSnippets());
+        indexTimeMatchingCB.setSelected(KeywordSearchSettings.getIndexTimeMatching());
         boolean enable = !IngestManager.getInstance().isIngestRunning();
         skipNSRLCheckBox.setEnabled(enable);
+        indexTimeMatchingCB.setEnabled(enable);
         setTimeSettingEnabled(enable);
 
         final UpdateFrequency curFreq = KeywordSearchSettings.getUpdateFrequency();
@@ -99,6 +101,7 @@ private void initComponents() {
         timeRadioButton3 = new javax.swing.JRadioButton();
         timeRadioButton4 = new javax.swing.JRadioButton();
         showSnippetsCB = new javax.swing.JCheckBox();
+        indexTimeMatchingCB = new javax.swing.JCheckBox();
         timeRadioButton5 = new javax.swing.JRadioButton();
 
         skipNSRLCheckBox.setText(org.openide.util.NbBundle.getMessage(KeywordSearchGlobalSearchSettingsPanel.class, "KeywordSearchGlobalSearchSettingsPanel.skipNSRLCheckBox.text")); // NOI18N
@@ -162,6 +165,14 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
             }
         });
 
+        indexTimeMatchingCB.setText(org.openide.util.NbBundle.getMessage(KeywordSearchGlobalSearchSettingsPanel.class, "KeywordSearchGlobalSearchSettingsPanel.indexTimeMatchingCB.text")); // NOI18N
+        indexTimeMatchingCB.setToolTipText(org.openide.util.NbBundle.getMessage(KeywordSearchGlobalSearchSettingsPanel.class, "KeywordSearchGlobalSearchSettingsPanel.indexTimeMatchingCB.toolTipText")); // NOI18N
+        indexTimeMatchingCB.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                indexTimeMatchingCBActionPerformed(evt);
+            }
+        });
+
         timeRadioButton5.setText(org.openide.util.NbBundle.getMessage(KeywordSearchGlobalSearchSettingsPanel.class, "KeywordSearchGlobalSearchSettingsPanel.timeRadioButton5.text")); // NOI18N
         timeRadioButton5.setToolTipText(org.openide.util.NbBundle.getMessage(KeywordSearchGlobalSearchSettingsPanel.class, "KeywordSearchGlobalSearchSettingsPanel.timeRadioButton5.toolTipText")); // NOI18N
         timeRadioButton5.addActionListener(new java.awt.event.ActionListener() {
@@ -190,6 +201,7 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(skipNSRLCheckBox)
                             .addComponent(showSnippetsCB)
+                            .addComponent(indexTimeMatchingCB)
                             .addGroup(layout.createSequentialGroup()
                                 .addComponent(filesIndexedLabel)
                                 .addGap(18, 18, 18)
@@ -224,6 +236,8 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(showSnippetsCB)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(indexTimeMatchingCB)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(frequencyLabel)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(timeRadioButton1)
@@ -263,6 +277,10 @@ private void showSnippetsCBActionPerformed(java.awt.event.ActionEvent evt) {//GE
         firePropertyChange(OptionsPanelController.PROP_CHANGED, null, null);
     }//GEN-LAST:event_showSnippetsCBActionPerformed
 
+    private void indexTimeMatchingCBActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_indexTimeMatchingCBActionPerformed
+        firePropertyChange(OptionsPanelController.PROP_CHANGED, null, null);
+    }//GEN-LAST:event_indexTimeMatchingCBActionPerformed
+
     private void timeRadioButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_timeRadioButton1ActionPerformed
         firePropertyChange(OptionsPanelController.PROP_CHANGED, null, null);
     }//GEN-LAST:event_timeRadioButton1ActionPerformed
@@ -285,6 +303,7 @@ private void timeRadioButton4ActionPerformed(java.awt.event.ActionEvent evt) {//
     private javax.swing.JLabel filesIndexedLabel;
     private javax.swing.JLabel filesIndexedValue;
     private javax.swing.JLabel frequencyLabel;
+    private javax.swing.JCheckBox indexTimeMatchingCB;
     private javax.swing.JLabel informationLabel;
     private javax.swing.JSeparator informationSeparator;
     private javax.swing.JLabel settingsLabel;
@@ -304,6 +323,7 @@ public void store() {
         KeywordSearchSettings.setSkipKnown(skipNSRLCheckBox.isSelected());
         KeywordSearchSettings.setUpdateFrequency(getSelectedTimeValue());
         KeywordSearchSettings.setShowSnippets(showSnippetsCB.isSelected());
+        KeywordSearchSettings.setIndexTimeMatching(indexTimeMatchingCB.isSelected());
     }
 
     @Override
@@ -86,10 +86,7 @@ int getTime() {
     private Ingester ingester = null;
     private Indexer indexer;
     private FileTypeDetector fileTypeDetector;
-//only search images from current ingest, not images previously ingested/indexed
-    //accessed read-only by searcher thread
-
-    private boolean startedSearching = false;
+    private KeywordMatcher indexTimeMatcher; // null if index-time keyword matching is disabled
     private List<ContentTextExtractor> textExtractors;
     private StringsTextExtractor stringExtractor;
     private final KeywordSearchJobSettings settings;
@@ -250,6 +247,12 @@ public void startUp(IngestJobContext context) throws IngestModuleException {
         textExtractors.add(new TikaTextExtractor());
 
         indexer = new Indexer();
+
+        // Start searching, which also compiles the keywords to match at index time, if enabled
+        List<String> keywordListNames = settings.getNamesOfEnabledKeyWordLists();
+        IngestSearchRunner.getInstance().startJob(context, keywordListNames);
+        indexTimeMatcher = IngestSearchRunner.getInstance().getIndexTimeMatcher(jobId);
+
         initialized = true;
     }
 
@@ -282,16 +285,6 @@ public ProcessResult process(AbstractFile abstractFile) {
         }
         indexer.indexFile(abstractFile, true);
 
-        // Start searching if it hasn't started already
-        if (!startedSearching) {
-            if (context.fileIngestIsCancelled()) {
-                return ProcessResult.OK;
-            }
-            List<String> keywordListNames = settings.getNamesOfEnabledKeyWordLists();
-            IngestSearchRunner.getInstance().startJob(context, keywordListNames);
-            startedSearching = true;
-        }
-
         return ProcessResult.OK;
     }
 
@@ -343,6 +336,7 @@ private void cleanup() {
         textExtractors.clear();
         textExtractors = null;
         stringExtractor = null;
+        indexTimeMatcher = null;
 
         initialized = false;
     }
@@ -425,12 +419,14 @@ private class Indexer {
          * @param aFile          file to extract strings from, divide into
          *                       chunks and index
          * @param detectedFormat mime-type detected, or null if none detected
+         * @param keywordMatches collects the index-time keyword hits, may be
+         *                       null
          *
          * @return true if the file was text_ingested, false otherwise
          *
          * @throws IngesterException exception thrown if indexing failed
          */
-        private boolean extractTextAndIndex(AbstractFile aFile, String detectedFormat) throws IngesterException {
+        private boolean extractTextAndIndex(AbstractFile aFile, String detectedFormat, KeywordMatcher.SourceMatches keywordMatches) throws IngesterException {
             ContentTextExtractor extractor = null;
 
             //go over available text extractors in order, and pick the first one (most specific one)
@@ -448,23 +444,25 @@ private boolean extractTextAndIndex(AbstractFile aFile, String detectedFormat) t
 
             //logger.log(Level.INFO, "Extractor: " + fileExtract + ", file: " + aFile.getName());
             //divide into chunks and index
-            return Ingester.getDefault().indexText(extractor, aFile, context);
+            return Ingester.getDefault().indexText(extractor, aFile, context, keywordMatches);
         }
 
         /**
          * Extract strings using heuristics from the file and add to index.
          *
-         * @param aFile file to extract strings from, divide into chunks and
-         *              index
+         * @param aFile          file to extract strings from, divide into
+         *                       chunks and index
+         * @param keywordMatches collects the index-time keyword hits, may be
+         *                       null
          *
          * @return true if the file was text_ingested, false otherwise
          */
-        private boolean extractStringsAndIndex(AbstractFile aFile) {
+        private boolean extractStringsAndIndex(AbstractFile aFile, KeywordMatcher.SourceMatches keywordMatches) {
             try {
                 if (context.fileIngestIsCancelled()) {
                     return true;
                 }
-                if (Ingester.getDefault().indexText(stringExtractor, aFile, KeywordSearchIngestModule.this.context)) {
+                if (Ingester.getDefault().indexText(stringExtractor, aFile, KeywordSearchIngestModule.this.context, keywordMatches)) {
                     putIngestStatus(jobId, aFile.getId(), IngestStatus.STRINGS_INGESTED);
                     return true;
                 } else {
@@ -487,6 +485,33 @@ private boolean extractStringsAndIndex(AbstractFile aFile) {
          *                     True if content and metadata should be index.
          */
         private void indexFile(AbstractFile aFile, boolean indexContent) {
+            if (null == indexTimeMatcher) {
+                indexFile(aFile, indexContent, null);
+                return;
+            }
+
+            // the name is indexed with the metadata, so it is searched too
+            KeywordMatcher.SourceMatches keywordMatches = indexTimeMatcher.newSourceMatches(aFile.getId());
+            keywordMatches.matchName(aFile.getName());
+            // only post the hits if the text they were found in is in the index
+            if (indexFile(aFile, indexContent, keywordMatches)) {
+                keywordMatches.post();
+            }
+        }
+
+        /**
+         * Adds the file to the index. Detects file type, calls extractors, etc.
+         *
+         * @param aFile          File to analyze
+         * @param indexContent   False if only metadata should be
+         *                       text_ingested. True if content and metadata
+         *                       should be index.
+         * @param keywordMatches Collects the index-time keyword hits, may be
+         *                       null.
+         *
+         * @return True if the file was indexed, false otherwise.
+         */
+        private boolean indexFile(AbstractFile aFile, boolean indexContent, KeywordMatcher.SourceMatches keywordMatches) {
             //logger.log(Level.INFO, "Processing AbstractFile: " + abstractFile.getName());
 
             TskData.TSK_DB_FILES_TYPE_ENUM aType = aFile.getType();
@@ -494,10 +519,9 @@ private void indexFile(AbstractFile aFile, boolean indexContent) {
             // unallocated and unused blocks can only have strings extracted from them. 
             if ((aType.equals(TskData.TSK_DB_FILES_TYPE_ENUM.UNALLOC_BLOCKS) || aType.equals(TskData.TSK_DB_FILES_TYPE_ENUM.UNUSED_BLOCKS))) {
                 if (context.fileIngestIsCancelled()) {
-                    return;
+                    return false;
                 }
-                extractStringsAndIndex(aFile);
-                return;
+                return extractStringsAndIndex(aFile, keywordMatches);
             }
 
             final long size = aFile.getSize();
@@ -506,19 +530,20 @@ private void indexFile(AbstractFile aFile, boolean indexContent) {
             if ((indexContent == false || aFile.isDir() || size == 0)) {
                 try {
                     if (context.fileIngestIsCancelled()) {
-                        return;
+                        return false;
                     }
                     ingester.indexMetaDataOnly(aFile);
                     putIngestStatus(jobId, aFile.getId(), IngestStatus.METADATA_INGESTED);
+                    return true;
                 } catch (IngesterException ex) {
                     putIngestStatus(jobId, aFile.getId(), IngestStatus.SKIPPED_ERROR_INDEXING);
                     logger.log(Level.WARNING, "Unable to index meta-data for file: " + aFile.getId(), ex); //NON-NLS
+                    return false;
                 }
-                return;
             }
 
             if (context.fileIngestIsCancelled()) {
-                return;
+                return false;
             }
             String fileType = fileTypeDetector.getMIMEType(aFile);
 
@@ -527,15 +552,16 @@ private void indexFile(AbstractFile aFile, boolean indexContent) {
             if (ContentTextExtractor.ARCHIVE_MIME_TYPES.contains(fileType)) {
                 try {
                     if (context.fileIngestIsCancelled()) {
-                        return;
+                        return false;
                     }
                     ingester.indexMetaDataOnly(aFile);
                     putIngestStatus(jobId, aFile.getId(), IngestStatus.METADATA_INGESTED);
+                    return true;
                 } catch (IngesterException ex) {
                     putIngestStatus(jobId, aFile.getId(), IngestStatus.SKIPPED_ERROR_INDEXING);
                     logger.log(Level.WARNING, "Unable to index meta-data for file: " + aFile.getId(), ex); //NON-NLS
+                    return false;
                 }
-                return;
             }
 
             boolean wasTextAdded = false;
@@ -544,13 +570,12 @@ private void indexFile(AbstractFile aFile, boolean indexContent) {
             try {
                 //logger.log(Level.INFO, "indexing: " + aFile.getName());
                 if (context.fileIngestIsCancelled()) {
-                    return;
+                    return false;
                 }
                 if (fileType.equals("application/octet-stream")) {
-                    extractStringsAndIndex(aFile);
-                    return;
+                    return extractStringsAndIndex(aFile, keywordMatches);
                 }
-                if (!extractTextAndIndex(aFile, fileType)) {
+                if (!extractTextAndIndex(aFile, fileType, keywordMatches)) {
                     // Text extractor not found for file. Extract string only.
                     putIngestStatus(jobId, aFile.getId(), IngestStatus.SKIPPED_ERROR_TEXTEXTRACT);
                 } else {
@@ -570,8 +595,13 @@ private void indexFile(AbstractFile aFile, boolean indexContent) {
 
             // if it wasn't supported or had an error, default to strings
             if (wasTextAdded == false) {
-                extractStringsAndIndex(aFile);
+                if (keywordMatches != null) {
+                    // the chunks of the failed extraction are replaced by the strings
+                    keywordMatches.discardChunkHits();
+                }
+                return extractStringsAndIndex(aFile, keywordMatches);
             }
+            return true;
         }
     }
 }
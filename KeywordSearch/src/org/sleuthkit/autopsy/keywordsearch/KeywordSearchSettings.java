@@ -39,6 +39,8 @@ class KeywordSearchSettings {
     static final String PROPERTIES_SCRIPTS = NbBundle.getMessage(KeywordSearchSettings.class, "KeywordSearchSettings.propertiesScripts.text", MODULE_NAME);
     static final String SHOW_SNIPPETS = "showSnippets"; //NON-NLS
     static final boolean DEFAULT_SHOW_SNIPPETS = true;
+    static final String INDEX_TIME_MATCHING = "indexTimeKeywordMatching"; //NON-NLS
+    static final boolean DEFAULT_INDEX_TIME_MATCHING = false;
     private static boolean skipKnown = true;
     private static final Logger logger = Logger.getLogger(KeywordSearchSettings.class.getName());
     private static UpdateFrequency UpdateFreq = UpdateFrequency.DEFAULT;
@@ -140,6 +142,32 @@ static boolean getShowSnippets() {
         }
     }
 
+    /**
+     * Sets whether or not the literal keywords of the keyword lists searched
+     * during ingest are matched against the text as it is indexed, instead of
+     * being searched for in the index.
+     *
+     * @param indexTimeMatching The setting.
+     */
+    static void setIndexTimeMatching(boolean indexTimeMatching) {
+        ModuleSettings.setConfigSetting(PROPERTIES_OPTIONS, INDEX_TIME_MATCHING, Boolean.toString(indexTimeMatching));
+    }
+
+    /**
+     * Gets whether or not the literal keywords of the keyword lists searched
+     * during ingest are matched against the text as it is indexed, instead of
+     * being searched for in the index.
+     *
+     * @return The setting.
+     */
+    static boolean getIndexTimeMatching() {
+        if (ModuleSettings.settingExists(PROPERTIES_OPTIONS, INDEX_TIME_MATCHING)) {
+            return Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_OPTIONS, INDEX_TIME_MATCHING));
+        } else {
+            return DEFAULT_INDEX_TIME_MATCHING;
+        }
+    }
+
     /**
      * gets the currently set scripts to use
      *
@@ -125,8 +125,8 @@ Set<Keyword> getKeywords() {
      * artifact), i.e., if a keyword is found several times in the text
      * extracted from the source object, only one artifact is created.
      *
-     * This method ASSUMES that the processing is being done using a SwingWorker
-     * that should be checked for task cancellation.
+     * If the processing is being done using a SwingWorker, the worker is
+     * checked for task cancellation.
      *
      * All calls to the addResult method MUST be completed before calling this
      * method.
@@ -137,13 +137,35 @@ Set<Keyword> getKeywords() {
      *                    currently being processed. Can be null.
      * @param worker      The SwingWorker that is being used to do the
      *                    processing, will be checked for task cancellation
-     *                    before processing each keyword.
+     *                    before processing each keyword. Can be null.
      * @param notifyInbox Whether or not to write a message to the ingest
      *                    messages inbox if there is a keyword hit in the text
      *                    exrtacted from the text source object.
      *
      */
     void process(ProgressHandle progress, ProgressContributor subProgress, SwingWorker<?, ?> worker, boolean notifyInbox) {
+        fireModuleDataEvents(postHits(progress, subProgress, worker, notifyInbox));
+    }
+
+    /**
+     * Processes the keyword hits as process does, but leaves publishing the
+     * event to notify subscribers of the blackboard posts to the caller, so
+     * that the posts for several queries can be published together.
+     *
+     * @param progress    A progress indicator that reports the number of
+     *                    keywords processed. Can be null.
+     * @param subProgress A progress contributor that reports the keyword
+     *                    currently being processed. Can be null.
+     * @param worker      The SwingWorker that is being used to do the
+     *                    processing, will be checked for task cancellation
+     *                    before processing each keyword. Can be null.
+     * @param notifyInbox Whether or not to write a message to the ingest
+     *                    messages inbox if there is a keyword hit in the text
+     *                    exrtacted from the text source object.
+     *
+     * @return The artifacts posted to the blackboard.
+     */
+    Collection<BlackboardArtifact> postHits(ProgressHandle progress, ProgressContributor subProgress, SwingWorker<?, ?> worker, boolean notifyInbox) {
         /*
          * Initialize the progress indicator to the number of keywords that will
          * be processed.
@@ -161,7 +183,7 @@ void process(ProgressHandle progress, ProgressContributor subProgress, SwingWork
             /*
              * Cancellation check.
              */
-            if (worker.isCancelled()) {
+            if (worker != null && worker.isCancelled()) {
                 logger.log(Level.INFO, "Processing cancelled, exiting before processing search term {0}", keyword.getSearchTerm()); //NON-NLS
                 break;
             }
@@ -241,13 +263,18 @@ void process(ProgressHandle progress, ProgressContributor subProgress, SwingWork
 
             ++keywordsProcessed;
         }
+        return hitArtifacts;
+    }
 
-        /*
-         * Publish an event to notify subscribers of the blackboard posts. The
-         * artifacts are grouped by type, since they may contain both
-         * TSK_KEYWORD_HIT artifacts and TSK_ACCOUNT artifacts (for credit card
-         * account number hits).
-         */
+    /**
+     * Publishes events to notify subscribers of blackboard posts. The
+     * artifacts are grouped by type, since they may contain both
+     * TSK_KEYWORD_HIT artifacts and TSK_ACCOUNT artifacts (for credit card
+     * account number hits), and one event is published per type.
+     *
+     * @param hitArtifacts The posted artifacts.
+     */
+    static void fireModuleDataEvents(Collection<BlackboardArtifact> hitArtifacts) {
         if (!hitArtifacts.isEmpty()) {
             hitArtifacts.stream()
                     // Group artifacts by type
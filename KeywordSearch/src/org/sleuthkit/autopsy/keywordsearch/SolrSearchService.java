@@ -113,7 +113,7 @@ public void index(Content content) throws TskCoreException {
             }
             try {
                 ingester.indexMetaDataOnly(artifact);
-                ingester.indexText(new ArtifactTextExtractor(), artifact, null);
+                indexArtifactText(ingester, artifact);
             } catch (Ingester.IngesterException ex) {
                 throw new TskCoreException(ex.getCause().getMessage(), ex);
             }
@@ -438,10 +438,38 @@ public void indexArtifact(BlackboardArtifact artifact) throws TskCoreException {
 
         try {
             ingester.indexMetaDataOnly(artifact);
-            ingester.indexText(new ArtifactTextExtractor(), artifact, null);
+            indexArtifactText(ingester, artifact);
         } catch (Ingester.IngesterException ex) {
             throw new TskCoreException(ex.getCause().getMessage(), ex);
         }
     }
 
+    /**
+     * Adds the text of an artifact to the keyword search text index. If the
+     * artifact belongs to a data source that is being ingested by a job that
+     * matches keywords at index time, the keywords are matched against the
+     * text and the hits are posted, since the searches of the job will not
+     * look for them.
+     *
+     * @param ingester The ingester.
+     * @param artifact The artifact.
+     *
+     * @throws org.sleuthkit.autopsy.keywordsearch.Ingester.IngesterException
+     */
+    private static void indexArtifactText(Ingester ingester, BlackboardArtifact artifact) throws Ingester.IngesterException {
+        KeywordMatcher.SourceMatches keywordMatches = null;
+        try {
+            KeywordMatcher indexTimeMatcher = IngestSearchRunner.getInstance().getIndexTimeMatcherForDataSource(ArtifactTextExtractor.getDataSource(artifact).getId());
+            if (null != indexTimeMatcher) {
+                keywordMatches = indexTimeMatcher.newSourceMatches(artifact.getArtifactID());
+            }
+        } catch (TskCoreException ex) {
+            logger.log(Level.SEVERE, "Could not get data source to match keywords against the text of artifact " + artifact.getArtifactID(), ex); //NON-NLS
+        }
+        // only post the hits if the text they were found in is in the index
+        if (ingester.indexText(new ArtifactTextExtractor(), artifact, null, keywordMatches) && null != keywordMatches) {
+            keywordMatches.post();
+        }
+    }
+
 }
@@ -0,0 +1,118 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.keywordsearch;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sleuthkit.autopsy.keywordsearch.Chunker.Chunk;
+
+public class ChunkerTest {
+
+    private static final int MAX_TOTAL_CHUNK_SIZE = 32760;
+
+    public ChunkerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testChunkBoundaries() {
+        System.out.println("chunkBoundaries");
+
+        String[] words = {"alpha", "beta", "gamma", "d\u00e9lta", "\u4e2d\u6587", "\ud83d\ude00", "x"};
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 1000000) {
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        Chunker chunker = new Chunker(new StringReader(text.toString()));
+        for (Chunk chunk : chunker) {
+            chunks.add(chunk);
+        }
+        assertFalse(chunker.hasException());
+        assertTrue(chunks.size() > 1);
+
+        StringBuilder baseChunks = new StringBuilder();
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunkText = chunks.get(i).toString();
+            int baseLength = chunks.get(i).getBaseChunkLength();
+            baseChunks.append(chunkText, 0, baseLength);
+
+            //the size in bytes is exact and within the limit
+            assertEquals(chunkText.getBytes(StandardCharsets.UTF_8).length, chunks.get(i).getChunkSizeBytes());
+            assertTrue(chunks.get(i).getChunkSizeBytes() <= MAX_TOTAL_CHUNK_SIZE);
+
+            //the window is repeated at the start of the next chunk
+            if (i + 1 < chunks.size()) {
+                assertTrue(chunks.get(i + 1).toString().startsWith(chunkText.substring(baseLength)));
+            }
+        }
+        //the base chunks are the text, without gaps or overlaps
+        assertEquals(text.toString(), baseChunks.toString());
+    }
+
+    @Test
+    public void testSanitization() {
+        System.out.println("sanitization");
+
+        String text = "a\u0001b\ufffec\ud83d\ude00d\ud83de\ude00f";
+        Chunker chunker = new Chunker(new StringReader(text));
+        Chunk chunk = chunker.next();
+        assertFalse(chunker.hasNext());
+        assertEquals("a^b^c\ud83d\ude00d\ufffde\ufffdf", chunk.toString());
+        assertEquals(chunk.toString().getBytes(StandardCharsets.UTF_8).length, chunk.getChunkSizeBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testTrailingUnpairedSurrogate() {
+        System.out.println("trailingUnpairedSurrogate");
+
+        Chunker chunker = new Chunker(new StringReader("abc\ud83d"));
+        Chunk chunk = chunker.next();
+        assertFalse(chunker.hasNext());
+        assertEquals("abc\ufffd", chunk.toString());
+    }
+}
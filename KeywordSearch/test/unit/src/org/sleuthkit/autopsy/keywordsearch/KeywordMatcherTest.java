@@ -0,0 +1,153 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2018 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.keywordsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class KeywordMatcherTest {
+
+    public KeywordMatcherTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testWholeWordAndSubstringHits() {
+        System.out.println("wholeWordAndSubstringHits");
+
+        Keyword secret = new Keyword("Secret", true, true);
+        Keyword pass = new Keyword("pass", true, false);
+        Keyword regex = new Keyword("pass.*", false, false);
+        KeywordList list = new KeywordList(Arrays.asList(secret, pass, regex));
+        KeywordMatcher matcher = KeywordMatcher.create(Collections.singletonList(list));
+        assertTrue(matcher.handles(list.getName(), secret));
+        assertTrue(matcher.handles(list.getName(), pass));
+        assertFalse(matcher.handles(list.getName(), regex));
+
+        KeywordMatcher.SourceMatches matches = matcher.newSourceMatches(7);
+        matches.matchName("passwords.txt");
+        matches.matchChunk(1, "The top SECRET passenger list, not secretive");
+        matches.matchChunk(2, "another secret");
+        List<KeywordHit> hits = matches.getHits();
+        assertEquals(3, hits.size());
+
+        //one hit per term, from the first document that contains it
+        assertEquals("passwords", hits.get(0).getHit());
+        assertEquals(7, hits.get(0).getSolrObjectId());
+        assertEquals(0, hits.get(0).getChunkId());
+        assertEquals("passenger", hits.get(1).getHit());
+        assertEquals(1, hits.get(1).getChunkId());
+        assertEquals("Secret", hits.get(2).getHit());
+        assertEquals(1, hits.get(2).getChunkId());
+        assertEquals("The top \u00abSECRET\u00ab passenger list, not", hits.get(2).getSnippet());
+    }
+
+    @Test
+    public void testOverlappingKeywords() {
+        System.out.println("overlappingKeywords");
+
+        String alphabet = "abAB c.1";
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            List<Keyword> keywords = new ArrayList<>();
+            int keywordCount = 1 + random.nextInt(8);
+            for (int j = 0; j < keywordCount; j++) {
+                keywords.add(new Keyword(randomString(random, alphabet, 1 + random.nextInt(4)), true, random.nextBoolean()));
+            }
+            String text = randomString(random, alphabet, random.nextInt(60));
+
+            KeywordMatcher.SourceMatches matches = KeywordMatcher.create(Collections.singletonList(new KeywordList(keywords))).newSourceMatches(1);
+            matches.matchChunk(1, text);
+            Set<String> hits = new HashSet<>();
+            for (KeywordHit hit : matches.getHits()) {
+                hits.add(hit.getHit());
+            }
+            assertEquals(text + " " + keywords, findHits(keywords, text), hits);
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Finds the hits for some keywords in some text the slow way.
+     */
+    private static Set<String> findHits(List<Keyword> keywords, String text) {
+        Set<String> hits = new HashSet<>();
+        String lowerCaseText = text.toLowerCase();
+        for (Keyword keyword : keywords) {
+            String term = keyword.getSearchTerm().toLowerCase();
+            for (int start = lowerCaseText.indexOf(term); start >= 0; start = lowerCaseText.indexOf(term, start + 1)) {
+                int end = start + term.length();
+                if (keyword.searchTermIsWholeWord()) {
+                    if (!isLetterOrDigitAt(text, start - 1) && !isLetterOrDigitAt(text, end)) {
+                        hits.add(keyword.getSearchTerm());
+                    }
+                } else {
+                    int hitStart = start;
+                    while (isLetterOrDigitAt(text, hitStart - 1)) {
+                        hitStart--;
+                    }
+                    while (isLetterOrDigitAt(text, end)) {
+                        end++;
+                    }
+                    hits.add(lowerCaseText.substring(hitStart, end));
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static boolean isLetterOrDigitAt(String text, int index) {
+        return index >= 0 && index < text.length() && Character.isLetterOrDigit(text.charAt(index));
+    }
+}
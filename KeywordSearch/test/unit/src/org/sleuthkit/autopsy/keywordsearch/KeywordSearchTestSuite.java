@@ -27,7 +27,7 @@
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({CreditCardValidatorTest.class})
+@Suite.SuiteClasses({CreditCardValidatorTest.class, ChunkerTest.class, KeywordMatcherTest.class})
 public class KeywordSearchTestSuite {
     public KeywordSearchTestSuite() {
     }